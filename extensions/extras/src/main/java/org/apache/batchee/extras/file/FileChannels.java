@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.file;
+
+import javax.batch.operations.BatchRuntimeException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * File to file transfers done by the OS (FileChannel#transferTo), the data are never copied in the JVM heap.
+ */
+final class FileChannels {
+    private static final Logger LOGGER = Logger.getLogger(FileChannels.class.getName());
+
+    private FileChannels() {
+        // no-op
+    }
+
+    /**
+     * @param inputs comma separated paths, a path can contain a * in its name, matching files are sorted
+     *               by name comparing numbers by value (part-2 before part-10).
+     * @param allowEmpty if false a * matching no file fails, else it is only logged.
+     */
+    static List<File> inputs(final String inputs, final boolean allowEmpty) {
+        if (inputs == null) {
+            throw new BatchRuntimeException("Can't find any input");
+        }
+
+        final List<File> files = new ArrayList<File>();
+        for (final String input : inputs.split(",")) {
+            final String path = input.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+
+            final File file = new File(path);
+            final String name = file.getName();
+            final int wildcard = name.indexOf('*');
+            if (wildcard < 0) {
+                if (!file.isFile()) {
+                    throw new BatchRuntimeException("'" + path + "' doesn't exist");
+                }
+                files.add(file);
+                continue;
+            }
+
+            final String prefix = name.substring(0, wildcard);
+            final String suffix = name.substring(wildcard + 1);
+            final File parent = file.getAbsoluteFile().getParentFile();
+            final File[] matching = parent.listFiles(new FilenameFilter() {
+                @Override
+                public boolean accept(final File dir, final String candidate) {
+                    return candidate.length() >= prefix.length() + suffix.length()
+                        && candidate.startsWith(prefix) && candidate.endsWith(suffix) && new File(dir, candidate).isFile();
+                }
+            });
+            if (matching == null || matching.length == 0) {
+                if (!allowEmpty) {
+                    throw new BatchRuntimeException("No file matches '" + path + "'");
+                }
+                LOGGER.info("No file matches '" + path + "'");
+                continue;
+            }
+
+            final List<File> sorted = Arrays.asList(matching);
+            Collections.sort(sorted, NaturalOrder.INSTANCE);
+            files.addAll(sorted);
+        }
+        return files;
+    }
+
+    /**
+     * Appends from to the channel skipping the first bytes.
+     */
+    static void transfer(final File from, final long skip, final FileChannel to) throws IOException {
+        final FileInputStream in = new FileInputStream(from);
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            long position = skip;
+            while (position < size) { // transferTo can transfer less than requested
+                position += channel.transferTo(position, size - position, to);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    static void write(final FileChannel to, final byte[] bytes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            to.write(buffer);
+        }
+    }
+
+    /**
+     * @return the offset after the first lines of the file.
+     */
+    static long skipLines(final File file, final int lines, final Charset charset) throws IOException {
+        if (lines <= 0) {
+            return 0;
+        }
+
+        final byte[] newLine = encode("\n", charset);
+        final byte[] unit = new byte[newLine.length];
+        final InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            long position = 0;
+            int found = 0;
+            while (found < lines) {
+                for (int i = 0; i < unit.length; i++) {
+                    final int b = in.read();
+                    if (b < 0) {
+                        return position;
+                    }
+                    unit[i] = (byte) b;
+                    position++;
+                }
+                if (Arrays.equals(unit, newLine)) {
+                    found++;
+                }
+            }
+            return position;
+        } finally {
+            in.close();
+        }
+    }
+
+    static byte[] encode(final String value, final Charset charset) {
+        // encoding twice the value drops a byte order mark the encoder could add
+        final byte[] once = value.getBytes(charset);
+        final byte[] twice = (value + value).getBytes(charset);
+        return Arrays.copyOfRange(twice, once.length, twice.length);
+    }
+
+    static File temporary(final File target) {
+        final File parent = target.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new BatchRuntimeException("Can't create parent for " + target);
+        }
+        return new File(parent, "." + target.getName() + ".tmp");
+    }
+
+    /**
+     * Renames the temporary file to the target, other readers never see a partial target.
+     */
+    static void commit(final File temporary, final File target) {
+        if (!rename(temporary, target)) {
+            throw new BatchRuntimeException("Can't rename " + temporary + " to " + target);
+        }
+    }
+
+    /**
+     * Renames a file replacing the target. On Java 7 and later it is an atomic move (Files#move with ATOMIC_MOVE).
+     * On Java 6, or when the file system can't move atomically, an existing target is deleted first if the OS doesn't
+     * replace it: readers can then miss the target until the rename is done.
+     *
+     * @return false if the file can't be renamed, for instance to another file system.
+     */
+    static boolean rename(final File from, final File to) {
+        if (AtomicMove.MOVE != null) {
+            try {
+                AtomicMove.MOVE.invoke(null, AtomicMove.TO_PATH.invoke(from), AtomicMove.TO_PATH.invoke(to), AtomicMove.OPTIONS);
+                return true;
+            } catch (final InvocationTargetException ite) { // AtomicMoveNotSupportedException or IOException
+                if (!"java.nio.file.AtomicMoveNotSupportedException".equals(ite.getCause().getClass().getName())) {
+                    return false;
+                }
+            } catch (final IllegalAccessException e) {
+                throw new BatchRuntimeException(e);
+            }
+        }
+
+        if (from.renameTo(to)) {
+            return true;
+        }
+        if (to.exists() && !to.delete()) { // some OS don't replace an existing file
+            throw new BatchRuntimeException("Can't replace " + to);
+        }
+        return from.renameTo(to);
+    }
+
+    static void copy(final File from, final File to, final boolean atomic) throws IOException {
+        final File destination = atomic ? temporary(to) : to;
+        final File parent = destination.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new BatchRuntimeException("Can't create parent for " + to);
+        }
+
+        final FileOutputStream out = new FileOutputStream(destination);
+        try {
+            transfer(from, 0, out.getChannel());
+        } finally {
+            out.close();
+        }
+        if (atomic) {
+            commit(destination, to);
+        }
+    }
+
+    // java.nio.file is Java 7, keep Java 6 compatibility
+    private static final class AtomicMove {
+        private static final Method MOVE;
+        private static final Method TO_PATH;
+        private static final Object OPTIONS;
+
+        static {
+            Method move = null;
+            Method toPath = null;
+            Object options = null;
+            try {
+                final Class<?> copyOption = Class.forName("java.nio.file.CopyOption");
+                final Class<?> standardCopyOption = Class.forName("java.nio.file.StandardCopyOption");
+                options = Array.newInstance(copyOption, 2);
+                Array.set(options, 0, standardCopyOption.getField("ATOMIC_MOVE").get(null));
+                Array.set(options, 1, standardCopyOption.getField("REPLACE_EXISTING").get(null));
+
+                final Class<?> path = Class.forName("java.nio.file.Path");
+                move = Class.forName("java.nio.file.Files").getMethod("move", path, path, options.getClass());
+                toPath = File.class.getMethod("toPath");
+            } catch (final Exception e) { // Java 6, don't keep a partial lookup
+                move = null;
+            }
+            MOVE = move;
+            TO_PATH = toPath;
+            OPTIONS = options;
+        }
+
+        private AtomicMove() {
+            // no-op
+        }
+    }
+
+    private static class NaturalOrder implements Comparator<File> {
+        private static final NaturalOrder INSTANCE = new NaturalOrder();
+
+        @Override
+        public int compare(final File o1, final File o2) {
+            final String s1 = o1.getName();
+            final String s2 = o2.getName();
+            int i1 = 0;
+            int i2 = 0;
+            while (i1 < s1.length() && i2 < s2.length()) {
+                final char c1 = s1.charAt(i1);
+                final char c2 = s2.charAt(i2);
+                if (Character.isDigit(c1) && Character.isDigit(c2)) {
+                    int end1 = i1;
+                    while (end1 < s1.length() && Character.isDigit(s1.charAt(end1))) {
+                        end1++;
+                    }
+                    int end2 = i2;
+                    while (end2 < s2.length() && Character.isDigit(s2.charAt(end2))) {
+                        end2++;
+                    }
+                    final int diff = compareNumbers(s1.substring(i1, end1), s2.substring(i2, end2));
+                    if (diff != 0) {
+                        return diff;
+                    }
+                    i1 = end1;
+                    i2 = end2;
+                } else {
+                    if (c1 != c2) {
+                        return c1 - c2;
+                    }
+                    i1++;
+                    i2++;
+                }
+            }
+            return (s1.length() - i1) - (s2.length() - i2);
+        }
+
+        private static int compareNumbers(final String n1, final String n2) {
+            final String t1 = n1.replaceFirst("^0+(?=.)", "");
+            final String t2 = n2.replaceFirst("^0+(?=.)", "");
+            if (t1.length() != t2.length()) {
+                return t1.length() - t2.length();
+            }
+            return t1.compareTo(t2);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.file;
+
+import org.apache.batchee.doc.api.Documentation;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.Batchlet;
+import javax.batch.operations.BatchRuntimeException;
+import javax.inject.Inject;
+import java.io.File;
+
+@Documentation("Copies a file without reading it in the JVM (FileChannel#transferTo).")
+public class FileCopyBatchlet implements Batchlet {
+    @Inject
+    @BatchProperty
+    @Documentation("File to copy")
+    private String input;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Copy path")
+    private String output;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Should the copy be written in a temporary file renamed at the end (default true)")
+    private String atomic;
+
+    @Override
+    public String process() throws Exception {
+        if (input == null || output == null) {
+            throw new BatchRuntimeException("input and output should be set");
+        }
+        final File from = new File(input);
+        if (!from.isFile()) {
+            throw new BatchRuntimeException("'" + input + "' doesn't exist");
+        }
+        FileChannels.copy(from, new File(output), atomic == null || Boolean.parseBoolean(atomic));
+        return Long.toString(from.length());
+    }
+
+    @Override
+    public void stop() throws Exception {
+        // no-op
+    }
+}
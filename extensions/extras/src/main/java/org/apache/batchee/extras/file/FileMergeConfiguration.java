@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.file;
+
+import org.apache.batchee.doc.api.Documentation;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.operations.BatchRuntimeException;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+public abstract class FileMergeConfiguration {
+    @Inject
+    @BatchProperty
+    @Documentation("Comma separated input files, a file name can contain a * (matching files are sorted by name, numbers by value)")
+    private String inputs;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Should a * input matching no file be ignored instead of failing (default false)")
+    private String allowEmpty;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Merged file path")
+    private String output;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Text written at the beginning of the merged file")
+    private String header;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Text written at the end of the merged file")
+    private String footer;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Number of header lines of each input, only the ones of the first input are kept (default 0)")
+    private String headerLines;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Encoding of header, footer and inputs (default to the JVM one)")
+    private String encoding;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Should the merged file be written in a temporary file renamed at the end (default true)")
+    private String atomic;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Should inputs be deleted once merged (default false)")
+    private String deleteInputs;
+
+    /**
+     * @return the number of merged files.
+     */
+    protected int merge() throws Exception {
+        if (output == null) {
+            throw new BatchRuntimeException("Can't find any output");
+        }
+
+        final List<File> files = FileChannels.inputs(inputs, Boolean.parseBoolean(allowEmpty));
+        final Charset charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        final int lines = headerLines == null ? 0 : Integer.parseInt(headerLines);
+        final File target = new File(output);
+        final boolean temporary = atomic == null || Boolean.parseBoolean(atomic);
+        final File destination = temporary ? FileChannels.temporary(target) : target;
+        final File parent = destination.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new BatchRuntimeException("Can't create parent for " + output);
+        }
+
+        final FileOutputStream out = new FileOutputStream(destination);
+        try {
+            final FileChannel channel = out.getChannel();
+            if (header != null) {
+                FileChannels.write(channel, header.getBytes(charset));
+            }
+            boolean first = true;
+            for (final File file : files) {
+                FileChannels.transfer(file, first ? 0 : FileChannels.skipLines(file, lines, charset), channel);
+                first = false;
+            }
+            if (footer != null) {
+                FileChannels.write(channel, footer.getBytes(charset));
+            }
+        } finally {
+            out.close();
+        }
+        if (temporary) {
+            FileChannels.commit(destination, target);
+        }
+
+        if (Boolean.parseBoolean(deleteInputs)) {
+            for (final File file : files) {
+                if (!file.delete()) {
+                    throw new BatchRuntimeException("Can't delete " + file);
+                }
+            }
+        }
+        return files.size();
+    }
+}
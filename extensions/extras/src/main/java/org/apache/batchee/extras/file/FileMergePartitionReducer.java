@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.file;
+
+import org.apache.batchee.doc.api.Documentation;
+
+import javax.batch.api.partition.PartitionReducer;
+
+@Documentation("Concatenates the files written by the partitions once the step succeeded.")
+public class FileMergePartitionReducer extends FileMergeConfiguration implements PartitionReducer {
+    @Override
+    public void beginPartitionedStep() throws Exception {
+        // no-op
+    }
+
+    @Override
+    public void beforePartitionedStepCompletion() throws Exception {
+        // no-op
+    }
+
+    @Override
+    public void rollbackPartitionedStep() throws Exception {
+        // no-op
+    }
+
+    @Override
+    public void afterPartitionedStepCompletion(final PartitionStatus status) throws Exception {
+        if (PartitionStatus.COMMIT.equals(status)) {
+            merge();
+        }
+    }
+}
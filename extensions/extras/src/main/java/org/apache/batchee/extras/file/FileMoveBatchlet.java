@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.file;
+
+import org.apache.batchee.doc.api.Documentation;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.Batchlet;
+import javax.batch.operations.BatchRuntimeException;
+import javax.inject.Inject;
+import java.io.File;
+
+@Documentation("Moves a file, renaming it if possible or copying (FileChannel#transferTo) then deleting it.")
+public class FileMoveBatchlet implements Batchlet {
+    @Inject
+    @BatchProperty
+    @Documentation("File to move")
+    private String input;
+
+    @Inject
+    @BatchProperty
+    @Documentation("New path")
+    private String output;
+
+    @Override
+    public String process() throws Exception {
+        if (input == null || output == null) {
+            throw new BatchRuntimeException("input and output should be set");
+        }
+        final File from = new File(input);
+        if (!from.isFile()) {
+            throw new BatchRuntimeException("'" + input + "' doesn't exist");
+        }
+
+        final File to = new File(output);
+        final File parent = to.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new BatchRuntimeException("Can't create parent for " + output);
+        }
+        if (!FileChannels.rename(from, to)) { // another file system
+            FileChannels.copy(from, to, true);
+            if (!from.delete()) {
+                throw new BatchRuntimeException("Can't delete " + input);
+            }
+        }
+        return to.getPath();
+    }
+
+    @Override
+    public void stop() throws Exception {
+        // no-op
+    }
+}
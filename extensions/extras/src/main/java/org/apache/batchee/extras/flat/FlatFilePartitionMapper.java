@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.flat;
+
+import org.apache.batchee.doc.api.Documentation;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.operations.BatchRuntimeException;
+import javax.inject.Inject;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+@Documentation("Splits a flat file in byte ranges aligned on records, each partition gets input, encoding, quote, start and end properties.")
+public class FlatFilePartitionMapper implements PartitionMapper {
+    @Inject
+    @BatchProperty
+    @Documentation("Input file path")
+    private String input;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Number of ranges (default to the number of available processors)")
+    private String partitions;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Number of threads (default to the number of ranges)")
+    private String threads;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Input file encoding (default to the JVM one)")
+    private String encoding;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Number of header lines to skip (default 0)")
+    private String headerLines;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Quote character, when set line ends inside quoted values don't end a record. It needs a sequential scan of the file.")
+    private String quote;
+
+    @Override
+    public PartitionPlan mapPartitions() throws Exception {
+        if (input == null) {
+            throw new BatchRuntimeException("Can't find any input");
+        }
+        final File file = new File(input);
+        if (!file.exists()) {
+            throw new BatchRuntimeException("'" + input + "' doesn't exist");
+        }
+
+        final int count = partitions == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(partitions);
+        final Charset charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        final List<Long> boundaries = new ArrayList<Long>(count + 1);
+
+        final RecordScanner scanner = new RecordScanner(file, charset, quote);
+        try {
+            long start = scanner.skipBom();
+            final int headers = headerLines == null ? 0 : Integer.parseInt(headerLines);
+            for (int i = 0; i < headers && scanner.next(null); i++) {
+                start = scanner.getPosition();
+            }
+
+            final long size = scanner.size();
+            final long rangeSize = Math.max(1, (size - start) / Math.max(1, count));
+            boundaries.add(start);
+            for (int i = 1; i < count; i++) {
+                final long target = scanner.align(start, start + i * rangeSize);
+                final long previous = boundaries.get(boundaries.size() - 1);
+                if (target <= previous) {
+                    continue;
+                }
+                if (quote == null) { // the previous unit can be a line end, restart from it to not skip a record
+                    scanner.seek(scanner.align(start, target - 1));
+                    scanner.next(null);
+                } else { // quotes state is only known reading from the previous boundary
+                    while (scanner.getPosition() < target && scanner.next(null)) {
+                        // no-op
+                    }
+                }
+                final long boundary = scanner.getPosition();
+                if (boundary > previous && boundary < size) {
+                    boundaries.add(boundary);
+                }
+            }
+            boundaries.add(Math.max(start, size));
+        } finally {
+            scanner.close();
+        }
+
+        final int ranges = boundaries.size() - 1;
+        final Properties[] properties = new Properties[ranges];
+        for (int i = 0; i < ranges; i++) {
+            properties[i] = new Properties();
+            properties[i].setProperty("input", input);
+            properties[i].setProperty("encoding", charset.name());
+            if (quote != null) {
+                properties[i].setProperty("quote", quote);
+            }
+            properties[i].setProperty("start", Long.toString(boundaries.get(i)));
+            properties[i].setProperty("end", Long.toString(boundaries.get(i + 1)));
+        }
+
+        final PartitionPlan plan = new PartitionPlanImpl();
+        plan.setPartitions(ranges);
+        plan.setThreads(threads == null ? ranges : Math.min(ranges, Integer.parseInt(threads)));
+        plan.setPartitionProperties(properties);
+        return plan;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.flat;
+
+import org.apache.batchee.doc.api.Documentation;
+import org.apache.batchee.extras.locator.BeanLocator;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.ItemReader;
+import javax.batch.operations.BatchRuntimeException;
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+
+@Documentation("Reads the records of a byte range of a flat file (see FlatFilePartitionMapper), the checkpoint is the byte offset of the next record. "
+    + "The line number given to the line mapper is the number of the record in the range (1 for the record at start), not the line of the file.")
+public class FlatFileRangeItemReader implements ItemReader {
+    @Inject
+    @BatchProperty
+    @Documentation("Locator to find line mapper")
+    private String locator;
+
+    @Inject
+    @BatchProperty
+    @Documentation("The line mapper implementation or reference (see locator)")
+    private String lineMapper;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Input file path")
+    private String input;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Input file encoding (default to the JVM one)")
+    private String encoding;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Quote character, line ends inside quoted values don't end a record")
+    private String quote;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Offset of the first record of the range")
+    private String start;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Offset after the last record of the range (default to the end of the file)")
+    private String end;
+
+    @Inject
+    @BatchProperty(name = "comments")
+    @Documentation("Comma separated prefixes marking comment lines (default none)")
+    private String commentStr;
+
+    private RecordScanner scanner;
+    private Charset charset;
+    private long limit;
+    private long records;
+    private String[] comments = new String[0];
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private BeanLocator.LocatorInstance<LineMapper> mapper;
+
+    @Override
+    public void open(final Serializable checkpoint) throws Exception {
+        if (input == null) {
+            throw new BatchRuntimeException("Can't find any input");
+        }
+        final File file = new File(input);
+        if (!file.exists()) {
+            throw new BatchRuntimeException("'" + input + "' doesn't exist");
+        }
+        if (lineMapper != null) {
+            mapper = BeanLocator.Finder.get(locator).newInstance(LineMapper.class, lineMapper);
+        } else {
+            mapper = null;
+        }
+
+        comments = commentStr == null ? new String[0] : commentStr.split(",");
+
+        charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        scanner = new RecordScanner(file, charset, quote);
+        limit = end == null ? scanner.size() : Long.parseLong(end);
+        if (RangeCheckpoint.class.isInstance(checkpoint)) {
+            final RangeCheckpoint rangeCheckpoint = RangeCheckpoint.class.cast(checkpoint);
+            scanner.seek(rangeCheckpoint.position);
+            records = rangeCheckpoint.records;
+        } else if (checkpoint != null) { // offset only
+            scanner.seek(Number.class.cast(checkpoint).longValue());
+        } else if (start != null) {
+            scanner.seek(Long.parseLong(start));
+        } else {
+            scanner.skipBom();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (scanner != null) {
+            scanner.close();
+        }
+        if (mapper != null) {
+            mapper.release();
+        }
+    }
+
+    @Override
+    public Object readItem() throws Exception {
+        String line;
+        do {
+            if (scanner.getPosition() >= limit) {
+                return null;
+            }
+            record.reset();
+            if (!scanner.next(record)) {
+                return null;
+            }
+            line = record.toString(charset.name());
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            records++;
+        } while (isComment(line));
+        return preReturn(line, records);
+    }
+
+    @Override
+    public Serializable checkpointInfo() throws Exception {
+        return new RangeCheckpoint(scanner.getPosition(), records);
+    }
+
+    protected boolean isComment(final String line) {
+        for (final String prefix : comments) {
+            if (line.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected Object preReturn(final String rawLine, final long lineNumber) {
+        if (mapper != null) {
+            return mapper.getValue().map(rawLine, lineNumber);
+        }
+        return rawLine;
+    }
+
+    /**
+     * Offset of the next record and number of records already read in the range.
+     */
+    private static class RangeCheckpoint implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long position;
+        private long records;
+
+        private RangeCheckpoint() {
+            // no-op
+        }
+
+        private RangeCheckpoint(final long position, final long records) {
+            this.position = position;
+            this.records = records;
+        }
+    }
+}
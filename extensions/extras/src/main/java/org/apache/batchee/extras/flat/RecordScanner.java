@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.flat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads the raw bytes of line oriented records from any byte offset of a file.
+ *
+ * Bytes are read by code units of the encoding ("\n" size) so a multi-byte encoding never matches a line end
+ * in the middle of a character. When a quote is set a line end inside a quoted value doesn't end the record.
+ */
+class RecordScanner implements Closeable {
+    private static final byte[][] BOMS = new byte[][] {
+        { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF },
+        { (byte) 0xFE, (byte) 0xFF },
+        { (byte) 0xFF, (byte) 0xFE }
+    };
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private final byte[] newLine;
+    private final byte[] quote;
+    private final byte[] unit;
+    private long position;
+
+    RecordScanner(final File input, final Charset charset, final String quote) throws IOException {
+        this.newLine = encode(charset, "\n");
+        this.quote = quote == null || quote.isEmpty() ? null : encode(charset, quote);
+        if (this.quote != null && this.quote.length != newLine.length) {
+            throw new IllegalArgumentException("Quote '" + quote + "' should be a single code unit in " + charset);
+        }
+        this.unit = new byte[newLine.length];
+        this.file = new RandomAccessFile(input, "r");
+        this.channel = file.getChannel();
+        seek(0);
+    }
+
+    long getPosition() {
+        return position;
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    void seek(final long position) throws IOException {
+        this.position = position;
+        channel.position(position);
+        buffer.clear().flip();
+    }
+
+    /**
+     * @return the offset of the first record after a byte order mark if any.
+     */
+    long skipBom() throws IOException {
+        seek(0);
+        final byte[] start = new byte[3];
+        int read = 0;
+        while (read < start.length && readByte(start, read)) {
+            read++;
+        }
+        for (final byte[] bom : BOMS) {
+            if (read >= bom.length && Arrays.equals(bom, Arrays.copyOf(start, bom.length))) {
+                seek(bom.length);
+                return bom.length;
+            }
+        }
+        seek(0);
+        return 0;
+    }
+
+    /**
+     * Reads the next record and moves after its line end.
+     *
+     * @param out where to write the record bytes (without line end), can be null to just skip the record.
+     * @return false if the end of the file was reached before any byte of a new record.
+     */
+    boolean next(final ByteArrayOutputStream out) throws IOException {
+        boolean quoted = false;
+        boolean read = false;
+        while (readUnit()) {
+            read = true;
+            if (!quoted && Arrays.equals(unit, newLine)) {
+                return true;
+            }
+            if (quote != null && Arrays.equals(unit, quote)) {
+                quoted = !quoted; // an escaped quote ("") toggles twice
+            }
+            if (out != null) {
+                out.write(unit, 0, unit.length);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Aligns a position on the code units of the encoding counted from a start offset.
+     */
+    long align(final long start, final long target) {
+        return start + ((target - start) / newLine.length) * newLine.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private boolean readUnit() throws IOException {
+        for (int i = 0; i < unit.length; i++) {
+            if (!readByte(unit, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean readByte(final byte[] target, final int index) throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                return false;
+            }
+        }
+        target[index] = buffer.get();
+        position++;
+        return true;
+    }
+
+    private static byte[] encode(final Charset charset, final String value) throws CharacterCodingException {
+        // encoding twice the value drops a byte order mark the encoder could add
+        final ByteBuffer once = charset.newEncoder().encode(CharBuffer.wrap(value));
+        final ByteBuffer twice = charset.newEncoder().encode(CharBuffer.wrap(value + value));
+        final int size = twice.remaining() - once.remaining();
+        final byte[] bytes = new byte[size];
+        twice.position(twice.limit() - size);
+        twice.get(bytes);
+        return bytes;
+    }
+}
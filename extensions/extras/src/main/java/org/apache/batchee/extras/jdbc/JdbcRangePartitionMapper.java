@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.jdbc;
+
+import org.apache.batchee.doc.api.Documentation;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.operations.BatchRuntimeException;
+import javax.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+@Documentation("Splits a table in key ranges, each partition gets lower, upper (both inclusive), key and keyType properties for JdbcReader.")
+public class JdbcRangePartitionMapper extends JdbcConnectionConfiguration implements PartitionMapper {
+    @Inject
+    @BatchProperty
+    @Documentation("The table to split")
+    private String table;
+
+    @Inject
+    @BatchProperty
+    @Documentation("The key column, numeric or sortable")
+    private String key;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Optional condition (without WHERE) restricting the rows")
+    private String where;
+
+    @Inject
+    @BatchProperty
+    @Documentation("minmax (default) splits [min, max] of an integral key in equal spans, quantile reads the sorted keys to put the same number of rows in each range")
+    private String mode;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Number of ranges (default to the number of available processors)")
+    private String partitions;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Number of threads (default to the number of ranges)")
+    private String threads;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Fetch size used to read the keys in quantile mode (default 1000)")
+    private String fetchSize;
+
+    @Override
+    public PartitionPlan mapPartitions() throws Exception {
+        if (table == null || key == null) {
+            throw new BatchRuntimeException("table and key should be set");
+        }
+
+        final int count = partitions == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(partitions);
+        final List<String[]> ranges = new ArrayList<String[]>(count);
+        final KeyType type;
+        final Connection conn = connection();
+        try {
+            if (mode == null || mode.isEmpty() || "minmax".equals(mode)) {
+                type = minMaxRanges(conn, count, ranges);
+            } else if ("quantile".equals(mode)) {
+                type = quantileRanges(conn, count, ranges);
+            } else {
+                throw new BatchRuntimeException("Unknown mode '" + mode + "', use minmax or quantile");
+            }
+        } finally {
+            conn.close();
+        }
+
+        if (ranges.isEmpty()) { // no row, null bounds match nothing
+            ranges.add(new String[2]);
+        }
+
+        final Properties[] properties = new Properties[ranges.size()];
+        for (int i = 0; i < properties.length; i++) {
+            properties[i] = new Properties();
+            properties[i].setProperty("keyType", type.name());
+            properties[i].setProperty("key", key);
+            if (ranges.get(i)[0] != null) {
+                properties[i].setProperty("lower", ranges.get(i)[0]);
+                properties[i].setProperty("upper", ranges.get(i)[1]);
+            }
+        }
+
+        final PartitionPlan plan = new PartitionPlanImpl();
+        plan.setPartitions(properties.length);
+        plan.setThreads(threads == null ? properties.length : Math.min(properties.length, Integer.parseInt(threads)));
+        plan.setPartitionProperties(properties);
+        return plan;
+    }
+
+    private KeyType minMaxRanges(final Connection conn, final int count, final List<String[]> ranges) throws Exception {
+        final PreparedStatement statement = conn.prepareStatement("SELECT MIN(" + key + "), MAX(" + key + ") FROM " + table + condition());
+        try {
+            final ResultSet resultSet = statement.executeQuery();
+            try {
+                resultSet.next();
+                final KeyType type = KeyType.of(resultSet.getMetaData().getColumnType(1));
+                if (type != KeyType.LONG) {
+                    throw new BatchRuntimeException("minmax mode needs an integral key, use quantile mode for " + key);
+                }
+
+                final long min = resultSet.getLong(1);
+                if (resultSet.wasNull()) {
+                    return type;
+                }
+                final long max = resultSet.getLong(2);
+                final long span = (max - min) / count + 1;
+                for (long lower = min; lower <= max; lower += span) {
+                    ranges.add(new String[] { Long.toString(lower), Long.toString(Math.min(max, lower + span - 1)) });
+                    if (max - lower < span) { // avoid an overflow of lower
+                        break;
+                    }
+                }
+                return type;
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    // skewed keys: each range gets the same number of rows, a key value is never split between two ranges
+    private KeyType quantileRanges(final Connection conn, final int count, final List<String[]> ranges) throws Exception {
+        final long rows;
+        final PreparedStatement countStatement = conn.prepareStatement("SELECT COUNT(*) FROM " + table + condition());
+        try {
+            final ResultSet resultSet = countStatement.executeQuery();
+            try {
+                resultSet.next();
+                rows = resultSet.getLong(1);
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            countStatement.close();
+        }
+
+        final PreparedStatement statement = conn.prepareStatement("SELECT " + key + " FROM " + table + condition() + " ORDER BY " + key,
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize == null ? 1000 : Integer.parseInt(fetchSize));
+            final ResultSet resultSet = statement.executeQuery();
+            try {
+                final KeyType type = KeyType.of(resultSet.getMetaData().getColumnType(1));
+                final long rowsPerRange = Math.max(1, rows / count + (rows % count == 0 ? 0 : 1));
+
+                long index = 0;
+                long nextBoundary = rowsPerRange;
+                Object lower = null;
+                Object previous = null;
+                while (resultSet.next()) {
+                    final Object value = resultSet.getObject(1);
+                    if (value == null) {
+                        continue;
+                    }
+                    if (lower == null) {
+                        lower = value;
+                    } else if (index >= nextBoundary && !value.equals(previous)) {
+                        ranges.add(new String[] { String.valueOf(lower), String.valueOf(previous) });
+                        lower = value;
+                        nextBoundary = index + rowsPerRange;
+                    }
+                    previous = value;
+                    index++;
+                }
+                if (lower != null) {
+                    ranges.add(new String[] { String.valueOf(lower), String.valueOf(previous) });
+                }
+                return type;
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private String condition() {
+        return where == null || where.trim().isEmpty() ? "" : " WHERE " + where;
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.batchee.extras.locator.BeanLocator;
 
 import javax.batch.api.BatchProperty;
 import javax.batch.api.chunk.ItemReader;
+import javax.batch.operations.BatchRuntimeException;
 import javax.inject.Inject;
 import java.io.Serializable;
 import java.sql.Connection;
@@ -45,24 +46,84 @@ public class JdbcReader extends JdbcConnectionConfiguration implements ItemReade
     @Documentation("The query to execute to find data")
     private String query;
 
+    @Inject
+    @BatchProperty
+    @Documentation("Type of the range bounds (see JdbcRangePartitionMapper), when set the query is executed once with lower and upper as first parameters")
+    private String keyType;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Column of the query holding the range key, the query should be ordered by this key")
+    private String key;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Whether the range key is unique (default true), a duplicated key then fails the read. "
+        + "Set it to false if rows can share a key, the query must then order them deterministically (by the key then a unique column) "
+        + "since a restart skips the rows already read for the last key")
+    private String uniqueKey;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Inclusive lower bound of the key range")
+    private String lower;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Inclusive upper bound of the key range")
+    private String upper;
+
+    @Inject
+    @BatchProperty
+    @Documentation("Fetch size of the range query (default 1000)")
+    private String fetchSize;
+
     private LinkedList<Object> items;
     private BeanLocator.LocatorInstance<RecordMapper> mapper;
+    private KeyType rangeType;
+    private boolean unique;
+    private RangeCheckpoint position;
+    private long toSkip;
+    private Connection rangeConnection;
+    private PreparedStatement rangeStatement;
+    private ResultSet rangeResultSet;
 
     @Override
     public void open(final Serializable checkpoint) throws Exception {
         mapper = BeanLocator.Finder.get(locator).newInstance(RecordMapper.class, mapperStr);
         items = new LinkedList<Object>();
+        rangeType = keyType == null || keyType.isEmpty() ? null : KeyType.valueOf(keyType);
+        if (rangeType != null) {
+            if (key == null || key.isEmpty()) {
+                throw new BatchRuntimeException("key should be set with keyType");
+            }
+            unique = uniqueKey == null || uniqueKey.trim().isEmpty() || Boolean.parseBoolean(uniqueKey.trim());
+            if (checkpoint != null) { // restart from the last read key, rows sharing it were already read if counted
+                position = RangeCheckpoint.class.cast(checkpoint);
+                toSkip = position.sameKey;
+            } else {
+                position = new RangeCheckpoint();
+            }
+        }
     }
 
     @Override
     public void close() throws Exception {
-        if (mapper != null) {
-            mapper.release();
+        try {
+            closeRange();
+        } finally {
+            if (mapper != null) {
+                mapper.release();
+            }
         }
     }
 
     @Override
     public Object readItem() throws Exception {
+        if (rangeType != null) {
+            return readRangeItem();
+        }
+
         if (items.isEmpty()) {
             final Connection conn = connection();
             try {
@@ -93,8 +154,95 @@ public class JdbcReader extends JdbcConnectionConfiguration implements ItemReade
         return items.pop();
     }
 
+    // streams the range from a cursor kept open between chunks, only the current row is in memory
+    private Object readRangeItem() throws Exception {
+        if (rangeConnection == null) {
+            if (position.key == null && position.sameKey < 0) { // already exhausted
+                return null;
+            }
+            rangeConnection = connection();
+            rangeStatement = rangeConnection.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_UPDATABLE,
+                ResultSet.HOLD_CURSORS_OVER_COMMIT);
+            rangeStatement.setFetchSize(fetchSize == null ? 1000 : Integer.parseInt(fetchSize));
+            rangeType.bind(rangeStatement, 1, position.key != null ? position.key : lower);
+            rangeType.bind(rangeStatement, 2, upper);
+            rangeResultSet = rangeStatement.executeQuery();
+        }
+
+        while (rangeResultSet.next()) {
+            final String current = rangeType.get(rangeResultSet, key);
+            if (toSkip > 0 && current != null && current.equals(position.key)) {
+                toSkip--;
+                continue;
+            }
+            toSkip = 0;
+
+            if (current != null && current.equals(position.key)) {
+                if (unique) {
+                    throw new BatchRuntimeException("Key " + key + " = " + current + " is duplicated, set uniqueKey to false "
+                        + "and order the query by " + key + " then by a unique column");
+                }
+                position.sameKey++;
+            } else {
+                position.key = current;
+                position.sameKey = 1;
+            }
+            return mapper.getValue().map(rangeResultSet);
+        }
+
+        closeRange();
+        position.key = null;
+        position.sameKey = -1;
+        return null;
+    }
+
+    private void closeRange() throws Exception {
+        try {
+            if (rangeResultSet != null) {
+                rangeResultSet.close();
+            }
+        } finally {
+            try {
+                if (rangeStatement != null) {
+                    rangeStatement.close();
+                }
+            } finally {
+                if (rangeConnection != null) {
+                    rangeConnection.close();
+                }
+                rangeResultSet = null;
+                rangeStatement = null;
+                rangeConnection = null;
+            }
+        }
+    }
+
     @Override
     public Serializable checkpointInfo() throws Exception {
+        if (rangeType != null) {
+            return new RangeCheckpoint(position.key, position.sameKey);
+        }
         return null; // datasource can be JtaManaged in a container supporting it
     }
+
+    /**
+     * Last read key and how many rows with this key were read, -1 once the range is fully read.
+     */
+    private static class RangeCheckpoint implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String key;
+        private long sameKey;
+
+        private RangeCheckpoint() {
+            // no-op
+        }
+
+        private RangeCheckpoint(final String key, final long sameKey) {
+            this.key = key;
+            this.sameKey = sameKey;
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Type of a range key: range bounds are partition properties (strings) so they are converted back when bound.
+ */
+enum KeyType {
+    LONG(Types.BIGINT) {
+        @Override
+        void set(final PreparedStatement statement, final int index, final String value) throws SQLException {
+            statement.setLong(index, Long.parseLong(value));
+        }
+
+        @Override
+        String get(final ResultSet resultSet, final String column) throws SQLException {
+            final long value = resultSet.getLong(column);
+            return resultSet.wasNull() ? null : Long.toString(value);
+        }
+    },
+    DECIMAL(Types.DECIMAL) {
+        @Override
+        void set(final PreparedStatement statement, final int index, final String value) throws SQLException {
+            statement.setBigDecimal(index, new BigDecimal(value));
+        }
+
+        @Override
+        String get(final ResultSet resultSet, final String column) throws SQLException {
+            final BigDecimal value = resultSet.getBigDecimal(column);
+            return value == null ? null : value.toPlainString();
+        }
+    },
+    DATE(Types.DATE) {
+        @Override
+        void set(final PreparedStatement statement, final int index, final String value) throws SQLException {
+            statement.setDate(index, Date.valueOf(value));
+        }
+
+        @Override
+        String get(final ResultSet resultSet, final String column) throws SQLException {
+            final Date value = resultSet.getDate(column);
+            return value == null ? null : value.toString();
+        }
+    },
+    TIMESTAMP(Types.TIMESTAMP) {
+        @Override
+        void set(final PreparedStatement statement, final int index, final String value) throws SQLException {
+            statement.setTimestamp(index, Timestamp.valueOf(value));
+        }
+
+        @Override
+        String get(final ResultSet resultSet, final String column) throws SQLException {
+            final Timestamp value = resultSet.getTimestamp(column);
+            return value == null ? null : value.toString();
+        }
+    },
+    STRING(Types.VARCHAR) {
+        @Override
+        void set(final PreparedStatement statement, final int index, final String value) throws SQLException {
+            statement.setString(index, value);
+        }
+
+        @Override
+        String get(final ResultSet resultSet, final String column) throws SQLException {
+            return resultSet.getString(column);
+        }
+    };
+
+    private final int sqlType;
+
+    KeyType(final int sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    abstract void set(PreparedStatement statement, int index, String value) throws SQLException;
+
+    /**
+     * @return the value of the column in the format {@link #set(PreparedStatement, int, String)} reads.
+     */
+    abstract String get(ResultSet resultSet, String column) throws SQLException;
+
+    /**
+     * Binds a bound, a missing bound matches no row.
+     */
+    void bind(final PreparedStatement statement, final int index, final String value) throws SQLException {
+        if (value == null || value.isEmpty()) {
+            statement.setNull(index, sqlType);
+        } else {
+            set(statement, index, value);
+        }
+    }
+
+    static KeyType of(final int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return LONG;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DECIMAL;
+            case Types.DATE:
+                return DATE;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            default:
+                return STRING;
+        }
+    }
+}
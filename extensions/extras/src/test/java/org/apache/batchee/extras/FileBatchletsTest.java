@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras;
+
+import org.apache.batchee.extras.util.IOs;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class FileBatchletsTest {
+    private static final int PARTITIONS = 12;
+
+    @Test
+    public void mergePartitionsInOrder() throws Exception {
+        final File directory = new File("target/work/FileMergeReducer");
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("directory", directory.getPath());
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.start("file-merge-reducer", jobParams)), BatchStatus.COMPLETED);
+
+        final StringBuilder expected = new StringBuilder("header\n");
+        for (int i = 0; i < PARTITIONS; i++) { // part-2 before part-10
+            expected.append(i).append("-a\n").append(i).append("-b\n");
+        }
+        expected.append("footer\n");
+        assertEquals(read(new File(directory, "merged.txt")), expected.toString());
+        assertFalse(new File(directory, "part-0.txt").exists());
+    }
+
+    @Test
+    public void mergeCopyMove() throws Exception {
+        final File directory = new File("target/work/FileBatchlets");
+        IOs.write(new File(directory, "a.csv").getPath(), "name,age\nfoo,1\n");
+        IOs.write(new File(directory, "b.csv").getPath(), "name,age\nbar,2\n");
+        IOs.write(new File(directory, "moved/merged.csv").getPath(), "previous\n"); // replaced by the move
+
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("directory", directory.getPath());
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.start("file-batchlets", jobParams)), BatchStatus.COMPLETED);
+
+        final String merged = "name,age\nfoo,1\nbar,2\n";
+        assertEquals(read(new File(directory, "merged.csv")), merged);
+        assertFalse(new File(directory, "copy/merged.csv").exists());
+        assertEquals(read(new File(directory, "moved/merged.csv")), merged);
+        assertTrue(new File(directory, "a.csv").exists());
+    }
+
+    @Test
+    public void emptyWildcard() throws Exception {
+        final File directory = new File("target/work/FileMergeEmpty");
+        final File merged = new File(directory, "merged.csv");
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("directory", directory.getPath());
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        jobParams.setProperty("allowEmpty", "false");
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.start("file-merge-empty", jobParams)), BatchStatus.FAILED);
+        assertFalse(merged.exists());
+
+        jobParams.setProperty("allowEmpty", "true");
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.start("file-merge-empty", jobParams)), BatchStatus.COMPLETED);
+        assertEquals(read(merged), "name,age\n");
+    }
+
+    private static String read(final File file) throws IOException {
+        final byte[] bytes = new byte[(int) file.length()];
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            int read = 0;
+            while (read < bytes.length) {
+                read += in.read(bytes, read, bytes.length - read);
+            }
+        } finally {
+            in.close();
+        }
+        return new String(bytes, "UTF-8");
+    }
+
+    public static class Mapper implements PartitionMapper {
+        @Override
+        public PartitionPlan mapPartitions() throws Exception {
+            final Properties[] properties = new Properties[PARTITIONS];
+            for (int i = 0; i < PARTITIONS; i++) {
+                properties[i] = new Properties();
+                properties[i].setProperty("idx", Integer.toString(i));
+            }
+
+            final PartitionPlan plan = new PartitionPlanImpl();
+            plan.setPartitions(PARTITIONS);
+            plan.setThreads(4);
+            plan.setPartitionProperties(properties);
+            return plan;
+        }
+    }
+
+    public static class PartitionReader extends AbstractItemReader {
+        @Inject
+        @BatchProperty
+        private String idx;
+
+        private int read;
+
+        @Override
+        public Object readItem() throws Exception {
+            switch (read++) {
+                case 0:
+                    return idx + "-a";
+                case 1:
+                    return idx + "-b";
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras;
+
+import org.apache.batchee.extras.flat.LineMapper;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.ItemProcessor;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class FlatFilePartitionMapperTest {
+    @Test
+    public void multiByteLines() throws Exception {
+        final List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            lines.add("ligne " + i + " été 日本");
+        }
+        assertEquals(run("target/work/FlatFilePartitionMapper-utf8.txt", "UTF-8", null, lines, "\n"), lines);
+    }
+
+    @Test
+    public void utf16() throws Exception {
+        final List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            lines.add("line " + i + " ਊ"); // 0x0A bytes not being a line end
+        }
+        assertEquals(run("target/work/FlatFilePartitionMapper-utf16.txt", "UTF-16LE", null, lines, "\r\n"), lines);
+    }
+
+    @Test
+    public void quotedLineEnds() throws Exception {
+        final List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            lines.add(i + ",\"multi\nline \"\"" + i + "\"\"\nvalue\",end");
+        }
+        assertEquals(run("target/work/FlatFilePartitionMapper-quotes.csv", "UTF-8", "\"", lines, "\n"), lines);
+    }
+
+    @Test
+    public void hashIsNotACommentByDefault() throws Exception {
+        final List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            lines.add("#" + i + ",value");
+        }
+        assertEquals(run("target/work/FlatFilePartitionMapper-hash.csv", "UTF-8", null, lines, "\n"), lines);
+    }
+
+    @Test
+    public void restartKeepsRecordNumbers() throws Exception {
+        final File file = new File("target/work/FlatFilePartitionMapper-restart.txt");
+        file.getParentFile().mkdirs();
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (int i = 0; i < 50; i++) {
+                writer.write("line " + i + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+
+        FailOnce.ITEMS.clear();
+        FailOnce.fail = true;
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("input", file.getPath());
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        final long id = jobOperator.start("flat-file-partition-restart", jobParams);
+        assertEquals(Batches.waitFor(jobOperator, id), BatchStatus.FAILED);
+        FailOnce.fail = false;
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.restart(id, jobParams)), BatchStatus.COMPLETED);
+
+        // the restart reads again the records of the failed chunk, they keep their number
+        assertTrue(FailOnce.ITEMS.size() > 50, FailOnce.ITEMS.toString());
+        final Map<String, String> numbers = new HashMap<String, String>();
+        for (final Object item : FailOnce.ITEMS) {
+            final String[] numbered = String.class.cast(item).split("\\|");
+            final String previous = numbers.put(numbered[1], numbered[0]);
+            if (previous != null) {
+                assertEquals(numbered[0], previous, numbered[1]);
+            }
+        }
+        assertEquals(numbers.size(), 50);
+    }
+
+    private static List<String> run(final String path, final String encoding, final String quote,
+                                    final List<String> lines, final String lineEnd) throws Exception {
+        final File file = new File(path);
+        file.getParentFile().mkdirs();
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), encoding);
+        try {
+            writer.write("header" + lineEnd);
+            for (final String line : lines) {
+                writer.write(line + lineEnd);
+            }
+        } finally {
+            writer.close();
+        }
+
+        StoreItems.ITEMS.clear();
+        StoreItems.STARTS.clear();
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("input", path);
+        jobParams.setProperty("encoding", encoding);
+        if (quote != null) {
+            jobParams.setProperty("quote", quote);
+        }
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.start("flat-file-partition", jobParams)), BatchStatus.COMPLETED);
+
+        final List<String> items = new ArrayList<String>();
+        for (final Object item : StoreItems.ITEMS) {
+            items.add(String.class.cast(item));
+        }
+        Collections.sort(items, new NumberComparator());
+        assertTrue(StoreItems.STARTS.size() > 1, StoreItems.STARTS.toString());
+        return items;
+    }
+
+    private static class NumberComparator implements Comparator<String> {
+        @Override
+        public int compare(final String o1, final String o2) {
+            return number(o1) - number(o2);
+        }
+
+        private static int number(final String value) {
+            final StringBuilder digits = new StringBuilder();
+            for (final char c : value.toCharArray()) {
+                if (Character.isDigit(c)) {
+                    digits.append(c);
+                } else if (digits.length() > 0) {
+                    break;
+                }
+            }
+            return Integer.parseInt(digits.toString());
+        }
+    }
+
+    public static class StoreItems implements ItemProcessor {
+        public static final Collection<Object> ITEMS = Collections.synchronizedList(new ArrayList<Object>());
+        public static final Set<String> STARTS = new CopyOnWriteArraySet<String>();
+
+        @Inject
+        @BatchProperty
+        private String start;
+
+        @Override
+        public Object processItem(final Object item) throws Exception {
+            STARTS.add(start);
+            ITEMS.add(item);
+            return item;
+        }
+    }
+
+    public static class NumberedLines implements LineMapper {
+        @Override
+        public Object map(final String line, final long lineNumber) {
+            return lineNumber + "|" + line;
+        }
+    }
+
+    public static class FailOnce implements ItemProcessor {
+        public static final Collection<Object> ITEMS = Collections.synchronizedList(new ArrayList<Object>());
+        private static volatile boolean fail;
+
+        @Override
+        public Object processItem(final Object item) throws Exception {
+            if (fail && String.class.cast(item).endsWith("|line 21")) {
+                throw new IllegalStateException("failing once on " + item);
+            }
+            ITEMS.add(item);
+            return item;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.extras;
+
+import org.apache.batchee.extras.jdbc.RecordMapper;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.api.chunk.ItemProcessor;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.inject.Inject;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+
+public class JdbcRangePartitionMapperTest {
+    private static final int ROWS = 100;
+
+    @BeforeClass
+    public static void createTable() throws Exception {
+        Class.forName("org.apache.derby.jdbc.EmbeddedDriver");
+        final Connection c = DriverManager.getConnection("jdbc:derby:memory:jdbcrange;create=true", "app", "app");
+        try {
+            PreparedStatement statement = c.prepareStatement("CREATE TABLE RANGES(id BIGINT NOT NULL PRIMARY KEY, created TIMESTAMP, name VARCHAR(512))");
+            statement.executeUpdate();
+            statement.close();
+
+            statement = c.prepareStatement("INSERT INTO RANGES (id, created, name) VALUES(?, ?, ?)");
+            for (int i = 0; i < ROWS; i++) {
+                statement.setLong(1, i < 90 ? i : 1000000 + i); // skewed
+                statement.setTimestamp(2, new Timestamp(1000L * 60 * (i / 3))); // duplicates
+                statement.setString(3, "name" + i);
+                statement.executeUpdate();
+            }
+            statement.close();
+        } finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void minMax() {
+        final Map<String, AtomicInteger> partitions = run("id", "minmax", "true");
+        assertEquals(partitions.size(), 2); // the middle ranges are empty
+    }
+
+    @Test
+    public void quantile() {
+        final Map<String, AtomicInteger> partitions = run("id", "quantile", "true");
+        assertEquals(partitions.size(), 4);
+        for (final AtomicInteger count : partitions.values()) {
+            assertEquals(count.get(), ROWS / 4);
+        }
+    }
+
+    @Test
+    public void quantileWithDuplicatedKeys() {
+        final Map<String, AtomicInteger> partitions = run("created", "quantile", "false");
+        final List<Integer> counts = new ArrayList<Integer>();
+        for (final AtomicInteger count : partitions.values()) {
+            counts.add(count.get());
+        }
+        Collections.sort(counts);
+        assertEquals(counts, asList(19, 27, 27, 27)); // rows sharing a key stay in the same range
+    }
+
+    @Test
+    public void duplicatedKeyFailsWhenDeclaredUnique() {
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("key", "created");
+        jobParams.setProperty("mode", "quantile");
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.start("jdbc-range-partition", jobParams)), BatchStatus.FAILED);
+    }
+
+    @Test
+    public void restartFromLastUniqueKey() {
+        restart("id", "true");
+    }
+
+    @Test
+    public void restartFromLastDuplicatedKey() {
+        restart("created", "false"); // the query orders rows sharing a key by id
+    }
+
+    private static void restart(final String key, final String uniqueKey) {
+        StoreWrittenItems.ITEMS.clear();
+        FailOnce.failed = false;
+
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("key", key);
+        jobParams.setProperty("uniqueKey", uniqueKey);
+        jobParams.setProperty("mode", "quantile");
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        final long id = jobOperator.start("jdbc-range-partition-restart", jobParams);
+        assertEquals(Batches.waitFor(jobOperator, id), BatchStatus.FAILED);
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.restart(id, jobParams)), BatchStatus.COMPLETED);
+
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < ROWS; i++) {
+            expected.add("name" + i);
+        }
+        final List<String> names = new ArrayList<String>();
+        for (final Object item : StoreWrittenItems.ITEMS) {
+            names.add(String.class.cast(item));
+        }
+        assertEquals(names.size(), ROWS); // the rows sharing the checkpointed key are not read again
+        assertEquals(new HashSet<String>(names), new HashSet<String>(expected));
+    }
+
+    private static Map<String, AtomicInteger> run(final String key, final String mode, final String uniqueKey) {
+        StoreItems.ITEMS.clear();
+        StoreItems.PARTITIONS.clear();
+
+        final Properties jobParams = new Properties();
+        jobParams.setProperty("key", key);
+        jobParams.setProperty("uniqueKey", uniqueKey);
+        jobParams.setProperty("mode", mode);
+
+        final JobOperator jobOperator = BatchRuntime.getJobOperator();
+        assertEquals(Batches.waitFor(jobOperator, jobOperator.start("jdbc-range-partition", jobParams)), BatchStatus.COMPLETED);
+
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < ROWS; i++) {
+            expected.add("name" + i);
+        }
+        final List<String> names = new ArrayList<String>();
+        for (final Object item : StoreItems.ITEMS) {
+            names.add(String.class.cast(item));
+        }
+        assertEquals(names.size(), ROWS); // no duplicate
+        assertEquals(new HashSet<String>(names), new HashSet<String>(expected));
+        return StoreItems.PARTITIONS;
+    }
+
+    public static class NameMapper implements RecordMapper {
+        @Override
+        public Object map(final ResultSet resultSet) throws SQLException {
+            return resultSet.getString("name");
+        }
+    }
+
+    public static class FailOnce implements ItemProcessor {
+        private static volatile boolean failed;
+
+        @Override
+        public Object processItem(final Object item) throws Exception {
+            if (!failed && "name40".equals(item)) { // name39, name40 and name41 share the same created key
+                failed = true;
+                throw new IllegalStateException("fail once");
+            }
+            return item;
+        }
+    }
+
+    public static class StoreWrittenItems extends AbstractItemWriter {
+        public static final Collection<Object> ITEMS = Collections.synchronizedList(new ArrayList<Object>());
+
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            ITEMS.addAll(items);
+        }
+    }
+
+    public static class StoreItems implements ItemProcessor {
+        public static final Collection<Object> ITEMS = Collections.synchronizedList(new ArrayList<Object>());
+        public static final ConcurrentHashMap<String, AtomicInteger> PARTITIONS = new ConcurrentHashMap<String, AtomicInteger>();
+
+        @Inject
+        @BatchProperty
+        private String lower;
+
+        @Override
+        public Object processItem(final Object item) throws Exception {
+            ITEMS.add(item);
+            PARTITIONS.putIfAbsent(lower, new AtomicInteger());
+            PARTITIONS.get(lower).incrementAndGet();
+            return item;
+        }
+    }
+}
@@ -66,6 +66,19 @@ public interface JBatchResource {
     @Path("step-executions/{id}")
     RestStepExecution[] getStepExecutions(final @PathParam("id") long jobExecutionId);
 
+    @GET
+    @Path("step-executions/running/{id}")
+    RestProperties getRunningStepMetrics(final @PathParam("id") long jobExecutionId);
+
+    @GET
+    @Path("step-executions/user-metrics/{id}")
+    RestProperties getUserMetrics(final @PathParam("id") long jobExecutionId);
+
+    @GET
+    @Path("metrics")
+    @Produces("text/plain; version=0.0.4; charset=utf-8") // prometheus text format
+    String getMetrics();
+
     @POST
     @Path("execution/start/{name}")
     long start(final @PathParam("name") String jobXMLName, final RestProperties jobParameters);
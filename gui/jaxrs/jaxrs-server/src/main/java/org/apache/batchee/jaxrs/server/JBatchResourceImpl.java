@@ -16,11 +16,15 @@
  */
 package org.apache.batchee.jaxrs.server;
 
+import org.apache.batchee.container.impl.UserMetrics;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
 import org.apache.batchee.jaxrs.common.JBatchResource;
 import org.apache.batchee.jaxrs.common.RestJobExecution;
 import org.apache.batchee.jaxrs.common.RestJobInstance;
 import org.apache.batchee.jaxrs.common.RestProperties;
 import org.apache.batchee.jaxrs.common.RestStepExecution;
+import org.apache.batchee.metrics.PrometheusMetrics;
 
 import javax.annotation.PostConstruct;
 import javax.batch.operations.JobOperator;
@@ -36,6 +40,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 @Consumes({ MediaType.APPLICATION_JSON })
@@ -108,6 +114,33 @@ public class JBatchResourceImpl implements JBatchResource {
         return restStepExecutions.toArray(new RestStepExecution[restStepExecutions.size()]);
     }
 
+    @GET
+    @Path("step-executions/running/{id}")
+    public RestProperties getRunningStepMetrics(final @PathParam("id") long jobExecutionId) {
+        final Properties metrics = new Properties();
+        for (final Map.Entry<String, Long> metric : ServicesManager.find().service(StepMetricsRegistry.class).getRunningStepMetrics(jobExecutionId).entrySet()) {
+            metrics.setProperty(metric.getKey(), Long.toString(metric.getValue()));
+        }
+        return RestProperties.wrap(metrics);
+    }
+
+    @GET
+    @Path("step-executions/user-metrics/{id}")
+    public RestProperties getUserMetrics(final @PathParam("id") long jobExecutionId) {
+        final Properties metrics = new Properties();
+        for (final Map.Entry<String, Long> metric : UserMetrics.forExecution(operator.getStepExecutions(jobExecutionId)).entrySet()) {
+            metrics.setProperty(metric.getKey(), Long.toString(metric.getValue()));
+        }
+        return RestProperties.wrap(metrics);
+    }
+
+    @GET
+    @Path("metrics")
+    @Produces(PrometheusMetrics.CONTENT_TYPE)
+    public String getMetrics() {
+        return PrometheusMetrics.scrape();
+    }
+
     @POST
     @Path("execution/start/{name}")
     public long start(final @PathParam("name") String jobXMLName, final RestProperties jobParameters) {
@@ -47,6 +47,7 @@ import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(Arquillian.class)
 public class RestTest {
@@ -133,6 +134,28 @@ public class RestTest {
         assertEquals(BatchStatus.COMPLETED, executions[0].getBatchStatus());
     }
 
+    @Test
+    public void getRunningStepMetrics() {
+        final RestProperties metrics = newClient().path("step-executions/running/{id}", 0).get(RestProperties.class);
+        assertNotNull(metrics);
+        assertEquals(0, metrics.getEntries().size()); // nothing running
+    }
+
+    @Test
+    public void getUserMetrics() {
+        final RestProperties metrics = newClient().path("step-executions/user-metrics/{id}", 0).get(RestProperties.class);
+        assertNotNull(metrics);
+        assertEquals(0, metrics.getEntries().size()); // the init batchlet records none
+    }
+
+    @Test
+    public void getMetrics() {
+        final String metrics = WebClient.create(base.toExternalForm() + "api/batchee").path("metrics").accept(MediaType.TEXT_PLAIN_TYPE).get(String.class);
+        assertNotNull(metrics);
+        assertTrue(metrics, metrics.contains("# TYPE batchee_running_jobs gauge\n"));
+        assertTrue(metrics, metrics.contains("# TYPE batchee_chunk_phase_seconds summary\n"));
+    }
+
     @Deployment(testable = false)
     @OverProtocol("Servlet 2.5") // to use a custom web.xml
     public static Archive<?> war() {
@@ -33,6 +33,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.URLDecoder;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -56,9 +58,11 @@ public class JBatchController extends HttpServlet {
     private static final String DO_START_MAPPING = "/doStart/";
     private static final String VIEW_MAPPING = "/view/";
     private static final String SIMPLEREST_MAPPING = "/rest/";
+    private static final String METRICS_MAPPING = "/metrics";
 
     private JobOperator operator;
     private SimpleRestController simpleRestController;
+    private Method metrics;
 
     private String context;
     private String mapping = DEFAULT_MAPPING_SERVLET25;
@@ -91,6 +95,13 @@ public class JBatchController extends HttpServlet {
 
         mapping = context + mapping;
         this.simpleRestController = new SimpleRestController(operator);
+
+        // only available with BatchEE implementation, not linked at compile time as other views
+        try {
+            metrics = Thread.currentThread().getContextClassLoader().loadClass("org.apache.batchee.metrics.PrometheusMetrics").getMethod("scrape");
+        } catch (final Exception e) {
+            metrics = null;
+        }
     }
 
     @Override
@@ -132,6 +143,9 @@ public class JBatchController extends HttpServlet {
         } else if (path != null && path.startsWith(SIMPLEREST_MAPPING)) {
             simpleRestController.dispatch(req, resp, path.substring(SIMPLEREST_MAPPING.length()));
             return; // simple REST handles all the response itself
+        } else if (METRICS_MAPPING.equals(path)) {
+            writeMetrics(resp);
+            return;
         } else {
             listJobs(req);
         }
@@ -139,6 +153,25 @@ public class JBatchController extends HttpServlet {
         req.getRequestDispatcher("/internal/batchee/layout.jsp").forward(req, resp);
     }
 
+    private void writeMetrics(final HttpServletResponse resp) throws IOException {
+        if (metrics == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Prometheus metrics are only available with BatchEE implementation");
+            return;
+        }
+
+        final String content;
+        try {
+            content = String.class.cast(metrics.invoke(null));
+        } catch (final InvocationTargetException e) {
+            throw new BatchRuntimeException(e.getCause());
+        } catch (final IllegalAccessException e) {
+            throw new BatchRuntimeException(e);
+        }
+
+        resp.setContentType("text/plain; version=0.0.4");
+        resp.getWriter().write(content);
+    }
+
     private void reportReadOnly(final HttpServletRequest req) {
         req.setAttribute("view", "read-only");
     }
@@ -106,6 +106,12 @@ public class ServletTest {
         assertEquals("step1", extractContent("step-executions/0", "/table/tbody/tr/td[2]"));
     }
 
+    @Test
+    public void metrics() throws IOException {
+        final TextPage page = newWebClient().getPage(base.toExternalForm() + "jbatch/metrics");
+        assertTrue(page.getContent().contains("# TYPE batchee_running_jobs gauge\n"));
+    }
+
     @Test(expected = FailingHttpStatusCodeException.class)
     public void privateUrl() throws IOException {
         final WebClient client = newWebClient();
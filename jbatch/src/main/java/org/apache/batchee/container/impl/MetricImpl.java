@@ -17,14 +17,15 @@
 package org.apache.batchee.container.impl;
 
 import javax.batch.runtime.Metric;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MetricImpl implements Metric {
     private MetricType name;
-    private long value;
+    private final AtomicLong value; // read while the step runs by RunningStepMetrics
 
     public MetricImpl(final MetricType name, final long value) {
         this.name = name;
-        this.value = value;
+        this.value = new AtomicLong(value);
     }
 
     @Override
@@ -34,14 +35,14 @@ public class MetricImpl implements Metric {
 
     @Override
     public long getValue() {
-        return value;
+        return value.get();
     }
 
     public void incValue() {
-        ++value;
+        value.incrementAndGet();
     }
 
     public void incValueBy(final long incValue) {
-        value = value + incValue;
+        value.addAndGet(incValue);
     }
 }
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl;
+
+import java.io.Serializable;
+
+/**
+ * What is persisted as step execution data when the step recorded user metrics: the persistent user data of the step
+ * and a snapshot of its metrics. {@link StepExecutionImpl#setPersistentUserData(Serializable)} unwraps it so
+ * executions persisted without user metrics stay readable.
+ *
+ * The JDBC and JPA persistences share this column with the step status, see {@link #userData(Serializable)}.
+ */
+public final class PersistentStepData implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Serializable userData;
+    private final UserMetrics metrics;
+
+    PersistentStepData(final Serializable userData, final UserMetrics metrics) {
+        this.userData = userData;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the persistent user data of the step, unwrapped if the step also recorded user metrics.
+     */
+    public static Serializable userData(final Serializable persisted) {
+        if (PersistentStepData.class.isInstance(persisted)) {
+            return PersistentStepData.class.cast(persisted).getUserData();
+        }
+        return persisted;
+    }
+
+    Serializable getUserData() {
+        return userData;
+    }
+
+    UserMetrics getMetrics() {
+        return metrics;
+    }
+}
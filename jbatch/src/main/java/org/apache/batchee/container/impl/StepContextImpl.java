@@ -16,6 +16,8 @@
 */
 package org.apache.batchee.container.impl;
 
+import org.apache.batchee.metrics.StepMetrics;
+
 import javax.batch.runtime.BatchStatus;
 import javax.batch.runtime.Metric;
 import javax.batch.runtime.context.StepContext;
@@ -26,8 +28,9 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
-public class StepContextImpl implements StepContext {
+public class StepContextImpl implements StepContext, StepMetrics {
     private String stepId = null;
     private BatchStatus batchStatus = null;
     private String exitStatus = null;
@@ -45,6 +48,7 @@ public class StepContextImpl implements StepContext {
     private String batchletProcessRetVal = null;
 
     private final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+    private final UserMetrics userMetrics = new UserMetrics();
 
     public StepContextImpl(String stepId) {
         this.stepId = stepId;
@@ -96,11 +100,35 @@ public class StepContextImpl implements StepContext {
         metrics.putIfAbsent(metricType.name(), new MetricImpl(metricType, value));
     }
 
+    @Override
+    public void increment(final String name, final long delta) {
+        userMetrics.increment(name, delta);
+    }
+
+    @Override
+    public void record(final String name, final long duration, final TimeUnit unit) {
+        userMetrics.record(name, unit.toNanos(duration));
+    }
+
+    public UserMetrics getUserMetrics() {
+        return userMetrics;
+    }
+
     @Override
     public Serializable getPersistentUserData() {
         return persistentUserData;
     }
 
+    /**
+     * @return what the persistence stores as step execution data: the persistent user data and the user metrics if any.
+     */
+    public Serializable getPersistentStepData() {
+        if (userMetrics.isEmpty()) {
+            return persistentUserData;
+        }
+        return new PersistentStepData(persistentUserData, userMetrics.copy());
+    }
+
     @Override
     public Properties getProperties() {
         return properties;
@@ -16,12 +16,18 @@
 */
 package org.apache.batchee.container.impl;
 
+import org.apache.batchee.container.impl.controller.chunk.ChunkStepLatencies;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
+
 import javax.batch.runtime.BatchStatus;
 import javax.batch.runtime.Metric;
 import javax.batch.runtime.StepExecution;
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
 
 public class StepExecutionImpl implements StepExecution, Serializable {
 
@@ -44,6 +50,7 @@ public class StepExecutionImpl implements StepExecution, Serializable {
     private long writeSkipCount = 0;
 
     private Serializable persistentUserData = null;
+    private UserMetrics userMetrics = null;
 
     private StepContextImpl stepContext = null;
 
@@ -160,6 +167,35 @@ public class StepExecutionImpl implements StepExecution, Serializable {
     }
 
 
+    /**
+     * @return the counters and timers recorded by the artifacts through {@link org.apache.batchee.metrics.StepMetrics}.
+     */
+    public Map<String, Long> getUserMetrics() {
+        final UserMetrics metrics = getRawUserMetrics();
+        if (metrics == null) {
+            return Collections.emptyMap();
+        }
+        return metrics.toMap();
+    }
+
+    public UserMetrics getRawUserMetrics() {
+        if (stepContext != null) {
+            return stepContext.getUserMetrics();
+        }
+        return userMetrics;
+    }
+
+    /**
+     * @return the latency summaries of the chunk phases if the step ran recently in this JVM, empty otherwise.
+     */
+    public Map<String, Long> getChunkLatencies() {
+        final ChunkStepLatencies latencies = ServicesManager.find().service(StepMetricsRegistry.class).getChunkLatencies(jobExecutionId, getStepName());
+        if (latencies == null) {
+            return Collections.emptyMap();
+        }
+        return latencies.toMap();
+    }
+
     // impl specific setters
     public void setFilterCount(long filterCnt) {
         this.filterCount = filterCnt;
@@ -218,7 +254,14 @@ public class StepExecutionImpl implements StepExecution, Serializable {
     }
 
     public void setPersistentUserData(Serializable data) {
-        this.persistentUserData = data;
+        if (PersistentStepData.class.isInstance(data)) {
+            final PersistentStepData stepData = PersistentStepData.class.cast(data);
+            this.persistentUserData = stepData.getUserData();
+            this.userMetrics = stepData.getMetrics();
+        } else {
+            this.persistentUserData = data;
+            this.userMetrics = null;
+        }
     }
 
     @Override
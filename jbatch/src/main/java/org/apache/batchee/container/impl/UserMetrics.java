@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl;
+
+import javax.batch.runtime.StepExecution;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timers registered by the artifacts of a step through {@link org.apache.batchee.metrics.StepMetrics}.
+ */
+public class UserMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final String COUNTER_PREFIX = "counter:";
+    private static final String TIMER_PREFIX = "timer:";
+    private static final String COUNT_SUFFIX = ".count";
+    private static final String TOTAL_SUFFIX = ".totalNanos";
+    private static final String MAX_SUFFIX = ".maxNanos";
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+
+    public void increment(final String name, final long delta) {
+        counter(name).addAndGet(delta);
+    }
+
+    public void record(final String name, final long nanos) {
+        timer(name).record(1, nanos, nanos);
+    }
+
+    /**
+     * Adds the values of another step, used to aggregate partitions.
+     */
+    public void merge(final UserMetrics other) {
+        for (final Map.Entry<String, AtomicLong> counter : other.counters.entrySet()) {
+            increment(counter.getKey(), counter.getValue().get());
+        }
+        for (final Map.Entry<String, Timer> timer : other.timers.entrySet()) {
+            final Timer value = timer.getValue();
+            timer(timer.getKey()).record(value.count.get(), value.total.get(), value.max.get());
+        }
+    }
+
+    public UserMetrics copy() {
+        final UserMetrics copy = new UserMetrics();
+        copy.merge(this);
+        return copy;
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty() && timers.isEmpty();
+    }
+
+    public Map<String, Long> toMap() {
+        final Map<String, Long> map = new TreeMap<String, Long>();
+        for (final Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            map.put(counter.getKey(), counter.getValue().get());
+        }
+        for (final Map.Entry<String, Timer> timer : timers.entrySet()) {
+            final Timer value = timer.getValue();
+            map.put(timer.getKey() + ".count", value.count.get());
+            map.put(timer.getKey() + ".totalMs", TimeUnit.NANOSECONDS.toMillis(value.total.get()));
+            map.put(timer.getKey() + ".maxMs", TimeUnit.NANOSECONDS.toMillis(value.max.get()));
+        }
+        return map;
+    }
+
+    /**
+     * @return the counters and timers (count, total and max nanoseconds) as plain values, {@link #mergeRaw(Map)} reads them back.
+     */
+    public Map<String, Long> toRawMap() {
+        final Map<String, Long> map = new HashMap<String, Long>();
+        for (final Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            map.put(COUNTER_PREFIX + counter.getKey(), counter.getValue().get());
+        }
+        for (final Map.Entry<String, Timer> timer : timers.entrySet()) {
+            final Timer value = timer.getValue();
+            map.put(TIMER_PREFIX + timer.getKey() + COUNT_SUFFIX, value.count.get());
+            map.put(TIMER_PREFIX + timer.getKey() + TOTAL_SUFFIX, value.total.get());
+            map.put(TIMER_PREFIX + timer.getKey() + MAX_SUFFIX, value.max.get());
+        }
+        return map;
+    }
+
+    /**
+     * Adds values exported by {@link #toRawMap()}, typically in another JVM.
+     */
+    public void mergeRaw(final Map<String, Long> raw) {
+        for (final Map.Entry<String, Long> entry : raw.entrySet()) {
+            final String key = entry.getKey();
+            if (key.startsWith(COUNTER_PREFIX)) {
+                increment(key.substring(COUNTER_PREFIX.length()), entry.getValue());
+            } else if (key.startsWith(TIMER_PREFIX) && key.endsWith(COUNT_SUFFIX)) {
+                final String name = key.substring(TIMER_PREFIX.length(), key.length() - COUNT_SUFFIX.length());
+                final Long total = raw.get(TIMER_PREFIX + name + TOTAL_SUFFIX);
+                final Long max = raw.get(TIMER_PREFIX + name + MAX_SUFFIX);
+                timer(name).record(entry.getValue(), total == null ? 0 : total, max == null ? 0 : max);
+            }
+        }
+    }
+
+    /**
+     * @return the user metrics of the steps of an execution, keys are prefixed with the step name.
+     */
+    public static Map<String, Long> forExecution(final List<StepExecution> steps) {
+        final Map<String, Long> map = new TreeMap<String, Long>();
+        for (final StepExecution step : steps) {
+            if (!StepExecutionImpl.class.isInstance(step)) {
+                continue;
+            }
+            for (final Map.Entry<String, Long> metric : StepExecutionImpl.class.cast(step).getUserMetrics().entrySet()) {
+                map.put(step.getStepName() + "." + metric.getKey(), metric.getValue());
+            }
+        }
+        return map;
+    }
+
+    private AtomicLong counter(final String name) {
+        final AtomicLong counter = counters.get(name);
+        if (counter != null) {
+            return counter;
+        }
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong existing = counters.putIfAbsent(name, created);
+        return existing != null ? existing : created;
+    }
+
+    private Timer timer(final String name) {
+        final Timer timer = timers.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        final Timer created = new Timer();
+        final Timer existing = timers.putIfAbsent(name, created);
+        return existing != null ? existing : created;
+    }
+
+    private static class Timer implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private void record(final long samples, final long nanos, final long maxNanos) {
+            count.addAndGet(samples);
+            total.addAndGet(nanos);
+            long current = max.get();
+            while (maxNanos > current && !max.compareAndSet(current, maxNanos)) {
+                current = max.get();
+            }
+        }
+    }
+}
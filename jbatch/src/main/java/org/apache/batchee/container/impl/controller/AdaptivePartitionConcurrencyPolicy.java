@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller;
+
+import org.apache.batchee.spi.PartitionConcurrencyPolicy;
+
+import javax.batch.runtime.BatchStatus;
+import java.util.Properties;
+
+/**
+ * Additive increase, multiplicative decrease of the partition concurrency:
+ * <ul>
+ *     <li>a failed partition or an item latency above <code>max-item-latency</code> halves the concurrency,</li>
+ *     <li>once a full round of partitions ran at the current concurrency its throughput (items per second, partitions if
+ *     there are no items) is compared to the previous round: if it didn't drop more than <code>tolerance</code>
+ *     one more partition is allowed, otherwise one less.</li>
+ * </ul>
+ */
+public class AdaptivePartitionConcurrencyPolicy implements PartitionConcurrencyPolicy {
+    public static final String NAME = "adaptive";
+
+    private static final String PREFIX = "org.apache.batchee.partition.concurrency.";
+    public static final String INITIAL = PREFIX + "initial";
+    public static final String MIN = PREFIX + "min";
+    public static final String MAX_ITEM_LATENCY = PREFIX + "max-item-latency";
+    public static final String TOLERANCE = PREFIX + "tolerance";
+
+    private int min;
+    private long maxItemLatency;
+    private double tolerance;
+
+    private long windowStart;
+    private long windowWork;
+    private int windowPartitions;
+    private double lastThroughput = -1;
+
+    @Override
+    public int start(final Properties stepProperties, final int maxConcurrency) {
+        min = Math.max(1, Integer.parseInt(stepProperties.getProperty(MIN, "1")));
+        maxItemLatency = Long.parseLong(stepProperties.getProperty(MAX_ITEM_LATENCY, "-1"));
+        tolerance = Double.parseDouble(stepProperties.getProperty(TOLERANCE, "0.1"));
+        resetWindow();
+        return Math.max(min, Integer.parseInt(stepProperties.getProperty(INITIAL, Integer.toString(min))));
+    }
+
+    @Override
+    public int adjust(final PartitionResult result, final int currentConcurrency, final int maxConcurrency) {
+        if (BatchStatus.FAILED.equals(result.getBatchStatus())
+                || (maxItemLatency > 0 && result.getItems() > 0 && result.getDuration() / result.getItems() > maxItemLatency)) {
+            lastThroughput = -1; // the next round is a new reference
+            resetWindow();
+            return Math.max(min, currentConcurrency / 2);
+        }
+
+        windowWork += Math.max(1, result.getItems());
+        windowPartitions++;
+        if (windowPartitions < currentConcurrency) { // wait for a whole round at this concurrency
+            return currentConcurrency;
+        }
+
+        final double throughput = windowWork * 1000. / Math.max(1, now() - windowStart);
+        final double previous = lastThroughput;
+        lastThroughput = throughput;
+        resetWindow();
+
+        if (previous < 0 || throughput >= previous * (1 - tolerance)) {
+            return Math.min(maxConcurrency, currentConcurrency + 1);
+        }
+        return Math.max(min, currentConcurrency - 1);
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private void resetWindow() {
+        windowStart = now();
+        windowWork = 0;
+        windowPartitions = 0;
+    }
+}
@@ -24,9 +24,12 @@ import org.apache.batchee.container.impl.StepContextImpl;
 import org.apache.batchee.container.impl.StepExecutionImpl;
 import org.apache.batchee.container.impl.controller.chunk.PersistentDataWrapper;
 import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
+import org.apache.batchee.container.jfr.BatchEvents;
 import org.apache.batchee.container.services.BatchKernelService;
 import org.apache.batchee.container.services.JobStatusManagerService;
 import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
+import org.apache.batchee.container.services.data.DataCompression;
 import org.apache.batchee.container.status.ExecutionStatus;
 import org.apache.batchee.container.status.ExtendedBatchStatus;
 import org.apache.batchee.container.status.StepStatus;
@@ -34,6 +37,7 @@ import org.apache.batchee.container.util.PartitionDataWrapper;
 import org.apache.batchee.jaxb.JSLProperties;
 import org.apache.batchee.jaxb.Property;
 import org.apache.batchee.jaxb.Step;
+import org.apache.batchee.spi.DataRepresentationService;
 import org.apache.batchee.spi.PersistenceManagerService;
 import org.apache.batchee.spi.TransactionManagementService;
 import org.apache.batchee.spi.TransactionManagerAdapter;
@@ -50,6 +54,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
@@ -79,6 +84,9 @@ public abstract class BaseStepController implements ExecutionElementController {
 
     protected TransactionManagerAdapter transactionManager = null;
     private TransactionManagementService txService;
+    private final DataCompression compression;
+    private final StepMetricsRegistry metricsRegistry;
+    private byte[] lastPersistentUserData;
 
     protected BaseStepController(final RuntimeJobExecution jobExecution, final Step step, final StepContextImpl stepContext, final long rootJobExecutionId,
                                  final ServicesManager servicesManager) {
@@ -95,6 +103,8 @@ public abstract class BaseStepController implements ExecutionElementController {
         this.kernelService = servicesManager.service(BatchKernelService.class);
         this.persistenceManagerService = servicesManager.service(PersistenceManagerService.class);
         this.statusManagerService = servicesManager.service(JobStatusManagerService.class);
+        this.compression = DataCompression.of(servicesManager.service(DataRepresentationService.class));
+        this.metricsRegistry = servicesManager.service(StepMetricsRegistry.class);
     }
 
     protected BaseStepController(final RuntimeJobExecution jobExecution,
@@ -122,6 +132,19 @@ public abstract class BaseStepController implements ExecutionElementController {
 
     @Override
     public ExecutionStatus execute() {
+        metricsRegistry.stepStarted(rootJobExecutionId, stepContext);
+        final long start = System.nanoTime();
+        BatchEvents.stepStart(step.getId(), jobExecutionImpl.getExecutionId());
+        try {
+            return doExecute();
+        } finally {
+            metricsRegistry.stepEnded(stepContext);
+            BatchEvents.stepEnd(step.getId(), jobExecutionImpl.getExecutionId(), String.valueOf(stepContext.getBatchStatus()),
+                stepContext.getExitStatus(), System.nanoTime() - start);
+        }
+    }
+
+    private ExecutionStatus doExecute() {
         // Here we're just setting up to decide if we're going to run the step or not (if it's already complete and
         // allow-start-if-complete=false.
         try {
@@ -287,7 +310,7 @@ public abstract class BaseStepController implements ExecutionElementController {
         } else {
             // if a step status already exists for this instance id. It means this
             // is a restart and we need to get the previously persisted data
-            stepContext.setPersistentUserData(stepStatus.getPersistentUserData());
+            stepContext.setPersistentUserData(stepStatus.getPersistentUserData(compression));
             if (shouldStepBeExecutedOnRestart()) {
                 // Seems better to let the start count get incremented without getting a step execution than
                 // vice versa (in an unexpected error case).
@@ -360,8 +383,21 @@ public abstract class BaseStepController implements ExecutionElementController {
             throw new BatchContainerServiceException("Cannot persist the persistent user data for the step.", e);
         }
 
-        stepStatus.setPersistentUserData(new PersistentDataWrapper(persistentBAOS.toByteArray()));
+        final byte[] persistentData = persistentBAOS.toByteArray();
+        if (Arrays.equals(lastPersistentUserData, persistentData)) { // nothing changed since last write
+            return;
+        }
+
+        stepStatus.setPersistentUserData(new PersistentDataWrapper(compression.compress(persistentData)));
         statusManagerService.updateStepStatus(stepStatus.getStepExecutionId(), stepStatus);
+        lastPersistentUserData = persistentData;
+    }
+
+    /**
+     * To call when the last persisted user data can have been rolled back, next {@link #persistUserData()} will write it.
+     */
+    protected void forgetPersistedUserData() {
+        lastPersistentUserData = null;
     }
 
     protected void persistExitStatusAndEndTimestamp() {
@@ -25,6 +25,7 @@ import org.apache.batchee.container.util.FlowInSplitBuilderConfig;
 public class FlowInSplitThreadRootController extends JobThreadRootController {
     // Careful, we have a separately named reference to the same object in the parent class
     private RuntimeFlowInSplitExecution flowInSplitExecution;
+    private volatile boolean cancelled;
 
     public FlowInSplitThreadRootController(final RuntimeFlowInSplitExecution flowInSplitExecution, final FlowInSplitBuilderConfig config, final ServicesManager manager) {
         super(flowInSplitExecution, config.getRootJobExecutionId(), manager);
@@ -38,10 +39,28 @@ public class FlowInSplitThreadRootController extends JobThreadRootController {
     @Override
     public ExecutionStatus originateExecutionOnThread() {
         ExecutionStatus status = super.originateExecutionOnThread();
+        if (status == null) { // stopped before it started
+            status = new ExecutionStatus(ExtendedBatchStatus.JOB_OPERATOR_STOPPING);
+        }
         flowInSplitExecution.setFlowStatus(status);
         return status;
     }
 
+    /**
+     * Ensures the flow doesn't run any step if it is still waiting for a thread, {@link #stop()} stops it if it runs.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    protected void markJobStarted() {
+        super.markJobStarted();
+        if (cancelled) { // cancelled while we were starting, the execution loop will exit before the first element
+            batchStatusStopping();
+        }
+    }
+
     @Override
     protected void batchStatusFailedFromException() {
         super.batchStatusFailedFromException();
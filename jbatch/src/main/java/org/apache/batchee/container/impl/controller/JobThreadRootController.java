@@ -22,6 +22,7 @@ import org.apache.batchee.container.impl.JobContextImpl;
 import org.apache.batchee.container.impl.StepContextImpl;
 import org.apache.batchee.container.impl.controller.chunk.ExceptionConfig;
 import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
+import org.apache.batchee.container.jfr.BatchEvents;
 import org.apache.batchee.container.navigator.ModelNavigator;
 import org.apache.batchee.container.proxy.InjectionReferences;
 import org.apache.batchee.container.proxy.ListenerFactory;
@@ -39,6 +40,7 @@ import javax.batch.runtime.BatchStatus;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
@@ -60,6 +62,7 @@ public abstract class JobThreadRootController implements ThreadRootController {
     protected StepContextImpl parentStepContext = null;
 
     private ExecutionTransitioner transitioner;
+    private long startNanos;
     private BlockingQueue<PartitionDataWrapper> analyzerQueue;
 
     public JobThreadRootController(final RuntimeJobExecution jobExecution, final long rootJobExecutionId,
@@ -132,6 +135,10 @@ public abstract class JobThreadRootController implements ThreadRootController {
         }
 
         endOfJob();
+        if (JobController.class.isInstance(this)) { // not for partitions and flows
+            BatchEvents.jobEnd(jobContext.getJobName(), jobExecution.getExecutionId(), String.valueOf(jobContext.getBatchStatus()),
+                jobContext.getExitStatus(), System.nanoTime() - startNanos);
+        }
 
         return retVal;
     }
@@ -143,6 +150,10 @@ public abstract class JobThreadRootController implements ThreadRootController {
     }
 
     protected void markJobStarted() {
+        startNanos = System.nanoTime();
+        if (JobController.class.isInstance(this)) {
+            BatchEvents.jobStart(jobContext.getJobName(), jobInstanceId, jobExecution.getExecutionId());
+        }
         updateJobBatchStatus(BatchStatus.STARTED);
         final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
         jobExecution.setLastUpdateTime(timestamp);
@@ -292,6 +303,9 @@ public abstract class JobThreadRootController implements ThreadRootController {
 
     @Override
     public List<Long> getLastRunStepExecutions() {
+        if (transitioner == null) { // stopped before it started
+            return Collections.emptyList();
+        }
         return this.transitioner.getStepExecIds();
     }
 
@@ -299,4 +313,8 @@ public abstract class JobThreadRootController implements ThreadRootController {
     public void setParentStepContext(final StepContextImpl parentStepContext) {
         this.parentStepContext = parentStepContext;
     }
+
+    public String getJobName() {
+        return jobExecution.getJobInstance().getJobName();
+    }
 }
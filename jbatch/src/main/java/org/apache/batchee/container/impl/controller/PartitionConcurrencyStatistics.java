@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decisions of the {@link org.apache.batchee.spi.PartitionConcurrencyPolicy} of the partitioned steps currently running.
+ */
+public class PartitionConcurrencyStatistics {
+    private static final ConcurrentMap<String, PartitionConcurrencyStatistics> RUNNING = new ConcurrentHashMap<String, PartitionConcurrencyStatistics>();
+
+    private final String key;
+    private final int maxConcurrency;
+
+    // written by the step thread only
+    private volatile int concurrency;
+    private volatile int peakConcurrency;
+    private volatile int running;
+    private volatile int waiting;
+    private volatile long increases;
+    private volatile long decreases;
+    private volatile long delayedStarts;
+
+    private PartitionConcurrencyStatistics(final String key, final int maxConcurrency, final int concurrency, final int waiting) {
+        this.key = key;
+        this.maxConcurrency = maxConcurrency;
+        this.concurrency = concurrency;
+        this.peakConcurrency = concurrency;
+        this.waiting = waiting;
+    }
+
+    static PartitionConcurrencyStatistics register(final long rootExecutionId, final String stepName,
+                                                   final int maxConcurrency, final int concurrency, final int partitions) {
+        final PartitionConcurrencyStatistics statistics = new PartitionConcurrencyStatistics(rootExecutionId + ":" + stepName, maxConcurrency, concurrency, partitions);
+        RUNNING.put(statistics.key, statistics);
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of the partitioned steps of this execution currently running, keys are prefixed by the step name.
+     */
+    public static Map<String, Long> forExecution(final long rootExecutionId) {
+        final String prefix = rootExecutionId + ":";
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        for (final Map.Entry<String, PartitionConcurrencyStatistics> entry : RUNNING.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                final String step = entry.getKey().substring(prefix.length());
+                for (final Map.Entry<String, Long> metric : entry.getValue().toMap().entrySet()) {
+                    metrics.put(step + "." + metric.getKey(), metric.getValue());
+                }
+            }
+        }
+        return metrics;
+    }
+
+    void started() {
+        running++;
+        waiting--;
+    }
+
+    void completed() {
+        running--;
+    }
+
+    void adjusted(final int newConcurrency) {
+        if (newConcurrency > concurrency) {
+            increases++;
+        } else if (newConcurrency < concurrency) {
+            decreases++;
+        }
+        concurrency = newConcurrency;
+        peakConcurrency = Math.max(peakConcurrency, newConcurrency);
+        if (waiting > 0 && running >= newConcurrency && running < maxConcurrency) {
+            delayedStarts++;
+        }
+    }
+
+    void unregister() {
+        RUNNING.remove(key);
+    }
+
+    public Map<String, Long> toMap() {
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put("concurrency", (long) concurrency);
+        metrics.put("maxConcurrency", (long) maxConcurrency);
+        metrics.put("peakConcurrency", (long) peakConcurrency);
+        metrics.put("running", (long) running);
+        metrics.put("waiting", (long) waiting);
+        metrics.put("increases", increases);
+        metrics.put("decreases", decreases);
+        metrics.put("delayedStarts", delayedStarts);
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionConcurrencyStatistics{" + key + ", " + toMap() + "}";
+    }
+}
@@ -18,24 +18,43 @@ package org.apache.batchee.container.impl.controller;
 
 import org.apache.batchee.container.exception.BatchContainerRuntimeException;
 import org.apache.batchee.container.impl.StepContextImpl;
+import org.apache.batchee.container.impl.StepExecutionImpl;
+import org.apache.batchee.container.impl.UserMetrics;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointData;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointDataKey;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointType;
 import org.apache.batchee.container.impl.controller.chunk.ExceptionConfig;
+import org.apache.batchee.container.impl.jobinstance.JobExecutionHelper;
 import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
+import org.apache.batchee.container.jfr.BatchEvents;
 import org.apache.batchee.container.jsl.CloneUtility;
+import org.apache.batchee.container.jsl.JobModelResolver;
+import org.apache.batchee.container.partition.SocketPartitionTransport;
 import org.apache.batchee.container.proxy.InjectionReferences;
 import org.apache.batchee.container.proxy.ProxyFactory;
+import org.apache.batchee.container.services.LightweightPartitionServicesManager;
 import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.data.DataCompression;
 import org.apache.batchee.container.util.BatchPartitionPlan;
 import org.apache.batchee.container.util.BatchPartitionWorkUnit;
 import org.apache.batchee.container.util.BatchWorkUnit;
+import org.apache.batchee.container.util.LightweightPartitionWorkUnit;
+import org.apache.batchee.container.util.PartitionDataQueue;
 import org.apache.batchee.container.util.PartitionDataWrapper;
 import org.apache.batchee.container.util.PartitionDataWrapper.PartitionEventType;
 import org.apache.batchee.container.util.PartitionsBuilderConfig;
+import org.apache.batchee.container.util.RemotePartitionWorkUnit;
 import org.apache.batchee.jaxb.Analyzer;
 import org.apache.batchee.jaxb.JSLJob;
 import org.apache.batchee.jaxb.JSLProperties;
 import org.apache.batchee.jaxb.Property;
 import org.apache.batchee.jaxb.Step;
 import org.apache.batchee.spi.BatchArtifactFactory;
+import org.apache.batchee.spi.BatchThreadPoolService;
+import org.apache.batchee.spi.DataRepresentationService;
+import org.apache.batchee.spi.PartitionConcurrencyPolicy;
+import org.apache.batchee.spi.PartitionTransport;
+import org.apache.batchee.spi.PersistenceManagerService;
 
 import javax.batch.api.listener.StepListener;
 import javax.batch.api.partition.PartitionAnalyzer;
@@ -50,13 +69,62 @@ import javax.batch.operations.JobStartException;
 import javax.batch.runtime.BatchStatus;
 import javax.batch.runtime.Metric;
 import javax.batch.runtime.StepExecution;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class PartitionedStepController extends BaseStepController {
+    private static final Logger LOGGER = Logger.getLogger(PartitionedStepController.class.getName());
+
+    /**
+     * Step property selecting how partitions are started: <code>default</code> submits each partition to the thread pool
+     * when a previous one completes, <code>dynamic-dispatch</code> starts <code>threads</code> workers pulling the partitions
+     * from a shared queue so a plan with many small partitions keeps all threads busy without a hand-off per partition.
+     * A partition is never split: a worker only takes a whole partition once it is done with the previous one.
+     */
+    public static final String PARTITION_SCHEDULING = "org.apache.batchee.partition.scheduling";
+    public static final String DYNAMIC_DISPATCH_SCHEDULING = "dynamic-dispatch";
+
+    /**
+     * Step property, when <code>true</code> partitions don't get their own job instance, execution, status and step execution rows:
+     * they only live in memory while running, the completed partitions of the step are tracked in a single checkpoint entry
+     * of the parent job instance (read on restart) and partition checkpoints are stored under the parent job instance too.
+     */
+    public static final String LIGHTWEIGHT_PARTITIONS = "org.apache.batchee.partition.lightweight";
+
+    /**
+     * Step property, <code>adaptive</code> or the ref of a {@link PartitionConcurrencyPolicy} adjusting the number of partitions running
+     * concurrently (up to the plan <code>threads</code>) each time a partition ends. Only used with the default scheduling.
+     */
+    public static final String CONCURRENCY_POLICY = "org.apache.batchee.partition.concurrency-policy";
+
+    /**
+     * Step properties to merge collector data on the partition threads: the ref of a {@link org.apache.batchee.spi.PartitionCollectorCombiner}
+     * and the minimum duration in milliseconds between two emissions to the analyzer (by default only once at the end of the partition).
+     */
+    public static final String COLLECTOR_COMBINER = "org.apache.batchee.partition.collector.combiner";
+    public static final String COLLECTOR_INTERVAL = "org.apache.batchee.partition.collector.interval";
+
+    /**
+     * Step property bounding the number of collector data and statuses waiting for the analyzer, partitions wait when it is full.
+     */
+    public static final String ANALYZER_QUEUE_SIZE = "org.apache.batchee.partition.analyzer.queue-size";
+
+    /**
+     * Step property to execute the partitions in other JVMs: {@link SocketPartitionTransport#NAME} or the ref
+     * of a {@link PartitionTransport}. Partitions are then lightweight ones.
+     */
+    public static final String PARTITION_TRANSPORT = "org.apache.batchee.partition.transport";
+
     private static final int DEFAULT_PARTITION_INSTANCES = 1;
     private static final int DEFAULT_THREADS = 0; //0 means default to number of instances
 
@@ -83,12 +151,19 @@ public class PartitionedStepController extends BaseStepController {
 
     BlockingQueue<BatchPartitionWorkUnit> completedWorkQueue = null;
 
+    private final ServicesManager servicesManager;
     private final BatchArtifactFactory factory;
+    private final BatchThreadPoolService threadPoolService;
+
+    private boolean lightweight = false;
+    private Set<Integer> completedPartitions = null;
 
     protected PartitionedStepController(final RuntimeJobExecution jobExecutionImpl, final Step step, final StepContextImpl stepContext,
                                         final long rootJobExecutionId, final ServicesManager servicesManager) {
         super(jobExecutionImpl, step, stepContext, rootJobExecutionId, servicesManager);
+        this.servicesManager = servicesManager;
         factory = servicesManager.service(BatchArtifactFactory.class);
+        threadPoolService = servicesManager.service(BatchThreadPoolService.class);
     }
 
     @Override
@@ -103,6 +178,10 @@ public class PartitionedStepController extends BaseStepController {
             if (parallelBatchWorkUnits != null) {
                 for (BatchWorkUnit subJob : parallelBatchWorkUnits) {
                     try {
+                        if (LightweightPartitionWorkUnit.class.isInstance(subJob)) { // not known by the kernel
+                            LightweightPartitionWorkUnit.class.cast(subJob).stop();
+                            continue;
+                        }
                         kernelService.stopJob(subJob.getJobExecutionImpl().getExecutionId());
                     } catch (Exception e) {
                         // TODO - Is this what we want to know.
@@ -269,15 +348,26 @@ public class PartitionedStepController extends BaseStepController {
 
         //Set up a blocking queue to pick up collector data from a partitioned thread
         if (this.analyzerProxy != null) {
-            this.analyzerStatusQueue = new LinkedBlockingQueue<PartitionDataWrapper>();
+            final int queueSize = Integer.parseInt(stepContext.getProperties().getProperty(ANALYZER_QUEUE_SIZE, "-1"));
+            this.analyzerStatusQueue = new PartitionDataQueue(queueSize > 0 ? queueSize : Integer.MAX_VALUE);
         }
         this.completedWorkQueue = new LinkedBlockingQueue<BatchPartitionWorkUnit>();
 
-        // Build all sub jobs from partitioned step
-        buildSubJobBatchWorkUnits();
-
-        // kick off the threads
-        executeAndWaitForCompletion();
+        try {
+            // Build all sub jobs from partitioned step
+            buildSubJobBatchWorkUnits();
+
+            // kick off the threads
+            executeAndWaitForCompletion();
+        } finally {
+            if (analyzerStatusQueue != null) { // nothing will consume it anymore
+                final PartitionDataQueue queue = PartitionDataQueue.class.cast(analyzerStatusQueue);
+                queue.close();
+                if (queue.getWaitCount() > 0) {
+                    LOGGER.info("Partitions of step " + step.getId() + " waited " + queue.getWaitCount() + " times for the analyzer");
+                }
+            }
+        }
 
         // Deal with the results.
         checkCompletedWork();
@@ -297,7 +387,11 @@ public class PartitionedStepController extends BaseStepController {
             PartitionsBuilderConfig config =
                     new PartitionsBuilderConfig(subJobs, partitionProperties, analyzerStatusQueue, completedWorkQueue, jobExecutionImpl.getExecutionId());
             // Then build all the subjobs but do not start them yet
-            if (stepStatus.getStartCount() > 1 && !plan.getPartitionsOverride()) {
+            final PartitionTransport transport = createTransport();
+            lightweight = transport != null || Boolean.parseBoolean(stepContext.getProperties().getProperty(LIGHTWEIGHT_PARTITIONS, "false"));
+            if (lightweight) {
+                parallelBatchWorkUnits = buildLightweightPartitions(config, transport);
+            } else if (stepStatus.getStartCount() > 1 && !plan.getPartitionsOverride()) {
                 parallelBatchWorkUnits = kernelService.buildOnRestartParallelPartitions(config, jobExecutionImpl.getJobContext(), stepContext);
             } else {
                 parallelBatchWorkUnits = kernelService.buildNewParallelPartitions(config, jobExecutionImpl.getJobContext(), stepContext);
@@ -307,69 +401,278 @@ public class PartitionedStepController extends BaseStepController {
         }
     }
 
+    private List<BatchPartitionWorkUnit> buildLightweightPartitions(final PartitionsBuilderConfig config,
+                                                                    final PartitionTransport transport) throws JobStartException {
+        final boolean resetCheckpoints = stepStatus.getStartCount() > 1 && plan.getPartitionsOverride();
+        if (stepStatus.getStartCount() > 1 && !plan.getPartitionsOverride()) {
+            completedPartitions = readCompletedPartitions();
+        } else {
+            completedPartitions = new TreeSet<Integer>();
+            storeCompletedPartitions(); // forget a previous execution
+        }
+
+        final List<BatchPartitionWorkUnit> batchWorkUnits = new ArrayList<BatchPartitionWorkUnit>(partitions - completedPartitions.size());
+        for (int instance = 0; instance < partitions; instance++) {
+            if (completedPartitions.contains(instance)) {
+                continue;
+            }
+
+            final Properties partitionProps = partitionProperties == null ? null : partitionProperties[instance];
+            final LightweightPartitionServicesManager partitionServices = new LightweightPartitionServicesManager(
+                servicesManager, jobExecutionImpl.getInstanceId(), instance);
+            if (resetCheckpoints) { // checkpoints of the previous execution are under the parent instance too
+                partitionServices.resetCheckpoints(step.getId());
+            }
+            final RuntimeJobExecution partitionExecution = JobExecutionHelper.startPartition(partitionServices, subJobs.get(instance), partitionProps);
+            partitionExecution.inheritJobContext(jobExecutionImpl.getJobContext());
+            partitionExecution.setPartitionInstance(instance);
+
+            final LightweightPartitionWorkUnit batchWork;
+            if (transport != null) {
+                final PartitionTransport.PartitionRequest request = new PartitionTransport.PartitionRequest(
+                    new JobModelResolver().serialize(subJobs.get(instance)), jobExecutionImpl.getInstanceId(), instance, partitionProps);
+                batchWork = new RemotePartitionWorkUnit(partitionExecution, config, partitionServices, transport, request, step.getId());
+            } else {
+                batchWork = new LightweightPartitionWorkUnit(partitionExecution, config, partitionServices);
+            }
+            batchWork.inheritStepContext(stepContext);
+            batchWorkUnits.add(batchWork);
+        }
+        return batchWorkUnits;
+    }
+
+    private void onLightweightPartitionDone(final BatchPartitionWorkUnit workUnit) {
+        if (BatchStatus.COMPLETED.equals(workUnit.getJobExecutionImpl().getJobContext().getBatchStatus())) {
+            completedPartitions.add(workUnit.getJobExecutionImpl().getPartitionInstance());
+            storeCompletedPartitions();
+        }
+    }
+
+    private Set<Integer> readCompletedPartitions() {
+        final Set<Integer> completed = new TreeSet<Integer>();
+        final CheckpointData data = persistenceManagerService.getCheckpointData(completedPartitionsKey());
+        if (data != null && data.getRestartToken() != null) {
+            try {
+                for (final String instance : new String(data.getRestartToken(), "UTF-8").split(",")) {
+                    if (!instance.isEmpty()) {
+                        completed.add(Integer.parseInt(instance));
+                    }
+                }
+            } catch (final UnsupportedEncodingException e) {
+                throw new BatchContainerRuntimeException(e);
+            }
+        }
+        return completed;
+    }
+
+    private void storeCompletedPartitions() {
+        final StringBuilder builder = new StringBuilder();
+        for (final Integer instance : completedPartitions) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(instance);
+        }
+
+        final CheckpointDataKey key = completedPartitionsKey();
+        final CheckpointData data = new CheckpointData(key.getJobInstanceId(), key.getStepName(), key.getType());
+        try {
+            data.setRestartToken(builder.toString().getBytes("UTF-8"));
+        } catch (final UnsupportedEncodingException e) {
+            throw new BatchContainerRuntimeException(e);
+        }
+        persistenceManagerService.setCheckpointData(key, data);
+    }
+
+    private CheckpointDataKey completedPartitionsKey() {
+        return new CheckpointDataKey(jobExecutionImpl.getInstanceId(), step.getId(), CheckpointType.PARTITIONS);
+    }
+
     private void executeAndWaitForCompletion() throws JobRestartException {
 
         if (jobExecutionImpl.getJobContext().getBatchStatus().equals(BatchStatus.STOPPING)) {
             return;
         }
 
+        // on restart parallelBatchWorkUnits only contains the partitions not completed by a previous execution
         int numTotalForThisExecution = parallelBatchWorkUnits.size();
         this.numPreviouslyCompleted = partitions - numTotalForThisExecution;
-        int numCurrentCompleted = 0;
-        int numCurrentSubmitted = 0;
-
-        //Start up to to the max num we are allowed from the num threads attribute
-        for (int i = 0; i < this.threads && i < numTotalForThisExecution; i++, numCurrentSubmitted++) {
-            final BatchWorkUnit workUnit = parallelBatchWorkUnits.get(i);
-            if (stepStatus.getStartCount() > 1 && !plan.getPartitionsOverride()) {
-                kernelService.restartGeneratedJob(workUnit);
+
+        final boolean restart = stepStatus.getStartCount() > 1 && !plan.getPartitionsOverride();
+        final Queue<BatchPartitionWorkUnit> pending = new ConcurrentLinkedQueue<BatchPartitionWorkUnit>(parallelBatchWorkUnits);
+        final boolean dynamicDispatch = DYNAMIC_DISPATCH_SCHEDULING.equals(stepContext.getProperties().getProperty(PARTITION_SCHEDULING));
+        if (dynamicDispatch && stepContext.getProperties().getProperty(CONCURRENCY_POLICY) != null) {
+            LOGGER.warning("Ignoring " + CONCURRENCY_POLICY + " of step " + step.getId() + " since it uses " + DYNAMIC_DISPATCH_SCHEDULING + " scheduling");
+        }
+        final PartitionConcurrencyPolicy policy = dynamicDispatch ? null : createConcurrencyPolicy();
+        int concurrency = this.threads;
+        PartitionConcurrencyStatistics statistics = null;
+        if (policy != null) {
+            concurrency = boundConcurrency(policy.start(stepContext.getProperties(), this.threads));
+            statistics = PartitionConcurrencyStatistics.register(rootJobExecutionId, step.getId(), this.threads, concurrency, numTotalForThisExecution);
+        }
+        int running = 0;
+        try {
+            if (dynamicDispatch) {
+                for (int i = 0; i < this.threads && i < numTotalForThisExecution; i++) {
+                    threadPoolService.executeTask(new PartitionWorker(pending, step.getId(), rootJobExecutionId), BatchThreadPoolService.WorkType.PARTITION);
+                }
             } else {
-                kernelService.startGeneratedJob(workUnit);
+                //Start up to to the max num we are allowed from the num threads attribute
+                for (int i = 0; i < concurrency && i < numTotalForThisExecution; i++) {
+                    startPartition(pending.poll(), restart);
+                    running++;
+                    if (statistics != null) {
+                        statistics.started();
+                    }
+                }
             }
-        }
 
-        while (true) {
-            try {
-                if (analyzerProxy != null) {
-                    PartitionDataWrapper dataWrapper = analyzerStatusQueue.take();
-                    if (PartitionEventType.ANALYZE_COLLECTOR_DATA.equals(dataWrapper.getEventType())) {
-                        try {
-                            analyzerProxy.analyzeCollectorData(dataWrapper.getCollectorData());
-                        } catch (Exception e) {
-                            ExceptionConfig.wrapBatchException(e);
-                        }
-                        continue; // without being ready to submit another
-                    } else if (PartitionEventType.ANALYZE_STATUS.equals(dataWrapper.getEventType())) {
-                        try {
-                            analyzerProxy.analyzeStatus(dataWrapper.getBatchstatus(), dataWrapper.getExitStatus());
-                        } catch (Exception e) {
-                            ExceptionConfig.wrapBatchException(e);
+            int numCurrentCompleted = 0;
+            while (true) {
+                try {
+                    if (analyzerProxy != null) {
+                        PartitionDataWrapper dataWrapper = analyzerStatusQueue.take();
+                        if (PartitionEventType.ANALYZE_COLLECTOR_DATA.equals(dataWrapper.getEventType())) {
+                            try {
+                                analyzerProxy.analyzeCollectorData(dataWrapper.getCollectorData());
+                            } catch (Exception e) {
+                                ExceptionConfig.wrapBatchException(e);
+                            }
+                            continue; // without being ready to submit another
+                        } else if (PartitionEventType.ANALYZE_STATUS.equals(dataWrapper.getEventType())) {
+                            try {
+                                analyzerProxy.analyzeStatus(dataWrapper.getBatchstatus(), dataWrapper.getExitStatus());
+                            } catch (Exception e) {
+                                ExceptionConfig.wrapBatchException(e);
+                            }
+                            completedWork.add(completedWorkQueue.take());  // Shouldn't be a a long wait.
+                        } else {
+                            throw new IllegalStateException("Invalid partition state");
                         }
-                        completedWork.add(completedWorkQueue.take());  // Shouldn't be a a long wait.
                     } else {
-                        throw new IllegalStateException("Invalid partition state");
+                        // block until at least one thread has finished to
+                        // submit more batch work. hold on to the finished work to look at later
+                        completedWork.add(completedWorkQueue.take());
+                    }
+                } catch (final InterruptedException e) {
+                    throw new BatchContainerRuntimeException(e);
+                }
+
+                final BatchPartitionWorkUnit done = completedWork.get(completedWork.size() - 1);
+                BatchEvents.partitionEnd(step.getId(), rootJobExecutionId, done.getJobExecutionImpl().getPartitionInstance(),
+                    String.valueOf(done.getJobExecutionImpl().getJobContext().getBatchStatus()));
+                if (lightweight) {
+                    onLightweightPartitionDone(done);
+                }
+
+                numCurrentCompleted++;
+                running--;
+                if (statistics != null) {
+                    statistics.completed();
+                }
+                if (numCurrentCompleted < numTotalForThisExecution) {
+                    if (!dynamicDispatch) { // workers pull the next partition themselves
+                        if (policy != null) {
+                            concurrency = boundConcurrency(policy.adjust(toPartitionResult(done), concurrency, this.threads));
+                            statistics.adjusted(concurrency);
+                        }
+
+                        BatchPartitionWorkUnit next;
+                        while (running < concurrency && (next = pending.poll()) != null) {
+                            startPartition(next, restart);
+                            running++;
+                            if (statistics != null) {
+                                statistics.started();
+                            }
+                        }
                     }
                 } else {
-                    // block until at least one thread has finished to
-                    // submit more batch work. hold on to the finished work to look at later
-                    completedWork.add(completedWorkQueue.take());
+                    break;
                 }
-            } catch (final InterruptedException e) {
-                throw new BatchContainerRuntimeException(e);
             }
+        } finally {
+            if (statistics != null) {
+                LOGGER.info("Partitions of step " + step.getId() + " ended: " + statistics.toMap());
+                statistics.unregister();
+            }
+        }
+    }
 
-            numCurrentCompleted++;
-            if (numCurrentCompleted < numTotalForThisExecution) {
-                if (numCurrentSubmitted < numTotalForThisExecution) {
-                    if (stepStatus.getStartCount() > 1) {
-                        kernelService.startGeneratedJob(parallelBatchWorkUnits.get(numCurrentSubmitted++));
-                    } else {
-                        kernelService.restartGeneratedJob(parallelBatchWorkUnits.get(numCurrentSubmitted++));
-                    }
+    private PartitionConcurrencyPolicy createConcurrencyPolicy() {
+        final String ref = stepContext.getProperties().getProperty(CONCURRENCY_POLICY);
+        if (ref == null || ref.trim().isEmpty()) {
+            return null;
+        }
+        if (AdaptivePartitionConcurrencyPolicy.NAME.equals(ref.trim())) {
+            return new AdaptivePartitionConcurrencyPolicy();
+        }
+
+        final BatchArtifactFactory.Instance instance = factory.load(ref.trim());
+        if (instance == null) {
+            throw new BatchContainerRuntimeException("Can't find partition concurrency policy " + ref);
+        }
+        if (instance.getReleasable() != null) {
+            jobExecutionImpl.addReleasable(instance.getReleasable());
+        }
+        return PartitionConcurrencyPolicy.class.cast(instance.getValue());
+    }
+
+    private PartitionTransport createTransport() {
+        final String ref = stepContext.getProperties().getProperty(PARTITION_TRANSPORT);
+        if (ref == null || ref.trim().isEmpty()) {
+            return null;
+        }
+        if (SocketPartitionTransport.NAME.equals(ref.trim())) {
+            return new SocketPartitionTransport(stepContext.getProperties(), DataCompression.of(servicesManager.service(DataRepresentationService.class)));
+        }
+
+        final BatchArtifactFactory.Instance instance = factory.load(ref.trim());
+        if (instance == null) {
+            throw new BatchContainerRuntimeException("Can't find partition transport " + ref);
+        }
+        if (instance.getReleasable() != null) {
+            jobExecutionImpl.addReleasable(instance.getReleasable());
+        }
+        return PartitionTransport.class.cast(instance.getValue());
+    }
+
+    private int boundConcurrency(final int concurrency) {
+        return Math.max(1, Math.min(this.threads, concurrency));
+    }
+
+    private PartitionConcurrencyPolicy.PartitionResult toPartitionResult(final BatchPartitionWorkUnit workUnit) {
+        final RuntimeJobExecution execution = workUnit.getJobExecutionImpl();
+        long items = 0;
+        long duration = 0;
+        final List<StepExecution> steps = partitionPersistence(workUnit).getStepExecutionsForJobExecution(execution.getExecutionId());
+        if (steps.size() == 1) {
+            final StepExecution stepExecution = steps.iterator().next();
+            for (final Metric metric : stepExecution.getMetrics()) {
+                if (Metric.MetricType.READ_COUNT.equals(metric.getType())) {
+                    items = metric.getValue();
                 }
-            } else {
-                break;
             }
+            if (stepExecution.getStartTime() != null && stepExecution.getEndTime() != null) {
+                duration = stepExecution.getEndTime().getTime() - stepExecution.getStartTime().getTime();
+            }
+        }
+        return new PartitionConcurrencyPolicy.PartitionResult(execution.getPartitionInstance(), execution.getJobContext().getBatchStatus(), items, duration);
+    }
+
+    private PersistenceManagerService partitionPersistence(final BatchWorkUnit workUnit) {
+        if (LightweightPartitionWorkUnit.class.isInstance(workUnit)) {
+            return LightweightPartitionWorkUnit.class.cast(workUnit).getPersistenceManagerService();
+        }
+        return persistenceManagerService;
+    }
+
+    private void startPartition(final BatchPartitionWorkUnit workUnit, final boolean restart) throws JobRestartException {
+        BatchEvents.partitionDispatch(step.getId(), rootJobExecutionId, workUnit.getJobExecutionImpl().getPartitionInstance());
+        if (restart && !lightweight) { // lightweight partitions are always new executions resuming from their checkpoints
+            kernelService.restartGeneratedJob(workUnit);
+        } else {
+            kernelService.startGeneratedJob(workUnit);
         }
     }
 
@@ -381,11 +684,18 @@ public class PartitionedStepController extends BaseStepController {
         boolean rollback = false;
 
         for (final BatchWorkUnit subJob : completedWork) {
-            final List<StepExecution> steps = persistenceManagerService.getStepExecutionsForJobExecution(subJob.getJobExecutionImpl().getExecutionId());
+            final List<StepExecution> steps = partitionPersistence(subJob).getStepExecutionsForJobExecution(subJob.getJobExecutionImpl().getExecutionId());
             if (steps.size() == 1) {
-                for (final Metric metric : steps.iterator().next().getMetrics()) {
+                final StepExecution partitionStep = steps.iterator().next();
+                for (final Metric metric : partitionStep.getMetrics()) {
                     stepContext.getMetric(metric.getType()).incValueBy(metric.getValue());
                 }
+                if (StepExecutionImpl.class.isInstance(partitionStep)) {
+                    final UserMetrics userMetrics = StepExecutionImpl.class.cast(partitionStep).getRawUserMetrics();
+                    if (userMetrics != null) {
+                        stepContext.getUserMetrics().merge(userMetrics);
+                    }
+                }
             }/* else {
                 // TODO: possible?
             }*/
@@ -475,7 +785,9 @@ public class PartitionedStepController extends BaseStepController {
         if (this.partitionReducerProxy != null) {
 
             try {
-                if ((BatchStatus.COMPLETED).equals(stepContext.getBatchStatus())) {
+                // the final status is only set after this call: STARTED means every partition succeeded,
+                // FAILED or STOPPING that the step failed or is stopped
+                if (BatchStatus.STARTED.equals(stepContext.getBatchStatus())) {
                     this.partitionReducerProxy.afterPartitionedStepCompletion(PartitionStatus.COMMIT);
                 } else {
                     this.partitionReducerProxy.afterPartitionedStepCompletion(PartitionStatus.ROLLBACK);
@@ -504,4 +816,33 @@ public class PartitionedStepController extends BaseStepController {
         // be anything to do on this thread.  It's only on the partitioned
         // threads that there is something to send back.
     }
+
+    /**
+     * Runs partitions until the shared queue is empty, each partition still signals its completion
+     * through the completed work queue so the step thread doesn't need to know which worker ran it.
+     */
+    private static class PartitionWorker implements Runnable {
+        private final Queue<BatchPartitionWorkUnit> pending;
+        private final String stepName;
+        private final long rootJobExecutionId;
+
+        private PartitionWorker(final Queue<BatchPartitionWorkUnit> pending, final String stepName, final long rootJobExecutionId) {
+            this.pending = pending;
+            this.stepName = stepName;
+            this.rootJobExecutionId = rootJobExecutionId;
+        }
+
+        @Override
+        public void run() {
+            BatchPartitionWorkUnit workUnit;
+            while ((workUnit = pending.poll()) != null) {
+                BatchEvents.partitionDispatch(stepName, rootJobExecutionId, workUnit.getJobExecutionImpl().getPartitionInstance());
+                try {
+                    workUnit.run();
+                } catch (final BatchContainerRuntimeException e) { // already marked as completed, keep going with next partitions
+                    LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller;
+
+import org.apache.batchee.container.impl.StepContextImpl;
+
+import javax.batch.runtime.Metric;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the steps running in this JVM read directly from their step context,
+ * i.e. without waiting for the next checkpoint to persist them.
+ *
+ * Partitions running locally are summed with their step, a partition is added to its step when it ends
+ * so the sum can be slightly off while it happens.
+ *
+ * Running steps are tracked by the {@link org.apache.batchee.container.services.metrics.StepMetricsRegistry}
+ * of the services running them.
+ */
+public class RunningStepMetrics {
+    private static final long RATE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final long rootExecutionId;
+    private final StepContextImpl stepContext;
+    private final long start = System.nanoTime();
+
+    // rates over the last window, guarded by this
+    private long sampleTime = start;
+    private long sampleReads;
+    private long sampleWrites;
+    private double readRate;
+    private double writeRate;
+
+    public RunningStepMetrics(final long rootExecutionId, final StepContextImpl stepContext) {
+        this.rootExecutionId = rootExecutionId;
+        this.stepContext = stepContext;
+    }
+
+    public long getRootExecutionId() {
+        return rootExecutionId;
+    }
+
+    public String getStepName() {
+        return stepContext.getStepName();
+    }
+
+    public Map<String, Long> toMap() {
+        final Map<String, Long> metrics = new TreeMap<String, Long>();
+        long reads = 0;
+        long writes = 0;
+        for (final Metric metric : stepContext.getMetrics()) {
+            metrics.put(name(metric.getType()), metric.getValue());
+            if (Metric.MetricType.READ_COUNT.equals(metric.getType())) {
+                reads = metric.getValue();
+            } else if (Metric.MetricType.WRITE_COUNT.equals(metric.getType())) {
+                writes = metric.getValue();
+            }
+        }
+
+        final long now = System.nanoTime();
+        final long duration = now - start;
+        metrics.put("durationMs", TimeUnit.NANOSECONDS.toMillis(duration));
+        metrics.put("meanReadRate", rate(reads, duration));
+        metrics.put("meanWriteRate", rate(writes, duration));
+        synchronized (this) {
+            final long window = now - sampleTime;
+            if (window >= RATE_WINDOW) {
+                readRate = (reads - sampleReads) * (double) TimeUnit.SECONDS.toNanos(1) / window;
+                writeRate = (writes - sampleWrites) * (double) TimeUnit.SECONDS.toNanos(1) / window;
+                sampleTime = now;
+                sampleReads = reads;
+                sampleWrites = writes;
+            } else if (sampleTime == start) { // first window not elapsed yet
+                readRate = rate(reads, duration);
+                writeRate = rate(writes, duration);
+            }
+            metrics.put("readRate", Math.round(readRate));
+            metrics.put("writeRate", Math.round(writeRate));
+        }
+        return metrics;
+    }
+
+    private static long rate(final long count, final long duration) {
+        return duration <= 0 ? 0 : Math.round(count * (double) TimeUnit.SECONDS.toNanos(1) / duration);
+    }
+
+    // READ_SKIP_COUNT -> readSkipCount
+    private static String name(final Metric.MetricType type) {
+        final StringBuilder name = new StringBuilder();
+        for (final String segment : type.name().toLowerCase(Locale.ENGLISH).split("_")) {
+            if (name.length() == 0) {
+                name.append(segment);
+            } else {
+                name.append(Character.toUpperCase(segment.charAt(0))).append(segment.substring(1));
+            }
+        }
+        return name.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "RunningStepMetrics{" + stepContext.getStepName() + ", " + toMap() + "}";
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.batchee.container.impl.controller;
 
 import org.apache.batchee.container.Controller;
+import org.apache.batchee.container.exception.BatchContainerRuntimeException;
 import org.apache.batchee.container.impl.StepContextImpl;
 import org.apache.batchee.container.impl.controller.chunk.ExceptionConfig;
 import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
@@ -29,6 +30,7 @@ import org.apache.batchee.jaxb.Collector;
 import org.apache.batchee.jaxb.Property;
 import org.apache.batchee.jaxb.Step;
 import org.apache.batchee.spi.BatchArtifactFactory;
+import org.apache.batchee.spi.PartitionCollectorCombiner;
 
 import java.io.Serializable;
 import java.util.List;
@@ -50,6 +52,13 @@ public abstract class SingleThreadedStepController extends BaseStepController im
     // Collector only used from partition threads, not main thread
     protected PartitionCollector collectorProxy = null;
 
+    // optional local merge of the collector data before sending them to the analyzer
+    private PartitionCollectorCombiner combiner = null;
+    private long combinerInterval = -1;
+    private Serializable combinedData = null;
+    private boolean hasCombinedData = false;
+    private long lastEmission;
+
     protected SingleThreadedStepController(final RuntimeJobExecution jobExecutionImpl, final Step step,
                                            final StepContextImpl stepContext, final long rootJobExecutionId,
                                            final BlockingQueue<PartitionDataWrapper> analyzerStatusQueue,
@@ -78,6 +87,13 @@ public abstract class SingleThreadedStepController extends BaseStepController im
                  */
                 injectionRef = new InjectionReferences(jobExecutionImpl.getJobContext(), stepContext, propList);
                 this.collectorProxy = ProxyFactory.createPartitionCollectorProxy(factory, collector.getRef(), injectionRef, jobExecutionImpl);
+
+                final String combinerRef = stepContext.getProperties().getProperty(PartitionedStepController.COLLECTOR_COMBINER);
+                if (combinerRef != null && analyzerStatusQueue != null) {
+                    this.combiner = loadCombiner(combinerRef.trim());
+                    this.combinerInterval = Long.parseLong(stepContext.getProperties().getProperty(PartitionedStepController.COLLECTOR_INTERVAL, "-1"));
+                    this.lastEmission = System.currentTimeMillis();
+                }
             }
         }
     }
@@ -116,20 +132,49 @@ public abstract class SingleThreadedStepController extends BaseStepController im
         if (collectorProxy != null) {
             try {
                 final Serializable data = collectorProxy.collectPartitionData();
-                sendCollectorDataToAnalyzerIfPresent(data);
+                if (combiner == null) {
+                    sendCollectorDataToAnalyzerIfPresent(data);
+                } else {
+                    combinedData = combiner.combine(combinedData, data);
+                    hasCombinedData = true;
+                    if (combinerInterval >= 0 && System.currentTimeMillis() - lastEmission >= combinerInterval) {
+                        flushCombinedData();
+                    }
+                }
             } catch (Exception e) {
                 ExceptionConfig.wrapBatchException(e);
             }
         }
     }
 
+    private void flushCombinedData() {
+        if (hasCombinedData) {
+            final Serializable data = combinedData;
+            combinedData = null;
+            hasCombinedData = false;
+            lastEmission = System.currentTimeMillis();
+            sendCollectorDataToAnalyzerIfPresent(data);
+        }
+    }
+
+    private PartitionCollectorCombiner loadCombiner(final String ref) {
+        final BatchArtifactFactory.Instance instance = factory.load(ref);
+        if (instance == null) {
+            throw new BatchContainerRuntimeException("Can't find partition collector combiner " + ref);
+        }
+        if (instance.getReleasable() != null) {
+            jobExecutionImpl.addReleasable(instance.getReleasable());
+        }
+        return PartitionCollectorCombiner.class.cast(instance.getValue());
+    }
+
     // Useless to have collector without analyzer but let's check so we don't hang or blow up.
     protected void sendCollectorDataToAnalyzerIfPresent(Serializable data) {
         if (analyzerStatusQueue != null) {
             final PartitionDataWrapper dataWrapper = new PartitionDataWrapper();
             dataWrapper.setCollectorData(data);
             dataWrapper.setEventType(PartitionEventType.ANALYZE_COLLECTOR_DATA);
-            analyzerStatusQueue.add(dataWrapper);
+            sendToAnalyzer(dataWrapper);
         }
     }
 
@@ -137,11 +182,23 @@ public abstract class SingleThreadedStepController extends BaseStepController im
     @Override
     protected void sendStatusFromPartitionToAnalyzerIfPresent() {
         if (analyzerStatusQueue != null) {
+            flushCombinedData(); // before the status since the analyzer stops reading data of this partition after it
+
             final PartitionDataWrapper dataWrapper = new PartitionDataWrapper();
             dataWrapper.setBatchStatus(stepStatus.getBatchStatus());
             dataWrapper.setExitStatus(stepStatus.getExitStatus());
             dataWrapper.setEventType(PartitionEventType.ANALYZE_STATUS);
-            analyzerStatusQueue.add(dataWrapper);
+            sendToAnalyzer(dataWrapper);
+        }
+    }
+
+    // blocks when the analyzer queue is bounded and full
+    private void sendToAnalyzer(final PartitionDataWrapper dataWrapper) {
+        try {
+            analyzerStatusQueue.put(dataWrapper);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BatchContainerRuntimeException(e);
         }
     }
 }
@@ -41,11 +41,17 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 public class SplitController implements ExecutionElementController {
     private final static Logger logger = Logger.getLogger(SplitController.class.getName());
 
+    /**
+     * Job property, when true the first failing flow stops the other flows of the split instead of letting them run to their end.
+     */
+    public static final String FAIL_FAST = "org.apache.batchee.split.fail-fast";
+
     private final RuntimeJobExecution jobExecution;
 
     private volatile List<BatchFlowInSplitWorkUnit> parallelBatchWorkUnits;
@@ -56,6 +62,7 @@ public class SplitController implements ExecutionElementController {
     private final long rootJobExecutionId;
 
     private final List<JSLJob> subJobs = new ArrayList<JSLJob>();
+    private final AtomicBoolean failing = new AtomicBoolean();
 
     protected Split split;
 
@@ -89,6 +96,31 @@ public class SplitController implements ExecutionElementController {
         }
     }
 
+    /**
+     * Called with {@link #FAIL_FAST} by a failed flow on its thread before it releases it, so the thread can't run
+     * a queued sibling flow before it is cancelled.
+     */
+    public void flowFailed(final BatchFlowInSplitWorkUnit failed) {
+        if (!failing.compareAndSet(false, true)) {
+            return;
+        }
+
+        logger.info("Flow " + failed.getJobExecutionImpl().getJobInstance().getJobName() + " failed, stopping the other flows of split " + split.getId());
+        synchronized (subJobs) {
+            // cancel all flows before stopping any so a thread freed by a stopped flow can't start a queued one
+            for (final BatchFlowInSplitWorkUnit subJob : parallelBatchWorkUnits) {
+                if (subJob != failed) {
+                    subJob.cancel();
+                }
+            }
+            for (final BatchFlowInSplitWorkUnit subJob : parallelBatchWorkUnits) {
+                if (subJob != failed) {
+                    subJob.getController().stop(); // no-op for ended flows
+                }
+            }
+        }
+    }
+
     @Override
     public SplitExecutionStatus execute()
             throws JobRestartException, JobStartException, JobExecutionAlreadyCompleteException, JobExecutionNotMostRecentException, NoSuchJobExecutionException {
@@ -111,22 +143,21 @@ public class SplitController implements ExecutionElementController {
         List<Flow> flows = this.split.getFlows();
 
         parallelBatchWorkUnits = new ArrayList<BatchFlowInSplitWorkUnit>();
+        final boolean failFast = Boolean.parseBoolean(jobContext.getProperties().getProperty(FAIL_FAST, "false"));
 
         // Build all sub jobs from flows in split
         synchronized (subJobs) {
             for (Flow flow : flows) {
                 subJobs.add(PartitionedStepBuilder.buildFlowInSplitSubJob(jobExecution.getExecutionId(), jobContext, this.split, flow));
             }
+            // the generated job ids contain the execution id so they are always new instances (steps restart from the top level instance)
             for (JSLJob job : subJobs) {
-                int count = batchKernel.getJobInstanceCount(job.getId());
                 FlowInSplitBuilderConfig config = new FlowInSplitBuilderConfig(job, completedWorkQueue, rootJobExecutionId);
-                if (count == 0) {
-                    parallelBatchWorkUnits.add(batchKernel.buildNewFlowInSplitWorkUnit(config, jobExecution.getJobContext()));
-                } else if (count == 1) {
-                    parallelBatchWorkUnits.add(batchKernel.buildOnRestartFlowInSplitWorkUnit(config, jobExecution.getJobContext()));
-                } else {
-                    throw new IllegalStateException("There is an inconsistency somewhere in the internal subjob creation");
+                final BatchFlowInSplitWorkUnit workUnit = batchKernel.buildNewFlowInSplitWorkUnit(config, jobExecution.getJobContext());
+                if (failFast) {
+                    workUnit.setFailFastSplit(this);
                 }
+                parallelBatchWorkUnits.add(workUnit);
             }
         }
     }
@@ -134,17 +165,7 @@ public class SplitController implements ExecutionElementController {
     private void executeWorkUnits() {
         // Then start or restart all subjobs in parallel
         for (BatchParallelWorkUnit work : parallelBatchWorkUnits) {
-            int count = batchKernel.getJobInstanceCount(work.getJobExecutionImpl().getJobInstance().getJobName());
-
-            assert (count <= 1);
-
-            if (count == 1) {
-                batchKernel.startGeneratedJob(work);
-            } else if (count > 1) {
-                batchKernel.restartGeneratedJob(work);
-            } else {
-                throw new IllegalStateException("There is an inconsistency somewhere in the internal subjob creation");
-            }
+            batchKernel.startGeneratedJob(work);
         }
     }
 
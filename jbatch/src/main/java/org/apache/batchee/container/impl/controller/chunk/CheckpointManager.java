@@ -18,12 +18,14 @@ package org.apache.batchee.container.impl.controller.chunk;
 
 import org.apache.batchee.container.exception.BatchContainerRuntimeException;
 import org.apache.batchee.container.exception.BatchContainerServiceException;
+import org.apache.batchee.container.jfr.BatchEvents;
 import org.apache.batchee.spi.DataRepresentationService;
 import org.apache.batchee.spi.PersistenceManagerService;
 
 import javax.batch.api.chunk.CheckpointAlgorithm;
 import javax.batch.api.chunk.ItemReader;
 import javax.batch.api.chunk.ItemWriter;
+import java.util.Arrays;
 
 
 public class CheckpointManager {
@@ -35,6 +37,10 @@ public class CheckpointManager {
     private final String stepId;
     private final long jobInstanceID;
 
+    private boolean written;
+    private byte[] lastReaderCheckpoint;
+    private byte[] lastWriterCheckpoint;
+
 
     public CheckpointManager(final ItemReader reader, final ItemWriter writer,
                              final CheckpointAlgorithm chkptAlg,
@@ -59,28 +65,38 @@ public class CheckpointManager {
         }
     }
 
+    /**
+     * Writes reader and writer checkpoints, a checkpoint serialized exactly as the last one written by this manager
+     * is skipped (a writer returning a constant or null checkpoint doesn't cost a write per chunk).
+     */
     public void checkpoint() {
-        final CheckpointDataKey readerChkptDK;
-        final CheckpointDataKey writerChkptDK;
+        final long start = System.nanoTime();
+        boolean readerWritten = false;
+        boolean writerWritten = false;
         try {
-            byte[] checkpointBytes = dataRepresentationService.toInternalRepresentation(readerProxy.checkpointInfo());
-            CheckpointData readerChkptData = new CheckpointData(jobInstanceID, stepId, CheckpointType.READER);
-            readerChkptData.setRestartToken(checkpointBytes);
-            readerChkptDK = new CheckpointDataKey(jobInstanceID, stepId, CheckpointType.READER);
-
-            persistenceManagerService.setCheckpointData(readerChkptDK, readerChkptData);
-
-            checkpointBytes = dataRepresentationService.toInternalRepresentation(writerProxy.checkpointInfo());
-            CheckpointData writerChkptData = new CheckpointData(jobInstanceID, stepId, CheckpointType.WRITER);
-            writerChkptData.setRestartToken(checkpointBytes);
-            writerChkptDK = new CheckpointDataKey(jobInstanceID, stepId, CheckpointType.WRITER);
-
-            persistenceManagerService.setCheckpointData(writerChkptDK, writerChkptData);
+            final byte[] readerCheckpoint = dataRepresentationService.toInternalRepresentation(readerProxy.checkpointInfo());
+            if (!written || !Arrays.equals(lastReaderCheckpoint, readerCheckpoint)) {
+                final CheckpointData readerChkptData = new CheckpointData(jobInstanceID, stepId, CheckpointType.READER);
+                readerChkptData.setRestartToken(readerCheckpoint);
+                persistenceManagerService.setCheckpointData(new CheckpointDataKey(jobInstanceID, stepId, CheckpointType.READER), readerChkptData);
+                lastReaderCheckpoint = readerCheckpoint;
+                readerWritten = true;
+            }
 
+            final byte[] writerCheckpoint = dataRepresentationService.toInternalRepresentation(writerProxy.checkpointInfo());
+            if (!written || !Arrays.equals(lastWriterCheckpoint, writerCheckpoint)) {
+                final CheckpointData writerChkptData = new CheckpointData(jobInstanceID, stepId, CheckpointType.WRITER);
+                writerChkptData.setRestartToken(writerCheckpoint);
+                persistenceManagerService.setCheckpointData(new CheckpointDataKey(jobInstanceID, stepId, CheckpointType.WRITER), writerChkptData);
+                lastWriterCheckpoint = writerCheckpoint;
+                writerWritten = true;
+            }
+            written = true;
         } catch (final Exception ex) {
             // is this what I should be throwing here?
             throw new BatchContainerServiceException("Cannot persist the checkpoint data for [" + stepId + "]", ex);
         }
+        BatchEvents.checkpoint(stepId, jobInstanceID, readerWritten, writerWritten, System.nanoTime() - start);
     }
 
     public int checkpointTimeout() {
@@ -17,5 +17,5 @@
 package org.apache.batchee.container.impl.controller.chunk;
 
 public enum CheckpointType {
-    READER, WRITER
+    READER, WRITER, PARTITIONS
 }
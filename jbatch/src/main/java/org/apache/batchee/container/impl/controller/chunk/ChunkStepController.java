@@ -22,10 +22,12 @@ import org.apache.batchee.container.impl.MetricImpl;
 import org.apache.batchee.container.impl.StepContextImpl;
 import org.apache.batchee.container.impl.controller.SingleThreadedStepController;
 import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
+import org.apache.batchee.container.jfr.BatchEvents;
 import org.apache.batchee.container.proxy.CheckpointAlgorithmProxy;
 import org.apache.batchee.container.proxy.InjectionReferences;
 import org.apache.batchee.container.proxy.ProxyFactory;
 import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
 import org.apache.batchee.container.util.PartitionDataWrapper;
 import org.apache.batchee.container.util.TCCLObjectInputStream;
 import org.apache.batchee.jaxb.Chunk;
@@ -54,6 +56,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -80,6 +83,14 @@ public class ChunkStepController extends SingleThreadedStepController {
     private List<ItemProcessListener> itemProcessListeners = null;
     private List<ItemWriteListener> itemWriteListeners = null;
     private RetryHandler retryHandler;
+    private final StepMetricsRegistry metricsRegistry;
+    private ChunkStepLatencies latencies;
+    private SlowItems slowItems;
+    private long chunkNumber;
+    private long chunkStart;
+    private long chunkReads;
+    private long chunkWrites;
+    private long chunkFilters;
 
     private boolean rollbackRetry = false;
 
@@ -90,6 +101,7 @@ public class ChunkStepController extends SingleThreadedStepController {
         this.persistenceManagerService = servicesManager.service(PersistenceManagerService.class);
         this.artifactFactory = servicesManager.service(BatchArtifactFactory.class);
         this.dataRepresentationService = servicesManager.service(DataRepresentationService.class);
+        this.metricsRegistry = servicesManager.service(StepMetricsRegistry.class);
     }
 
     /**
@@ -232,15 +244,23 @@ public class ChunkStepController extends SingleThreadedStepController {
 
         try {
             // call read listeners before and after the actual read
+            long start = System.nanoTime();
             for (ItemReadListener readListenerProxy : itemReadListeners) {
                 readListenerProxy.beforeRead();
             }
+            start = latencies.recordListeners(itemReadListeners, start);
 
             itemRead = readerProxy.readItem();
+            final long readStart = start;
+            start = latencies.record(ChunkStepLatencies.Phase.READ, start);
+            if (slowItems != null) {
+                slowItems.trace(ChunkStepLatencies.Phase.READ, chunkNumber, itemRead, start - readStart);
+            }
 
             for (ItemReadListener readListenerProxy : itemReadListeners) {
                 readListenerProxy.afterRead(itemRead);
             }
+            latencies.recordListeners(itemReadListeners, start);
 
             // itemRead == null means we reached the end of
             // the readerProxy "resultset"
@@ -327,11 +347,18 @@ public class ChunkStepController extends SingleThreadedStepController {
         try {
 
             // call process listeners before and after the actual process call
+            long start = System.nanoTime();
             for (final ItemProcessListener processListenerProxy : itemProcessListeners) {
                 processListenerProxy.beforeProcess(itemRead);
             }
+            start = latencies.recordListeners(itemProcessListeners, start);
 
             processedItem = processorProxy.processItem(itemRead);
+            final long processStart = start;
+            start = latencies.record(ChunkStepLatencies.Phase.PROCESS, start);
+            if (slowItems != null) {
+                slowItems.trace(ChunkStepLatencies.Phase.PROCESS, chunkNumber, itemRead, start - processStart);
+            }
 
             if (processedItem == null) {
                 // inc filterCount
@@ -342,6 +369,7 @@ public class ChunkStepController extends SingleThreadedStepController {
             for (final ItemProcessListener processListenerProxy : itemProcessListeners) {
                 processListenerProxy.afterProcess(itemRead, processedItem);
             }
+            latencies.recordListeners(itemProcessListeners, start);
         } catch (final Exception e) {
             for (final ItemProcessListener processListenerProxy : itemProcessListeners) {
                 try {
@@ -445,15 +473,23 @@ public class ChunkStepController extends SingleThreadedStepController {
             try {
 
                 // call read listeners before and after the actual read
+                long start = System.nanoTime();
                 for (ItemWriteListener writeListenerProxy : itemWriteListeners) {
                     writeListenerProxy.beforeWrite(theChunk);
                 }
+                start = latencies.recordListeners(itemWriteListeners, start);
 
                 writerProxy.writeItems(theChunk);
+                final long writeStart = start;
+                start = latencies.record(ChunkStepLatencies.Phase.WRITE, start);
+                if (slowItems != null) {
+                    slowItems.trace(ChunkStepLatencies.Phase.WRITE, chunkNumber, theChunk, start - writeStart);
+                }
 
                 for (ItemWriteListener writeListenerProxy : itemWriteListeners) {
                     writeListenerProxy.afterWrite(theChunk);
                 }
+                latencies.recordListeners(itemWriteListeners, start);
                 stepContext.getMetric(MetricImpl.MetricType.WRITE_COUNT).incValueBy(theChunk.size());
             } catch (Exception e) {
                 this.stepContext.setException(e);
@@ -513,9 +549,13 @@ public class ChunkStepController extends SingleThreadedStepController {
         // begin new transaction at first iteration or after a checkpoint commit
 
         try {
+            long start = System.nanoTime();
             transactionManager.begin();
+            latencies.record(ChunkStepLatencies.Phase.BEGIN, start);
             this.openReaderAndWriter();
+            start = System.nanoTime();
             transactionManager.commit();
+            latencies.record(ChunkStepLatencies.Phase.COMMIT, start);
         } catch (final Exception e) {
             rollback(e);
             return;
@@ -528,10 +568,14 @@ public class ChunkStepController extends SingleThreadedStepController {
                         int newtimeOut = this.checkpointManager.checkpointTimeout();
                         transactionManager.setTransactionTimeout(newtimeOut);
                     }
+                    long start = System.nanoTime();
+                    chunkStarted(start);
                     transactionManager.begin();
+                    start = latencies.record(ChunkStepLatencies.Phase.BEGIN, start);
                     for (ChunkListener chunkProxy : chunkListeners) {
                         chunkProxy.beforeChunk();
                     }
+                    latencies.recordListeners(chunkListeners, start);
 
                     if (rollback) {
                         positionReaderAtCheckpoint();
@@ -557,6 +601,7 @@ public class ChunkStepController extends SingleThreadedStepController {
                     doClose();
 
                     transactionManager.rollback();
+                    BatchEvents.rollback(step.getId(), jobExecutionImpl.getExecutionId(), retryHandler.getException());
 
                     continue;
                 }
@@ -570,6 +615,7 @@ public class ChunkStepController extends SingleThreadedStepController {
                     doClose();
 
                     transactionManager.rollback();
+                    BatchEvents.rollback(step.getId(), jobExecutionImpl.getExecutionId(), retryHandler.getException());
 
                     continue;
                 }
@@ -583,17 +629,24 @@ public class ChunkStepController extends SingleThreadedStepController {
                     // 2.- ask Andy about retry
                     // 3.- when do we stop?
 
+                    final long checkpointStart = System.nanoTime();
                     checkpointManager.checkpoint();
+                    long start = System.nanoTime();
+                    final long checkpointDuration = start - checkpointStart;
 
                     for (ChunkListener chunkProxy : chunkListeners) {
                         chunkProxy.afterChunk();
                     }
+                    start = latencies.recordListeners(chunkListeners, start);
 
                     this.persistUserData();
+                    latencies.get(ChunkStepLatencies.Phase.CHECKPOINT).record(checkpointDuration + System.nanoTime() - start);
 
                     this.chkptAlg.beginCheckpoint();
 
+                    start = System.nanoTime();
                     transactionManager.commit();
+                    chunkCommitted(latencies.record(ChunkStepLatencies.Phase.COMMIT, start));
 
                     this.chkptAlg.endCheckpoint();
 
@@ -654,16 +707,55 @@ public class ChunkStepController extends SingleThreadedStepController {
             // ignore, we blow up anyway
         }
         transactionManager.rollback();
+        forgetPersistedUserData();
+        BatchEvents.rollback(step.getId(), jobExecutionImpl.getExecutionId(), t);
         throw new BatchContainerRuntimeException("Failure in Read-Process-Write Loop", t);
     }
 
+    private void chunkStarted(final long start) {
+        chunkNumber++;
+        chunkStart = start;
+        chunkReads = stepContext.getMetric(MetricImpl.MetricType.READ_COUNT).getValue();
+        chunkWrites = stepContext.getMetric(MetricImpl.MetricType.WRITE_COUNT).getValue();
+        chunkFilters = stepContext.getMetric(MetricImpl.MetricType.FILTER_COUNT).getValue();
+    }
+
+    private void chunkCommitted(final long end) {
+        if (BatchEvents.isRecording()) {
+            BatchEvents.chunkCommit(step.getId(), jobExecutionImpl.getExecutionId(),
+                stepContext.getMetric(MetricImpl.MetricType.READ_COUNT).getValue() - chunkReads,
+                stepContext.getMetric(MetricImpl.MetricType.WRITE_COUNT).getValue() - chunkWrites,
+                stepContext.getMetric(MetricImpl.MetricType.FILTER_COUNT).getValue() - chunkFilters,
+                end - chunkStart);
+        }
+    }
+
     protected void invokeCoreStep() throws BatchContainerServiceException {
 
         this.chunk = step.getChunk();
 
         initializeChunkArtifacts();
 
-        invokeChunk();
+        latencies = metricsRegistry.chunkStepStarted(rootJobExecutionId, step.getId());
+        try {
+            final long slowItemThreshold = Long.parseLong(slowItemConfig(SlowItems.THRESHOLD, "-1"));
+            if (slowItemThreshold > 0) {
+                slowItems = latencies.traceSlowItems(TimeUnit.MILLISECONDS.toNanos(slowItemThreshold),
+                    Integer.parseInt(slowItemConfig(SlowItems.CAPACITY, "100")), Integer.parseInt(slowItemConfig(SlowItems.MAX_LENGTH, "256")));
+            }
+            invokeChunk();
+        } finally {
+            metricsRegistry.chunkStepEnded(latencies);
+        }
+    }
+
+    // step property first then batchee.properties
+    private String slowItemConfig(final String key, final String defaultValue) {
+        final String value = stepContext.getProperties().getProperty(key);
+        if (value != null) {
+            return value.trim();
+        }
+        return ServicesManager.value(key, defaultValue).trim();
     }
 
     private CheckpointAlgorithm getCheckpointAlgorithm(final int itemCount, final int timeInterval) {
@@ -832,6 +924,7 @@ public class ChunkStepController extends SingleThreadedStepController {
         } catch (final BatchContainerRuntimeException bcre) {
             return false;
         }
+        BatchEvents.skip(step.getId(), jobExecutionImpl.getExecutionId(), "read", e);
         return true;
     }
 
@@ -841,6 +934,7 @@ public class ChunkStepController extends SingleThreadedStepController {
         } catch (final BatchContainerRuntimeException bcre) {
             return false;
         }
+        BatchEvents.retry(step.getId(), jobExecutionImpl.getExecutionId(), "read", e);
         return true;
 
     }
@@ -851,6 +945,7 @@ public class ChunkStepController extends SingleThreadedStepController {
         } catch (BatchContainerRuntimeException bcre) {
             return false;
         }
+        BatchEvents.skip(step.getId(), jobExecutionImpl.getExecutionId(), "process", e);
         return true;
 
     }
@@ -861,6 +956,7 @@ public class ChunkStepController extends SingleThreadedStepController {
         } catch (BatchContainerRuntimeException bcre) {
             return false;
         }
+        BatchEvents.retry(step.getId(), jobExecutionImpl.getExecutionId(), "process", e);
         return true;
     }
 
@@ -870,6 +966,7 @@ public class ChunkStepController extends SingleThreadedStepController {
         } catch (BatchContainerRuntimeException bcre) {
             return false;
         }
+        BatchEvents.skip(step.getId(), jobExecutionImpl.getExecutionId(), "write", e);
         return true;
     }
 
@@ -879,6 +976,7 @@ public class ChunkStepController extends SingleThreadedStepController {
         } catch (BatchContainerRuntimeException bcre) {
             return false;
         }
+        BatchEvents.retry(step.getId(), jobExecutionImpl.getExecutionId(), "write", e);
         return true;
     }
 
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller.chunk;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency distributions of the phases of a chunk step, shared by all partitions of the step.
+ * It tells if a slow step is reader, processor, writer, listener or transaction bound.
+ *
+ * Steps (and their {@link SlowItems}) are kept by the {@link org.apache.batchee.container.services.metrics.StepMetricsRegistry} of the services running them.
+ */
+public class ChunkStepLatencies {
+    public static final String RETAINED = "org.apache.batchee.chunk.latencies.retained";
+
+    public enum Phase {
+        READ, PROCESS, WRITE, CHECKPOINT, BEGIN, COMMIT, LISTENERS
+    }
+
+    private final long rootExecutionId;
+    private final String stepName;
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+    private volatile SlowItems slowItems;
+
+    public ChunkStepLatencies(final long rootExecutionId, final String stepName) {
+        this.rootExecutionId = rootExecutionId;
+        this.stepName = stepName;
+        for (final Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public long getRootExecutionId() {
+        return rootExecutionId;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    public LatencyHistogram get(final Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * @return the slow items of the step or null if they are not traced.
+     */
+    public SlowItems getSlowItems() {
+        return slowItems;
+    }
+
+    // first partition configures it
+    synchronized SlowItems traceSlowItems(final long thresholdNanos, final int capacity, final int maxLength) {
+        if (slowItems == null) {
+            slowItems = new SlowItems(thresholdNanos, capacity, maxLength);
+        }
+        return slowItems;
+    }
+
+    /**
+     * @param start the {@link System#nanoTime()} when the phase started.
+     * @return the end of the phase to chain measures.
+     */
+    long record(final Phase phase, final long start) {
+        final long end = System.nanoTime();
+        histograms.get(phase).record(end - start);
+        return end;
+    }
+
+    /**
+     * Same as {@link #record(Phase, long)} for listeners but doesn't measure anything when there is no listener.
+     */
+    long recordListeners(final Collection<?> listeners, final long start) {
+        if (listeners.isEmpty()) {
+            return start;
+        }
+        return record(Phase.LISTENERS, start);
+    }
+
+    /**
+     * @return the summaries of the phases, keys are like {@code read.p99Us}.
+     */
+    public Map<String, Long> toMap() {
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        for (final Map.Entry<Phase, LatencyHistogram> histogram : histograms.entrySet()) {
+            final String phase = histogram.getKey().name().toLowerCase(Locale.ENGLISH);
+            for (final Map.Entry<String, Long> metric : histogram.getValue().toMap().entrySet()) {
+                metrics.put(phase + "." + metric.getKey(), metric.getValue());
+            }
+        }
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkStepLatencies" + toMap();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller.chunk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded ring buffer of the items of a chunk step whose read, process or write took longer than a threshold.
+ * Outliers (huge payloads, slow lookups) are hidden by the latency distributions, this keeps their string form.
+ *
+ * Activated per step with the {@link #THRESHOLD} step property (or globally in batchee.properties),
+ * when nothing is slow tracing costs a comparison on a duration already measured for {@link ChunkStepLatencies}.
+ * Partitions of a step share the same buffer.
+ */
+public class SlowItems {
+    public static final String THRESHOLD = "org.apache.batchee.chunk.slow-item.threshold";
+    public static final String CAPACITY = "org.apache.batchee.chunk.slow-item.capacity";
+    public static final String MAX_LENGTH = "org.apache.batchee.chunk.slow-item.max-length";
+
+    private final long threshold;
+    private final int maxLength;
+
+    // guarded by this, only used for slow items
+    private final SlowItem[] buffer;
+    private long traced;
+
+    SlowItems(final long thresholdNanos, final int capacity, final int maxLength) {
+        this.threshold = thresholdNanos;
+        this.maxLength = maxLength;
+        this.buffer = new SlowItem[Math.max(1, capacity)];
+    }
+
+    /**
+     * @param item the item or the chunk (write) concerned by the phase, only converted to string if it is slow.
+     */
+    void trace(final ChunkStepLatencies.Phase phase, final long chunk, final Object item, final long durationNanos) {
+        if (durationNanos < threshold) {
+            return;
+        }
+
+        final String value = truncate(item);
+        final long timestamp = System.currentTimeMillis();
+        synchronized (this) {
+            buffer[(int) (traced % buffer.length)] = new SlowItem(traced, phase, chunk, durationNanos, timestamp, value);
+            traced++;
+        }
+    }
+
+    public long getThreshold(final TimeUnit unit) {
+        return unit.convert(threshold, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of slow items seen, including the ones no more in the buffer.
+     */
+    public synchronized long getTracedCount() {
+        return traced;
+    }
+
+    /**
+     * @return the slow items still in the buffer, oldest first.
+     */
+    public synchronized List<SlowItem> getItems() {
+        final int size = (int) Math.min(traced, buffer.length);
+        final List<SlowItem> items = new ArrayList<SlowItem>(size);
+        for (long i = traced - size; i < traced; i++) {
+            items.add(buffer[(int) (i % buffer.length)]);
+        }
+        return items;
+    }
+
+    // a written chunk is described item per item to not build the string form of all its items when only the first ones are kept
+    private String truncate(final Object item) {
+        if (!Collection.class.isInstance(item)) {
+            return cut(describe(item));
+        }
+
+        final Collection<?> items = Collection.class.cast(item);
+        final StringBuilder builder = new StringBuilder("[");
+        for (final Object element : items) {
+            if (builder.length() > maxLength) {
+                break;
+            }
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(describe(element));
+        }
+        return cut(builder.append(']').toString());
+    }
+
+    private String cut(final String value) {
+        if (value.length() > maxLength) {
+            return value.substring(0, maxLength) + "...";
+        }
+        return value;
+    }
+
+    private static String describe(final Object item) {
+        try {
+            return String.valueOf(item);
+        } catch (final RuntimeException re) { // user toString(), don't fail the step for tracing
+            return item.getClass().getName() + " (toString() failed: " + re + ")";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SlowItems{threshold=" + getThreshold(TimeUnit.MILLISECONDS) + "ms, traced=" + getTracedCount() + "}";
+    }
+
+    public static class SlowItem {
+        private final long sequence;
+        private final ChunkStepLatencies.Phase phase;
+        private final long chunk;
+        private final long duration;
+        private final long timestamp;
+        private final String item;
+
+        private SlowItem(final long sequence, final ChunkStepLatencies.Phase phase, final long chunk, final long duration,
+                         final long timestamp, final String item) {
+            this.sequence = sequence;
+            this.phase = phase;
+            this.chunk = chunk;
+            this.duration = duration;
+            this.timestamp = timestamp;
+            this.item = item;
+        }
+
+        /**
+         * @return the index of this item in all the slow items of the step.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        public ChunkStepLatencies.Phase getPhase() {
+            return phase;
+        }
+
+        /**
+         * @return the chunk number (starting at 1) in the step or partition execution, retried chunks count again.
+         */
+        public long getChunk() {
+            return chunk;
+        }
+
+        public long getDuration(final TimeUnit unit) {
+            return unit.convert(duration, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return the end of the phase in milliseconds since epoch.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the truncated string form of the item, for the write phase the string form of the chunk.
+         */
+        public String getItem() {
+            return item;
+        }
+
+        @Override
+        public String toString() {
+            return "SlowItem{" + phase + ", chunk=" + chunk + ", duration=" + getDuration(TimeUnit.MILLISECONDS) + "ms, item=" + item + "}";
+        }
+    }
+}
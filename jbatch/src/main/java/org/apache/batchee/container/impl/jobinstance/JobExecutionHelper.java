@@ -221,6 +221,26 @@ public class JobExecutionHelper {
         return executionHelper;
     }
 
+    /**
+     * Rebuilds an execution created by another node of the cluster (start or restart) to run it there.
+     */
+    public static RuntimeJobExecution startQueuedJob(final ServicesManager servicesManager, final long executionId, final Properties jobParameters)
+            throws NoSuchJobExecutionException {
+        final PersistenceManagerService persistenceManagerService = servicesManager.service(PersistenceManagerService.class);
+        final JobStatus jobStatus = servicesManager.service(JobStatusManagerService.class).getJobStatus(
+            persistenceManagerService.getJobInstanceIdByExecutionId(executionId));
+        final JobInstanceImpl jobInstance = jobStatus.getJobInstance();
+
+        final ModelNavigator<JSLJob> jobNavigator = getResolvedJobNavigator(jobInstance.getJobXML(), jobParameters, false);
+        final JobContextImpl jobContext = getJobContext(jobNavigator);
+
+        final RuntimeJobExecution executionHelper = new RuntimeJobExecution(jobInstance, executionId, persistenceManagerService);
+        executionHelper.setBatchStatus(jobContext.getBatchStatus().name());
+        executionHelper.setJobParameters(jobParameters);
+        executionHelper.prepareForExecution(jobContext, jobStatus.getRestartOn());
+        return executionHelper;
+    }
+
     public static InternalJobExecution getPersistedJobOperatorJobExecution(final PersistenceManagerService persistenceManagerService, final long jobExecutionId)
             throws NoSuchJobExecutionException {
         return persistenceManagerService.jobOperatorGetJobExecution(jobExecutionId);
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.jfr;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JDK Flight Recorder events of the batch runtime (category "BatchEE", names prefixed by {@code org.apache.batchee.}).
+ *
+ * The events are created through {@code jdk.jfr.EventFactory} by reflection to stay compatible with JVMs without JFR.
+ * When no recording runs, emitting an event is a volatile read. Events can be disabled in the recording settings
+ * like any JFR event (for instance {@code org.apache.batchee.ChunkCommit#enabled=false}).
+ */
+public final class BatchEvents {
+    private static final Logger LOGGER = Logger.getLogger(BatchEvents.class.getName());
+    private static final String CATEGORY = "BatchEE";
+
+    private static volatile boolean recording;
+
+    private static final EventType JOB_START;
+    private static final EventType JOB_END;
+    private static final EventType STEP_START;
+    private static final EventType STEP_END;
+    private static final EventType CHUNK_COMMIT;
+    private static final EventType CHECKPOINT;
+    private static final EventType ROLLBACK;
+    private static final EventType RETRY;
+    private static final EventType SKIP;
+    private static final EventType PARTITION_DISPATCH;
+    private static final EventType PARTITION_END;
+
+    static {
+        Jfr jfr = null;
+        try {
+            jfr = new Jfr();
+        } catch (final Throwable e) { // no JFR in this JVM
+            LOGGER.log(Level.FINE, "JDK Flight Recorder not available, batch events disabled", e);
+        }
+
+        JOB_START = EventType.create(jfr, "JobStart", "Job Start",
+            field(String.class, "jobName"), field(long.class, "instanceId"), field(long.class, "executionId"));
+        JOB_END = EventType.create(jfr, "JobEnd", "Job End",
+            field(String.class, "jobName"), field(long.class, "executionId"), field(String.class, "batchStatus"),
+            field(String.class, "exitStatus"), timespan("elapsed"));
+        STEP_START = EventType.create(jfr, "StepStart", "Step Start",
+            field(String.class, "stepName"), field(long.class, "executionId"));
+        STEP_END = EventType.create(jfr, "StepEnd", "Step End",
+            field(String.class, "stepName"), field(long.class, "executionId"), field(String.class, "batchStatus"),
+            field(String.class, "exitStatus"), timespan("elapsed"));
+        CHUNK_COMMIT = EventType.create(jfr, "ChunkCommit", "Chunk Commit",
+            field(String.class, "stepName"), field(long.class, "executionId"), field(long.class, "readCount"),
+            field(long.class, "writeCount"), field(long.class, "filterCount"), timespan("elapsed"));
+        CHECKPOINT = EventType.create(jfr, "Checkpoint", "Checkpoint Persistence",
+            field(String.class, "stepName"), field(long.class, "instanceId"), field(boolean.class, "readerWritten"),
+            field(boolean.class, "writerWritten"), timespan("elapsed"));
+        ROLLBACK = EventType.create(jfr, "Rollback", "Chunk Rollback",
+            field(String.class, "stepName"), field(long.class, "executionId"), field(String.class, "cause"));
+        RETRY = EventType.create(jfr, "Retry", "Item Retry",
+            field(String.class, "stepName"), field(long.class, "executionId"), field(String.class, "phase"),
+            field(String.class, "exception"));
+        SKIP = EventType.create(jfr, "Skip", "Item Skip",
+            field(String.class, "stepName"), field(long.class, "executionId"), field(String.class, "phase"),
+            field(String.class, "exception"));
+        PARTITION_DISPATCH = EventType.create(jfr, "PartitionDispatch", "Partition Dispatch",
+            field(String.class, "stepName"), field(long.class, "rootExecutionId"), field(int.class, "partition"));
+        PARTITION_END = EventType.create(jfr, "PartitionEnd", "Partition End",
+            field(String.class, "stepName"), field(long.class, "rootExecutionId"), field(int.class, "partition"),
+            field(String.class, "batchStatus"));
+
+        if (jfr != null) {
+            try {
+                jfr.listen();
+            } catch (final Throwable e) {
+                LOGGER.log(Level.WARNING, "Can't listen to flight recordings, batch events disabled", e);
+            }
+        }
+    }
+
+    private BatchEvents() {
+        // no-op
+    }
+
+    /**
+     * @return true if a flight recording is running, useful to avoid computing event values for nothing.
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    public static void jobStart(final String jobName, final long instanceId, final long executionId) {
+        if (recording) {
+            JOB_START.commit(jobName, instanceId, executionId);
+        }
+    }
+
+    public static void jobEnd(final String jobName, final long executionId, final String batchStatus, final String exitStatus, final long durationNanos) {
+        if (recording) {
+            JOB_END.commit(jobName, executionId, batchStatus, exitStatus, durationNanos);
+        }
+    }
+
+    public static void stepStart(final String stepName, final long executionId) {
+        if (recording) {
+            STEP_START.commit(stepName, executionId);
+        }
+    }
+
+    public static void stepEnd(final String stepName, final long executionId, final String batchStatus, final String exitStatus, final long durationNanos) {
+        if (recording) {
+            STEP_END.commit(stepName, executionId, batchStatus, exitStatus, durationNanos);
+        }
+    }
+
+    public static void chunkCommit(final String stepName, final long executionId, final long reads, final long writes, final long filtered,
+                                   final long durationNanos) {
+        if (recording) {
+            CHUNK_COMMIT.commit(stepName, executionId, reads, writes, filtered, durationNanos);
+        }
+    }
+
+    public static void checkpoint(final String stepName, final long instanceId, final boolean readerWritten, final boolean writerWritten,
+                                  final long durationNanos) {
+        if (recording) {
+            CHECKPOINT.commit(stepName, instanceId, readerWritten, writerWritten, durationNanos);
+        }
+    }
+
+    public static void rollback(final String stepName, final long executionId, final Throwable cause) {
+        if (recording) {
+            ROLLBACK.commit(stepName, executionId, cause == null ? null : cause.getClass().getName());
+        }
+    }
+
+    public static void retry(final String stepName, final long executionId, final String phase, final Exception exception) {
+        if (recording) {
+            RETRY.commit(stepName, executionId, phase, exception.getClass().getName());
+        }
+    }
+
+    public static void skip(final String stepName, final long executionId, final String phase, final Exception exception) {
+        if (recording) {
+            SKIP.commit(stepName, executionId, phase, exception.getClass().getName());
+        }
+    }
+
+    public static void partitionDispatch(final String stepName, final long rootExecutionId, final Integer partition) {
+        if (recording) {
+            PARTITION_DISPATCH.commit(stepName, rootExecutionId, partition == null ? -1 : partition);
+        }
+    }
+
+    public static void partitionEnd(final String stepName, final long rootExecutionId, final Integer partition, final String batchStatus) {
+        if (recording) {
+            PARTITION_END.commit(stepName, rootExecutionId, partition == null ? -1 : partition, batchStatus);
+        }
+    }
+
+    private static Field field(final Class<?> type, final String name) {
+        return new Field(type, name, false);
+    }
+
+    // note: "duration" is an implicit field of all events and can't be reused
+    private static Field timespan(final String name) {
+        return new Field(long.class, name, true);
+    }
+
+    private static final class Field {
+        private final Class<?> type;
+        private final String name;
+        private final boolean timespan;
+
+        private Field(final Class<?> type, final String name, final boolean timespan) {
+            this.type = type;
+            this.name = name;
+            this.timespan = timespan;
+        }
+    }
+
+    private static final class EventType {
+        private final Jfr jfr;
+        private final Object factory;
+
+        private EventType(final Jfr jfr, final Object factory) {
+            this.jfr = jfr;
+            this.factory = factory;
+        }
+
+        private static EventType create(final Jfr jfr, final String name, final String label, final Field... fields) {
+            if (jfr == null) {
+                return new EventType(null, null);
+            }
+            try {
+                return new EventType(jfr, jfr.factory(name, label, fields));
+            } catch (final Throwable e) {
+                LOGGER.log(Level.WARNING, "Can't create flight recorder event " + name, e);
+                return new EventType(null, null);
+            }
+        }
+
+        private void commit(final Object... values) {
+            if (factory == null) {
+                return;
+            }
+            try {
+                final Object event = jfr.newEvent.invoke(factory);
+                for (int i = 0; i < values.length; i++) {
+                    jfr.set.invoke(event, i, values[i]);
+                }
+                jfr.commit.invoke(event);
+            } catch (final Exception e) {
+                LOGGER.log(Level.FINE, e.getMessage(), e);
+            }
+        }
+    }
+
+    // all jdk.jfr accesses, it only exists on java >= 9 (or recent 8 updates)
+    private static final class Jfr {
+        private final Constructor<?> annotationElement;
+        private final Constructor<?> valueDescriptor;
+        private final Method create;
+        private final Method newEvent;
+        private final Method set;
+        private final Method commit;
+        private final Class<? extends Annotation> name;
+        private final Class<? extends Annotation> label;
+        private final Class<? extends Annotation> category;
+        private final Class<? extends Annotation> stackTrace;
+        private final Class<? extends Annotation> timespan;
+        private final Class<?> flightRecorder;
+        private final Class<?> listener;
+
+        private Jfr() throws Exception {
+            final ClassLoader loader = ClassLoader.getSystemClassLoader();
+            final Class<?> annotationElementType = loader.loadClass("jdk.jfr.AnnotationElement");
+            annotationElement = annotationElementType.getConstructor(Class.class, Object.class);
+            valueDescriptor = loader.loadClass("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+
+            final Class<?> eventFactory = loader.loadClass("jdk.jfr.EventFactory");
+            create = eventFactory.getMethod("create", List.class, List.class);
+            newEvent = eventFactory.getMethod("newEvent");
+
+            final Class<?> event = loader.loadClass("jdk.jfr.Event");
+            set = event.getMethod("set", int.class, Object.class);
+            commit = event.getMethod("commit");
+
+            name = loader.loadClass("jdk.jfr.Name").asSubclass(Annotation.class);
+            label = loader.loadClass("jdk.jfr.Label").asSubclass(Annotation.class);
+            category = loader.loadClass("jdk.jfr.Category").asSubclass(Annotation.class);
+            stackTrace = loader.loadClass("jdk.jfr.StackTrace").asSubclass(Annotation.class);
+            timespan = loader.loadClass("jdk.jfr.Timespan").asSubclass(Annotation.class);
+            flightRecorder = loader.loadClass("jdk.jfr.FlightRecorder");
+            listener = loader.loadClass("jdk.jfr.FlightRecorderListener");
+        }
+
+        private Object factory(final String eventName, final String eventLabel, final Field... fields) throws Exception {
+            final List<Object> annotations = Arrays.asList(
+                annotationElement.newInstance(name, "org.apache.batchee." + eventName),
+                annotationElement.newInstance(label, eventLabel),
+                annotationElement.newInstance(category, new String[]{CATEGORY}),
+                annotationElement.newInstance(stackTrace, false));
+
+            final List<Object> values = new ArrayList<Object>(fields.length);
+            for (final Field field : fields) {
+                final List<Object> fieldAnnotations = field.timespan ?
+                    Collections.<Object>singletonList(annotationElement.newInstance(timespan, "NANOSECONDS")) :
+                    Collections.emptyList();
+                values.add(valueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+            return create.invoke(null, annotations, values);
+        }
+
+        // tracks recordings to keep events free when nothing records
+        private void listen() throws Exception {
+            final Object proxy = Proxy.newProxyInstance(listener.getClassLoader(), new Class<?>[]{listener}, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                    final String methodName = method.getName();
+                    if ("recordingStateChanged".equals(methodName)) {
+                        recording = hasRunningRecording();
+                        return null;
+                    }
+                    if ("equals".equals(methodName)) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(methodName)) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("toString".equals(methodName)) {
+                        return "BatchEE flight recorder listener";
+                    }
+                    return null;
+                }
+            });
+            flightRecorder.getMethod("addListener", listener).invoke(null, proxy);
+            if (Boolean.class.cast(flightRecorder.getMethod("isInitialized").invoke(null))) {
+                recording = hasRunningRecording();
+            }
+        }
+
+        private boolean hasRunningRecording() throws Exception {
+            final Object recorder = flightRecorder.getMethod("getFlightRecorder").invoke(null);
+            for (final Object recording : Collection.class.cast(recorder.getClass().getMethod("getRecordings").invoke(recorder))) {
+                if ("RUNNING".equals(String.valueOf(recording.getClass().getMethod("getState").invoke(recording)))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
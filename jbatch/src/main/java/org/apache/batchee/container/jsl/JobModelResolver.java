@@ -17,13 +17,16 @@
 package org.apache.batchee.container.jsl;
 
 import org.apache.batchee.jaxb.JSLJob;
+import org.apache.batchee.jaxb.ObjectFactory;
 
 import javax.batch.operations.BatchRuntimeException;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.transform.stream.StreamSource;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 
@@ -38,12 +41,14 @@ public class JobModelResolver {
         }
     }
 
-    private JSLJob unmarshalJobXML(final String jobXML) {
+    private JSLJob unmarshalJobXML(final String jobXML, final boolean validate) {
         final JSLJob result;
         final JSLValidationEventHandler handler = new JSLValidationEventHandler();
         try {
             final Unmarshaller u = JOB_CONTEXT.createUnmarshaller();
-            u.setSchema(Xsds.jobXML());
+            if (validate) {
+                u.setSchema(Xsds.jobXML());
+            }
             u.setEventHandler(handler);
             result = u.unmarshal(new StreamSource(new StringReader(jobXML)), JSLJob.class).getValue();
         } catch (final JAXBException e) {
@@ -56,13 +61,35 @@ public class JobModelResolver {
     }
 
     public JSLJob resolveModel(final String jobXML) {
+        return resolveModel(jobXML, true);
+    }
+
+    /**
+     * Reads a job generated by the container (see {@link #serialize(JSLJob)}), its id is not a valid job id so it is not validated.
+     */
+    public JSLJob resolveGeneratedModel(final String jobXML) {
+        return resolveModel(jobXML, false);
+    }
+
+    public String serialize(final JSLJob job) {
+        try {
+            final Marshaller marshaller = JOB_CONTEXT.createMarshaller();
+            final StringWriter writer = new StringWriter();
+            marshaller.marshal(new ObjectFactory().createJob(job), writer);
+            return writer.toString();
+        } catch (final JAXBException e) {
+            throw new IllegalArgumentException("Exception marshalling job " + job.getId(), e);
+        }
+    }
+
+    private JSLJob resolveModel(final String jobXML, final boolean validate) {
         if (System.getSecurityManager() == null) {
-            return unmarshalJobXML(jobXML);
+            return unmarshalJobXML(jobXML, validate);
         }
         return AccessController.doPrivileged(
             new PrivilegedAction<JSLJob>() {
                 public JSLJob run() {
-                    return unmarshalJobXML(jobXML);
+                    return unmarshalJobXML(jobXML, validate);
                 }
             });
     }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.partition;
+
+import org.apache.batchee.container.exception.BatchContainerRuntimeException;
+import org.apache.batchee.container.impl.StepExecutionImpl;
+import org.apache.batchee.container.impl.UserMetrics;
+import org.apache.batchee.container.impl.jobinstance.JobExecutionHelper;
+import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
+import org.apache.batchee.container.jsl.JobModelResolver;
+import org.apache.batchee.container.services.LightweightPartitionServicesManager;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.util.BatchPartitionWorkUnit;
+import org.apache.batchee.container.util.LightweightPartitionWorkUnit;
+import org.apache.batchee.container.util.PartitionDataWrapper;
+import org.apache.batchee.container.util.PartitionsBuilderConfig;
+import org.apache.batchee.jaxb.JSLJob;
+import org.apache.batchee.spi.PartitionTransport;
+import org.apache.batchee.spi.PersistenceManagerService;
+
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.Metric;
+import javax.batch.runtime.StepExecution;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Worker side of a {@link PartitionTransport}: runs a partition as a lightweight partition
+ * (checkpoints go to the worker persistence under the parent job instance) on the calling thread.
+ */
+public final class RemotePartitionRunner {
+    private static final Logger LOGGER = Logger.getLogger(RemotePartitionRunner.class.getName());
+
+    private final RuntimeJobExecution execution;
+    private final LightweightPartitionServicesManager partitionServices;
+    private final LightweightPartitionWorkUnit workUnit;
+
+    /**
+     * Prepares the partition execution, {@link #run()} executes it.
+     */
+    public RemotePartitionRunner(final ServicesManager servicesManager,
+                                 final PartitionTransport.PartitionRequest request,
+                                 final PartitionTransport.PartitionCallback callback) {
+        final JSLJob job = new JobModelResolver().resolveGeneratedModel(request.getJobXml());
+        partitionServices = new LightweightPartitionServicesManager(servicesManager, request.getParentInstanceId(), request.getPartition());
+        execution = JobExecutionHelper.startPartition(partitionServices, job, request.getPartitionProperties());
+        execution.setPartitionInstance(request.getPartition());
+
+        final PartitionsBuilderConfig config = new PartitionsBuilderConfig(
+            Collections.singletonList(job), new Properties[] { request.getPartitionProperties() },
+            new ForwardingQueue(callback), new LinkedBlockingQueue<BatchPartitionWorkUnit>(), execution.getExecutionId());
+        workUnit = new LightweightPartitionWorkUnit(execution, config, partitionServices);
+    }
+
+    public static PartitionTransport.PartitionResponse execute(final ServicesManager servicesManager,
+                                                               final PartitionTransport.PartitionRequest request,
+                                                               final PartitionTransport.PartitionCallback callback) {
+        return new RemotePartitionRunner(servicesManager, request, callback).run();
+    }
+
+    /**
+     * Stops the partition, it ends as if the step was stopped locally. Can be called before {@link #run()}.
+     */
+    public void stop() {
+        workUnit.stop();
+    }
+
+    /**
+     * Executes the partition on the calling thread.
+     */
+    public PartitionTransport.PartitionResponse run() {
+        try {
+            workUnit.run();
+        } catch (final BatchContainerRuntimeException e) { // status is already FAILED
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+        }
+
+        final Map<String, Long> metrics = new HashMap<String, Long>();
+        Map<String, Long> userMetrics = null;
+        long start = 0;
+        long end = 0;
+        final List<StepExecution> steps = partitionServices.service(PersistenceManagerService.class).getStepExecutionsForJobExecution(execution.getExecutionId());
+        if (steps.size() == 1) {
+            final StepExecution step = steps.iterator().next();
+            for (final Metric metric : step.getMetrics()) {
+                metrics.put(metric.getType().name(), metric.getValue());
+            }
+            if (step.getStartTime() != null) {
+                start = step.getStartTime().getTime();
+            }
+            if (step.getEndTime() != null) {
+                end = step.getEndTime().getTime();
+            }
+            if (StepExecutionImpl.class.isInstance(step)) {
+                final UserMetrics recorded = StepExecutionImpl.class.cast(step).getRawUserMetrics();
+                if (recorded != null && !recorded.isEmpty()) {
+                    userMetrics = recorded.toRawMap();
+                }
+            }
+        }
+
+        final BatchStatus status = execution.getJobContext().getBatchStatus();
+        return new PartitionTransport.PartitionResponse(status, execution.getJobContext().getExitStatus(), metrics, start, end, userMetrics);
+    }
+
+    // collector data are sent back immediately, the status is part of the response
+    private static class ForwardingQueue extends LinkedBlockingQueue<PartitionDataWrapper> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient PartitionTransport.PartitionCallback callback;
+
+        private ForwardingQueue(final PartitionTransport.PartitionCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void put(final PartitionDataWrapper data) {
+            offer(data);
+        }
+
+        @Override
+        public boolean offer(final PartitionDataWrapper data) {
+            if (PartitionDataWrapper.PartitionEventType.ANALYZE_COLLECTOR_DATA.equals(data.getEventType())) {
+                callback.onCollectorData(data.getCollectorData());
+            }
+            return true;
+        }
+    }
+}
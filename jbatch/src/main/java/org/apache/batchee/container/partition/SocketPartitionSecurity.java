@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.partition;
+
+import org.apache.batchee.container.util.TCCLObjectInputStream;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collection;
+
+/**
+ * Security of the socket transport: both sides prove they know the shared secret (HMAC of each other's challenge)
+ * before anything is deserialized, then only the classes of the protocol are deserialized.
+ */
+final class SocketPartitionSecurity {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int CHALLENGE_LENGTH = 32;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SocketPartitionSecurity() {
+        // no-op
+    }
+
+    static String checkSecret(final String secret) {
+        if (secret == null || secret.trim().isEmpty()) {
+            throw new IllegalArgumentException("No shared secret configured, set " + SocketPartitionTransport.SECRET);
+        }
+        return secret;
+    }
+
+    // client side, the worker sends its challenge first
+    static void authenticateWorker(final DataInputStream in, final DataOutputStream out, final String secret) throws IOException {
+        final byte[] workerChallenge = read(in);
+        final byte[] clientChallenge = challenge();
+        out.write(clientChallenge);
+        out.write(sign(secret, "client", workerChallenge, clientChallenge));
+        out.flush();
+        verify(read(in), sign(secret, "worker", clientChallenge, workerChallenge), "worker");
+    }
+
+    static void authenticateClient(final DataInputStream in, final DataOutputStream out, final String secret) throws IOException {
+        final byte[] workerChallenge = challenge();
+        out.write(workerChallenge);
+        out.flush();
+        final byte[] clientChallenge = read(in);
+        verify(read(in), sign(secret, "client", workerChallenge, clientChallenge), "client");
+        out.write(sign(secret, "worker", clientChallenge, workerChallenge));
+        out.flush();
+    }
+
+    private static byte[] challenge() {
+        final byte[] challenge = new byte[CHALLENGE_LENGTH];
+        RANDOM.nextBytes(challenge);
+        return challenge;
+    }
+
+    private static byte[] read(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[CHALLENGE_LENGTH]; // HmacSHA256 signatures have the same length
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void verify(final byte[] actual, final byte[] expected, final String peer) throws IOException {
+        if (!MessageDigest.isEqual(actual, expected)) {
+            throw new IOException("Invalid " + peer + " signature, check " + SocketPartitionTransport.SECRET);
+        }
+    }
+
+    private static byte[] sign(final String secret, final String role, final byte[] first, final byte[] second) {
+        try {
+            final Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(UTF_8), ALGORITHM));
+            mac.update(role.getBytes(UTF_8));
+            mac.update(first);
+            mac.update(second);
+            return mac.doFinal();
+        } catch (final GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Only resolves the given classes, the protocol payloads (collector data) travel as byte arrays.
+     */
+    static class RestrictedObjectInputStream extends TCCLObjectInputStream {
+        private final Collection<String> allowed;
+
+        RestrictedObjectInputStream(final InputStream in, final Collection<String> allowed) throws IOException {
+            super(in);
+            this.allowed = allowed;
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws ClassNotFoundException {
+            if (!allowed.contains(desc.getName())) {
+                throw new SecurityException(desc.getName() + " is not part of the partition transport protocol, prevented before loading.");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(final String[] interfaces) {
+            throw new SecurityException("Proxies are not part of the partition transport protocol, prevented before loading.");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.partition;
+
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.data.DataCompression;
+import org.apache.batchee.container.util.Serializations;
+import org.apache.batchee.spi.PartitionTransport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends partitions to {@link SocketPartitionWorker}s in a round robin fashion.
+ * A worker which can't be reached is skipped, a worker dying or silent for longer than the timeout during the execution
+ * fails the partition. Both sides authenticate with a shared secret before exchanging anything.
+ * Stopping a partition sends {@link #STOP} on its connection.
+ */
+public class SocketPartitionTransport implements PartitionTransport, PartitionTransport.Stoppable {
+    public static final String NAME = "socket";
+    public static final String WORKERS = "org.apache.batchee.partition.transport.socket.workers";
+    public static final String TIMEOUT = "org.apache.batchee.partition.transport.socket.timeout";
+    public static final String SECRET = "org.apache.batchee.partition.transport.socket.secret";
+
+    static final byte DATA = 1;
+    static final byte END = 2;
+    static final byte ALIVE = 3;
+    static final byte STOP = 4;
+
+    // what a worker can send back, collector data are byte arrays deserialized separately
+    static final Collection<String> RESPONSE_CLASSES = new HashSet<String>(Arrays.asList(
+        PartitionResponse.class.getName(), "javax.batch.runtime.BatchStatus", "java.lang.Enum",
+        "java.util.HashMap", "java.lang.Long", "java.lang.Number", "[B"));
+
+    private static final String DEFAULT_TIMEOUT = "60000"; // workers send keep-alives every 10s by default
+
+    private final List<InetSocketAddress> workers = new ArrayList<InetSocketAddress>();
+    private final int timeout;
+    private final String secret;
+    private final AtomicInteger next = new AtomicInteger();
+    private final DataCompression compression;
+    private final ConcurrentMap<PartitionRequest, Connection> connections = new ConcurrentHashMap<PartitionRequest, Connection>();
+
+    public SocketPartitionTransport(final Properties properties) {
+        this(properties, DataCompression.of(null));
+    }
+
+    public SocketPartitionTransport(final Properties properties, final DataCompression compression) {
+        this.compression = compression;
+        final String value = properties.getProperty(WORKERS);
+        if (value == null) {
+            throw new IllegalArgumentException("No worker configured, set " + WORKERS);
+        }
+        for (final String worker : value.split(",")) {
+            final String trimmed = worker.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            final int sep = trimmed.lastIndexOf(':');
+            if (sep < 0) {
+                throw new IllegalArgumentException("Invalid worker " + trimmed + ", expected host:port");
+            }
+            workers.add(new InetSocketAddress(trimmed.substring(0, sep), Integer.parseInt(trimmed.substring(sep + 1))));
+        }
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("No worker configured, set " + WORKERS);
+        }
+        timeout = Integer.parseInt(properties.getProperty(TIMEOUT, DEFAULT_TIMEOUT));
+        secret = SocketPartitionSecurity.checkSecret(properties.getProperty(SECRET, ServicesManager.value(SECRET, null)));
+    }
+
+    @Override
+    public PartitionResponse execute(final PartitionRequest request, final PartitionCallback callback) throws Exception {
+        final Connection connection = connection(request);
+        final Socket socket;
+        try {
+            socket = connect();
+        } catch (final IOException e) {
+            connections.remove(request);
+            throw e;
+        }
+        try {
+            socket.setSoTimeout(timeout);
+
+            final BufferedInputStream input = new BufferedInputStream(socket.getInputStream());
+            final BufferedOutputStream output = new BufferedOutputStream(socket.getOutputStream());
+            SocketPartitionSecurity.authenticateWorker(new DataInputStream(input), new DataOutputStream(output), secret);
+
+            final ObjectOutputStream out = new ObjectOutputStream(output);
+            out.writeObject(request);
+            out.flush();
+            connection.connected(out);
+
+            final ObjectInputStream in = new SocketPartitionSecurity.RestrictedObjectInputStream(input, RESPONSE_CLASSES);
+            while (true) {
+                final byte tag = in.readByte();
+                if (tag == ALIVE) {
+                    continue;
+                }
+                if (tag == DATA) {
+                    callback.onCollectorData(Serializations.deserialize(compression.decompress(byte[].class.cast(in.readObject()))));
+                } else if (tag == END) {
+                    return PartitionResponse.class.cast(in.readObject());
+                } else {
+                    throw new IOException("Unexpected message " + tag);
+                }
+            }
+        } finally {
+            connections.remove(request);
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                // no-op
+            }
+        }
+    }
+
+    @Override
+    public void stop(final PartitionRequest request) throws IOException {
+        connection(request).stop();
+    }
+
+    private Connection connection(final PartitionRequest request) {
+        final Connection connection = connections.get(request);
+        if (connection != null) {
+            return connection;
+        }
+        final Connection created = new Connection();
+        final Connection existing = connections.putIfAbsent(request, created);
+        return existing != null ? existing : created;
+    }
+
+    private Socket connect() throws IOException {
+        final int start = Math.abs(next.getAndIncrement() % workers.size());
+        IOException error = null;
+        for (int i = 0; i < workers.size(); i++) {
+            final Socket socket = new Socket();
+            try {
+                socket.connect(workers.get((start + i) % workers.size()), timeout);
+                return socket;
+            } catch (final IOException e) {
+                try {
+                    socket.close();
+                } catch (final IOException ignored) {
+                    // no-op
+                }
+                error = e;
+            }
+        }
+        throw error;
+    }
+
+    // the stop can be requested before the request is sent, it is then sent just after
+    private static class Connection {
+        private ObjectOutputStream out;
+        private boolean stopRequested;
+
+        private synchronized void connected(final ObjectOutputStream out) throws IOException {
+            this.out = out;
+            if (stopRequested) {
+                sendStop();
+            }
+        }
+
+        private synchronized void stop() throws IOException {
+            if (stopRequested) {
+                return;
+            }
+            stopRequested = true;
+            if (out != null) {
+                sendStop();
+            }
+        }
+
+        private void sendStop() throws IOException {
+            out.writeByte(STOP);
+            out.flush();
+        }
+    }
+}
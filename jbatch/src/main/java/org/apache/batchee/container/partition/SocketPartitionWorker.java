@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.partition;
+
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.data.DataCompression;
+import org.apache.batchee.container.util.Serializations;
+import org.apache.batchee.spi.DataRepresentationService;
+import org.apache.batchee.spi.PartitionTransport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executes partitions sent by a {@link SocketPartitionTransport}, one per connection.
+ *
+ * The worker needs the batch artifacts of the job in its classpath and, to resume partitions from their checkpoints
+ * on restart, to share the persistence of the JVM running the job.
+ *
+ * It listens on the loopback interface unless {@link #BIND} is set and only accepts clients knowing
+ * {@link SocketPartitionTransport#SECRET}. Traffic is not encrypted.
+ */
+public class SocketPartitionWorker implements Closeable {
+    public static final String BIND = "org.apache.batchee.partition.transport.socket.bind";
+    public static final String KEEP_ALIVE = "org.apache.batchee.partition.transport.socket.keep-alive";
+
+    private static final Logger LOGGER = Logger.getLogger(SocketPartitionWorker.class.getName());
+
+    // a client must authenticate and send its request in this delay
+    private static final int REQUEST_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+
+    private static final Collection<String> REQUEST_CLASSES = new HashSet<String>(Arrays.asList(
+        PartitionTransport.PartitionRequest.class.getName(), "java.util.Properties", "java.util.Hashtable"));
+
+    private final ServerSocket serverSocket;
+    private final ServicesManager servicesManager;
+    private final String secret;
+    private final long keepAlive;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService keepAliveExecutor;
+    private volatile Thread acceptor;
+
+    /**
+     * @param bindAddress     interface to listen on, loopback when null.
+     * @param port            port to listen on, 0 for a random one.
+     * @param secret          secret shared with the transport.
+     * @param keepAlive       interval in milliseconds between keep-alive messages sent while a partition runs.
+     * @param servicesManager services executing the partitions.
+     */
+    public SocketPartitionWorker(final InetAddress bindAddress, final int port, final String secret, final long keepAlive,
+                                 final ServicesManager servicesManager) throws IOException {
+        this.secret = SocketPartitionSecurity.checkSecret(secret);
+        this.keepAlive = keepAlive;
+        this.serverSocket = new ServerSocket(port, 50, bindAddress != null ? bindAddress : InetAddress.getLoopbackAddress());
+        this.servicesManager = servicesManager;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(r, "batchee-partition-worker-" + id.incrementAndGet());
+            }
+        });
+        this.keepAliveExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "batchee-partition-worker-keep-alive");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public SocketPartitionWorker start() {
+        acceptor = new Thread("batchee-partition-worker-acceptor") {
+            @Override
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                handle(socket);
+                            }
+                        });
+                    } catch (final IOException e) {
+                        if (!serverSocket.isClosed()) {
+                            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                        }
+                    }
+                }
+            }
+        };
+        acceptor.start();
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+        keepAliveExecutor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            if (acceptor != null) {
+                acceptor.join(TimeUnit.MINUTES.toMillis(1));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(final Socket socket) {
+        ScheduledFuture<?> keepAliveTask = null;
+        try {
+            socket.setSoTimeout(REQUEST_TIMEOUT);
+            final BufferedInputStream input = new BufferedInputStream(socket.getInputStream());
+            final BufferedOutputStream output = new BufferedOutputStream(socket.getOutputStream());
+            SocketPartitionSecurity.authenticateClient(new DataInputStream(input), new DataOutputStream(output), secret);
+
+            final ObjectInputStream in = new SocketPartitionSecurity.RestrictedObjectInputStream(input, REQUEST_CLASSES);
+            final PartitionTransport.PartitionRequest request = PartitionTransport.PartitionRequest.class.cast(in.readObject());
+
+            final ObjectOutputStream out = new ObjectOutputStream(output);
+            keepAliveTask = keepAliveExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write(out, SocketPartitionTransport.ALIVE, null);
+                    } catch (final IOException e) {
+                        // the end of the partition will fail the same way
+                    }
+                }
+            }, keepAlive, keepAlive, TimeUnit.MILLISECONDS);
+
+            final DataCompression compression = DataCompression.of(servicesManager.service(DataRepresentationService.class));
+            final RemotePartitionRunner runner = new RemotePartitionRunner(servicesManager, request, new PartitionTransport.PartitionCallback() {
+                @Override
+                public void onCollectorData(final Serializable data) {
+                    try {
+                        write(out, SocketPartitionTransport.DATA, compression.compress(Serializations.serialize(data)));
+                    } catch (final IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+
+            socket.setSoTimeout(0); // the client only sends a stop now, the read ends when the socket is closed
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    listenForStop(in, runner);
+                }
+            });
+
+            final PartitionTransport.PartitionResponse response = runner.run();
+            keepAliveTask.cancel(false);
+            write(out, SocketPartitionTransport.END, response);
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, e.getMessage(), e); // the transport sees a closed connection and fails the partition
+        } finally {
+            if (keepAliveTask != null) {
+                keepAliveTask.cancel(false);
+            }
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                // no-op
+            }
+        }
+    }
+
+    private static void listenForStop(final ObjectInputStream in, final RemotePartitionRunner runner) {
+        try {
+            while (true) {
+                if (in.readByte() == SocketPartitionTransport.STOP) {
+                    runner.stop();
+                }
+            }
+        } catch (final IOException e) {
+            // connection closed, the partition ended
+        }
+    }
+
+    private static void write(final ObjectOutputStream out, final byte tag, final Serializable value) throws IOException {
+        synchronized (out) {
+            out.writeByte(tag);
+            if (value != null) {
+                out.writeObject(value);
+            }
+            out.reset(); // don't keep references to already sent data
+            out.flush();
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final String bind = ServicesManager.value(BIND, null);
+        final SocketPartitionWorker worker = new SocketPartitionWorker(
+            bind != null ? InetAddress.getByName(bind) : null, args.length > 0 ? Integer.parseInt(args[0]) : 0,
+            ServicesManager.value(SocketPartitionTransport.SECRET, null), Long.parseLong(ServicesManager.value(KEEP_ALIVE, "10000")),
+            ServicesManager.find()).start();
+        LOGGER.info("Listening on " + worker.serverSocket.getInetAddress().getHostAddress() + ", port " + worker.getPort());
+        worker.acceptor.join();
+    }
+}
@@ -34,6 +34,7 @@ import javax.batch.operations.JobStartException;
 import javax.batch.operations.NoSuchJobExecutionException;
 import javax.batch.runtime.JobInstance;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public interface BatchKernelService extends BatchService {
@@ -63,6 +64,16 @@ public interface BatchKernelService extends BatchService {
 
     boolean isExecutionRunning(long executionId);
 
+    /**
+     * @return the position of a started job waiting for admission (0 is the next one) or -1 if it doesn't wait.
+     */
+    int getQueuePosition(long executionId);
+
+    /**
+     * @return admission queue depth, running jobs and wait times, empty when no admission control is configured.
+     */
+    Map<String, Long> getAdmissionMetrics();
+
     BatchFlowInSplitWorkUnit buildNewFlowInSplitWorkUnit(
         FlowInSplitBuilderConfig config, JobContextImpl jc);
 
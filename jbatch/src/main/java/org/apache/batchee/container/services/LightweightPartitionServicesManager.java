@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services;
+
+import org.apache.batchee.container.exception.BatchContainerServiceException;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointData;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointDataKey;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointType;
+import org.apache.batchee.container.services.persistence.MemoryPersistenceManagerService;
+import org.apache.batchee.container.services.status.DefaultJobStatusManager;
+import org.apache.batchee.spi.BatchService;
+import org.apache.batchee.spi.PersistenceManagerService;
+
+import java.util.Properties;
+
+/**
+ * Services of a single lightweight partition: the partition job instance, execution, status and step execution
+ * only live in memory for the time of the partition, only the checkpoints go to the real persistence
+ * (under the parent job instance) so a restarted partition resumes where it stopped.
+ *
+ * All other services are the ones of the parent.
+ */
+public class LightweightPartitionServicesManager extends ServicesManager {
+    private final ServicesManager parent;
+    private final PersistenceManagerService persistenceManagerService;
+    private final JobStatusManagerService jobStatusManagerService;
+
+    public LightweightPartitionServicesManager(final ServicesManager parent, final long parentInstanceId, final int partition) {
+        this.parent = parent;
+        this.persistenceManagerService = new PartitionPersistenceManagerService(parent.service(PersistenceManagerService.class), parentInstanceId, partition);
+        this.jobStatusManagerService = new DefaultJobStatusManager(this);
+    }
+
+    @Override
+    public <T extends BatchService> T service(final Class<T> clazz) throws BatchContainerServiceException {
+        if (PersistenceManagerService.class.equals(clazz)) {
+            return clazz.cast(persistenceManagerService);
+        }
+        if (JobStatusManagerService.class.equals(clazz)) {
+            return clazz.cast(jobStatusManagerService);
+        }
+        return parent.service(clazz);
+    }
+
+    /**
+     * Forgets the reader and writer checkpoints of a previous execution of this partition so it starts from scratch.
+     */
+    public void resetCheckpoints(final String stepName) {
+        for (final CheckpointType type : new CheckpointType[] { CheckpointType.READER, CheckpointType.WRITER }) {
+            final CheckpointDataKey key = new CheckpointDataKey(0, stepName, type); // the instance is replaced by the parent one
+            final CheckpointData data = new CheckpointData(key.getJobInstanceId(), stepName, type);
+            data.setRestartToken(null); // readers and writers are opened with a null checkpoint
+            persistenceManagerService.setCheckpointData(key, data);
+        }
+    }
+
+    private static class PartitionPersistenceManagerService extends MemoryPersistenceManagerService {
+        private final PersistenceManagerService delegate;
+        private final long parentInstanceId;
+        private final int partition;
+
+        private PartitionPersistenceManagerService(final PersistenceManagerService delegate, final long parentInstanceId, final int partition) {
+            this.delegate = delegate;
+            this.parentInstanceId = parentInstanceId;
+            this.partition = partition;
+            init(new Properties());
+        }
+
+        @Override
+        public void setCheckpointData(final CheckpointDataKey key, final CheckpointData value) {
+            final CheckpointDataKey parentKey = toParentKey(key);
+            final CheckpointData parentValue = new CheckpointData(parentKey.getJobInstanceId(), parentKey.getStepName(), parentKey.getType());
+            parentValue.setRestartToken(value.getRestartToken());
+            delegate.setCheckpointData(parentKey, parentValue);
+        }
+
+        @Override
+        public CheckpointData getCheckpointData(final CheckpointDataKey key) {
+            return delegate.getCheckpointData(toParentKey(key));
+        }
+
+        private CheckpointDataKey toParentKey(final CheckpointDataKey key) {
+            return new CheckpointDataKey(parentInstanceId, key.getStepName() + ":partition:" + partition, key.getType());
+        }
+    }
+}
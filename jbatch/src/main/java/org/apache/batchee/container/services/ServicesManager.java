@@ -27,7 +27,9 @@ import org.apache.batchee.container.services.factory.DefaultBatchArtifactFactory
 import org.apache.batchee.container.services.kernel.DefaultBatchKernel;
 import org.apache.batchee.container.services.loader.DefaultJobXMLLoaderService;
 import org.apache.batchee.container.services.locator.SingletonLocator;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
 import org.apache.batchee.container.services.persistence.MemoryPersistenceManagerService;
+import org.apache.batchee.container.services.persistence.MonitoredPersistence;
 import org.apache.batchee.container.services.security.DefaultSecurityService;
 import org.apache.batchee.container.services.status.DefaultJobStatusManager;
 import org.apache.batchee.container.services.transaction.DefaultBatchTransactionService;
@@ -68,6 +70,7 @@ public class ServicesManager implements BatchContainerConstants {
         SERVICE_IMPL_CLASS_NAMES.put(SecurityService.class.getName(), DefaultSecurityService.class.getName());
         SERVICE_IMPL_CLASS_NAMES.put(JobExecutionCallbackService.class.getName(), SimpleJobExecutionCallbackService.class.getName());
         SERVICE_IMPL_CLASS_NAMES.put(DataRepresentationService.class.getName(), DefaultDataRepresentationService.class.getName());
+        SERVICE_IMPL_CLASS_NAMES.put(StepMetricsRegistry.class.getName(), StepMetricsRegistry.class.getName());
         try {
             Thread.currentThread().getContextClassLoader().loadClass("javax.enterprise.inject.spi.BeanManager");
             SERVICE_IMPL_CLASS_NAMES.put(BatchArtifactFactory.class.getName(), CDIBatchArtifactFactory.class.getName());
@@ -165,6 +168,9 @@ public class ServicesManager implements BatchContainerConstants {
                 if (service == null) {
                     service = loadService(clazz);
                     service.init(batchRuntimeConfig);
+                    if (PersistenceManagerService.class.equals(clazz)) { // optional call statistics
+                        service = clazz.cast(MonitoredPersistence.decorate(PersistenceManagerService.class.cast(service), batchRuntimeConfig));
+                    }
                     serviceRegistry.putIfAbsent(clazz.getName(), service);
                 }
             }
@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.data;
+
+import org.apache.batchee.container.exception.BatchContainerServiceException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary {@link org.apache.batchee.spi.DataRepresentationService}: values are written with a type tag
+ * (variable length integers, UTF-8 strings, common collections written element per element) after a magic and a version
+ * so data written by {@link DefaultDataRepresentationService} (strings or java serialization) stays readable.
+ *
+ * Other types use a {@link TypeCodec} registered in {@link #CODECS} (or with {@link #register(TypeCodec)})
+ * and fall back on java serialization.
+ */
+public class BinaryDataRepresentationService extends DefaultDataRepresentationService {
+    public static final String CODECS = "data.binary.codecs";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte MAGIC_0 = (byte) 0xBE; // java serialization starts with 0xAC and old format with 'B'
+    private static final byte MAGIC_1 = (byte) 0xE0;
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte SHORT = 7;
+    private static final byte BYTE = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BYTES = 10;
+    private static final byte DATE = 11;
+    private static final byte TIMESTAMP = 12;
+    private static final byte BIG_INTEGER = 13;
+    private static final byte BIG_DECIMAL = 14;
+    private static final byte ENUM = 15;
+    private static final byte ARRAY_LIST = 16;
+    private static final byte LINKED_LIST = 17;
+    private static final byte HASH_SET = 18;
+    private static final byte LINKED_HASH_SET = 19;
+    private static final byte HASH_MAP = 20;
+    private static final byte LINKED_HASH_MAP = 21;
+    private static final byte CUSTOM = 22;
+    private static final byte SERIALIZED = 23;
+
+    private final Map<Class<?>, TypeCodec<?>> codecsByType = new ConcurrentHashMap<Class<?>, TypeCodec<?>>();
+    private final Map<String, TypeCodec<?>> codecsById = new ConcurrentHashMap<String, TypeCodec<?>>();
+
+    @Override
+    public void init(final Properties batchConfig) {
+        super.init(batchConfig);
+
+        final String codecs = batchConfig.getProperty(CODECS);
+        if (codecs == null) {
+            return;
+        }
+        for (final String name : codecs.split(",")) {
+            final String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                register(TypeCodec.class.cast(getClassLoader().loadClass(trimmed).getConstructor().newInstance()));
+            } catch (final Exception e) {
+                throw new BatchContainerServiceException("Can't create codec " + trimmed, e);
+            }
+        }
+    }
+
+    public void register(final TypeCodec<?> codec) {
+        codecsByType.put(codec.getType(), codec);
+        codecsById.put(codec.getId(), codec);
+    }
+
+    @Override
+    public <T> byte[] toInternalRepresentation(final T dataObject) {
+        if (dataObject == null) {
+            return null;
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+        final DataOutputStream out = new DataOutputStream(baos);
+        try {
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(VERSION);
+            writeValue(out, dataObject);
+            out.flush();
+        } catch (final IOException e) {
+            throw new BatchContainerServiceException("Cannot convert data for [" + dataObject + "]", e);
+        }
+        return getCompression().compress(baos.toByteArray());
+    }
+
+    @Override
+    public <T> T toJavaRepresentation(final byte[] rawRepresentation) {
+        if (rawRepresentation == null) {
+            return null;
+        }
+
+        final byte[] internalRepresentation = getCompression().decompress(rawRepresentation);
+        if (internalRepresentation.length < 3 || internalRepresentation[0] != MAGIC_0 || internalRepresentation[1] != MAGIC_1) {
+            return super.toJavaRepresentation(internalRepresentation);
+        }
+        if (internalRepresentation[2] != VERSION) {
+            throw new BatchContainerServiceException("Unsupported data version " + internalRepresentation[2]);
+        }
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(internalRepresentation, 3, internalRepresentation.length - 3));
+        try {
+            return BinaryDataRepresentationService.<T>uncheckedCast(readValue(in));
+        } catch (final IOException e) {
+            throw new BatchContainerServiceException("Cannot convert back BatchEE data", e);
+        }
+    }
+
+    public void writeValue(final DataOutput out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        final Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            writeString(out, String.class.cast(value));
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            writeVarLong(out, Integer.class.cast(value));
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            writeVarLong(out, Long.class.cast(value));
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(Double.class.cast(value));
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat(Float.class.cast(value));
+        } else if (type == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(Boolean.class.cast(value));
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeShort(Short.class.cast(value));
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte(Byte.class.cast(value));
+        } else if (type == Character.class) {
+            out.writeByte(CHARACTER);
+            out.writeChar(Character.class.cast(value));
+        } else if (type == byte[].class) {
+            out.writeByte(BYTES);
+            writeBytes(out, byte[].class.cast(value));
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            writeVarLong(out, Date.class.cast(value).getTime());
+        } else if (type == Timestamp.class) {
+            final Timestamp timestamp = Timestamp.class.cast(value);
+            out.writeByte(TIMESTAMP);
+            writeVarLong(out, timestamp.getTime());
+            writeVarLong(out, timestamp.getNanos());
+        } else if (type == BigInteger.class) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, BigInteger.class.cast(value).toByteArray());
+        } else if (type == BigDecimal.class) {
+            final BigDecimal decimal = BigDecimal.class.cast(value);
+            out.writeByte(BIG_DECIMAL);
+            writeVarLong(out, decimal.scale());
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+        } else if (Enum.class.isInstance(value)) {
+            final Enum<?> constant = Enum.class.cast(value);
+            out.writeByte(ENUM);
+            writeString(out, constant.getDeclaringClass().getName());
+            writeString(out, constant.name());
+        } else if (type == ArrayList.class) {
+            writeCollection(out, ARRAY_LIST, Collection.class.cast(value));
+        } else if (type == LinkedList.class) {
+            writeCollection(out, LINKED_LIST, Collection.class.cast(value));
+        } else if (type == HashSet.class) {
+            writeCollection(out, HASH_SET, Collection.class.cast(value));
+        } else if (type == LinkedHashSet.class) {
+            writeCollection(out, LINKED_HASH_SET, Collection.class.cast(value));
+        } else if (type == HashMap.class) {
+            writeMap(out, HASH_MAP, Map.class.cast(value));
+        } else if (type == LinkedHashMap.class) {
+            writeMap(out, LINKED_HASH_MAP, Map.class.cast(value));
+        } else {
+            final TypeCodec<Object> codec = codecFor(type);
+            if (codec != null) {
+                out.writeByte(CUSTOM);
+                writeString(out, codec.getId());
+                codec.write(value, out, this);
+            } else {
+                out.writeByte(SERIALIZED);
+                writeBytes(out, convertSerializableObjectTypes(value));
+            }
+        }
+    }
+
+    public Object readValue(final DataInput in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return (int) readVarLong(in);
+            case LONG:
+                return readVarLong(in);
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BOOLEAN:
+                return in.readBoolean();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case CHARACTER:
+                return in.readChar();
+            case BYTES:
+                return readBytes(in);
+            case DATE:
+                return new Date(readVarLong(in));
+            case TIMESTAMP:
+                final Timestamp timestamp = new Timestamp(readVarLong(in));
+                timestamp.setNanos((int) readVarLong(in));
+                return timestamp;
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case BIG_DECIMAL:
+                final int scale = (int) readVarLong(in);
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case ENUM:
+                return readEnum(in);
+            case ARRAY_LIST:
+                final int listSize = (int) readVarLong(in);
+                return readElements(in, new ArrayList<Object>(listSize), listSize);
+            case LINKED_LIST:
+                return readElements(in, new LinkedList<Object>(), (int) readVarLong(in));
+            case HASH_SET:
+                final int setSize = (int) readVarLong(in);
+                return readElements(in, new HashSet<Object>(capacity(setSize)), setSize);
+            case LINKED_HASH_SET:
+                final int linkedSetSize = (int) readVarLong(in);
+                return readElements(in, new LinkedHashSet<Object>(capacity(linkedSetSize)), linkedSetSize);
+            case HASH_MAP:
+                final int mapSize = (int) readVarLong(in);
+                return readEntries(in, new HashMap<Object, Object>(capacity(mapSize)), mapSize);
+            case LINKED_HASH_MAP:
+                final int linkedMapSize = (int) readVarLong(in);
+                return readEntries(in, new LinkedHashMap<Object, Object>(capacity(linkedMapSize)), linkedMapSize);
+            case CUSTOM:
+                final String id = readString(in);
+                final TypeCodec<?> codec = codecsById.get(id);
+                if (codec == null) {
+                    throw new BatchContainerServiceException("No codec registered for " + id);
+                }
+                return codec.read(in, this);
+            case SERIALIZED:
+                final Object instance = convertBackSerializableObjectTypes(readBytes(in));
+                if (instance == null) {
+                    throw new BatchContainerServiceException("Cannot deserialize BatchEE data");
+                }
+                return instance;
+            default:
+                throw new BatchContainerServiceException("Unknown data type " + tag);
+        }
+    }
+
+    private void writeCollection(final DataOutput out, final byte tag, final Collection<?> collection) throws IOException {
+        out.writeByte(tag);
+        writeVarLong(out, collection.size());
+        for (final Object item : collection) {
+            writeValue(out, item);
+        }
+    }
+
+    private void writeMap(final DataOutput out, final byte tag, final Map<?, ?> map) throws IOException {
+        out.writeByte(tag);
+        writeVarLong(out, map.size());
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private Collection<Object> readElements(final DataInput in, final Collection<Object> collection, final int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            collection.add(readValue(in));
+        }
+        return collection;
+    }
+
+    private Map<Object, Object> readEntries(final DataInput in, final Map<Object, Object> map, final int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            map.put(readValue(in), readValue(in));
+        }
+        return map;
+    }
+
+    private Object readEnum(final DataInput in) throws IOException {
+        final String type = readString(in);
+        final String name = readString(in);
+        try {
+            return enumConstant(getClassLoader().loadClass(type), name);
+        } catch (final ClassNotFoundException e) {
+            throw new BatchContainerServiceException("Cannot convert back BatchEE data: " + name + " of Enum type " + type, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked") // codecs are registered by their type
+    private TypeCodec<Object> codecFor(final Class<?> type) {
+        return (TypeCodec<Object>) codecsByType.get(type);
+    }
+
+    @SuppressWarnings("unchecked") // asSubclass validated it is an enum
+    private static <E extends Enum<E>> E enumConstant(final Class<?> type, final String name) {
+        return Enum.valueOf((Class<E>) type.asSubclass(Enum.class), name);
+    }
+
+    @SuppressWarnings("unchecked") // the caller knows what it stored
+    private static <T> T uncheckedCast(final Object value) {
+        return (T) value;
+    }
+
+    private static int capacity(final int size) {
+        return Math.max(16, (int) (size / .75f) + 1);
+    }
+
+    public static void writeString(final DataOutput out, final String value) throws IOException {
+        writeBytes(out, value.getBytes(UTF_8));
+    }
+
+    public static String readString(final DataInput in) throws IOException {
+        return new String(readBytes(in), UTF_8);
+    }
+
+    public static void writeBytes(final DataOutput out, final byte[] value) throws IOException {
+        writeVarLong(out, value.length);
+        out.write(value);
+    }
+
+    public static byte[] readBytes(final DataInput in) throws IOException {
+        final byte[] value = new byte[(int) readVarLong(in)];
+        in.readFully(value);
+        return value;
+    }
+
+    /**
+     * Zigzag variable length encoding: small positive and negative values use a single byte.
+     */
+    public static void writeVarLong(final DataOutput out, final long value) throws IOException {
+        long remaining = (value << 1) ^ (value >> 63);
+        while ((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    public static long readVarLong(final DataInput in) throws IOException {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (result >>> 1) ^ -(result & 1);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.data;
+
+import org.apache.batchee.container.exception.BatchContainerServiceException;
+import org.apache.batchee.spi.DataRepresentationService;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflates data bigger than {@link #THRESHOLD} bytes (disabled by default). Compressed data starts with a header byte
+ * no uncompressed representation starts with so data written before compression was activated stays readable.
+ *
+ * Ratio and time are counted to check the compression is worth its cost.
+ */
+public class DataCompression {
+    public static final String THRESHOLD = "data.compression.threshold";
+    public static final String LEVEL = "data.compression.level";
+
+    private static final byte HEADER = (byte) 0xDF;
+    private static final DataCompression DISABLED = new DataCompression(new Properties());
+
+    private final int threshold;
+    private final int level;
+
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressionTime = new AtomicLong();
+    private final AtomicLong decompressed = new AtomicLong();
+    private final AtomicLong decompressionTime = new AtomicLong();
+
+    public DataCompression(final Properties config) {
+        this.threshold = Integer.parseInt(config.getProperty(THRESHOLD, "-1"));
+        this.level = Integer.parseInt(config.getProperty(LEVEL, Integer.toString(Deflater.BEST_SPEED)));
+    }
+
+    /**
+     * @return the compression of the service or one only able to decompress if the service doesn't compress.
+     */
+    public static DataCompression of(final DataRepresentationService service) {
+        if (DefaultDataRepresentationService.class.isInstance(service)) {
+            return DefaultDataRepresentationService.class.cast(service).getCompression();
+        }
+        return DISABLED;
+    }
+
+    /**
+     * @return the data itself if smaller than the threshold or if compressing it doesn't make it smaller.
+     */
+    public byte[] compress(final byte[] data) {
+        if (data == null || threshold < 0 || data.length < threshold) {
+            return data;
+        }
+
+        final long start = System.nanoTime();
+        final Deflater deflater = new Deflater(level);
+        final byte[] result;
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            out.write(HEADER);
+            final byte[] buffer = new byte[Math.min(data.length, 8192)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            result = out.size() < data.length ? out.toByteArray() : data;
+        } finally {
+            deflater.end();
+        }
+
+        compressionTime.addAndGet(System.nanoTime() - start);
+        compressed.incrementAndGet();
+        uncompressedBytes.addAndGet(data.length);
+        compressedBytes.addAndGet(result.length);
+        return result;
+    }
+
+    public byte[] decompress(final byte[] data) {
+        if (data == null || data.length == 0 || data[0] != HEADER) {
+            return data;
+        }
+
+        final long start = System.nanoTime();
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            final byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                final int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new BatchContainerServiceException("Truncated compressed data");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (final DataFormatException e) {
+            throw new BatchContainerServiceException("Invalid compressed data", e);
+        } finally {
+            inflater.end();
+            decompressionTime.addAndGet(System.nanoTime() - start);
+            decompressed.incrementAndGet();
+        }
+    }
+
+    public Map<String, Long> getStatistics() {
+        final long in = uncompressedBytes.get();
+        final long out = compressedBytes.get();
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put("compressed", compressed.get());
+        metrics.put("uncompressedBytes", in);
+        metrics.put("compressedBytes", out);
+        metrics.put("ratioPercent", in == 0 ? 100 : out * 100 / in);
+        metrics.put("compressionTimeTotalMs", TimeUnit.NANOSECONDS.toMillis(compressionTime.get()));
+        metrics.put("decompressed", decompressed.get());
+        metrics.put("decompressionTimeTotalMs", TimeUnit.NANOSECONDS.toMillis(decompressionTime.get()));
+        return metrics;
+    }
+}
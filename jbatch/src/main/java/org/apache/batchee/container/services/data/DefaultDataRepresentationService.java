@@ -50,9 +50,15 @@ public class DefaultDataRepresentationService implements DataRepresentationServi
 
     private static final Logger LOGGER = Logger.getLogger(DefaultDataRepresentationService.class.getName());
 
+    private DataCompression compression = new DataCompression(new Properties());
 
     @Override
     public void init(Properties batchConfig) {
+        compression = new DataCompression(batchConfig);
+    }
+
+    public DataCompression getCompression() {
+        return compression;
     }
 
     @Override
@@ -82,15 +88,16 @@ public class DefaultDataRepresentationService implements DataRepresentationServi
             serialValue = convertSerializableObjectTypes(dataObject);
         }
 
-        return serialValue;
+        return compression.compress(serialValue);
     }
 
     @Override
-    public <T> T toJavaRepresentation(byte[] internalRepresentation) {
-        if (internalRepresentation == null) {
+    public <T> T toJavaRepresentation(byte[] rawRepresentation) {
+        if (rawRepresentation == null) {
             return null;
         }
 
+        final byte[] internalRepresentation = compression.decompress(rawRepresentation);
         T data = null;
         String stringRep = new String(internalRepresentation, UTF8_CHARSET);
 
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.data;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary serializer of a type for {@link BinaryDataRepresentationService}, typically a bean or a record
+ * stored in a checkpoint which would otherwise use java serialization.
+ *
+ * Nested values can be written and read through the service ({@link BinaryDataRepresentationService#writeValue(DataOutput, Object)}).
+ *
+ * @param <T> the handled type.
+ */
+public interface TypeCodec<T> {
+    /**
+     * @return the exact handled class, subclasses are not handled.
+     */
+    Class<T> getType();
+
+    /**
+     * @return the identifier stored with the data, it must not change to stay able to read existing data.
+     */
+    String getId();
+
+    void write(T value, DataOutput out, BinaryDataRepresentationService service) throws IOException;
+
+    T read(DataInput in, BinaryDataRepresentationService service) throws IOException;
+}
@@ -17,32 +17,102 @@
 package org.apache.batchee.container.services.executor;
 
 import org.apache.batchee.container.exception.BatchContainerServiceException;
-import org.apache.batchee.spi.BatchThreadPoolService;
-
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 
 import static org.apache.batchee.container.util.ClassLoaderAwareHandler.runnableLoaderAware;
 
-public abstract class AbstractThreadPoolService implements BatchThreadPoolService {
+/**
+ * By default all work shares the same executor. Setting any key prefixed by
+ * <code>thread-pool.&lt;job|split|partition&gt;.</code> gives that work type its own executor,
+ * created with the base configuration overridden by the prefixed keys
+ * (for instance <code>thread-pool.partition.BOUNDED_THREADPOOL_MAX_POOL_SIZE</code>).
+ */
+public abstract class AbstractThreadPoolService implements MonitoredThreadPoolService {
+    public static final String DEDICATED_POOL_PREFIX = "thread-pool.";
+
     protected ExecutorService executorService;
+    protected final Map<WorkType, ExecutorService> dedicatedExecutorServices = new EnumMap<WorkType, ExecutorService>(WorkType.class);
+    protected final ThreadPoolStatistics statistics = new ThreadPoolStatistics();
 
     protected abstract ExecutorService newExecutorService(Properties batchConfig);
 
     @Override
     public void init(final Properties batchConfig) throws BatchContainerServiceException {
         executorService = newExecutorService(batchConfig);
+        for (final WorkType type : WorkType.values()) {
+            final Properties dedicatedConfig = dedicatedConfiguration(batchConfig, type);
+            if (dedicatedConfig != null) {
+                dedicatedExecutorServices.put(type, newExecutorService(dedicatedConfig));
+            }
+        }
     }
 
     @Override
     public void shutdown() throws BatchContainerServiceException {
-        executorService.shutdownNow();
+        statistics.discarded(executorService.shutdownNow().size());
         executorService = null;
+        for (final ExecutorService dedicated : dedicatedExecutorServices.values()) {
+            statistics.discarded(dedicated.shutdownNow().size());
+        }
+        dedicatedExecutorServices.clear();
     }
 
     @Override
     public void executeTask(final Runnable work, final Object config) {
-        executorService.execute(runnableLoaderAware(work));
+        final Runnable task = runnableLoaderAware(decorate(statistics.wrap(work), config));
+        boolean accepted = false;
+        try {
+            findExecutorService(config).execute(task);
+            accepted = true;
+        } finally {
+            if (!accepted) { // rejected or the executor failed, the task will never run
+                statistics.rejected();
+            }
+        }
+    }
+
+    /**
+     * @return the task actually submitted to the executor, the default wraps nothing.
+     */
+    protected Runnable decorate(final Runnable task, final Object config) {
+        return task;
+    }
+
+    @Override
+    public ThreadPoolStatistics getStatistics() {
+        return statistics;
+    }
+
+    protected ExecutorService findExecutorService(final Object config) {
+        if (WorkType.class.isInstance(config)) {
+            final ExecutorService dedicated = dedicatedExecutorServices.get(WorkType.class.cast(config));
+            if (dedicated != null) {
+                return dedicated;
+            }
+        }
+        return executorService;
+    }
+
+    /**
+     * @return the configuration of the dedicated pool of this work type or null if it should use the shared one.
+     */
+    protected static Properties dedicatedConfiguration(final Properties batchConfig, final WorkType type) {
+        final String prefix = DEDICATED_POOL_PREFIX + type.configName() + ".";
+
+        Properties dedicatedConfig = null;
+        for (final String key : batchConfig.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                if (dedicatedConfig == null) {
+                    dedicatedConfig = new Properties();
+                    dedicatedConfig.putAll(batchConfig);
+                }
+                dedicatedConfig.setProperty(key.substring(prefix.length()), batchConfig.getProperty(key));
+            }
+        }
+        return dedicatedConfig;
     }
 
     @Override
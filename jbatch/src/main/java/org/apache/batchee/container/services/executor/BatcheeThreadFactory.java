@@ -32,7 +32,7 @@ public class BatcheeThreadFactory implements ThreadFactory {
         // avoid leaks when BatchEE is in the container
         Thread.currentThread().setContextClassLoader(BatcheeThreadFactory.class.getClassLoader());
         try {
-            final Thread t = new Thread(GROUP, r, PREFIX + THREAD_NUMBER.getAndIncrement(), 0);
+            final Thread t = new Thread(GROUP, r, nextThreadName(), 0);
             if (!t.isDaemon()) {
                 t.setDaemon(true);
             }
@@ -44,4 +44,9 @@ public class BatcheeThreadFactory implements ThreadFactory {
             Thread.currentThread().setContextClassLoader(loader);
         }
     }
+
+    // shared with other factories to keep a single naming sequence whatever the kind of thread
+    static String nextThreadName() {
+        return PREFIX + THREAD_NUMBER.getAndIncrement();
+    }
 }
@@ -17,41 +17,189 @@
 package org.apache.batchee.container.services.executor;
 
 import org.apache.batchee.container.exception.BatchContainerServiceException;
-import org.apache.batchee.spi.BatchThreadPoolService;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static org.apache.batchee.container.util.ClassLoaderAwareHandler.runnableLoaderAware;
 
-public class JNDIThreadPoolService implements BatchThreadPoolService {
+/**
+ * Delegates to a container executor (a <code>ManagedExecutorService</code> by default).
+ *
+ * The looked up executor is cached until it fails (undeployed, shutdown) to avoid hitting the naming
+ * context for each partition. When the container executor rejects a task it is executed by a local pool
+ * unless <code>thread-pool.jndi.fallback</code> is false.
+ */
+public class JNDIThreadPoolService implements MonitoredThreadPoolService {
+    private static final Logger LOGGER = Logger.getLogger(JNDIThreadPoolService.class.getName());
+
     public static final String THREADPOOL_JNDI_LOCATION = "thread-pool.jndi";
+    public static final String THREADPOOL_JNDI_CACHE = "thread-pool.jndi.cache";
+    public static final String THREADPOOL_JNDI_FALLBACK = "thread-pool.jndi.fallback";
 
     public final String DEFAULT_JNDI_LOCATION = "java:comp/DefaultManagedExecutorService";
 
     private String jndiLocation = null;
+    private boolean cache;
+    private boolean fallback;
+    private final JNDIThreadPoolStatistics statistics = new JNDIThreadPoolStatistics();
+    private final Map<WorkType, String> dedicatedJndiLocations = new EnumMap<WorkType, String>(WorkType.class);
+    private final ConcurrentMap<String, ExecutorService> executors = new ConcurrentHashMap<String, ExecutorService>();
+    private volatile ExecutorService fallbackExecutor;
 
     @Override
     public void init(final Properties batchConfig) {
-        // Don't want to get/cache the actual threadpool here since we want to do a JNDI lookup each time.
         jndiLocation = batchConfig.getProperty(THREADPOOL_JNDI_LOCATION, DEFAULT_JNDI_LOCATION);
+        cache = Boolean.parseBoolean(batchConfig.getProperty(THREADPOOL_JNDI_CACHE, "true"));
+        fallback = Boolean.parseBoolean(batchConfig.getProperty(THREADPOOL_JNDI_FALLBACK, "true"));
+        for (final WorkType type : WorkType.values()) { // thread-pool.partition.jndi etc
+            final String location = batchConfig.getProperty("thread-pool." + type.configName() + ".jndi");
+            if (location != null) {
+                dedicatedJndiLocations.put(type, location);
+            }
+        }
     }
 
     public void executeTask(Runnable work, Object config) {
+        String location = null;
+        if (WorkType.class.isInstance(config)) {
+            location = dedicatedJndiLocations.get(WorkType.class.cast(config));
+        }
+        if (location == null) {
+            location = jndiLocation;
+        }
+
+        final Runnable task = runnableLoaderAware(statistics.wrap(work));
+        boolean accepted = false;
         try {
-            final Context ctx = new InitialContext();
-            final ExecutorService delegateService = (ExecutorService) ctx.lookup(jndiLocation);
-            delegateService.execute(runnableLoaderAware(work));
+            submit(location, task);
+            accepted = true;
+        } finally {
+            if (!accepted) { // rejected or the executor failed, the task will never run
+                statistics.rejected();
+            }
+        }
+    }
+
+    private void submit(final String location, final Runnable task) {
+        try {
+            final ExecutorService executor = findExecutor(location);
+            try {
+                executor.execute(task);
+            } catch (final RejectedExecutionException ree) { // saturated unless the executor was shutdown
+                if (!isShutdown(executor) || !invalidate(location, executor)) {
+                    throw ree;
+                }
+                findExecutor(location).execute(task);
+            } catch (final RuntimeException re) { // cached executor can be stale (redeployment), retry with a fresh one
+                if (!invalidate(location, executor)) {
+                    throw re;
+                }
+                findExecutor(location).execute(task);
+            }
         } catch (final NamingException e) {
             throw new BatchContainerServiceException(e);
+        } catch (final RejectedExecutionException ree) {
+            if (!fallback) {
+                throw ree;
+            }
+            executeInFallback(task, ree);
         }
     }
 
+    private boolean invalidate(final String location, final ExecutorService executor) {
+        if (!cache) {
+            return false;
+        }
+        if (executors.remove(location, executor)) { // else another task already replaced it
+            statistics.invalidations.incrementAndGet();
+        }
+        return true;
+    }
+
+    private static boolean isShutdown(final ExecutorService executor) {
+        try {
+            return executor.isShutdown();
+        } catch (final IllegalStateException ise) { // managed executors don't support lifecycle methods
+            return false;
+        }
+    }
+
+    private ExecutorService findExecutor(final String location) throws NamingException {
+        if (cache) {
+            final ExecutorService cached = executors.get(location);
+            if (cached != null) {
+                statistics.cacheHits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        statistics.lookups.incrementAndGet();
+        final Context ctx = new InitialContext();
+        final ExecutorService delegateService = (ExecutorService) ctx.lookup(location);
+        if (cache) {
+            executors.put(location, delegateService);
+        }
+        return delegateService;
+    }
+
+    private void executeInFallback(final Runnable task, final RejectedExecutionException cause) {
+        ExecutorService executor = fallbackExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = fallbackExecutor;
+                if (executor == null) {
+                    LOGGER.log(Level.WARNING, "Container executor rejected a task, using a local pool for rejected tasks", cause);
+                    executor = Executors.newCachedThreadPool(BatcheeThreadFactory.INSTANCE);
+                    fallbackExecutor = executor;
+                }
+            }
+        }
+
+        statistics.fallbacks.incrementAndGet();
+        executor.execute(task);
+    }
+
+    @Override
+    public ThreadPoolStatistics getStatistics() {
+        return statistics;
+    }
+
     @Override
     public void shutdown() {
-        // no-op
+        executors.clear();
+        if (fallbackExecutor != null) {
+            statistics.discarded(fallbackExecutor.shutdownNow().size());
+            fallbackExecutor = null;
+        }
+    }
+
+    private static class JNDIThreadPoolStatistics extends ThreadPoolStatistics {
+        private final AtomicLong lookups = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+        private final AtomicLong fallbacks = new AtomicLong();
+
+        @Override
+        public Map<String, Long> toMap() {
+            final Map<String, Long> metrics = super.toMap();
+            metrics.put("jndiLookups", lookups.get());
+            metrics.put("jndiCacheHits", cacheHits.get());
+            metrics.put("jndiInvalidations", invalidations.get());
+            metrics.put("fallbackExecutions", fallbacks.get());
+            return metrics;
+        }
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.executor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saturation counters of a {@link org.apache.batchee.spi.BatchThreadPoolService}: a growing queue with few
+ * active tasks means the pool is starved (too small), many active tasks with long run times means the work is blocked downstream.
+ *
+ * Only a few atomic operations per task so it stays always on.
+ */
+public class ThreadPoolStatistics {
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final AtomicLong totalRunTime = new AtomicLong();
+    private final AtomicLong maxRunTime = new AtomicLong();
+
+    /**
+     * @param work the task to measure.
+     * @return the task to submit to the underlying executor, if it is not accepted (rejected or the executor failed)
+     * call {@link #rejected()}, if it is accepted but dropped before running (shutdown) call {@link #discarded(int)}.
+     */
+    public Runnable wrap(final Runnable work) {
+        submitted.incrementAndGet();
+        queued.incrementAndGet();
+        return new MeasuredRunnable(work, System.nanoTime());
+    }
+
+    public void rejected() {
+        queued.decrementAndGet();
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * @param count tasks accepted by the executor which will never run, typically returned by {@link java.util.concurrent.ExecutorService#shutdownNow()}.
+     */
+    public void discarded(final int count) {
+        queued.addAndGet(-count);
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getQueueDepth() {
+        return queued.get();
+    }
+
+    public long getActiveCount() {
+        return active.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getTotalWaitTime(final TimeUnit unit) {
+        return unit.convert(totalWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxWaitTime(final TimeUnit unit) {
+        return unit.convert(maxWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getTotalRunTime(final TimeUnit unit) {
+        return unit.convert(totalRunTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxRunTime(final TimeUnit unit) {
+        return unit.convert(maxRunTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public Map<String, Long> toMap() {
+        final long started = completed.get() + failed.get();
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put("active", getActiveCount());
+        metrics.put("queued", getQueueDepth());
+        metrics.put("submitted", getSubmittedCount());
+        metrics.put("completed", getCompletedCount());
+        metrics.put("failed", getFailedCount());
+        metrics.put("rejected", getRejectedCount());
+        metrics.put("waitTimeTotalMs", getTotalWaitTime(TimeUnit.MILLISECONDS));
+        metrics.put("waitTimeMaxMs", getMaxWaitTime(TimeUnit.MILLISECONDS));
+        metrics.put("runTimeTotalMs", getTotalRunTime(TimeUnit.MILLISECONDS));
+        metrics.put("runTimeMaxMs", getMaxRunTime(TimeUnit.MILLISECONDS));
+        metrics.put("runTimeMeanMs", started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRunTime.get() / started));
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadPoolStatistics" + toMap();
+    }
+
+    private static void max(final AtomicLong max, final long value) {
+        long current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+
+    private class MeasuredRunnable implements Runnable {
+        private final Runnable delegate;
+        private final long submittedAt;
+
+        private MeasuredRunnable(final Runnable delegate, final long submittedAt) {
+            this.delegate = delegate;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            final long waited = start - submittedAt;
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            totalWaitTime.addAndGet(waited);
+            max(maxWaitTime, waited);
+
+            boolean success = false;
+            try {
+                delegate.run();
+                success = true;
+            } finally {
+                final long duration = System.nanoTime() - start;
+                totalRunTime.addAndGet(duration);
+                max(maxRunTime, duration);
+                active.decrementAndGet();
+                if (success) {
+                    completed.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+            }
+        }
+    }
+}
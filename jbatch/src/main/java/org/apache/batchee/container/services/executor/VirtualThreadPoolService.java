@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.executor;
+
+import java.lang.reflect.Method;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * Runs each job, split flow and partition on its own virtual thread when the JVM supports them
+ * (Java 21 and later), otherwise falls back on the cached platform thread pool of {@link DefaultThreadPoolService}.
+ *
+ * Blocking work (JDBC, file I/O) then no longer pins a platform thread so the number of concurrent partitions
+ * is bound by the backends and not by the pool size. Since there is no pool to size anymore each work type
+ * can get an optional concurrency limit, a value &lt;= 0 (default) means unlimited.
+ */
+public class VirtualThreadPoolService extends AbstractThreadPoolService {
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreadPoolService.class.getName());
+
+    public static final String VIRTUAL_THREADPOOL_JOB_MAX_CONCURRENCY = "VIRTUAL_THREADPOOL_JOB_MAX_CONCURRENCY";
+    public static final String VIRTUAL_THREADPOOL_SPLIT_MAX_CONCURRENCY = "VIRTUAL_THREADPOOL_SPLIT_MAX_CONCURRENCY";
+    public static final String VIRTUAL_THREADPOOL_PARTITION_MAX_CONCURRENCY = "VIRTUAL_THREADPOOL_PARTITION_MAX_CONCURRENCY";
+
+    private boolean virtual;
+    private Semaphore jobPermits;
+    private Semaphore splitPermits;
+    private Semaphore partitionPermits;
+
+    @Override
+    public void init(final Properties batchConfig) {
+        jobPermits = newPermits(batchConfig, VIRTUAL_THREADPOOL_JOB_MAX_CONCURRENCY);
+        splitPermits = newPermits(batchConfig, VIRTUAL_THREADPOOL_SPLIT_MAX_CONCURRENCY);
+        partitionPermits = newPermits(batchConfig, VIRTUAL_THREADPOOL_PARTITION_MAX_CONCURRENCY);
+        super.init(batchConfig);
+    }
+
+    @Override
+    protected ExecutorService newExecutorService(final Properties batchConfig) {
+        final ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+        virtual = virtualExecutor != null;
+        if (virtual) {
+            return virtualExecutor;
+        }
+
+        LOGGER.info("Virtual threads are not supported by this JVM, using platform threads");
+        return Executors.newCachedThreadPool(BatcheeThreadFactory.INSTANCE);
+    }
+
+    @Override // permits are acquired before the task is measured as running
+    protected Runnable decorate(final Runnable task, final Object config) {
+        final Semaphore permits = findPermits(config);
+        if (permits == null) {
+            return task;
+        }
+        return new PermitAwareRunnable(task, permits);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    private Semaphore findPermits(final Object config) {
+        if (config == WorkType.PARTITION) {
+            return partitionPermits;
+        }
+        if (config == WorkType.SPLIT) {
+            return splitPermits;
+        }
+        return jobPermits;
+    }
+
+    private static Semaphore newPermits(final Properties batchConfig, final String key) {
+        final int max = Integer.parseInt(batchConfig.getProperty(key, "0"));
+        if (max <= 0) {
+            return null;
+        }
+        return new Semaphore(max, true);
+    }
+
+    // reflection since we compile against older JVMs: Executors.newThreadPerTaskExecutor(Thread.ofVirtual().factory())
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            final ThreadFactory virtualFactory = new VirtualThreadFactory(ThreadFactory.class.cast(factory.invoke(builder)));
+            return ExecutorService.class.cast(Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, virtualFactory));
+        } catch (final Throwable e) { // NoSuchMethodException or UnsupportedOperationException (preview not enabled)
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[virtual=" + virtual + "]";
+    }
+
+    private static class VirtualThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate;
+
+        private VirtualThreadFactory(final ThreadFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader loader = thread.getContextClassLoader();
+            // same as BatcheeThreadFactory: avoid leaks when BatchEE is in the container
+            thread.setContextClassLoader(VirtualThreadFactory.class.getClassLoader());
+            try {
+                final Thread t = delegate.newThread(r);
+                t.setName(BatcheeThreadFactory.nextThreadName());
+                return t;
+            } finally {
+                thread.setContextClassLoader(loader);
+            }
+        }
+    }
+
+    private static class PermitAwareRunnable implements Runnable {
+        private final Runnable delegate;
+        private final Semaphore permits;
+
+        private PermitAwareRunnable(final Runnable delegate, final Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public void run() {
+            boolean acquired;
+            try {
+                permits.acquire();
+                acquired = true;
+            } catch (final InterruptedException e) { // shutdown, still run it: the execution has to reach a final status
+                acquired = false;
+            }
+            try {
+                delegate.run();
+            } finally {
+                if (acquired) {
+                    permits.release();
+                } else {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.kernel;
+
+import org.apache.batchee.spi.BatchThreadPoolService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a top-level job (start or restart) is handed to the {@link BatchThreadPoolService}.
+ *
+ * Jobs are admitted while the global, per job name and per tag concurrency limits allow it,
+ * others wait in a queue ordered by priority (higher first) then submission order. A waiting job
+ * blocked by its own job name or tag limit doesn't block jobs behind it.
+ *
+ * Priority and tags come from the job parameters {@link #PRIORITY_PARAMETER} and {@link #TAGS_PARAMETER}.
+ */
+public class AdmissionController {
+    public static final String PRIORITY_PARAMETER = "org.apache.batchee.priority";
+    public static final String TAGS_PARAMETER = "org.apache.batchee.tags";
+
+    public static final String PREFIX = "admission.";
+    public static final String MAX_CONCURRENCY = PREFIX + "max-concurrency";
+    public static final String QUEUE_SIZE = PREFIX + "queue-size";
+    public static final String JOB_PREFIX = PREFIX + "job.";
+    public static final String TAG_PREFIX = PREFIX + "tag.";
+    public static final String MAX_CONCURRENCY_SUFFIX = ".max-concurrency";
+
+    private final BatchThreadPoolService executorService;
+    private final SubmissionFailureHandler failureHandler;
+    private final int maxConcurrency;
+    private final int queueSize;
+    private final Map<String, Integer> jobLimits;
+    private final Map<String, Integer> tagLimits;
+
+    // all guarded by this
+    private final TreeSet<Ticket> queue = new TreeSet<Ticket>();
+    private final Map<Long, Ticket> tickets = new HashMap<Long, Ticket>();
+    private final Map<String, Integer> runningByJob = new HashMap<String, Integer>();
+    private final Map<String, Integer> runningByTag = new HashMap<String, Integer>();
+    private long sequence;
+    private int running;
+    private int reserved;
+    private long admitted;
+    private long rejected;
+    private long totalWaitTime;
+    private long maxWaitTime;
+
+    AdmissionController(final BatchThreadPoolService executorService, final SubmissionFailureHandler failureHandler,
+                        final int maxConcurrency, final int queueSize,
+                        final Map<String, Integer> jobLimits, final Map<String, Integer> tagLimits) {
+        this.executorService = executorService;
+        this.failureHandler = failureHandler;
+        this.maxConcurrency = maxConcurrency;
+        this.queueSize = queueSize;
+        this.jobLimits = jobLimits;
+        this.tagLimits = tagLimits;
+    }
+
+    /**
+     * @return the controller matching the configuration or null if no admission key is set (jobs start immediately).
+     */
+    public static AdmissionController newInstance(final BatchThreadPoolService executorService, final SubmissionFailureHandler failureHandler,
+                                                  final Properties config) {
+        final Map<String, Integer> jobLimits = new HashMap<String, Integer>();
+        final Map<String, Integer> tagLimits = new HashMap<String, Integer>();
+        boolean active = false;
+        for (final String key : config.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX)) {
+                continue;
+            }
+
+            active = true;
+            if (key.endsWith(MAX_CONCURRENCY_SUFFIX)) {
+                if (key.startsWith(JOB_PREFIX)) {
+                    jobLimits.put(key.substring(JOB_PREFIX.length(), key.length() - MAX_CONCURRENCY_SUFFIX.length()), Integer.parseInt(config.getProperty(key)));
+                } else if (key.startsWith(TAG_PREFIX)) {
+                    tagLimits.put(key.substring(TAG_PREFIX.length(), key.length() - MAX_CONCURRENCY_SUFFIX.length()), Integer.parseInt(config.getProperty(key)));
+                }
+            }
+        }
+        if (!active) {
+            return null;
+        }
+        return new AdmissionController(executorService, failureHandler,
+            Integer.parseInt(config.getProperty(MAX_CONCURRENCY, "-1")), Integer.parseInt(config.getProperty(QUEUE_SIZE, "-1")),
+            jobLimits, tagLimits);
+    }
+
+    /**
+     * Reserves a place in the queue before the execution is created so a full queue doesn't leave orphan executions.
+     *
+     * @return false if the queue is full.
+     */
+    public synchronized boolean reserve() {
+        if (queueSize > 0 && queue.size() + reserved >= queueSize) {
+            rejected++;
+            return false;
+        }
+        reserved++;
+        return true;
+    }
+
+    public synchronized void cancelReservation() {
+        reserved--;
+    }
+
+    /**
+     * Consumes the reservation and runs the job as soon as the limits allow it.
+     */
+    public void submit(final long executionId, final String jobName, final Properties jobParameters, final Runnable work) {
+        synchronized (this) {
+            reserved--; // first to not leak the reservation if parameters are invalid
+            final Ticket ticket = new Ticket(executionId, jobName, priority(jobParameters), tags(jobParameters), work);
+            ticket.sequence = sequence++;
+            queue.add(ticket);
+            tickets.put(executionId, ticket);
+        }
+        dispatch();
+    }
+
+    /**
+     * Frees the slots of a finished job, no-op if the execution was not admitted by this controller.
+     */
+    public void release(final long executionId) {
+        synchronized (this) {
+            final Ticket ticket = tickets.get(executionId);
+            if (ticket == null || !ticket.admitted) {
+                return;
+            }
+            tickets.remove(executionId);
+            releaseSlots(ticket);
+        }
+        dispatch();
+    }
+
+    /**
+     * @return the work of a job still waiting (removed from the queue) or null if it was already admitted.
+     */
+    public synchronized Runnable cancel(final long executionId) {
+        final Ticket ticket = tickets.get(executionId);
+        if (ticket == null || ticket.admitted) {
+            return null;
+        }
+        tickets.remove(executionId);
+        queue.remove(ticket);
+        return ticket.work;
+    }
+
+    /**
+     * @return 0 for the next job to be admitted, -1 if the execution doesn't wait.
+     */
+    public synchronized int getQueuePosition(final long executionId) {
+        final Ticket ticket = tickets.get(executionId);
+        if (ticket == null || ticket.admitted) {
+            return -1;
+        }
+        return queue.headSet(ticket).size();
+    }
+
+    public synchronized Map<String, Long> getMetrics() {
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put("queued", (long) queue.size());
+        metrics.put("running", (long) running);
+        metrics.put("admitted", admitted);
+        metrics.put("rejected", rejected);
+        metrics.put("waitTimeTotalMs", TimeUnit.NANOSECONDS.toMillis(totalWaitTime));
+        metrics.put("waitTimeMaxMs", TimeUnit.NANOSECONDS.toMillis(maxWaitTime));
+        metrics.put("waitTimeMeanMs", admitted == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitTime / admitted));
+        return metrics;
+    }
+
+    private void dispatch() {
+        boolean freed;
+        do {
+            final List<Ticket> toStart = new ArrayList<Ticket>();
+            synchronized (this) {
+                final Iterator<Ticket> it = queue.iterator();
+                while (it.hasNext() && (maxConcurrency <= 0 || running < maxConcurrency)) {
+                    final Ticket ticket = it.next();
+                    if (canRun(ticket)) {
+                        it.remove();
+                        acquireSlots(ticket);
+                        toStart.add(ticket);
+                    }
+                }
+            }
+
+            // outside the lock since a thread pool can block, a failing ticket doesn't prevent the next ones to start
+            freed = false;
+            for (final Ticket ticket : toStart) {
+                try {
+                    executorService.executeTask(ticket.work, BatchThreadPoolService.WorkType.JOB);
+                } catch (final RuntimeException re) {
+                    synchronized (this) {
+                        tickets.remove(ticket.executionId);
+                        releaseSlots(ticket);
+                    }
+                    freed = true;
+                    if (failureHandler != null) {
+                        failureHandler.onSubmissionFailure(ticket.executionId, re);
+                    }
+                }
+            }
+        } while (freed); // the released slots can admit waiting jobs
+    }
+
+    private boolean canRun(final Ticket ticket) {
+        if (reached(jobLimits, runningByJob, ticket.jobName)) {
+            return false;
+        }
+        for (final String tag : ticket.tags) {
+            if (reached(tagLimits, runningByTag, tag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void acquireSlots(final Ticket ticket) {
+        final long waited = System.nanoTime() - ticket.queuedAt;
+        totalWaitTime += waited;
+        maxWaitTime = Math.max(maxWaitTime, waited);
+        admitted++;
+        running++;
+        ticket.admitted = true;
+        increment(runningByJob, ticket.jobName, 1);
+        for (final String tag : ticket.tags) {
+            increment(runningByTag, tag, 1);
+        }
+    }
+
+    private void releaseSlots(final Ticket ticket) {
+        running--;
+        increment(runningByJob, ticket.jobName, -1);
+        for (final String tag : ticket.tags) {
+            increment(runningByTag, tag, -1);
+        }
+    }
+
+    private static boolean reached(final Map<String, Integer> limits, final Map<String, Integer> counts, final String key) {
+        final Integer limit = limits.get(key);
+        if (limit == null || limit <= 0) {
+            return false;
+        }
+        final Integer count = counts.get(key);
+        return count != null && count >= limit;
+    }
+
+    private static void increment(final Map<String, Integer> counts, final String key, final int delta) {
+        final Integer count = counts.get(key);
+        final int value = (count == null ? 0 : count) + delta;
+        if (value <= 0) {
+            counts.remove(key);
+        } else {
+            counts.put(key, value);
+        }
+    }
+
+    static int priority(final Properties jobParameters) {
+        if (jobParameters == null) {
+            return 0;
+        }
+        final String priority = jobParameters.getProperty(PRIORITY_PARAMETER);
+        if (priority == null || priority.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(priority.trim());
+        } catch (final NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid " + PRIORITY_PARAMETER + " '" + priority + "', expected an integer");
+        }
+    }
+
+    private static Collection<String> tags(final Properties jobParameters) {
+        if (jobParameters == null) {
+            return Collections.emptyList();
+        }
+        final String tags = jobParameters.getProperty(TAGS_PARAMETER);
+        if (tags == null) {
+            return Collections.emptyList();
+        }
+        final Collection<String> result = new ArrayList<String>();
+        for (final String tag : tags.split(",")) {
+            final String trimmed = tag.trim();
+            if (!trimmed.isEmpty() && !result.contains(trimmed)) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Called when an admitted job can't be handed to the thread pool, its slots are already released.
+     */
+    public interface SubmissionFailureHandler {
+        void onSubmissionFailure(long executionId, RuntimeException error);
+    }
+
+    private static class Ticket implements Comparable<Ticket> {
+        private final long executionId;
+        private final String jobName;
+        private final int priority;
+        private final Collection<String> tags;
+        private final Runnable work;
+        private final long queuedAt = System.nanoTime();
+        private long sequence;
+        private boolean admitted;
+
+        private Ticket(final long executionId, final String jobName, final int priority, final Collection<String> tags, final Runnable work) {
+            this.executionId = executionId;
+            this.jobName = jobName;
+            this.priority = priority;
+            this.tags = tags;
+            this.work = work;
+        }
+
+        @Override
+        public int compareTo(final Ticket o) {
+            if (priority != o.priority) {
+                return priority > o.priority ? -1 : 1;
+            }
+            return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.kernel;
+
+import org.apache.batchee.container.exception.BatchContainerServiceException;
+import org.apache.batchee.container.services.JobStatusManagerService;
+import org.apache.batchee.container.services.persistence.JDBCJobQueue;
+import org.apache.batchee.container.services.persistence.JDBCPersistenceManagerService;
+import org.apache.batchee.container.services.persistence.MonitoredPersistence;
+import org.apache.batchee.spi.PersistenceManagerService;
+
+import javax.batch.operations.JobExecutionNotRunningException;
+import javax.batch.runtime.BatchStatus;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Makes a kernel a node of a cluster sharing a {@link JDBCJobQueue}: started and restarted jobs are enqueued
+ * and each node claims them while it has free slots ({@link #MAX_CONCURRENCY}).
+ *
+ * The node also publishes its heartbeat, fails the executions of dead nodes (they can then be restarted) and
+ * stops its executions when another node requested it. A node which was considered as dead stops the executions
+ * it lost on its next heartbeat since they were failed and can already be restarted elsewhere.
+ */
+public class ClusterMembership implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(ClusterMembership.class.getName());
+
+    public static final String PREFIX = "cluster.";
+    public static final String ENABLED = PREFIX + "enabled";
+    public static final String NODE = PREFIX + "node";
+    public static final String MAX_CONCURRENCY = PREFIX + "max-concurrency";
+    public static final String POLL_INTERVAL = PREFIX + "poll-interval";
+    public static final String HEARTBEAT_INTERVAL = PREFIX + "heartbeat-interval";
+    public static final String NODE_TIMEOUT = PREFIX + "node-timeout";
+    public static final String LEAVE_TIMEOUT = PREFIX + "leave-timeout";
+
+    private final DefaultBatchKernel kernel;
+    private final JDBCJobQueue queue;
+    private final PersistenceManagerService persistenceService;
+    private final JobStatusManagerService statusManager;
+    private final String node;
+    private final int maxConcurrency;
+    private final long pollInterval;
+    private final long heartbeatInterval;
+    private final long nodeTimeout;
+    private final long leaveTimeout;
+    private final Map<Long, Boolean> claimed = new ConcurrentHashMap<Long, Boolean>();
+    private final Map<Long, Boolean> lost = new ConcurrentHashMap<Long, Boolean>();
+    private final Map<String, ObservedHeartbeat> heartbeats = new HashMap<String, ObservedHeartbeat>(); // only used by the polling thread
+    private ScheduledExecutorService scheduler;
+    private long lastHeartbeat;
+
+    ClusterMembership(final DefaultBatchKernel kernel, final JDBCJobQueue queue, final PersistenceManagerService persistenceService,
+                      final JobStatusManagerService statusManager, final Properties config) {
+        this.kernel = kernel;
+        this.queue = queue;
+        this.persistenceService = persistenceService;
+        this.statusManager = statusManager;
+        this.node = config.getProperty(NODE, defaultNodeName());
+        this.maxConcurrency = Integer.parseInt(config.getProperty(MAX_CONCURRENCY, Integer.toString(Runtime.getRuntime().availableProcessors())));
+        this.pollInterval = Long.parseLong(config.getProperty(POLL_INTERVAL, "1000"));
+        this.heartbeatInterval = Long.parseLong(config.getProperty(HEARTBEAT_INTERVAL, "5000"));
+        this.nodeTimeout = Long.parseLong(config.getProperty(NODE_TIMEOUT, "30000"));
+        this.leaveTimeout = Long.parseLong(config.getProperty(LEAVE_TIMEOUT, "60000"));
+    }
+
+    /**
+     * @return the membership of the kernel or null if {@link #ENABLED} is not set (jobs run where they are started).
+     */
+    public static ClusterMembership newInstance(final DefaultBatchKernel kernel, final PersistenceManagerService persistenceService,
+                                                final JobStatusManagerService statusManager, final Properties config) {
+        if (!Boolean.parseBoolean(config.getProperty(ENABLED, "false"))) {
+            return null;
+        }
+        final PersistenceManagerService jdbc = MonitoredPersistence.unwrap(persistenceService);
+        if (!JDBCPersistenceManagerService.class.isInstance(jdbc)) {
+            throw new BatchContainerServiceException("Cluster mode needs the JDBC persistence, current one is " + persistenceService);
+        }
+        return new ClusterMembership(kernel, new JDBCJobQueue(JDBCPersistenceManagerService.class.cast(jdbc), config),
+            persistenceService, statusManager, config);
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public synchronized void start() {
+        queue.heartbeat(node);
+        lastHeartbeat = System.currentTimeMillis();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "batchee-cluster-" + node);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(this, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling, stops the executions running here and waits for them ({@link #LEAVE_TIMEOUT}) then unregisters
+     * the node. Executions still running after the timeout are failed by the other nodes.
+     */
+    public synchronized void leave() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown(); // no interruption, some drivers (derby) close the connection in this case
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+
+            for (final long id : claimed.keySet()) {
+                stopLocally(id);
+            }
+            final long end = System.currentTimeMillis() + leaveTimeout;
+            while (!claimed.isEmpty() && System.currentTimeMillis() < end) {
+                Thread.sleep(Math.min(pollInterval, 100));
+            }
+            if (!claimed.isEmpty()) {
+                LOGGER.warning("Executions " + claimed.keySet() + " still running on node " + node + ", they will be marked as failed");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        queue.removeNode(node);
+    }
+
+    public void enqueue(final long executionId, final Properties jobParameters) {
+        queue.enqueue(executionId, AdmissionController.priority(jobParameters));
+    }
+
+    /**
+     * @return false if the execution is neither waiting in the queue nor running on a node.
+     */
+    public boolean stop(final long executionId) {
+        if (queue.removeIfNotClaimed(executionId)) {
+            complete(executionId, BatchStatus.STOPPED);
+            return true;
+        }
+        return queue.requestStop(executionId);
+    }
+
+    public boolean isQueuedOrRunning(final long executionId) {
+        return queue.contains(executionId);
+    }
+
+    public void done(final long executionId) {
+        if (claimed.remove(executionId) != null) {
+            queue.remove(executionId);
+        } else if (lost.remove(executionId) != null) { // keep the status set by the node which recovered it
+            complete(executionId, BatchStatus.FAILED);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            final long now = System.currentTimeMillis();
+            if (now - lastHeartbeat >= heartbeatInterval) {
+                queue.heartbeat(node);
+                lastHeartbeat = now;
+                stopLostExecutions();
+                removeDeadNodes(now);
+
+                for (final long id : queue.recoverOrphans()) {
+                    LOGGER.warning("Execution " + id + " was running on a dead node, marking it as failed");
+                    complete(id, BatchStatus.FAILED);
+                }
+            }
+
+            for (final long id : queue.findStopRequests(node)) {
+                queue.clearStopRequest(id);
+                stopLocally(id);
+            }
+
+            for (final long id : queue.claim(node, maxConcurrency - claimed.size())) {
+                claimed.put(id, Boolean.TRUE);
+                try {
+                    if (!kernel.startClaimedJob(id)) { // local admission queue is full
+                        claimed.remove(id);
+                        queue.unclaim(node, id);
+                    }
+                } catch (final RuntimeException re) {
+                    LOGGER.log(Level.SEVERE, "Can't start execution " + id, re);
+                    claimed.remove(id);
+                    queue.remove(id);
+                    complete(id, BatchStatus.FAILED);
+                }
+            }
+        } catch (final RuntimeException re) { // database unavailable, keep polling
+            LOGGER.log(Level.WARNING, "Cluster polling failed on node " + node, re);
+        }
+    }
+
+    // a node is dead when its heartbeat didn't change for nodeTimeout on our clock, the clocks of the nodes are never compared
+    private void removeDeadNodes(final long now) {
+        final Map<String, Timestamp> current = queue.findNodes();
+        heartbeats.keySet().retainAll(current.keySet());
+        for (final Map.Entry<String, Timestamp> entry : current.entrySet()) {
+            final String name = entry.getKey();
+            if (node.equals(name) || entry.getValue() == null) {
+                continue;
+            }
+
+            final ObservedHeartbeat observed = heartbeats.get(name);
+            if (observed == null || !observed.value.equals(entry.getValue())) {
+                heartbeats.put(name, new ObservedHeartbeat(entry.getValue(), now));
+            } else if (now - observed.seenAt >= nodeTimeout) {
+                LOGGER.warning("Node " + name + " didn't send any heartbeat for " + (now - observed.seenAt) + "ms, considering it as dead");
+                queue.removeDeadNode(name, observed.value);
+                heartbeats.remove(name);
+            }
+        }
+    }
+
+    // if the heartbeat was late other nodes failed our executions and removed them from the queue
+    private void stopLostExecutions() {
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        final Collection<Long> owned = new HashSet<Long>(queue.findOwned(node));
+        for (final long id : claimed.keySet()) {
+            if (owned.contains(id)) {
+                continue;
+            }
+            lost.put(id, Boolean.TRUE);
+            if (claimed.remove(id) == null) { // done meanwhile
+                lost.remove(id);
+                continue;
+            }
+            LOGGER.warning("Execution " + id + " was recovered by another node, stopping it on node " + node);
+            stopLocally(id);
+        }
+    }
+
+    private void stopLocally(final long executionId) {
+        try {
+            kernel.stopJob(executionId);
+        } catch (final JobExecutionNotRunningException e) {
+            // already done
+        }
+    }
+
+    private void complete(final long executionId, final BatchStatus status) {
+        persistenceService.updateWithFinalExecutionStatusesAndTimestamps(executionId, status, status.name(), new Timestamp(System.currentTimeMillis()));
+        statusManager.updateJobExecutionStatus(persistenceService.getJobInstanceIdByExecutionId(executionId), status, status.name());
+    }
+
+    private static class ObservedHeartbeat {
+        private final Timestamp value;
+        private final long seenAt;
+
+        private ObservedHeartbeat(final Timestamp value, final long seenAt) {
+            this.value = value;
+            this.seenAt = seenAt;
+        }
+    }
+
+    private static String defaultNodeName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (final UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
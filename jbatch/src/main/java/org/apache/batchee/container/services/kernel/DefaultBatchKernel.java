@@ -20,6 +20,7 @@ import org.apache.batchee.container.ThreadRootController;
 import org.apache.batchee.container.exception.BatchContainerServiceException;
 import org.apache.batchee.container.impl.JobContextImpl;
 import org.apache.batchee.container.impl.StepContextImpl;
+import org.apache.batchee.container.impl.controller.JobController;
 import org.apache.batchee.container.impl.jobinstance.JobExecutionHelper;
 import org.apache.batchee.container.impl.jobinstance.RuntimeFlowInSplitExecution;
 import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
@@ -43,18 +44,26 @@ import javax.batch.operations.JobExecutionNotRunningException;
 import javax.batch.operations.JobRestartException;
 import javax.batch.operations.JobStartException;
 import javax.batch.operations.NoSuchJobExecutionException;
+import javax.batch.runtime.BatchStatus;
 import javax.batch.runtime.JobInstance;
 import java.io.Closeable;
 import java.io.IOException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class DefaultBatchKernel implements BatchKernelService {
+    private static final Logger LOGGER = Logger.getLogger(DefaultBatchKernel.class.getName());
+
     private final Map<Long, ThreadRootController> executionId2jobControllerMap = new ConcurrentHashMap<Long, ThreadRootController>();
     private final Set<Long> instanceIdExecutingSet = new HashSet<Long>();
 
@@ -62,6 +71,8 @@ public class DefaultBatchKernel implements BatchKernelService {
     private final PersistenceManagerService persistenceService;
     private final ServicesManager servicesManager;
     private final JobExecutionCallbackService jobExecutionCallback;
+    private AdmissionController admissionController;
+    private ClusterMembership cluster;
 
     public DefaultBatchKernel(final ServicesManager servicesManager) {
         this.servicesManager = servicesManager;
@@ -72,19 +83,61 @@ public class DefaultBatchKernel implements BatchKernelService {
 
     @Override
     public void init(final Properties pgcConfig) throws BatchContainerServiceException {
-        // no-op
+        admissionController = AdmissionController.newInstance(executorService, new AdmissionController.SubmissionFailureHandler() {
+            @Override
+            public void onSubmissionFailure(final long executionId, final RuntimeException error) {
+                submissionFailed(executionId, error);
+            }
+        }, pgcConfig);
+        cluster = ClusterMembership.newInstance(this, persistenceService, servicesManager.service(JobStatusManagerService.class), pgcConfig);
+        if (cluster != null) {
+            cluster.start();
+        }
+    }
+
+    /**
+     * Stops claiming jobs from the cluster queue, no-op if the kernel is not a cluster node.
+     */
+    public void leaveCluster() {
+        if (cluster != null) {
+            cluster.leave();
+        }
     }
 
     @Override
     public InternalJobExecution startJob(final String jobXML, final Properties jobParameters) throws JobStartException {
-        final RuntimeJobExecution jobExecution = JobExecutionHelper.startJob(servicesManager, jobXML, jobParameters);
+        final String invalidParameters = checkQueueParameters(jobParameters);
+        if (invalidParameters != null) { // before creating the execution to not leave it STARTING
+            throw new JobStartException(invalidParameters);
+        }
+
+        if (cluster != null) { // any node can run it
+            final RuntimeJobExecution jobExecution = JobExecutionHelper.startJob(servicesManager, jobXML, jobParameters);
+            cluster.enqueue(jobExecution.getExecutionId(), jobParameters);
+            return jobExecution.getJobOperatorJobExecution();
+        }
 
-        // TODO - register with status manager
+        if (admissionController != null && !admissionController.reserve()) {
+            throw new JobStartException("Admission queue is full, can't start a new job");
+        }
 
-        final BatchWorkUnit batchWork = new BatchWorkUnit(servicesManager, jobExecution);
-        registerCurrentInstanceAndExecution(jobExecution, batchWork.getController());
+        final RuntimeJobExecution jobExecution;
+        final BatchWorkUnit batchWork;
+        try {
+            jobExecution = JobExecutionHelper.startJob(servicesManager, jobXML, jobParameters);
+
+            // TODO - register with status manager
 
-        executorService.executeTask(batchWork, null);
+            batchWork = new BatchWorkUnit(servicesManager, jobExecution);
+            registerCurrentInstanceAndExecution(jobExecution, batchWork.getController());
+        } catch (final RuntimeException re) {
+            if (admissionController != null) {
+                admissionController.cancelReservation();
+            }
+            throw re;
+        }
+
+        executeJob(jobExecution, batchWork, jobParameters);
 
         return jobExecution.getJobOperatorJobExecution();
     }
@@ -94,24 +147,125 @@ public class DefaultBatchKernel implements BatchKernelService {
 
         final ThreadRootController controller = this.executionId2jobControllerMap.get(executionId);
         if (controller == null) {
+            if (cluster != null && cluster.stop(executionId)) { // waiting in the cluster queue or running on another node
+                return;
+            }
             throw new JobExecutionNotRunningException("JobExecution with execution id of " + executionId + "is not running.");
         }
         controller.stop();
+
+        if (admissionController != null) { // not yet started so let it end as STOPPED without waiting for a slot
+            final Runnable waiting = admissionController.cancel(executionId);
+            if (waiting != null) {
+                executorService.executeTask(waiting, BatchThreadPoolService.WorkType.JOB);
+            }
+        }
     }
 
     @Override
     public InternalJobExecution restartJob(final long executionId, final Properties jobOverrideProps)
             throws JobRestartException, JobExecutionAlreadyCompleteException, JobExecutionNotMostRecentException, NoSuchJobExecutionException {
-        final RuntimeJobExecution jobExecution = JobExecutionHelper.restartJob(servicesManager, executionId, jobOverrideProps);
-        final BatchWorkUnit batchWork = new BatchWorkUnit(servicesManager, jobExecution);
+        final String invalidParameters = checkQueueParameters(jobOverrideProps);
+        if (invalidParameters != null) {
+            throw new JobRestartException(invalidParameters);
+        }
 
-        registerCurrentInstanceAndExecution(jobExecution, batchWork.getController());
+        if (cluster != null) {
+            final RuntimeJobExecution jobExecution = JobExecutionHelper.restartJob(servicesManager, executionId, jobOverrideProps);
+            cluster.enqueue(jobExecution.getExecutionId(), jobOverrideProps);
+            return jobExecution.getJobOperatorJobExecution();
+        }
+
+        if (admissionController != null && !admissionController.reserve()) {
+            throw new JobRestartException("Admission queue is full, can't restart execution " + executionId);
+        }
+
+        final RuntimeJobExecution jobExecution;
+        final BatchWorkUnit batchWork;
+        try {
+            jobExecution = JobExecutionHelper.restartJob(servicesManager, executionId, jobOverrideProps);
+            batchWork = new BatchWorkUnit(servicesManager, jobExecution);
 
-        executorService.executeTask(batchWork, null);
+            registerCurrentInstanceAndExecution(jobExecution, batchWork.getController());
+        } catch (final RuntimeException re) {
+            if (admissionController != null) {
+                admissionController.cancelReservation();
+            }
+            throw re;
+        }
+
+        executeJob(jobExecution, batchWork, jobOverrideProps);
 
         return jobExecution.getJobOperatorJobExecution();
     }
 
+    /**
+     * Runs an execution enqueued by a cluster node (potentially another one) and claimed by this one.
+     *
+     * @return false if the local admission queue is full.
+     */
+    boolean startClaimedJob(final long executionId) {
+        if (admissionController != null && !admissionController.reserve()) {
+            return false;
+        }
+
+        final Properties jobParameters;
+        final RuntimeJobExecution jobExecution;
+        final BatchWorkUnit batchWork;
+        try {
+            jobParameters = persistenceService.getParameters(executionId);
+            jobExecution = JobExecutionHelper.startQueuedJob(servicesManager, executionId, jobParameters);
+            batchWork = new BatchWorkUnit(servicesManager, jobExecution);
+            registerCurrentInstanceAndExecution(jobExecution, batchWork.getController());
+        } catch (final RuntimeException re) {
+            if (admissionController != null) {
+                admissionController.cancelReservation();
+            }
+            throw re;
+        }
+
+        executeJob(jobExecution, batchWork, jobParameters);
+        return true;
+    }
+
+    // the priority is only read when the job is queued, after the execution creation
+    private String checkQueueParameters(final Properties jobParameters) {
+        if (cluster == null && admissionController == null) {
+            return null;
+        }
+        try {
+            AdmissionController.priority(jobParameters);
+            return null;
+        } catch (final IllegalArgumentException iae) {
+            return iae.getMessage();
+        }
+    }
+
+    private void executeJob(final RuntimeJobExecution jobExecution, final BatchWorkUnit batchWork, final Properties jobParameters) {
+        if (admissionController == null) {
+            executorService.executeTask(batchWork, BatchThreadPoolService.WorkType.JOB);
+        } else {
+            admissionController.submit(jobExecution.getExecutionId(), jobExecution.getJobInstance().getJobName(), jobParameters, batchWork);
+        }
+    }
+
+    // the job never ran so nothing else than the registration and the status to clean up
+    private void submissionFailed(final long executionId, final RuntimeException error) {
+        LOGGER.log(Level.SEVERE, "Can't submit execution " + executionId, error);
+        executionId2jobControllerMap.remove(executionId);
+        try {
+            final long instanceId = persistenceService.getJobInstanceIdByExecutionId(executionId);
+            instanceIdExecutingSet.remove(instanceId);
+            persistenceService.updateWithFinalExecutionStatusesAndTimestamps(executionId, BatchStatus.FAILED, BatchStatus.FAILED.name(),
+                new Timestamp(System.currentTimeMillis()));
+            servicesManager.service(JobStatusManagerService.class).updateJobExecutionStatus(instanceId, BatchStatus.FAILED, BatchStatus.FAILED.name());
+        } finally {
+            if (cluster != null) {
+                cluster.done(executionId);
+            }
+        }
+    }
+
     @Override
     public void jobExecutionDone(final RuntimeJobExecution jobExecution) {
         // Remove from executionId, instanceId map,set after job is done
@@ -128,6 +282,13 @@ public class DefaultBatchKernel implements BatchKernelService {
 
         jobExecutionCallback.onJobExecutionDone(jobExecution);
 
+        if (admissionController != null) {
+            admissionController.release(jobExecution.getExecutionId());
+        }
+        if (cluster != null) {
+            cluster.done(jobExecution.getExecutionId());
+        }
+
         // AJM: ah - purge jobExecution from map here and flush to DB?
         // edit: no long want a 2 tier for the jobexecution...do want it for step execution
         // renamed method to flushAndRemoveStepExecution
@@ -140,7 +301,7 @@ public class DefaultBatchKernel implements BatchKernelService {
 
     @Override
     public void startGeneratedJob(final BatchWorkUnit batchWork) {
-        executorService.executeTask(batchWork, null);
+        executorService.executeTask(batchWork, workType(batchWork));
     }
 
     @Override
@@ -229,7 +390,18 @@ public class DefaultBatchKernel implements BatchKernelService {
 
     @Override
     public void restartGeneratedJob(final BatchWorkUnit batchWork) throws JobRestartException {
-        executorService.executeTask(batchWork, null);
+        executorService.executeTask(batchWork, workType(batchWork));
+    }
+
+    // generated jobs wait for nothing but their parent waits for them so they can get their own threads
+    private static BatchThreadPoolService.WorkType workType(final BatchWorkUnit batchWork) {
+        if (BatchPartitionWorkUnit.class.isInstance(batchWork)) {
+            return BatchThreadPoolService.WorkType.PARTITION;
+        }
+        if (BatchFlowInSplitWorkUnit.class.isInstance(batchWork)) {
+            return BatchThreadPoolService.WorkType.SPLIT;
+        }
+        return BatchThreadPoolService.WorkType.JOB;
     }
 
     @Override
@@ -301,7 +473,38 @@ public class DefaultBatchKernel implements BatchKernelService {
 
     @Override
     public boolean isExecutionRunning(final long executionId) {
-        return executionId2jobControllerMap.containsKey(executionId);
+        return executionId2jobControllerMap.containsKey(executionId) || (cluster != null && cluster.isQueuedOrRunning(executionId));
+    }
+
+    @Override
+    public int getQueuePosition(final long executionId) {
+        if (admissionController == null) {
+            return -1;
+        }
+        return admissionController.getQueuePosition(executionId);
+    }
+
+    @Override
+    public Map<String, Long> getAdmissionMetrics() {
+        if (admissionController == null) {
+            return Collections.emptyMap();
+        }
+        return admissionController.getMetrics();
+    }
+
+    /**
+     * @return the number of jobs executing in this JVM by job name, partitions and split flows are not counted.
+     */
+    public Map<String, Integer> getRunningJobs() {
+        final Map<String, Integer> jobs = new TreeMap<String, Integer>();
+        for (final ThreadRootController controller : executionId2jobControllerMap.values()) {
+            if (JobController.class.isInstance(controller)) {
+                final String name = JobController.class.cast(controller).getJobName();
+                final Integer count = jobs.get(name);
+                jobs.put(name, count == null ? 1 : count + 1);
+            }
+        }
+        return jobs;
     }
 
     @Override
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.metrics;
+
+import org.apache.batchee.container.impl.StepContextImpl;
+import org.apache.batchee.container.impl.controller.RunningStepMetrics;
+import org.apache.batchee.container.impl.controller.chunk.ChunkStepLatencies;
+import org.apache.batchee.spi.BatchService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In memory metrics of the steps run by the services of a {@link org.apache.batchee.container.services.ServicesManager}.
+ *
+ * Running steps are tracked until they end, chunk step latencies are kept while any partition of their step runs then until {@link ChunkStepLatencies#RETAINED}
+ * newer steps ended.
+ */
+public class StepMetricsRegistry implements BatchService {
+    private final ConcurrentMap<StepContextImpl, RunningStepMetrics> runningSteps = new ConcurrentHashMap<StepContextImpl, RunningStepMetrics>();
+    private int retained;
+
+    // guarded by this
+    private final Map<String, ChunkStepLatencies> chunkSteps = new HashMap<String, ChunkStepLatencies>();
+    private final Map<String, Integer> runningChunkSteps = new HashMap<String, Integer>(); // partitions running the step
+    private final LinkedList<String> endedChunkSteps = new LinkedList<String>();
+
+    @Override
+    public void init(final Properties batchConfig) {
+        retained = Integer.parseInt(batchConfig.getProperty(ChunkStepLatencies.RETAINED, "100"));
+    }
+
+    public RunningStepMetrics stepStarted(final long rootExecutionId, final StepContextImpl stepContext) {
+        final RunningStepMetrics metrics = new RunningStepMetrics(rootExecutionId, stepContext);
+        runningSteps.put(stepContext, metrics);
+        return metrics;
+    }
+
+    public void stepEnded(final StepContextImpl stepContext) {
+        runningSteps.remove(stepContext);
+    }
+
+    /**
+     * @return the metrics of the steps of this execution currently running, keys are prefixed by the step name.
+     * Rates are in items per second.
+     */
+    public Map<String, Long> getRunningStepMetrics(final long rootExecutionId) {
+        final Map<String, Long> metrics = new TreeMap<String, Long>();
+        for (final RunningStepMetrics step : runningSteps.values()) {
+            if (step.getRootExecutionId() != rootExecutionId) {
+                continue;
+            }
+
+            final String prefix = step.getStepName() + ".";
+            for (final Map.Entry<String, Long> metric : step.toMap().entrySet()) {
+                final String key = prefix + metric.getKey();
+                final Long existing = metrics.get(key);
+                if (existing == null || "durationMs".equals(metric.getKey())) { // partitions are summed but not their duration
+                    metrics.put(key, existing == null ? metric.getValue() : Math.max(existing, metric.getValue()));
+                } else {
+                    metrics.put(key, existing + metric.getValue());
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the root execution ids having at least a step running with these services.
+     */
+    public Set<Long> getRunningExecutions() {
+        final Set<Long> executions = new TreeSet<Long>();
+        for (final RunningStepMetrics step : runningSteps.values()) {
+            executions.add(step.getRootExecutionId());
+        }
+        return executions;
+    }
+
+    /**
+     * @return the latencies of the step, shared with the other partitions of the step already running.
+     */
+    public synchronized ChunkStepLatencies chunkStepStarted(final long rootExecutionId, final String stepName) {
+        final String key = key(rootExecutionId, stepName);
+        ChunkStepLatencies latencies = chunkSteps.get(key);
+        if (latencies == null) {
+            latencies = new ChunkStepLatencies(rootExecutionId, stepName);
+            chunkSteps.put(key, latencies);
+        } else {
+            endedChunkSteps.remove(key);
+        }
+
+        final Integer running = runningChunkSteps.get(key);
+        runningChunkSteps.put(key, running == null ? 1 : running + 1);
+        return latencies;
+    }
+
+    public synchronized void chunkStepEnded(final ChunkStepLatencies latencies) {
+        final String key = key(latencies.getRootExecutionId(), latencies.getStepName());
+        final Integer running = runningChunkSteps.get(key);
+        if (running == null) {
+            return;
+        }
+        if (running > 1) { // other partitions still running
+            runningChunkSteps.put(key, running - 1);
+            return;
+        }
+
+        runningChunkSteps.remove(key);
+        endedChunkSteps.add(key);
+        while (endedChunkSteps.size() > retained) {
+            chunkSteps.remove(endedChunkSteps.removeFirst());
+        }
+    }
+
+    /**
+     * @return the latencies of a step of an execution or null if the step didn't run with these services or was evicted.
+     */
+    public synchronized ChunkStepLatencies getChunkLatencies(final long rootExecutionId, final String stepName) {
+        return chunkSteps.get(key(rootExecutionId, stepName));
+    }
+
+    /**
+     * @return the latency summaries of the chunk steps of an execution, keys are prefixed by the step name.
+     */
+    public Map<String, Long> getChunkLatencies(final long rootExecutionId) {
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        for (final ChunkStepLatencies step : getChunkLatencies()) {
+            if (step.getRootExecutionId() == rootExecutionId) {
+                for (final Map.Entry<String, Long> metric : step.toMap().entrySet()) {
+                    metrics.put(step.getStepName() + "." + metric.getKey(), metric.getValue());
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the latencies of all the steps still retained, running or not.
+     */
+    public synchronized Collection<ChunkStepLatencies> getChunkLatencies() {
+        return new ArrayList<ChunkStepLatencies>(chunkSteps.values());
+    }
+
+    private static String key(final long rootExecutionId, final String stepName) {
+        return rootExecutionId + ":" + stepName;
+    }
+}
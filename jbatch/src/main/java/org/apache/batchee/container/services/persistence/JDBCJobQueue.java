@@ -0,0 +1,442 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.persistence;
+
+import org.apache.batchee.container.exception.BatchContainerServiceException;
+import org.apache.batchee.container.exception.PersistenceException;
+import org.apache.batchee.container.services.persistence.jdbc.database.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Job queue shared by all the nodes of a cluster through the JDBC persistence store.
+ *
+ * A started (or restarted) execution is enqueued by the node receiving the request and claimed by any node polling the queue.
+ * A claim is a conditional update (only the first node setting the owner of a free row wins) so it works on any database,
+ * the optional lock clause (<code>for update skip locked</code> on PostgreSQL, MySQL 8 or Oracle) avoids waiting on rows
+ * other nodes are claiming. Nodes publish a heartbeat, the rows of a node whose heartbeat stopped changing are handed back to
+ * the survivors to fail the execution so it can be restarted. Heartbeats are only compared with the previous value of the same
+ * node (see {@link #findNodes()}) so the clocks of the nodes don't need to be synchronized.
+ */
+public class JDBCJobQueue {
+    public static final String QUEUE_TABLE = "BATCH_JOBQUEUE";
+    public static final String NODE_TABLE = "BATCH_CLUSTERNODE";
+
+    private final JDBCPersistenceManagerService persistence;
+    private final String lockClause;
+
+    private final String insert;
+    private final String selectFree;
+    private final String claim;
+    private final String unclaim;
+    private final String delete;
+    private final String deleteFree;
+    private final String requestStop;
+    private final String selectStopRequests;
+    private final String selectOwned;
+    private final String clearStopRequest;
+    private final String exists;
+    private final String updateHeartbeat;
+    private final String insertNode;
+    private final String deleteNode;
+    private final String deleteDeadNode;
+    private final String selectNodes;
+    private final String selectOrphans;
+    private final String deleteOrphan;
+
+    public JDBCJobQueue(final JDBCPersistenceManagerService persistence, final Properties config) {
+        this.persistence = persistence;
+
+        final String lock = config.getProperty("cluster.lock-clause", "").trim();
+        this.lockClause = lock.isEmpty() ? "" : " " + lock;
+
+        final Database database = persistence.getDatabase();
+        final String queue = config.getProperty("persistence.database.tables.job-queue", QUEUE_TABLE);
+        final String nodes = config.getProperty("persistence.database.tables.cluster-node", NODE_TABLE);
+        final String id = database.columnName("executionId");
+        final String priority = database.columnName("priority");
+        final String owner = database.columnName("node");
+        final String stop = database.columnName("stopRequested");
+        final String enqueued = database.columnName("enqueueTime");
+        final String name = database.columnName("name");
+        final String heartbeat = database.columnName("heartbeat");
+
+        insert = "insert into " + queue + "(" + id + ", " + priority + ", " + stop + ", " + enqueued + ") values (?, ?, 0, ?)";
+        selectFree = "select " + id + " from " + queue + " where " + owner + " is null order by " + priority + " desc, " + id;
+        claim = "update " + queue + " set " + owner + " = ? where " + id + " = ? and " + owner + " is null";
+        unclaim = "update " + queue + " set " + owner + " = null where " + id + " = ? and " + owner + " = ?";
+        delete = "delete from " + queue + " where " + id + " = ?";
+        deleteFree = delete + " and " + owner + " is null";
+        requestStop = "update " + queue + " set " + stop + " = 1 where " + id + " = ?";
+        selectStopRequests = "select " + id + " from " + queue + " where " + owner + " = ? and " + stop + " = 1";
+        selectOwned = "select " + id + " from " + queue + " where " + owner + " = ?";
+        clearStopRequest = "update " + queue + " set " + stop + " = 0 where " + id + " = ?";
+        exists = "select " + id + " from " + queue + " where " + id + " = ?";
+        updateHeartbeat = "update " + nodes + " set " + heartbeat + " = ? where " + name + " = ?";
+        insertNode = "insert into " + nodes + "(" + name + ", " + heartbeat + ") values (?, ?)";
+        deleteNode = "delete from " + nodes + " where " + name + " = ?";
+        deleteDeadNode = deleteNode + " and " + heartbeat + " = ?";
+        selectNodes = "select " + name + ", " + heartbeat + " from " + nodes;
+        selectOrphans = "select " + id + ", " + owner + " from " + queue + " where " + owner + " is not null and " + owner + " not in (select " + name + " from " + nodes + ")";
+        deleteOrphan = delete + " and " + owner + " = ?";
+
+        if ("create".equalsIgnoreCase(config.getProperty("persistence.database.ddl", "create"))) {
+            try {
+                persistence.createIfNotExists(queue, "create table " + queue + "("
+                    + id + " " + database.bigint() + " not null, "
+                    + priority + " " + database.integer() + ", "
+                    + owner + " " + database.varchar255() + ", "
+                    + stop + " " + database.integer() + ", "
+                    + enqueued + " " + database.timestamp() + ", "
+                    + "primary key (" + id + "))");
+                persistence.createIfNotExists(nodes, "create table " + nodes + "("
+                    + name + " " + database.varchar255() + " not null, "
+                    + heartbeat + " " + database.timestamp() + ", "
+                    + "primary key (" + name + "))");
+            } catch (final SQLException e) {
+                throw new BatchContainerServiceException(e);
+            }
+        }
+    }
+
+    public void enqueue(final long executionId, final int priority) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(insert);
+            statement.setLong(1, executionId);
+            statement.setInt(2, priority);
+            statement.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            statement.executeUpdate();
+            commit(conn);
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, null, statement);
+        }
+    }
+
+    /**
+     * @return the executions now owned by this node, highest priority first.
+     */
+    public List<Long> claim(final String node, final int max) {
+        final List<Long> claimed = new ArrayList<Long>();
+        if (max <= 0) {
+            return claimed;
+        }
+
+        Connection conn = null;
+        PreparedStatement select = null;
+        PreparedStatement update = null;
+        ResultSet rs = null;
+        try {
+            conn = persistence.getConnection();
+            conn.setAutoCommit(false);
+            select = conn.prepareStatement(selectFree + lockClause);
+            select.setMaxRows(max);
+            rs = select.executeQuery();
+            final List<Long> candidates = new ArrayList<Long>();
+            while (rs.next()) {
+                candidates.add(rs.getLong(1));
+            }
+
+            update = conn.prepareStatement(claim);
+            for (final Long id : candidates) {
+                update.setString(1, node);
+                update.setLong(2, id);
+                if (update.executeUpdate() == 1) { // else another node was faster
+                    claimed.add(id);
+                }
+            }
+            conn.commit();
+            return claimed;
+        } catch (final SQLException e) {
+            rollback(conn);
+            throw new PersistenceException(e);
+        } finally {
+            if (update != null) {
+                try {
+                    update.close();
+                } catch (final SQLException e) {
+                    // no-op
+                }
+            }
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true); // pooled connections are shared
+                } catch (final SQLException e) {
+                    // no-op
+                }
+            }
+            persistence.cleanupConnection(conn, rs, select);
+        }
+    }
+
+    /**
+     * Puts back in the queue an execution this node claimed but can't run.
+     */
+    public void unclaim(final String node, final long executionId) {
+        update(unclaim, executionId, node);
+    }
+
+    public void remove(final long executionId) {
+        update(delete, executionId, null);
+    }
+
+    /**
+     * @return true if the execution was still waiting and is no more in the queue.
+     */
+    public boolean removeIfNotClaimed(final long executionId) {
+        return update(deleteFree, executionId, null) == 1;
+    }
+
+    /**
+     * Flags a claimed execution so its owner stops it.
+     *
+     * @return false if the execution is not in the queue.
+     */
+    public boolean requestStop(final long executionId) {
+        return update(requestStop, executionId, null) == 1;
+    }
+
+    public void clearStopRequest(final long executionId) {
+        update(clearStopRequest, executionId, null);
+    }
+
+    public List<Long> findStopRequests(final String node) {
+        return select(selectStopRequests, node);
+    }
+
+    /**
+     * @return the executions currently claimed by the node, an execution of a node considered as dead is no more there.
+     */
+    public List<Long> findOwned(final String node) {
+        return select(selectOwned, node);
+    }
+
+    private List<Long> select(final String sql, final String node) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(sql);
+            statement.setString(1, node);
+            rs = statement.executeQuery();
+            final List<Long> ids = new ArrayList<Long>();
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+            return ids;
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, rs, statement);
+        }
+    }
+
+    /**
+     * @return true while the execution waits in the queue or runs on a node.
+     */
+    public boolean contains(final long executionId) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(exists);
+            statement.setLong(1, executionId);
+            rs = statement.executeQuery();
+            return rs.next();
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, rs, statement);
+        }
+    }
+
+    /**
+     * Registers the node if needed (first call or after being considered as dead) and refreshes its heartbeat.
+     */
+    public void heartbeat(final String node) {
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        Connection conn = null;
+        PreparedStatement statement = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(updateHeartbeat);
+            statement.setTimestamp(1, now);
+            statement.setString(2, node);
+            if (statement.executeUpdate() == 0) {
+                statement.close();
+                statement = conn.prepareStatement(insertNode);
+                statement.setString(1, node);
+                statement.setTimestamp(2, now);
+                statement.executeUpdate();
+            }
+            commit(conn);
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, null, statement);
+        }
+    }
+
+    /**
+     * Unregisters the node, executions it still owns become orphans handled by {@link #recoverOrphans()}.
+     */
+    public void removeNode(final String node) {
+        removeNode(deleteNode, node, null);
+    }
+
+    /**
+     * Unregisters a node considered as dead unless it published a new heartbeat meanwhile.
+     *
+     * @param heartbeat the last heartbeat read by {@link #findNodes()}.
+     */
+    public void removeDeadNode(final String node, final Timestamp heartbeat) {
+        removeNode(deleteDeadNode, node, heartbeat);
+    }
+
+    /**
+     * @return the heartbeat of each registered node, written with the clock of the node itself.
+     */
+    public Map<String, Timestamp> findNodes() {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(selectNodes);
+            rs = statement.executeQuery();
+            final Map<String, Timestamp> heartbeats = new HashMap<String, Timestamp>();
+            while (rs.next()) {
+                heartbeats.put(rs.getString(1), rs.getTimestamp(2));
+            }
+            return heartbeats;
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, rs, statement);
+        }
+    }
+
+    /**
+     * Removes the executions owned by unregistered nodes. Each orphan is removed by a single node so the caller is the only one to recover it.
+     *
+     * @return the executions the caller has to recover.
+     */
+    public List<Long> recoverOrphans() {
+        final List<Long> recovered = new ArrayList<Long>();
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(selectOrphans);
+            rs = statement.executeQuery();
+            final List<Object[]> orphans = new ArrayList<Object[]>();
+            while (rs.next()) {
+                orphans.add(new Object[] { rs.getLong(1), rs.getString(2) });
+            }
+            rs.close();
+            rs = null;
+            statement.close();
+
+            statement = conn.prepareStatement(deleteOrphan);
+            for (final Object[] orphan : orphans) {
+                statement.setLong(1, Long.class.cast(orphan[0]));
+                statement.setString(2, String.class.cast(orphan[1]));
+                if (statement.executeUpdate() == 1) {
+                    recovered.add(Long.class.cast(orphan[0]));
+                }
+            }
+            commit(conn);
+            return recovered;
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, rs, statement);
+        }
+    }
+
+    private void removeNode(final String sql, final String node, final Timestamp heartbeat) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(sql);
+            statement.setString(1, node);
+            if (heartbeat != null) {
+                statement.setTimestamp(2, heartbeat);
+            }
+            statement.executeUpdate();
+            commit(conn);
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, null, statement);
+        }
+    }
+
+    private int update(final String sql, final long executionId, final String node) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        try {
+            conn = persistence.getConnection();
+            statement = conn.prepareStatement(sql);
+            statement.setLong(1, executionId);
+            if (node != null) {
+                statement.setString(2, node);
+            }
+            final int updated = statement.executeUpdate();
+            commit(conn);
+            return updated;
+        } catch (final SQLException e) {
+            throw new PersistenceException(e);
+        } finally {
+            persistence.cleanupConnection(conn, null, statement);
+        }
+    }
+
+    private static void commit(final Connection conn) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+    }
+
+    private static void rollback(final Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.rollback();
+        } catch (final SQLException e) {
+            // no-op
+        }
+    }
+}
@@ -89,6 +89,7 @@ public class JDBCPersistenceManagerService implements PersistenceManagerService
     }
 
     private Dictionary dictionary;
+    private Database database;
 
     protected DataSource dataSource = null;
     protected String jndiName = null;
@@ -149,7 +150,7 @@ public class JDBCPersistenceManagerService implements PersistenceManagerService
         }
 
         try {
-            final Database database = Database.class.cast(Thread.currentThread().getContextClassLoader().loadClass(type).newInstance());
+            database = Database.class.cast(Thread.currentThread().getContextClassLoader().loadClass(type).newInstance());
             dictionary = new Dictionary(
                 batchConfig.getProperty("persistence.database.tables.checkpoint", CheckpointEntity.TABLE_NAME),
                 batchConfig.getProperty("persistence.database.tables.job-instance", JobInstanceEntity.TABLE_NAME),
@@ -227,6 +228,10 @@ public class JDBCPersistenceManagerService implements PersistenceManagerService
         createIfNotExists(dictionary.getStepExecutionTable(), dictionary.getCreateStepExecutionTable());
     }
 
+    Database getDatabase() {
+        return database;
+    }
+
     protected Connection getConnection() throws SQLException {
         final Connection connection;
         if (dataSource != null) {
@@ -244,7 +249,7 @@ public class JDBCPersistenceManagerService implements PersistenceManagerService
         return connection;
     }
 
-    private void createIfNotExists(final String tableName, final String createTableStatement) throws SQLException {
+    void createIfNotExists(final String tableName, final String createTableStatement) throws SQLException {
         final Connection conn = getConnection();
         final DatabaseMetaData dbmd = conn.getMetaData();
         final ResultSet rs = dbmd.getTables(null, schema, tableName, null);
@@ -404,7 +409,7 @@ public class JDBCPersistenceManagerService implements PersistenceManagerService
      * @param rs        - result set object to close
      * @param statement - statement object to close
      */
-    private void cleanupConnection(final Connection conn, final ResultSet rs, final PreparedStatement statement) {
+    void cleanupConnection(final Connection conn, final ResultSet rs, final PreparedStatement statement) {
         if (statement != null) {
             try {
                 statement.close();
@@ -1239,7 +1244,7 @@ public class JDBCPersistenceManagerService implements PersistenceManagerService
                 writeSkipCount = metric.getValue();
             }
         }
-        final Serializable persistentData = stepContext.getPersistentUserData();
+        final Serializable persistentData = stepContext.getPersistentStepData();
 
         return createStepExecution(rootJobExecId, batchStatus, exitStatus, stepName, readCount,
             writeCount, commitCount, rollbackCount, readSkipCount, processSkipCount, filterCount, writeSkipCount, startTime,
@@ -1336,7 +1341,7 @@ public class JDBCPersistenceManagerService implements PersistenceManagerService
                 writeSkipCount = metric.getValue();
             }
         }
-        final Serializable persistentData = stepContext.getPersistentUserData();
+        final Serializable persistentData = stepContext.getPersistentStepData();
 
         updateStepExecution(stepExecutionId, rootJobExecId, batchStatus, exitStatus, stepName, readCount,
             writeCount, commitCount, rollbackCount, readSkipCount, processSkipCount, filterCount,
@@ -319,7 +319,7 @@ public class JPAPersistenceManagerService implements PersistenceManagerService {
         entity.setStartTime(stepContext.getStartTimeTS());
         entity.setEndTime(stepContext.getEndTimeTS());
         try {
-            entity.setPersistentData(serialize(stepContext.getPersistentUserData()));
+            entity.setPersistentData(serialize(stepContext.getPersistentStepData()));
         } catch (final IOException e) {
             throw new PersistenceException(e);
         }
@@ -400,7 +400,7 @@ public class MemoryPersistenceManagerService implements PersistenceManagerServic
                 writeSkipCount = metric.getValue();
             }
         }
-        final Serializable persistentData = stepContext.getPersistentUserData();
+        final Serializable persistentData = stepContext.getPersistentStepData();
 
         return createStepExecution(rootJobExecId, batchStatus, exitStatus, stepName, readCount,
             writeCount, commitCount, rollbackCount, readSkipCount, processSkipCount, filterCount, writeSkipCount, startTime,
@@ -502,7 +502,7 @@ public class MemoryPersistenceManagerService implements PersistenceManagerServic
                 writeSkipCount = metric.getValue();
             }
         }
-        final Serializable persistentData = stepContext.getPersistentUserData();
+        final Serializable persistentData = stepContext.getPersistentStepData();
 
         updateStepExecution(stepExecutionId, jobExecId, batchStatus, exitStatus, stepName, readCount,
             writeCount, commitCount, rollbackCount, readSkipCount, processSkipCount, filterCount,
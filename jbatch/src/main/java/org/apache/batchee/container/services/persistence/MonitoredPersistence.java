@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.persistence;
+
+import org.apache.batchee.container.impl.controller.chunk.CheckpointData;
+import org.apache.batchee.container.status.StepStatus;
+import org.apache.batchee.spi.PersistenceManagerService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+
+/**
+ * Decorates any {@link PersistenceManagerService} (custom ones included) to record {@link PersistenceStatistics}
+ * when {@link #ACTIVE} is true. The decorator keeps all the public interfaces of the decorated service,
+ * use {@link #unwrap(PersistenceManagerService)} to get the implementation itself.
+ */
+public final class MonitoredPersistence {
+    public static final String ACTIVE = "persistence.statistics";
+
+    private MonitoredPersistence() {
+        // no-op
+    }
+
+    public static PersistenceManagerService decorate(final PersistenceManagerService service, final Properties config) {
+        if (!Boolean.parseBoolean(config.getProperty(ACTIVE, "false")) || handler(service) != null) {
+            return service;
+        }
+
+        final Collection<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        Class<?> type = service.getClass();
+        while (type != null) {
+            for (final Class<?> api : type.getInterfaces()) {
+                if (Modifier.isPublic(api.getModifiers())) {
+                    interfaces.add(api);
+                }
+            }
+            type = type.getSuperclass();
+        }
+        interfaces.add(PersistenceManagerService.class);
+
+        ClassLoader loader = service.getClass().getClassLoader();
+        if (loader == null) {
+            loader = PersistenceManagerService.class.getClassLoader();
+        }
+        return PersistenceManagerService.class.cast(Proxy.newProxyInstance(loader, interfaces.toArray(new Class<?>[interfaces.size()]),
+            new StatisticsHandler(service)));
+    }
+
+    /**
+     * @return the decorated service or the service itself if it is not decorated.
+     */
+    public static PersistenceManagerService unwrap(final PersistenceManagerService service) {
+        final StatisticsHandler handler = handler(service);
+        return handler == null ? service : handler.delegate;
+    }
+
+    /**
+     * @return the statistics of the service or null if it is not decorated.
+     */
+    public static PersistenceStatistics statistics(final PersistenceManagerService service) {
+        final StatisticsHandler handler = handler(service);
+        return handler == null ? null : handler.statistics;
+    }
+
+    private static StatisticsHandler handler(final Object service) {
+        if (service != null && Proxy.isProxyClass(service.getClass())) {
+            final InvocationHandler handler = Proxy.getInvocationHandler(service);
+            if (StatisticsHandler.class.isInstance(handler)) {
+                return StatisticsHandler.class.cast(handler);
+            }
+        }
+        return null;
+    }
+
+    private static class StatisticsHandler implements InvocationHandler {
+        private final PersistenceManagerService delegate;
+        private final PersistenceStatistics statistics = new PersistenceStatistics();
+
+        private StatisticsHandler(final PersistenceManagerService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (Object.class.equals(method.getDeclaringClass())) {
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+                return "Monitored[" + delegate + "]";
+            }
+
+            final long start = System.nanoTime();
+            boolean failed = true;
+            Object result = null;
+            try {
+                result = method.invoke(delegate, args);
+                failed = false;
+                return result;
+            } catch (final InvocationTargetException ite) {
+                throw ite.getCause();
+            } finally {
+                statistics.record(method.getName(), start, failed, payloadBytes(args) + payloadBytes(result));
+            }
+        }
+
+        private static long payloadBytes(final Object[] values) {
+            if (values == null) {
+                return 0;
+            }
+
+            long bytes = 0;
+            for (final Object value : values) {
+                bytes += payloadBytes(value);
+            }
+            return bytes;
+        }
+
+        // checkpoints and step user data are the only sizeable values going through the persistence
+        private static long payloadBytes(final Object value) {
+            if (CheckpointData.class.isInstance(value)) {
+                final byte[] token = CheckpointData.class.cast(value).getRestartToken();
+                return token == null ? 0 : token.length;
+            }
+            if (StepStatus.class.isInstance(value)) {
+                final byte[] data = StepStatus.class.cast(value).getRawPersistentUserData();
+                return data == null ? 0 : data.length;
+            }
+            if (byte[].class.isInstance(value)) {
+                return byte[].class.cast(value).length;
+            }
+            return 0;
+        }
+    }
+}
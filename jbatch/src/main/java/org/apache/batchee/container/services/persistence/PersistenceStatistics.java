@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.persistence;
+
+import org.apache.batchee.container.impl.controller.chunk.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calls, failures, latencies and payload sizes of the {@link org.apache.batchee.spi.PersistenceManagerService} methods,
+ * overloads are merged under the method name.
+ *
+ * Divided by the commit count of a chunk step it gives the persistence round trips of a chunk.
+ */
+public class PersistenceStatistics {
+    private final ConcurrentMap<String, MethodStatistics> methods = new ConcurrentHashMap<String, MethodStatistics>();
+
+    void record(final String method, final long start, final boolean failed, final long payloadBytes) {
+        final long duration = System.nanoTime() - start;
+
+        MethodStatistics statistics = methods.get(method);
+        if (statistics == null) {
+            statistics = new MethodStatistics();
+            final MethodStatistics existing = methods.putIfAbsent(method, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+
+        statistics.latency.record(duration);
+        if (failed) {
+            statistics.failed.incrementAndGet();
+        }
+        if (payloadBytes > 0) {
+            statistics.payloadBytes.addAndGet(payloadBytes);
+        }
+    }
+
+    /**
+     * @return the statistics of the methods called at least once sorted by method name.
+     */
+    public Map<String, MethodStatistics> getMethods() {
+        return new TreeMap<String, MethodStatistics>(methods);
+    }
+
+    /**
+     * @return the statistics of the called methods, keys are like {@code setCheckpointData.p99Us}.
+     */
+    public Map<String, Long> toMap() {
+        final Map<String, Long> metrics = new TreeMap<String, Long>();
+        for (final Map.Entry<String, MethodStatistics> method : methods.entrySet()) {
+            for (final Map.Entry<String, Long> metric : method.getValue().toMap().entrySet()) {
+                metrics.put(method.getKey() + "." + metric.getKey(), metric.getValue());
+            }
+        }
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistenceStatistics" + toMap();
+    }
+
+    public static class MethodStatistics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong payloadBytes = new AtomicLong();
+
+        public long getCallCount() {
+            return latency.getCount();
+        }
+
+        public long getFailedCount() {
+            return failed.get();
+        }
+
+        /**
+         * @return bytes of checkpoints and step persistent user data written or read.
+         */
+        public long getPayloadBytes() {
+            return payloadBytes.get();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public Map<String, Long> toMap() {
+            final Map<String, Long> metrics = new LinkedHashMap<String, Long>(latency.toMap());
+            metrics.put("failed", getFailedCount());
+            metrics.put("payloadBytes", getPayloadBytes());
+            return metrics;
+        }
+
+        @Override
+        public String toString() {
+            return "MethodStatistics" + toMap();
+        }
+    }
+}
@@ -17,7 +17,9 @@
 package org.apache.batchee.container.status;
 
 import org.apache.batchee.container.exception.BatchContainerRuntimeException;
+import org.apache.batchee.container.impl.PersistentStepData;
 import org.apache.batchee.container.impl.controller.chunk.PersistentDataWrapper;
+import org.apache.batchee.container.services.data.DataCompression;
 import org.apache.batchee.container.util.TCCLObjectInputStream;
 
 import javax.batch.runtime.BatchStatus;
@@ -101,8 +103,12 @@ public class StepStatus implements Serializable {
     }
 
     public Serializable getPersistentUserData() {
+        return getPersistentUserData(DataCompression.of(null));
+    }
+
+    public Serializable getPersistentUserData(final DataCompression compression) {
         if (this.persistentUserData != null) {
-            final byte[] persistentToken = this.persistentUserData.getPersistentDataBytes();
+            final byte[] persistentToken = compression.decompress(this.persistentUserData.getPersistentDataBytes());
             final ByteArrayInputStream persistentByteArrayInputStream = new ByteArrayInputStream(persistentToken);
             TCCLObjectInputStream persistentOIS;
             Serializable persistentObject;
@@ -112,7 +118,7 @@ public class StepStatus implements Serializable {
             } catch (final Exception e) {
                 throw new BatchContainerRuntimeException(e);
             }
-            return persistentObject;
+            return PersistentStepData.userData(persistentObject); // the step execution can have written its user metrics there
         }
         return null;
     }
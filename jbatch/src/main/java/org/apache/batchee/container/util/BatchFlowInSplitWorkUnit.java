@@ -17,13 +17,16 @@
 package org.apache.batchee.container.util;
 
 import org.apache.batchee.container.impl.controller.FlowInSplitThreadRootController;
+import org.apache.batchee.container.impl.controller.SplitController;
 import org.apache.batchee.container.impl.jobinstance.RuntimeFlowInSplitExecution;
 import org.apache.batchee.container.services.ServicesManager;
 
+import javax.batch.runtime.BatchStatus;
 import java.util.concurrent.BlockingQueue;
 
 public class BatchFlowInSplitWorkUnit extends BatchParallelWorkUnit {
     protected final BlockingQueue<BatchFlowInSplitWorkUnit> completedThreadQueue;
+    private SplitController failFastSplit;
 
     public BatchFlowInSplitWorkUnit(final RuntimeFlowInSplitExecution jobExecution,
                                     final FlowInSplitBuilderConfig config,
@@ -33,8 +36,22 @@ public class BatchFlowInSplitWorkUnit extends BatchParallelWorkUnit {
         this.controller = new FlowInSplitThreadRootController(jobExecution, config, manager);
     }
 
+    /**
+     * Marks the flow as cancelled, if it didn't get a thread yet it will end as STOPPED without running any step.
+     */
+    public void cancel() {
+        FlowInSplitThreadRootController.class.cast(controller).cancel();
+    }
+
+    public void setFailFastSplit(final SplitController failFastSplit) {
+        this.failFastSplit = failFastSplit;
+    }
+
     @Override
     protected void markThreadCompleted() {
+        if (failFastSplit != null && BatchStatus.FAILED.equals(getBatchStatus())) {
+            failFastSplit.flowFailed(this);
+        }
         if (this.completedThreadQueue != null) {
             completedThreadQueue.add(this);
         }
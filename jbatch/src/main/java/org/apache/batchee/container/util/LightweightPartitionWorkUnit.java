@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.util;
+
+import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
+import org.apache.batchee.container.services.LightweightPartitionServicesManager;
+import org.apache.batchee.spi.PersistenceManagerService;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A partition not registered in the kernel: its execution ids are only meaningful
+ * for its own {@link LightweightPartitionServicesManager} so the parent step controls it directly.
+ */
+public class LightweightPartitionWorkUnit extends BatchPartitionWorkUnit {
+    private final PersistenceManagerService persistenceManagerService;
+
+    public LightweightPartitionWorkUnit(final RuntimeJobExecution jobExecution,
+                                        final PartitionsBuilderConfig config,
+                                        final LightweightPartitionServicesManager manager) {
+        super(jobExecution, config, manager);
+        this.persistenceManagerService = manager.service(PersistenceManagerService.class);
+        setNotifyCallbackWhenDone(false);
+    }
+
+    /**
+     * Stops the partition, the kernel doesn't know it so the parent step calls it directly.
+     */
+    public void stop() {
+        getController().stop();
+    }
+
+    public PersistenceManagerService getPersistenceManagerService() {
+        return persistenceManagerService;
+    }
+
+    @Override
+    protected void markThreadCompleted() {
+        for (final Closeable closeable : jobExecutionImpl.getReleasables()) { // what the kernel does for registered executions
+            try {
+                closeable.close();
+            } catch (final IOException e) {
+                // no-op
+            }
+        }
+        super.markThreadCompleted();
+    }
+}
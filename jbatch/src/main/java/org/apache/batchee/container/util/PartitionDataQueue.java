@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.util;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue between the partitions and the analyzer thread: when bounded partitions wait in {@link #put(PartitionDataWrapper)}
+ * until the analyzer catches up. Once {@link #close()}d (the analyzer doesn't consume anymore) data are dropped
+ * to not block partitions forever.
+ */
+public class PartitionDataQueue extends LinkedBlockingQueue<PartitionDataWrapper> {
+    private static final long serialVersionUID = 1L;
+
+    private volatile boolean closed = false;
+    private final AtomicLong waits = new AtomicLong();
+
+    public PartitionDataQueue(final int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public void put(final PartitionDataWrapper data) throws InterruptedException {
+        if (offer(data)) {
+            return;
+        }
+
+        waits.incrementAndGet();
+        while (!closed) {
+            if (offer(data, 100, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    /**
+     * @return how many times a partition had to wait for the analyzer.
+     */
+    public long getWaitCount() {
+        return waits.get();
+    }
+}
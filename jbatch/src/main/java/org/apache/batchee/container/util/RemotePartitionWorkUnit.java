@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.util;
+
+import org.apache.batchee.container.impl.MetricImpl;
+import org.apache.batchee.container.impl.StepContextImpl;
+import org.apache.batchee.container.impl.jobinstance.RuntimeJobExecution;
+import org.apache.batchee.container.services.LightweightPartitionServicesManager;
+import org.apache.batchee.spi.PartitionTransport;
+
+import javax.batch.runtime.BatchStatus;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A lightweight partition executed by another JVM through a {@link PartitionTransport}.
+ * The response is recorded in the local partition persistence so the parent step handles it as a local partition.
+ */
+public class RemotePartitionWorkUnit extends LightweightPartitionWorkUnit {
+    private static final Logger LOGGER = Logger.getLogger(RemotePartitionWorkUnit.class.getName());
+
+    private final PartitionTransport transport;
+    private final PartitionTransport.PartitionRequest request;
+    private final BlockingQueue<PartitionDataWrapper> analyzerQueue;
+    private final String stepId;
+
+    // guarded by this, a stop is forwarded to the transport only while the request is executed
+    private boolean dispatched;
+    private boolean done;
+
+    public RemotePartitionWorkUnit(final RuntimeJobExecution jobExecution,
+                                   final PartitionsBuilderConfig config,
+                                   final LightweightPartitionServicesManager manager,
+                                   final PartitionTransport transport,
+                                   final PartitionTransport.PartitionRequest request,
+                                   final String stepId) {
+        super(jobExecution, config, manager);
+        this.transport = transport;
+        this.request = request;
+        this.analyzerQueue = config.getAnalyzerQueue();
+        this.stepId = stepId;
+    }
+
+    @Override
+    public void run() {
+        try {
+            synchronized (this) {
+                dispatched = !BatchStatus.STOPPING.equals(getBatchStatus());
+            }
+            if (!dispatched) { // stopped before being dispatched
+                complete(BatchStatus.STOPPED, BatchStatus.STOPPED.name(), null);
+                return;
+            }
+
+            PartitionTransport.PartitionResponse response;
+            try {
+                response = transport.execute(request, new PartitionTransport.PartitionCallback() {
+                    @Override
+                    public void onCollectorData(final Serializable data) {
+                        if (analyzerQueue != null) {
+                            final PartitionDataWrapper dataWrapper = new PartitionDataWrapper();
+                            dataWrapper.setCollectorData(data);
+                            dataWrapper.setEventType(PartitionDataWrapper.PartitionEventType.ANALYZE_COLLECTOR_DATA);
+                            send(dataWrapper);
+                        }
+                    }
+                });
+            } catch (final Exception e) {
+                LOGGER.log(Level.SEVERE, "Partition " + request.getPartition() + " failed remotely", e);
+                response = null;
+            }
+            synchronized (this) {
+                done = true;
+            }
+
+            if (response == null) { // the worker or the connection died, restart will execute it again
+                complete(BatchStatus.FAILED, BatchStatus.FAILED.name(), null);
+            } else {
+                complete(response.getBatchStatus(), response.getExitStatus(), response);
+            }
+        } finally {
+            markThreadCompleted();
+        }
+    }
+
+    /**
+     * Stops the partition locally if it is not yet dispatched or asks the transport to stop it
+     * if it supports it ({@link PartitionTransport.Stoppable}), otherwise the partition runs until its end.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        synchronized (this) {
+            if (!dispatched || done) {
+                return;
+            }
+        }
+        if (!PartitionTransport.Stoppable.class.isInstance(transport)) {
+            LOGGER.warning("Transport " + transport + " can't stop partition " + request.getPartition() + ", waiting for its end");
+            return;
+        }
+        try {
+            PartitionTransport.Stoppable.class.cast(transport).stop(request);
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARNING, "Can't stop partition " + request.getPartition() + " remotely", e);
+        }
+    }
+
+    private void complete(final BatchStatus status, final String exitStatus, final PartitionTransport.PartitionResponse response) {
+        jobExecutionImpl.getJobContext().setBatchStatus(status);
+        jobExecutionImpl.getJobContext().setExitStatus(exitStatus);
+
+        final StepContextImpl stepContext = new StepContextImpl(stepId);
+        stepContext.setBatchStatus(status);
+        stepContext.setExitStatus(exitStatus);
+        if (response != null) {
+            for (final Map.Entry<String, Long> metric : response.getMetrics().entrySet()) {
+                stepContext.addMetric(MetricImpl.MetricType.valueOf(metric.getKey()), metric.getValue());
+            }
+            stepContext.setStartTime(new Timestamp(response.getStartTime()));
+            stepContext.setEndTime(new Timestamp(response.getEndTime()));
+            if (response.getUserMetrics() != null) {
+                stepContext.getUserMetrics().mergeRaw(response.getUserMetrics());
+            }
+        }
+        getPersistenceManagerService().createStepExecution(jobExecutionImpl.getExecutionId(), stepContext);
+
+        if (analyzerQueue != null) {
+            final PartitionDataWrapper dataWrapper = new PartitionDataWrapper();
+            dataWrapper.setBatchStatus(status);
+            dataWrapper.setExitStatus(exitStatus);
+            dataWrapper.setEventType(PartitionDataWrapper.PartitionEventType.ANALYZE_STATUS);
+            send(dataWrapper);
+        }
+    }
+
+    // the step waits for the status of each partition so it can't be dropped when the thread is interrupted
+    private void send(final PartitionDataWrapper dataWrapper) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    analyzerQueue.put(dataWrapper);
+                    return;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -89,4 +89,54 @@ public class BatchEE implements BatchEEMBean {
     public void abandon(final long executionId) {
         delegate.abandon(executionId);
     }
+
+    @Override
+    public int getQueuePosition(final long executionId) {
+        return delegate.getQueuePosition(executionId);
+    }
+
+    @Override
+    public TabularData getAdmissionMetrics() {
+        return delegate.getAdmissionMetrics();
+    }
+
+    @Override
+    public TabularData getThreadPoolStatistics() {
+        return delegate.getThreadPoolStatistics();
+    }
+
+    @Override
+    public TabularData getCompressionStatistics() {
+        return delegate.getCompressionStatistics();
+    }
+
+    @Override
+    public TabularData getPersistenceStatistics() {
+        return delegate.getPersistenceStatistics();
+    }
+
+    @Override
+    public TabularData getPartitionConcurrency(final long executionId) {
+        return delegate.getPartitionConcurrency(executionId);
+    }
+
+    @Override
+    public TabularData getChunkLatencies(final long executionId) {
+        return delegate.getChunkLatencies(executionId);
+    }
+
+    @Override
+    public TabularData getSlowItems(final long executionId) {
+        return delegate.getSlowItems(executionId);
+    }
+
+    @Override
+    public TabularData getRunningStepMetrics(final long executionId) {
+        return delegate.getRunningStepMetrics(executionId);
+    }
+
+    @Override
+    public TabularData getUserMetrics(final long executionId) {
+        return delegate.getUserMetrics(executionId);
+    }
 }
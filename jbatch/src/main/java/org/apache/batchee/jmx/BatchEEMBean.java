@@ -34,4 +34,14 @@ public interface BatchEEMBean {
     long restart(long executionId, final String restartParameters);
     void stop(long executionId);
     void abandon(long executionId);
+    int getQueuePosition(long executionId);
+    TabularData getAdmissionMetrics();
+    TabularData getThreadPoolStatistics();
+    TabularData getCompressionStatistics();
+    TabularData getPersistenceStatistics();
+    TabularData getPartitionConcurrency(long executionId);
+    TabularData getChunkLatencies(long executionId);
+    TabularData getSlowItems(long executionId);
+    TabularData getRunningStepMetrics(long executionId);
+    TabularData getUserMetrics(long executionId);
 }
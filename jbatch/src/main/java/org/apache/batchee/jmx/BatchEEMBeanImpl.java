@@ -17,6 +17,20 @@
 package org.apache.batchee.jmx;
 
 import org.apache.batchee.container.impl.JobInstanceImpl;
+import org.apache.batchee.container.impl.UserMetrics;
+import org.apache.batchee.container.impl.controller.PartitionConcurrencyStatistics;
+import org.apache.batchee.container.impl.controller.chunk.ChunkStepLatencies;
+import org.apache.batchee.container.impl.controller.chunk.SlowItems;
+import org.apache.batchee.container.services.BatchKernelService;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
+import org.apache.batchee.container.services.data.DataCompression;
+import org.apache.batchee.container.services.executor.MonitoredThreadPoolService;
+import org.apache.batchee.container.services.persistence.MonitoredPersistence;
+import org.apache.batchee.container.services.persistence.PersistenceStatistics;
+import org.apache.batchee.spi.BatchThreadPoolService;
+import org.apache.batchee.spi.DataRepresentationService;
+import org.apache.batchee.spi.PersistenceManagerService;
 
 import javax.batch.operations.JobOperator;
 import javax.batch.operations.NoSuchJobException;
@@ -33,10 +47,13 @@ import javax.management.openmbean.SimpleType;
 import javax.management.openmbean.TabularData;
 import javax.management.openmbean.TabularDataSupport;
 import javax.management.openmbean.TabularType;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class BatchEEMBeanImpl implements BatchEEMBean {
     public static final BatchEEMBeanImpl INSTANCE = new BatchEEMBeanImpl();
@@ -51,6 +68,10 @@ public class BatchEEMBeanImpl implements BatchEEMBean {
     private static final TabularType PROPERTIES_TABULAR_TYPE;
     private static final CompositeType PROPERTIES_COMPOSITE_TYPE;
 
+    private static final String[] METRICS_ATTRIBUTES = { "name", "value" };
+    private static final TabularType METRICS_TABULAR_TYPE;
+    private static final CompositeType METRICS_COMPOSITE_TYPE;
+
     private static final String[] JOB_EXECUTION_ATTRIBUTES =
             { "executionId", "jobName", "Batch status", "Exit status", "Create time", "Last updated time", "Start time", "End time" };
 
@@ -63,6 +84,10 @@ public class BatchEEMBeanImpl implements BatchEEMBean {
     private static final TabularType STEP_EXECUTION_TABULAR_TYPE;
     private static final CompositeType STEP_EXECUTION_COMPOSITE_TYPE;
 
+    private static final String[] SLOW_ITEMS_ATTRIBUTES = { "step", "sequence", "phase", "chunk", "durationMs", "time", "item" };
+    private static final TabularType SLOW_ITEMS_TABULAR_TYPE;
+    private static final CompositeType SLOW_ITEMS_COMPOSITE_TYPE;
+
     static {
         try {
             JOB_INSTANCES_COMPOSITE_TYPE = new CompositeType("JobInstance", "Job Instance", JOB_INSTANCES_ATTRIBUTES, JOB_INSTANCES_ATTRIBUTES,
@@ -77,6 +102,12 @@ public class BatchEEMBeanImpl implements BatchEEMBean {
                 PROPERTIES_COMPOSITE_TYPE,
                 PROPERTIES_ATTRIBUTES);
 
+            METRICS_COMPOSITE_TYPE = new CompositeType("Metric", "Metric", METRICS_ATTRIBUTES, METRICS_ATTRIBUTES,
+                new OpenType<?>[] { SimpleType.STRING, SimpleType.LONG });
+            METRICS_TABULAR_TYPE = new TabularType("Metrics", "Metrics",
+                METRICS_COMPOSITE_TYPE,
+                METRICS_ATTRIBUTES);
+
             JOB_EXECUTION_COMPOSITE_TYPE = new CompositeType("JobExecution", "Job Execution", JOB_EXECUTION_ATTRIBUTES, JOB_EXECUTION_ATTRIBUTES,
                 new OpenType[] { SimpleType.LONG, SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.STRING,
                                  SimpleType.STRING, SimpleType.STRING, SimpleType.STRING });
@@ -89,6 +120,12 @@ public class BatchEEMBeanImpl implements BatchEEMBean {
             STEP_EXECUTION_TABULAR_TYPE = new TabularType("StepExecutions", "Step Executions",
                 STEP_EXECUTION_COMPOSITE_TYPE,
                 STEP_EXECUTION_ATTRIBUTES);
+
+            SLOW_ITEMS_COMPOSITE_TYPE = new CompositeType("SlowItem", "Slow Item", SLOW_ITEMS_ATTRIBUTES, SLOW_ITEMS_ATTRIBUTES,
+                new OpenType<?>[] { SimpleType.STRING, SimpleType.LONG, SimpleType.STRING, SimpleType.LONG, SimpleType.LONG, SimpleType.STRING, SimpleType.STRING });
+            SLOW_ITEMS_TABULAR_TYPE = new TabularType("SlowItems", "Slow Items",
+                SLOW_ITEMS_COMPOSITE_TYPE,
+                new String[] { "step", "sequence" });
         } catch (final OpenDataException e) {
             throw new IllegalArgumentException(e);
         }
@@ -141,6 +178,18 @@ public class BatchEEMBeanImpl implements BatchEEMBean {
         };
     }
 
+    private static TabularData toTabularData(final Map<String, Long> metrics) {
+        try {
+            final TabularDataSupport data = new TabularDataSupport(METRICS_TABULAR_TYPE);
+            for (final Map.Entry<String, Long> entry : metrics.entrySet()) {
+                data.put(new CompositeDataSupport(METRICS_COMPOSITE_TYPE, METRICS_ATTRIBUTES, new Object[] { entry.getKey(), entry.getValue() }));
+            }
+            return data;
+        } catch (final OpenDataException e) {
+            return null;
+        }
+    }
+
     private static long metric(final Metric[] metrics, final Metric.MetricType type) {
         for (final Metric m : metrics) {
             if (type.equals(m.getType())) {
@@ -226,6 +275,77 @@ public class BatchEEMBeanImpl implements BatchEEMBean {
         operator.abandon(executionId);
     }
 
+    @Override
+    public int getQueuePosition(final long executionId) {
+        return ServicesManager.find().service(BatchKernelService.class).getQueuePosition(executionId);
+    }
+
+    @Override
+    public TabularData getAdmissionMetrics() {
+        return toTabularData(ServicesManager.find().service(BatchKernelService.class).getAdmissionMetrics());
+    }
+
+    @Override
+    public TabularData getThreadPoolStatistics() {
+        final BatchThreadPoolService threadPoolService = ServicesManager.find().service(BatchThreadPoolService.class);
+        if (MonitoredThreadPoolService.class.isInstance(threadPoolService)) {
+            return toTabularData(MonitoredThreadPoolService.class.cast(threadPoolService).getStatistics().toMap());
+        }
+        return toTabularData(Collections.<String, Long>emptyMap());
+    }
+
+    @Override
+    public TabularData getCompressionStatistics() {
+        return toTabularData(DataCompression.of(ServicesManager.find().service(DataRepresentationService.class)).getStatistics());
+    }
+
+    @Override
+    public TabularData getPersistenceStatistics() {
+        final PersistenceStatistics statistics = MonitoredPersistence.statistics(ServicesManager.find().service(PersistenceManagerService.class));
+        return toTabularData(statistics == null ? Collections.<String, Long>emptyMap() : statistics.toMap());
+    }
+
+    @Override
+    public TabularData getPartitionConcurrency(final long executionId) {
+        return toTabularData(PartitionConcurrencyStatistics.forExecution(executionId));
+    }
+
+    @Override
+    public TabularData getChunkLatencies(final long executionId) {
+        return toTabularData(ServicesManager.find().service(StepMetricsRegistry.class).getChunkLatencies(executionId));
+    }
+
+    @Override
+    public TabularData getSlowItems(final long executionId) {
+        try {
+            final TabularDataSupport data = new TabularDataSupport(SLOW_ITEMS_TABULAR_TYPE);
+            for (final ChunkStepLatencies step : ServicesManager.find().service(StepMetricsRegistry.class).getChunkLatencies()) {
+                if (step.getRootExecutionId() != executionId || step.getSlowItems() == null) {
+                    continue;
+                }
+                for (final SlowItems.SlowItem item : step.getSlowItems().getItems()) {
+                    data.put(new CompositeDataSupport(SLOW_ITEMS_COMPOSITE_TYPE, SLOW_ITEMS_ATTRIBUTES, new Object[] {
+                        step.getStepName(), item.getSequence(), item.getPhase().name(), item.getChunk(),
+                        item.getDuration(TimeUnit.MILLISECONDS), new Date(item.getTimestamp()).toString(), item.getItem()
+                    }));
+                }
+            }
+            return data;
+        } catch (final OpenDataException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public TabularData getRunningStepMetrics(final long executionId) {
+        return toTabularData(ServicesManager.find().service(StepMetricsRegistry.class).getRunningStepMetrics(executionId));
+    }
+
+    @Override
+    public TabularData getUserMetrics(final long executionId) {
+        return toTabularData(UserMetrics.forExecution(operator.getStepExecutions(executionId)));
+    }
+
     @Override
     public long start(final String jobXMLName, final String jobParameters) {
         return operator.start(jobXMLName, toProperties(jobParameters));
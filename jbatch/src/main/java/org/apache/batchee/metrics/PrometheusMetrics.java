@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.metrics;
+
+import org.apache.batchee.container.impl.controller.chunk.ChunkStepLatencies;
+import org.apache.batchee.container.impl.controller.chunk.LatencyHistogram;
+import org.apache.batchee.container.services.BatchKernelService;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
+import org.apache.batchee.container.services.data.DataCompression;
+import org.apache.batchee.container.services.executor.MonitoredThreadPoolService;
+import org.apache.batchee.container.services.executor.ThreadPoolStatistics;
+import org.apache.batchee.container.services.kernel.DefaultBatchKernel;
+import org.apache.batchee.container.services.persistence.MonitoredPersistence;
+import org.apache.batchee.container.services.persistence.PersistenceStatistics;
+import org.apache.batchee.spi.BatchThreadPoolService;
+import org.apache.batchee.spi.DataRepresentationService;
+import org.apache.batchee.spi.PersistenceManagerService;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of this JVM in Prometheus text exposition format (version 0.0.4).
+ *
+ * Everything is read from in memory state (running jobs and steps, chunk latencies, thread pool, data compression and
+ * persistence statistics) so scraping never queries the persistence.
+ */
+public final class PrometheusMetrics {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double[] QUANTILES = { 50, 90, 99 };
+
+    private PrometheusMetrics() {
+        // no-op
+    }
+
+    public static String scrape() {
+        final ServicesManager services = ServicesManager.find();
+        final Output output = new Output();
+        jobs(output, services.service(BatchKernelService.class));
+        runningSteps(output, services.service(StepMetricsRegistry.class));
+        chunkLatencies(output, services.service(StepMetricsRegistry.class));
+        threadPool(output, services.service(BatchThreadPoolService.class));
+        compression(output, DataCompression.of(services.service(DataRepresentationService.class)));
+        persistence(output, MonitoredPersistence.statistics(services.service(PersistenceManagerService.class)));
+        return output.toString();
+    }
+
+    private static void jobs(final Output output, final BatchKernelService kernel) {
+        if (DefaultBatchKernel.class.isInstance(kernel)) {
+            output.family("batchee_running_jobs", "gauge", "Jobs executing in this JVM.");
+            for (final Map.Entry<String, Integer> job : DefaultBatchKernel.class.cast(kernel).getRunningJobs().entrySet()) {
+                output.sample("batchee_running_jobs", "", job.getValue(), "job", job.getKey());
+            }
+        }
+
+        final Map<String, Long> admission = kernel.getAdmissionMetrics();
+        if (!admission.isEmpty()) {
+            output.family("batchee_admission_queued_jobs", "gauge", "Started jobs waiting for admission.")
+                .sample("batchee_admission_queued_jobs", "", value(admission, "queued"));
+            output.family("batchee_admission_running_jobs", "gauge", "Admitted jobs still running.")
+                .sample("batchee_admission_running_jobs", "", value(admission, "running"));
+            output.family("batchee_admission_admitted_total", "counter", "Jobs admitted.")
+                .sample("batchee_admission_admitted_total", "", value(admission, "admitted"));
+            output.family("batchee_admission_rejected_total", "counter", "Jobs rejected by the admission control.")
+                .sample("batchee_admission_rejected_total", "", value(admission, "rejected"));
+            output.family("batchee_admission_wait_seconds_total", "counter", "Time spent by admitted jobs in the admission queue.")
+                .sample("batchee_admission_wait_seconds_total", "", value(admission, "waitTimeTotalMs") / 1000.);
+            output.family("batchee_admission_wait_seconds_max", "gauge", "Longest time a job waited for admission.")
+                .sample("batchee_admission_wait_seconds_max", "", value(admission, "waitTimeMaxMs") / 1000.);
+        }
+    }
+
+    private static void runningSteps(final Output output, final StepMetricsRegistry registry) {
+        for (final Long execution : registry.getRunningExecutions()) {
+            for (final Map.Entry<String, Long> metric : registry.getRunningStepMetrics(execution).entrySet()) {
+                final int dot = metric.getKey().lastIndexOf('.'); // step names can contain dots, metric names can't
+                final String step = metric.getKey().substring(0, dot);
+                final String name = metric.getKey().substring(dot + 1);
+                final String executionId = Long.toString(execution);
+
+                if ("durationMs".equals(name)) {
+                    output.family("batchee_step_duration_seconds", "gauge", "Time since the running step started.")
+                        .sample("batchee_step_duration_seconds", "", metric.getValue() / 1000., "execution", executionId, "step", step);
+                } else if (name.endsWith("Rate")) { // items per second
+                    final String family = "batchee_step_" + snakeCase(name);
+                    output.family(family, "gauge", "Items per second of the running step, " + (name.startsWith("mean") ? "since its start." : "over the last second."))
+                        .sample(family, "", metric.getValue(), "execution", executionId, "step", step);
+                } else { // readCount -> batchee_step_read_total
+                    final String family = "batchee_step_" + snakeCase(name.substring(0, name.length() - "Count".length())) + "_total";
+                    output.family(family, "counter", "Step metric " + name + " of the running step, including not yet checkpointed items.")
+                        .sample(family, "", metric.getValue(), "execution", executionId, "step", step);
+                }
+            }
+        }
+    }
+
+    private static void chunkLatencies(final Output output, final StepMetricsRegistry registry) {
+        output.family("batchee_chunk_phase_seconds", "summary", "Latencies of the phases of chunk steps (read, process, write, checkpoint, begin, commit, listeners).");
+        for (final ChunkStepLatencies step : registry.getChunkLatencies()) {
+            final String execution = Long.toString(step.getRootExecutionId());
+            for (final ChunkStepLatencies.Phase phase : ChunkStepLatencies.Phase.values()) {
+                final LatencyHistogram histogram = step.get(phase);
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+
+                final String phaseName = phase.name().toLowerCase(Locale.ENGLISH);
+                for (final double quantile : QUANTILES) {
+                    output.sample("batchee_chunk_phase_seconds", "", histogram.getPercentile(quantile, TimeUnit.NANOSECONDS) / NANOS_PER_SECOND,
+                        "execution", execution, "step", step.getStepName(), "phase", phaseName, "quantile", Double.toString(quantile / 100));
+                }
+                output.sample("batchee_chunk_phase_seconds", "_sum", histogram.getTotal(TimeUnit.NANOSECONDS) / NANOS_PER_SECOND,
+                    "execution", execution, "step", step.getStepName(), "phase", phaseName);
+                output.sample("batchee_chunk_phase_seconds", "_count", histogram.getCount(),
+                    "execution", execution, "step", step.getStepName(), "phase", phaseName);
+            }
+        }
+    }
+
+    private static void threadPool(final Output output, final BatchThreadPoolService service) {
+        if (!MonitoredThreadPoolService.class.isInstance(service)) {
+            return;
+        }
+
+        final ThreadPoolStatistics statistics = MonitoredThreadPoolService.class.cast(service).getStatistics();
+        output.family("batchee_thread_pool_active_tasks", "gauge", "Tasks running in the batch thread pool.")
+            .sample("batchee_thread_pool_active_tasks", "", statistics.getActiveCount());
+        output.family("batchee_thread_pool_queued_tasks", "gauge", "Tasks waiting for a thread of the batch thread pool.")
+            .sample("batchee_thread_pool_queued_tasks", "", statistics.getQueueDepth());
+        output.family("batchee_thread_pool_submitted_total", "counter", "Tasks submitted to the batch thread pool.")
+            .sample("batchee_thread_pool_submitted_total", "", statistics.getSubmittedCount());
+        output.family("batchee_thread_pool_completed_total", "counter", "Tasks of the batch thread pool which ended normally.")
+            .sample("batchee_thread_pool_completed_total", "", statistics.getCompletedCount());
+        output.family("batchee_thread_pool_failed_total", "counter", "Tasks of the batch thread pool which ended with an exception.")
+            .sample("batchee_thread_pool_failed_total", "", statistics.getFailedCount());
+        output.family("batchee_thread_pool_rejected_total", "counter", "Tasks rejected by the batch thread pool.")
+            .sample("batchee_thread_pool_rejected_total", "", statistics.getRejectedCount());
+        output.family("batchee_thread_pool_wait_seconds_total", "counter", "Time spent by tasks waiting for a thread.")
+            .sample("batchee_thread_pool_wait_seconds_total", "", statistics.getTotalWaitTime(TimeUnit.NANOSECONDS) / NANOS_PER_SECOND);
+        output.family("batchee_thread_pool_wait_seconds_max", "gauge", "Longest time a task waited for a thread.")
+            .sample("batchee_thread_pool_wait_seconds_max", "", statistics.getMaxWaitTime(TimeUnit.NANOSECONDS) / NANOS_PER_SECOND);
+        output.family("batchee_thread_pool_run_seconds_total", "counter", "Time spent running tasks.")
+            .sample("batchee_thread_pool_run_seconds_total", "", statistics.getTotalRunTime(TimeUnit.NANOSECONDS) / NANOS_PER_SECOND);
+        output.family("batchee_thread_pool_run_seconds_max", "gauge", "Longest task run time.")
+            .sample("batchee_thread_pool_run_seconds_max", "", statistics.getMaxRunTime(TimeUnit.NANOSECONDS) / NANOS_PER_SECOND);
+    }
+
+    private static void compression(final Output output, final DataCompression compression) {
+        final Map<String, Long> statistics = compression.getStatistics();
+        output.family("batchee_data_compressed_total", "counter", "Checkpoints, user data and collector payloads compressed.")
+            .sample("batchee_data_compressed_total", "", value(statistics, "compressed"));
+        output.family("batchee_data_uncompressed_bytes_total", "counter", "Size of the compressed payloads before compression.")
+            .sample("batchee_data_uncompressed_bytes_total", "", value(statistics, "uncompressedBytes"));
+        output.family("batchee_data_compressed_bytes_total", "counter", "Size of the compressed payloads after compression.")
+            .sample("batchee_data_compressed_bytes_total", "", value(statistics, "compressedBytes"));
+        output.family("batchee_data_compression_seconds_total", "counter", "Time spent compressing payloads.")
+            .sample("batchee_data_compression_seconds_total", "", value(statistics, "compressionTimeTotalMs") / 1000.);
+        output.family("batchee_data_decompressed_total", "counter", "Payloads decompressed.")
+            .sample("batchee_data_decompressed_total", "", value(statistics, "decompressed"));
+        output.family("batchee_data_decompression_seconds_total", "counter", "Time spent decompressing payloads.")
+            .sample("batchee_data_decompression_seconds_total", "", value(statistics, "decompressionTimeTotalMs") / 1000.);
+    }
+
+    private static void persistence(final Output output, final PersistenceStatistics statistics) {
+        if (statistics == null) { // not activated
+            return;
+        }
+
+        output.family("batchee_persistence_calls_total", "counter", "Calls of the persistence service by method.");
+        output.family("batchee_persistence_failures_total", "counter", "Calls of the persistence service which threw an exception by method.");
+        output.family("batchee_persistence_payload_bytes_total", "counter", "Checkpoint and step user data bytes written or read by method.");
+        output.family("batchee_persistence_call_seconds", "summary", "Latencies of the persistence service calls by method.");
+        for (final Map.Entry<String, PersistenceStatistics.MethodStatistics> method : statistics.getMethods().entrySet()) {
+            final PersistenceStatistics.MethodStatistics methodStatistics = method.getValue();
+            final LatencyHistogram latency = methodStatistics.getLatency();
+            output.sample("batchee_persistence_calls_total", "", methodStatistics.getCallCount(), "method", method.getKey());
+            output.sample("batchee_persistence_failures_total", "", methodStatistics.getFailedCount(), "method", method.getKey());
+            output.sample("batchee_persistence_payload_bytes_total", "", methodStatistics.getPayloadBytes(), "method", method.getKey());
+            for (final double quantile : QUANTILES) {
+                output.sample("batchee_persistence_call_seconds", "", latency.getPercentile(quantile, TimeUnit.NANOSECONDS) / NANOS_PER_SECOND,
+                    "method", method.getKey(), "quantile", Double.toString(quantile / 100));
+            }
+            output.sample("batchee_persistence_call_seconds", "_sum", latency.getTotal(TimeUnit.NANOSECONDS) / NANOS_PER_SECOND, "method", method.getKey());
+            output.sample("batchee_persistence_call_seconds", "_count", latency.getCount(), "method", method.getKey());
+        }
+    }
+
+    private static long value(final Map<String, Long> metrics, final String key) {
+        final Long value = metrics.get(key);
+        return value == null ? 0 : value;
+    }
+
+    // meanReadRate -> mean_read_rate
+    private static String snakeCase(final String name) {
+        final StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (final char c : name.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                builder.append('_').append(Character.toLowerCase(c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    // samples have to be grouped by family in the output so they are buffered by family
+    private static class Output {
+        private final Map<String, StringBuilder> families = new LinkedHashMap<String, StringBuilder>();
+
+        private Output family(final String name, final String type, final String help) {
+            if (!families.containsKey(name)) {
+                families.put(name, new StringBuilder()
+                    .append("# HELP ").append(name).append(' ').append(help).append('\n')
+                    .append("# TYPE ").append(name).append(' ').append(type).append('\n'));
+            }
+            return this;
+        }
+
+        private void sample(final String family, final String suffix, final long value, final String... labels) {
+            append(family, suffix, labels).append(value).append('\n');
+        }
+
+        private void sample(final String family, final String suffix, final double value, final String... labels) {
+            append(family, suffix, labels).append(value).append('\n');
+        }
+
+        private StringBuilder append(final String family, final String suffix, final String... labels) {
+            final StringBuilder builder = families.get(family);
+            builder.append(family).append(suffix);
+            if (labels.length > 0) {
+                builder.append('{');
+                for (int i = 0; i < labels.length; i += 2) {
+                    if (i > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(labels[i]).append("=\"")
+                        .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                        .append('"');
+                }
+                builder.append('}');
+            }
+            return builder.append(' ');
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            for (final StringBuilder family : families.values()) {
+                builder.append(family);
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BatchEE extension implemented by the injected {@link javax.batch.runtime.context.StepContext} to record domain
+ * metrics (bytes transferred, rows upserted...) the fixed JSR-352 metric types can't express:
+ *
+ * <pre>
+ * StepMetrics.class.cast(stepContext).increment("bytes", buffer.length);
+ * </pre>
+ *
+ * Values are summed across the partitions of a step, persisted with the step execution and read back through
+ * {@link org.apache.batchee.container.impl.StepExecutionImpl#getUserMetrics()}, JMX and the JAX-RS resource.
+ * Recording never locks so it can be called for each item.
+ */
+public interface StepMetrics {
+    /**
+     * @param name counter name.
+     * @param delta value to add to the counter.
+     */
+    void increment(String name, long delta);
+
+    /**
+     * Exposed as {@code name.count}, {@code name.totalMs} and {@code name.maxMs}.
+     *
+     * @param name timer name.
+     * @param duration measured duration.
+     * @param unit unit of the duration.
+     */
+    void record(String name, long duration, TimeUnit unit);
+}
@@ -16,7 +16,9 @@
  */
 package org.apache.batchee.servlet;
 
+import org.apache.batchee.container.services.BatchKernelService;
 import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.kernel.DefaultBatchKernel;
 import org.apache.batchee.jmx.BatchEEMBean;
 import org.apache.batchee.spi.BatchThreadPoolService;
 
@@ -38,6 +40,10 @@ public class CleanUpWebappListener implements ServletContextListener {
     public void contextDestroyed(final ServletContextEvent sce) {
         final BatchThreadPoolService threadPoolService = ServicesManager.find().service(BatchThreadPoolService.class);
         if (CleanUpWebappListener.class.getClassLoader() == sce.getServletContext().getClassLoader()) {
+            final BatchKernelService kernel = ServicesManager.find().service(BatchKernelService.class);
+            if (DefaultBatchKernel.class.isInstance(kernel)) { // stop claiming jobs before the pool rejects them
+                DefaultBatchKernel.class.cast(kernel).leaveCluster();
+            }
             threadPoolService.shutdown();
 
             // unregister jmx bean if deployed in an app
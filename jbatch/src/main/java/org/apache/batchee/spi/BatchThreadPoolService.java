@@ -16,6 +16,8 @@
  */
 package org.apache.batchee.spi;
 
+import java.util.Locale;
+
 /*
  * The ExecutorService provides the capability to run tasks asynchronously.
  * The instances of the Executor service are not managed by the ServicesManager cache
@@ -29,11 +31,27 @@ public interface BatchThreadPoolService extends BatchService {
      *
      * @param work   The task to execute
      * @param config Optional configuration to customize the execution. The
-     *               Container always passes a null value. Typically used when
-     *               other user plugins wish to use the ExecutorService to execute
-     *               tasks.
+     *               Container passes the {@link WorkType} of the task so
+     *               implementations can isolate top-level jobs, split flows and
+     *               partitions. Typically used when other user plugins wish to
+     *               use the ExecutorService to execute tasks.
      */
     void executeTask(Runnable work, Object config);
 
     void shutdown();
+
+    /**
+     * The kind of work the container submits, a parent job/flow waits for its
+     * split flows and partitions so they should never compete for the same threads.
+     */
+    enum WorkType {
+        JOB, SPLIT, PARTITION;
+
+        /**
+         * @return the name used in configuration keys, for instance {@code thread-pool.partition.}.
+         */
+        public String configName() {
+            return name().toLowerCase(Locale.ENGLISH);
+        }
+    }
 }
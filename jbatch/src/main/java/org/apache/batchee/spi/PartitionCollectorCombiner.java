@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.spi;
+
+import java.io.Serializable;
+
+/**
+ * Merges the data returned by a {@link javax.batch.api.partition.PartitionCollector} on the partition thread
+ * so the {@link javax.batch.api.partition.PartitionAnalyzer} receives one payload per interval instead of one per chunk.
+ *
+ * Selected with the step property <code>org.apache.batchee.partition.collector.combiner</code> (ref of the artifact),
+ * each partition gets its own instance.
+ */
+public interface PartitionCollectorCombiner {
+    /**
+     * @param combined what was combined since the last emission, null for the first data of an interval.
+     * @param data     the last collected data.
+     * @return the combined data.
+     */
+    Serializable combine(Serializable combined, Serializable data) throws Exception;
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.spi;
+
+import javax.batch.runtime.BatchStatus;
+import java.util.Properties;
+
+/**
+ * Decides how many partitions of a step run at the same time, always between 1 and the <code>threads</code> of the partition plan.
+ *
+ * Selected with the step property <code>org.apache.batchee.partition.concurrency-policy</code>
+ * (<code>adaptive</code> for the built-in one or the ref of an artifact implementing this interface).
+ * An instance is used by a single step execution and only from the step thread.
+ */
+public interface PartitionConcurrencyPolicy {
+    /**
+     * @param stepProperties properties of the partitioned step.
+     * @param maxConcurrency threads of the partition plan.
+     * @return the number of partitions to start.
+     */
+    int start(Properties stepProperties, int maxConcurrency);
+
+    /**
+     * Called each time a partition ends, partitions are started (or not) to reach the returned concurrency,
+     * running partitions are never interrupted.
+     *
+     * @return the new number of partitions allowed to run concurrently.
+     */
+    int adjust(PartitionResult result, int currentConcurrency, int maxConcurrency);
+
+    class PartitionResult {
+        private final int partition;
+        private final BatchStatus batchStatus;
+        private final long items;
+        private final long duration;
+
+        public PartitionResult(final int partition, final BatchStatus batchStatus, final long items, final long duration) {
+            this.partition = partition;
+            this.batchStatus = batchStatus;
+            this.items = items;
+            this.duration = duration;
+        }
+
+        public int getPartition() {
+            return partition;
+        }
+
+        public BatchStatus getBatchStatus() {
+            return batchStatus;
+        }
+
+        /**
+         * @return the read count of the partition, 0 for a batchlet.
+         */
+        public long getItems() {
+            return items;
+        }
+
+        /**
+         * @return duration of the partition step in milliseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+    }
+}
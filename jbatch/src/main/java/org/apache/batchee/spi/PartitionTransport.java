@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.spi;
+
+import javax.batch.runtime.BatchStatus;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Runs partitions in another JVM (a worker). The step thread still schedules the partitions
+ * (threads, concurrency policy...), a partition thread just waits for the remote result.
+ *
+ * Selected with the step property <code>org.apache.batchee.partition.transport</code>
+ * (<code>socket</code> for the built-in one or the ref of an artifact implementing this interface).
+ * Workers execute a request with {@link org.apache.batchee.container.partition.RemotePartitionRunner}.
+ */
+public interface PartitionTransport {
+    /**
+     * Blocks until the partition ends, any exception (worker unreachable or dying) marks the partition as failed.
+     *
+     * @param request  what to execute.
+     * @param callback receives the collector data of the partition while it runs.
+     * @return the final state of the partition.
+     */
+    PartitionResponse execute(PartitionRequest request, PartitionCallback callback) throws Exception;
+
+    interface PartitionCallback {
+        void onCollectorData(Serializable data);
+    }
+
+    /**
+     * Optionally implemented by a transport able to stop a partition running remotely.
+     * Without it stopping the step waits for the end of the partitions already sent to workers.
+     */
+    interface Stoppable {
+        /**
+         * Asks the worker executing the request to stop it, the running {@link #execute} then returns the final response.
+         * It can be called while {@link #execute} didn't send the request yet, the partition is then stopped when it starts.
+         *
+         * @param request the request passed to {@link #execute}.
+         */
+        void stop(PartitionRequest request) throws Exception;
+    }
+
+    class PartitionRequest implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String jobXml;
+        private final long parentInstanceId;
+        private final int partition;
+        private final Properties partitionProperties;
+
+        /**
+         * @param jobXml              the generated job of the partition (a single step).
+         * @param parentInstanceId    the instance owning the partition checkpoints.
+         * @param partition           partition index in the plan.
+         * @param partitionProperties properties of this partition in the plan (can be null).
+         */
+        public PartitionRequest(final String jobXml, final long parentInstanceId, final int partition, final Properties partitionProperties) {
+            this.jobXml = jobXml;
+            this.parentInstanceId = parentInstanceId;
+            this.partition = partition;
+            this.partitionProperties = partitionProperties;
+        }
+
+        public String getJobXml() {
+            return jobXml;
+        }
+
+        public long getParentInstanceId() {
+            return parentInstanceId;
+        }
+
+        public int getPartition() {
+            return partition;
+        }
+
+        public Properties getPartitionProperties() {
+            return partitionProperties;
+        }
+    }
+
+    class PartitionResponse implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final BatchStatus batchStatus;
+        private final String exitStatus;
+        private final Map<String, Long> metrics;
+        private final long startTime;
+        private final long endTime;
+        private final Map<String, Long> userMetrics;
+
+        /**
+         * @param metrics values of the partition step metrics by {@link javax.batch.runtime.Metric.MetricType} name.
+         */
+        public PartitionResponse(final BatchStatus batchStatus, final String exitStatus, final Map<String, Long> metrics,
+                                 final long startTime, final long endTime) {
+            this(batchStatus, exitStatus, metrics, startTime, endTime, null);
+        }
+
+        /**
+         * @param userMetrics what the partition artifacts recorded through {@link org.apache.batchee.metrics.StepMetrics}
+         *                    (can be null), the keys are opaque for the transport which just sends them back.
+         */
+        public PartitionResponse(final BatchStatus batchStatus, final String exitStatus, final Map<String, Long> metrics,
+                                 final long startTime, final long endTime, final Map<String, Long> userMetrics) {
+            this.batchStatus = batchStatus;
+            this.exitStatus = exitStatus;
+            this.metrics = metrics;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.userMetrics = userMetrics;
+        }
+
+        public BatchStatus getBatchStatus() {
+            return batchStatus;
+        }
+
+        public String getExitStatus() {
+            return exitStatus;
+        }
+
+        public Map<String, Long> getMetrics() {
+            return metrics;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public Map<String, Long> getUserMetrics() {
+            return userMetrics;
+        }
+    }
+}
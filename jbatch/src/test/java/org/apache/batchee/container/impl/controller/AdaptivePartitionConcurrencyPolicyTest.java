@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller;
+
+import org.apache.batchee.spi.PartitionConcurrencyPolicy.PartitionResult;
+import org.testng.annotations.Test;
+
+import javax.batch.runtime.BatchStatus;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+
+public class AdaptivePartitionConcurrencyPolicyTest {
+    @Test
+    public void increaseWhileThroughputHolds() {
+        final ClockPolicy policy = new ClockPolicy();
+        assertEquals(policy.start(new Properties(), 4), 1);
+
+        policy.time = 1000;
+        assertEquals(policy.adjust(success(100), 1, 4), 2); // first round is the reference
+
+        policy.time = 2000;
+        assertEquals(policy.adjust(success(100), 2, 4), 2); // round not complete
+        assertEquals(policy.adjust(success(100), 2, 4), 3); // 200 items/s
+
+        policy.time = 3000;
+        for (int i = 0; i < 2; i++) {
+            assertEquals(policy.adjust(success(100), 3, 4), 3);
+        }
+        assertEquals(policy.adjust(success(100), 3, 4), 4); // 300 items/s
+
+        policy.time = 5000;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(policy.adjust(success(100), 4, 4), 4);
+        }
+        assertEquals(policy.adjust(success(100), 4, 4), 3); // 200 items/s: the database is saturated, back off
+    }
+
+    @Test
+    public void decreaseOnErrorOrLatency() {
+        final Properties properties = new Properties();
+        properties.setProperty(AdaptivePartitionConcurrencyPolicy.INITIAL, "8");
+        properties.setProperty(AdaptivePartitionConcurrencyPolicy.MIN, "2");
+        properties.setProperty(AdaptivePartitionConcurrencyPolicy.MAX_ITEM_LATENCY, "10");
+
+        final ClockPolicy policy = new ClockPolicy();
+        assertEquals(policy.start(properties, 8), 8);
+        assertEquals(policy.adjust(new PartitionResult(0, BatchStatus.FAILED, 0, 0), 8, 8), 4);
+        assertEquals(policy.adjust(new PartitionResult(1, BatchStatus.COMPLETED, 10, 500), 4, 8), 2); // 50ms per item
+        assertEquals(policy.adjust(new PartitionResult(2, BatchStatus.FAILED, 0, 0), 2, 8), 2);
+    }
+
+    private static PartitionResult success(final long items) {
+        return new PartitionResult(0, BatchStatus.COMPLETED, items, 100);
+    }
+
+    private static class ClockPolicy extends AdaptivePartitionConcurrencyPolicy {
+        private long time;
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+}
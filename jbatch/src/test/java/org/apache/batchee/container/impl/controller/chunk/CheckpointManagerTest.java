@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller.chunk;
+
+import org.apache.batchee.container.services.data.DefaultDataRepresentationService;
+import org.apache.batchee.spi.PersistenceManagerService;
+import org.testng.annotations.Test;
+
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+
+public class CheckpointManagerTest {
+    @Test
+    public void skipUnchangedCheckpoints() {
+        final List<CheckpointType> writes = new ArrayList<CheckpointType>();
+        final PersistenceManagerService persistence = PersistenceManagerService.class.cast(Proxy.newProxyInstance(
+            Thread.currentThread().getContextClassLoader(), new Class<?>[]{PersistenceManagerService.class}, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                    if ("setCheckpointData".equals(method.getName())) {
+                        writes.add(CheckpointDataKey.class.cast(args[0]).getType());
+                    }
+                    return null;
+                }
+            }));
+        final DefaultDataRepresentationService data = new DefaultDataRepresentationService();
+        data.init(new Properties());
+
+        final Reader reader = new Reader();
+        final CheckpointManager manager = new CheckpointManager(
+            reader, new NullCheckpointWriter(), new ItemCheckpointAlgorithm(), 1, "step", persistence, data);
+
+        manager.checkpoint(); // first checkpoint is always written
+        assertEquals(writes.size(), 2);
+
+        reader.position = 10;
+        manager.checkpoint();
+        assertEquals(writes.size(), 3);
+        assertEquals(writes.get(2), CheckpointType.READER);
+
+        manager.checkpoint(); // nothing moved
+        assertEquals(writes.size(), 3);
+    }
+
+    public static class Reader extends AbstractItemReader {
+        private int position;
+
+        @Override
+        public Object readItem() throws Exception {
+            return null;
+        }
+
+        @Override
+        public Serializable checkpointInfo() throws Exception {
+            return position;
+        }
+    }
+
+    public static class NullCheckpointWriter extends AbstractItemWriter {
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            // no-op
+        }
+    }
+}
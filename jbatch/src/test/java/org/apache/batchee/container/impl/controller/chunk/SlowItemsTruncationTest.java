@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.impl.controller.chunk;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class SlowItemsTruncationTest {
+    @Test
+    public void chunkIsDescribedUntilMaxLength() {
+        final AtomicInteger described = new AtomicInteger();
+        final List<Object> chunk = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i++) {
+            final int index = i;
+            chunk.add(new Object() {
+                @Override
+                public String toString() {
+                    described.incrementAndGet();
+                    return "item-" + index;
+                }
+            });
+        }
+
+        final SlowItems items = new SlowItems(0, 1, 20);
+        items.trace(ChunkStepLatencies.Phase.WRITE, 1, chunk, 1);
+        assertEquals(items.getItems().iterator().next().getItem(), "[item-0, item-1, ite...");
+        assertEquals(described.get(), 3);
+
+        items.trace(ChunkStepLatencies.Phase.WRITE, 2, chunk.subList(0, 2), 1);
+        assertEquals(items.getItems().iterator().next().getItem(), "[item-0, item-1]");
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.executor;
+
+import org.apache.batchee.spi.BatchThreadPoolService;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class DedicatedExecutorServiceTest {
+    @Test
+    public void partitionsDontWaitForJobThreads() throws InterruptedException {
+        final Properties config = new Properties();
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_MIN_POOL_SIZE, "1");
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_MAX_POOL_SIZE, "1");
+        config.setProperty("thread-pool.partition." + BoundedThreadPoolService.BOUNDED_THREADPOOL_MAX_POOL_SIZE, "2");
+        config.setProperty("thread-pool.partition." + BoundedThreadPoolService.BOUNDED_THREADPOOL_MIN_POOL_SIZE, "2");
+
+        final BoundedThreadPoolService service = new BoundedThreadPoolService();
+        service.init(config);
+        try {
+            assertSame(service.findExecutorService(BatchThreadPoolService.WorkType.SPLIT), service.findExecutorService(null));
+            assertNotSame(service.findExecutorService(BatchThreadPoolService.WorkType.PARTITION), service.findExecutorService(null));
+
+            // the single job thread waits for its partition, with a shared pool it would never end
+            final CountDownLatch done = new CountDownLatch(1);
+            final AtomicBoolean partitionExecuted = new AtomicBoolean();
+            service.executeTask(new Runnable() {
+                @Override
+                public void run() {
+                    final CountDownLatch partition = new CountDownLatch(1);
+                    service.executeTask(new Runnable() {
+                        @Override
+                        public void run() {
+                            partitionExecuted.set(true);
+                            partition.countDown();
+                        }
+                    }, BatchThreadPoolService.WorkType.PARTITION);
+                    try {
+                        partition.await(1, TimeUnit.MINUTES);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                }
+            }, BatchThreadPoolService.WorkType.JOB);
+
+            assertTrue(done.await(1, TimeUnit.MINUTES));
+            assertTrue(partitionExecuted.get());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.executor;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.spi.InitialContextFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class JNDIThreadPoolServiceTest {
+    private static final String LOCATION = "test/executor";
+    private static final Map<String, ExecutorService> BINDINGS = new ConcurrentHashMap<String, ExecutorService>();
+
+    private String previousFactory;
+    private JNDIThreadPoolService service;
+
+    @BeforeMethod
+    public void bindFactory() {
+        previousFactory = System.setProperty(Context.INITIAL_CONTEXT_FACTORY, ContextFactory.class.getName());
+    }
+
+    @AfterMethod
+    public void reset() {
+        if (previousFactory != null) {
+            System.setProperty(Context.INITIAL_CONTEXT_FACTORY, previousFactory);
+        } else {
+            System.clearProperty(Context.INITIAL_CONTEXT_FACTORY);
+        }
+        if (service != null) {
+            service.shutdown();
+        }
+        for (final ExecutorService executor : BINDINGS.values()) {
+            executor.shutdownNow();
+        }
+        BINDINGS.clear();
+    }
+
+    @Test
+    public void cacheHit() throws InterruptedException {
+        BINDINGS.put(LOCATION, Executors.newSingleThreadExecutor());
+        service = newService(true);
+
+        run(service);
+        run(service);
+
+        final Map<String, Long> statistics = service.getStatistics().toMap();
+        assertEquals(statistics.get("jndiLookups").longValue(), 1);
+        assertEquals(statistics.get("jndiCacheHits").longValue(), 1);
+        assertEquals(statistics.get("jndiInvalidations").longValue(), 0);
+    }
+
+    @Test
+    public void shutdownExecutorIsInvalidated() throws InterruptedException {
+        final ExecutorService undeployed = Executors.newSingleThreadExecutor();
+        BINDINGS.put(LOCATION, undeployed);
+        service = newService(true);
+        run(service);
+
+        undeployed.shutdown(); // redeployment
+        BINDINGS.put(LOCATION, Executors.newSingleThreadExecutor());
+        run(service);
+
+        final Map<String, Long> statistics = service.getStatistics().toMap();
+        assertEquals(statistics.get("jndiLookups").longValue(), 2);
+        assertEquals(statistics.get("jndiInvalidations").longValue(), 1);
+        assertEquals(statistics.get("fallbackExecutions").longValue(), 0);
+    }
+
+    @Test
+    public void saturationUsesFallbackWithoutLookup() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        BINDINGS.put(LOCATION, saturated(release));
+        service = newService(true);
+        try {
+            run(service);
+            run(service);
+        } finally {
+            release.countDown();
+        }
+
+        final Map<String, Long> statistics = service.getStatistics().toMap();
+        assertEquals(statistics.get("jndiLookups").longValue(), 1);
+        assertEquals(statistics.get("jndiCacheHits").longValue(), 1);
+        assertEquals(statistics.get("jndiInvalidations").longValue(), 0);
+        assertEquals(statistics.get("fallbackExecutions").longValue(), 2);
+    }
+
+    @Test
+    public void saturationWithoutFallback() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        BINDINGS.put(LOCATION, saturated(release));
+        service = newService(false);
+        try {
+            service.executeTask(new Runnable() {
+                @Override
+                public void run() {
+                    fail();
+                }
+            }, null);
+            fail();
+        } catch (final RejectedExecutionException ree) {
+            // expected
+        } finally {
+            release.countDown();
+        }
+
+        final Map<String, Long> statistics = service.getStatistics().toMap();
+        assertEquals(statistics.get("jndiInvalidations").longValue(), 0);
+        assertEquals(service.getStatistics().getRejectedCount(), 1);
+    }
+
+    private static JNDIThreadPoolService newService(final boolean fallback) {
+        final Properties config = new Properties();
+        config.setProperty(JNDIThreadPoolService.THREADPOOL_JNDI_LOCATION, LOCATION);
+        config.setProperty(JNDIThreadPoolService.THREADPOOL_JNDI_FALLBACK, Boolean.toString(fallback));
+        final JNDIThreadPoolService service = new JNDIThreadPoolService();
+        service.init(config);
+        return service;
+    }
+
+    // single busy thread and no queue: everything else is rejected
+    private static ExecutorService saturated(final CountDownLatch release) throws InterruptedException {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new SynchronousQueue<Runnable>());
+        final CountDownLatch started = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(1, TimeUnit.MINUTES);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        return executor;
+    }
+
+    private static void run(final JNDIThreadPoolService service) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        service.executeTask(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        }, null);
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+    }
+
+    public static class ContextFactory implements InitialContextFactory {
+        @Override
+        public Context getInitialContext(final Hashtable<?, ?> environment) {
+            return Context.class.cast(Proxy.newProxyInstance(ContextFactory.class.getClassLoader(), new Class<?>[]{Context.class}, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                    if ("lookup".equals(method.getName())) {
+                        final ExecutorService executor = BINDINGS.get(String.valueOf(args[0]));
+                        if (executor == null) {
+                            throw new NameNotFoundException(String.valueOf(args[0]));
+                        }
+                        return executor;
+                    }
+                    if ("close".equals(method.getName())) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            }));
+        }
+    }
+}
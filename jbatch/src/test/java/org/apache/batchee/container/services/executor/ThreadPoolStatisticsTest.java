@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.executor;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ThreadPoolStatisticsTest {
+    @Test
+    public void saturation() throws InterruptedException {
+        final Properties config = new Properties();
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_MIN_POOL_SIZE, "1");
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_MAX_POOL_SIZE, "1");
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_QUEUE_SIZE, "1");
+
+        final BoundedThreadPoolService service = new BoundedThreadPoolService();
+        service.init(config);
+        try {
+            final ThreadPoolStatistics statistics = service.getStatistics();
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(2);
+            final Runnable blocking = new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await(1, TimeUnit.MINUTES);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+
+            service.executeTask(blocking, null);
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+            service.executeTask(blocking, null);
+            try {
+                service.executeTask(blocking, null);
+                fail();
+            } catch (final RejectedExecutionException ree) {
+                // expected: single thread busy and queue full
+            }
+
+            assertEquals(statistics.getActiveCount(), 1);
+            assertEquals(statistics.getQueueDepth(), 1);
+            assertEquals(statistics.getRejectedCount(), 1);
+            assertEquals(statistics.getSubmittedCount(), 3);
+
+            release.countDown();
+            assertTrue(done.await(1, TimeUnit.MINUTES));
+
+            // counters are updated after the task itself so wait a bit for the last one
+            final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+            while (statistics.getCompletedCount() < 2 && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+            assertEquals(statistics.getCompletedCount(), 2);
+            assertEquals(statistics.getActiveCount(), 0);
+            assertEquals(statistics.getQueueDepth(), 0);
+            assertTrue(statistics.getMaxWaitTime(TimeUnit.NANOSECONDS) > 0);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void failingExecutorDoesNotLeaveQueuedTasks() {
+        final AbstractThreadPoolService service = new AbstractThreadPoolService() {
+            @Override
+            protected ExecutorService newExecutorService(final Properties batchConfig) {
+                return new AbstractExecutorService() {
+                    @Override
+                    public void execute(final Runnable command) {
+                        throw new IllegalStateException("broken executor");
+                    }
+
+                    @Override
+                    public void shutdown() {
+                        // no-op
+                    }
+
+                    @Override
+                    public List<Runnable> shutdownNow() {
+                        return Collections.emptyList();
+                    }
+
+                    @Override
+                    public boolean isShutdown() {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean isTerminated() {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+                        return false;
+                    }
+                };
+            }
+        };
+        service.init(new Properties());
+        try {
+            service.executeTask(new Runnable() {
+                @Override
+                public void run() {
+                    // no-op
+                }
+            }, null);
+            fail();
+        } catch (final IllegalStateException ise) {
+            // expected
+        }
+        assertEquals(service.getStatistics().getQueueDepth(), 0);
+        assertEquals(service.getStatistics().getRejectedCount(), 1);
+    }
+
+    @Test
+    public void shutdownDiscardsQueuedTasks() throws InterruptedException {
+        final Properties config = new Properties();
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_MIN_POOL_SIZE, "1");
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_MAX_POOL_SIZE, "1");
+        config.setProperty(BoundedThreadPoolService.BOUNDED_THREADPOOL_QUEUE_SIZE, "2");
+
+        final BoundedThreadPoolService service = new BoundedThreadPoolService();
+        service.init(config);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await(1, TimeUnit.MINUTES);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        service.executeTask(blocking, null);
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        service.executeTask(blocking, null);
+        service.executeTask(blocking, null);
+        assertEquals(service.getStatistics().getQueueDepth(), 2);
+
+        service.shutdown();
+        assertEquals(service.getStatistics().getQueueDepth(), 0);
+    }
+}
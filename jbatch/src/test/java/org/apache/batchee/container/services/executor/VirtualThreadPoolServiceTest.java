@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.executor;
+
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertTrue;
+
+public class VirtualThreadPoolServiceTest {
+    @Test
+    public void limitConcurrency() throws InterruptedException {
+        final Properties config = new Properties();
+        config.setProperty(VirtualThreadPoolService.VIRTUAL_THREADPOOL_JOB_MAX_CONCURRENCY, "2");
+
+        final VirtualThreadPoolService service = new VirtualThreadPoolService();
+        service.init(config);
+        try {
+            final int tasks = 10;
+            final CountDownLatch done = new CountDownLatch(tasks);
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final AtomicReference<String> name = new AtomicReference<String>();
+            for (int i = 0; i < tasks; i++) {
+                service.executeTask(new Runnable() {
+                    @Override
+                    public void run() {
+                        final int current = running.incrementAndGet();
+                        int max;
+                        do {
+                            max = maxRunning.get();
+                        } while (current > max && !maxRunning.compareAndSet(max, current));
+                        name.set(Thread.currentThread().getName());
+                        try {
+                            Thread.sleep(50); // blocking work
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            running.decrementAndGet();
+                            done.countDown();
+                        }
+                    }
+                }, null);
+            }
+
+            assertTrue(done.await(1, TimeUnit.MINUTES));
+            assertTrue(maxRunning.get() <= 2, "max concurrency = " + maxRunning.get());
+            assertTrue(name.get().startsWith("batchee-thread-"), name.get());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void interruptedWhileWaitingForAPermitStillRuns() throws InterruptedException {
+        final Properties config = new Properties();
+        config.setProperty(VirtualThreadPoolService.VIRTUAL_THREADPOOL_JOB_MAX_CONCURRENCY, "1");
+
+        final VirtualThreadPoolService service = new VirtualThreadPoolService();
+        service.init(config);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch ran = new CountDownLatch(1);
+        service.executeTask(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await(); // holds the permit until the shutdown
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, null);
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        service.executeTask(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, null);
+        Thread.sleep(200); // waits for the permit
+
+        service.shutdown(); // interrupts both tasks
+        assertTrue(ran.await(1, TimeUnit.MINUTES), "the waiting task was dropped");
+    }
+}
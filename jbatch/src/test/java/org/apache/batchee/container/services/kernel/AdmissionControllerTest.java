@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.kernel;
+
+import org.apache.batchee.container.services.BatchKernelService;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.spi.BatchThreadPoolService;
+import org.apache.batchee.spi.JobXMLLoaderService;
+import org.apache.batchee.spi.PersistenceManagerService;
+import org.testng.annotations.Test;
+
+import javax.batch.operations.JobStartException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class AdmissionControllerTest {
+    @Test
+    public void inactiveWithoutConfiguration() {
+        assertNull(AdmissionController.newInstance(new RecordingThreadPool(), null, new Properties()));
+    }
+
+    @Test
+    public void priorityAndLimits() {
+        final Properties config = new Properties();
+        config.setProperty(AdmissionController.MAX_CONCURRENCY, "2");
+        config.setProperty(AdmissionController.QUEUE_SIZE, "3");
+        config.setProperty(AdmissionController.JOB_PREFIX + "import" + AdmissionController.MAX_CONCURRENCY_SUFFIX, "1");
+        config.setProperty(AdmissionController.TAG_PREFIX + "db" + AdmissionController.MAX_CONCURRENCY_SUFFIX, "1");
+
+        final RecordingThreadPool pool = new RecordingThreadPool();
+        final AdmissionController controller = AdmissionController.newInstance(pool, null, config);
+
+        submit(controller, 1, "import", 0, null);
+        submit(controller, 2, "import", 0, null); // job name limit
+        submit(controller, 3, "report", 0, "db");
+        submit(controller, 4, "cleanup", 0, "db"); // tag and global limits
+        submit(controller, 5, "urgent", 10, null); // global limit but first in the queue
+        assertEquals(pool.executed, asList(1, 3));
+
+        assertEquals(controller.getQueuePosition(5), 0);
+        assertEquals(controller.getQueuePosition(2), 1);
+        assertEquals(controller.getQueuePosition(4), 2);
+        assertEquals(controller.getQueuePosition(1), -1);
+
+        assertFalse(controller.reserve()); // 3 waiting
+        assertEquals(controller.getMetrics().get("rejected").longValue(), 1);
+
+        controller.release(3);
+        assertEquals(pool.executed, asList(1, 3, 5)); // 4 still blocked by the global limit
+
+        controller.release(1);
+        assertEquals(pool.executed, asList(1, 3, 5, 2));
+
+        controller.release(5);
+        assertEquals(pool.executed, asList(1, 3, 5, 2, 4));
+        assertEquals(controller.getMetrics().get("queued").longValue(), 0);
+        assertEquals(controller.getMetrics().get("admitted").longValue(), 5);
+    }
+
+    @Test
+    public void cancelWaitingJob() {
+        final Properties config = new Properties();
+        config.setProperty(AdmissionController.MAX_CONCURRENCY, "1");
+
+        final RecordingThreadPool pool = new RecordingThreadPool();
+        final AdmissionController controller = AdmissionController.newInstance(pool, null, config);
+        submit(controller, 1, "job", 0, null);
+        submit(controller, 2, "job", 0, null);
+
+        assertTrue(controller.cancel(2) != null);
+        assertNull(controller.cancel(1)); // running
+        assertEquals(controller.getQueuePosition(2), -1);
+
+        controller.release(2); // no-op since never admitted
+        assertEquals(controller.getMetrics().get("running").longValue(), 1);
+        controller.release(1);
+        assertEquals(pool.executed, asList(1));
+    }
+
+    @Test
+    public void failedSubmissionReleasesItsSlots() {
+        final Properties config = new Properties();
+        config.setProperty(AdmissionController.JOB_PREFIX + "import" + AdmissionController.MAX_CONCURRENCY_SUFFIX, "1");
+        config.setProperty(AdmissionController.TAG_PREFIX + "db" + AdmissionController.MAX_CONCURRENCY_SUFFIX, "1");
+
+        final RecordingThreadPool pool = new RecordingThreadPool();
+        pool.failing = 2;
+        final List<Long> failed = new ArrayList<Long>();
+        final AdmissionController controller = AdmissionController.newInstance(pool, new AdmissionController.SubmissionFailureHandler() {
+            @Override
+            public void onSubmissionFailure(final long executionId, final RuntimeException error) {
+                failed.add(executionId);
+            }
+        }, config);
+
+        submit(controller, 1, "import", 0, "db");
+        submit(controller, 2, "import", 0, null); // job name limit
+        submit(controller, 3, "report", 0, "db"); // tag limit
+        assertEquals(pool.executed, asList(1));
+
+        controller.release(1); // admits 2 and 3 together, 2 can't be submitted
+        assertEquals(pool.executed, asList(1, 3));
+        assertEquals(failed, asList(2));
+        assertEquals(controller.getQueuePosition(2), -1);
+        assertEquals(controller.getMetrics().get("running").longValue(), 1);
+
+        submit(controller, 4, "import", 0, null); // the slot of 2 was released
+        assertEquals(pool.executed, asList(1, 3, 4));
+    }
+
+    @Test
+    public void invalidPriorityDoesntCreateExecution() {
+        final Properties config = new Properties();
+        config.setProperty(AdmissionController.MAX_CONCURRENCY, "1");
+        final ServicesManager manager = new ServicesManager();
+        manager.init(config);
+
+        final Properties parameters = new Properties();
+        parameters.setProperty(AdmissionController.PRIORITY_PARAMETER, "high");
+        try {
+            manager.service(BatchKernelService.class).startJob(manager.service(JobXMLLoaderService.class).loadJSL("cluster-queue"), parameters);
+            fail();
+        } catch (final JobStartException jse) {
+            assertTrue(jse.getMessage().contains("'high'"), jse.getMessage());
+        }
+        assertEquals(manager.service(PersistenceManagerService.class).jobOperatorGetJobInstanceCount("cluster-queue"), 0);
+    }
+
+    private static void submit(final AdmissionController controller, final long id, final String name, final int priority, final String tags) {
+        assertTrue(controller.reserve());
+
+        final Properties params = new Properties();
+        params.setProperty(AdmissionController.PRIORITY_PARAMETER, Integer.toString(priority));
+        if (tags != null) {
+            params.setProperty(AdmissionController.TAGS_PARAMETER, tags);
+        }
+        controller.submit(id, name, params, new IdRunnable(id));
+    }
+
+    private static List<Long> asList(final long... ids) {
+        final List<Long> list = new ArrayList<Long>();
+        for (final long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static class IdRunnable implements Runnable {
+        private final long id;
+
+        private IdRunnable(final long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            // no-op
+        }
+    }
+
+    private static class RecordingThreadPool implements BatchThreadPoolService {
+        private final List<Long> executed = new ArrayList<Long>();
+        private long failing = -1;
+
+        @Override
+        public void executeTask(final Runnable work, final Object config) {
+            final long id = IdRunnable.class.cast(work).id;
+            if (id == failing) {
+                throw new IllegalStateException("pool is full");
+            }
+            executed.add(id);
+        }
+
+        @Override
+        public void shutdown() {
+            // no-op
+        }
+
+        @Override
+        public void init(final Properties batchConfig) {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.kernel;
+
+import org.apache.batchee.container.impl.jobinstance.JobExecutionHelper;
+import org.apache.batchee.container.services.BatchKernelService;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.persistence.JDBCPersistenceManagerService;
+import org.apache.batchee.spi.JobXMLLoaderService;
+import org.apache.batchee.spi.PersistenceManagerService;
+import org.testng.annotations.Test;
+
+import javax.batch.api.AbstractBatchlet;
+import javax.batch.api.BatchProperty;
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.context.JobContext;
+import javax.inject.Inject;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ClusterQueueTest {
+    private static final ConcurrentHashMap<Long, CountDownLatch> RUNNING = new ConcurrentHashMap<Long, CountDownLatch>();
+    private static final Semaphore STARTED = new Semaphore(0);
+
+    @Test
+    public void distributeAndStop() throws Exception {
+        final String url = "jdbc:derby:memory:batchee-cluster-distribute;create=true";
+        final ServicesManager a = node(url, "a");
+        try {
+            final long blocking = start(a, true);
+            assertTrue(STARTED.tryAcquire(1, TimeUnit.MINUTES));
+            assertEquals(owner(url, blocking), "a");
+
+            final long waiting = start(a, false); // "a" has a single slot
+            assertEquals(status(a, waiting), BatchStatus.STARTING);
+
+            final ServicesManager b = node(url, "b");
+            try {
+                assertEquals(waitFor(b, waiting), BatchStatus.COMPLETED);
+
+                b.service(BatchKernelService.class).stopJob(blocking); // routed to "a"
+                assertEquals(waitFor(b, blocking), BatchStatus.STOPPED);
+            } finally {
+                leave(b);
+            }
+        } finally {
+            leave(a);
+        }
+    }
+
+    @Test
+    public void recoverDeadNodes() throws Exception {
+        final String url = "jdbc:derby:memory:batchee-cluster-recover;create=true";
+        final ServicesManager a = node(url, "a");
+        final ServicesManager b = node(url, "b");
+        try {
+            // a node which stopped to send heartbeats
+            final Properties parameters = new Properties();
+            parameters.setProperty("block", "false");
+            final long ghost = JobExecutionHelper.startJob(a, loadJSL(a), parameters).getExecutionId();
+            execute(url, "insert into BATCHEE.BATCH_CLUSTERNODE(name, heartbeat) values ('ghost', ?)", new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+            execute(url, "insert into BATCHEE.BATCH_JOBQUEUE(executionId, priority, node, stopRequested, enqueueTime) values (" + ghost + ", 0, 'ghost', 0, ?)",
+                new Timestamp(System.currentTimeMillis()));
+            assertEquals(waitFor(a, ghost), BatchStatus.FAILED);
+
+            // a node leaving while it runs a job stops it
+            final long blocking = start(a, true);
+            assertTrue(STARTED.tryAcquire(1, TimeUnit.MINUTES));
+            final String owner = owner(url, blocking);
+            final ServicesManager leaving = "a".equals(owner) ? a : b;
+            final ServicesManager survivor = leaving == a ? b : a;
+            leave(leaving);
+            assertFalse(RUNNING.containsKey(blocking));
+            assertEquals(waitFor(survivor, blocking), BatchStatus.STOPPED);
+
+            final Properties restart = new Properties();
+            restart.setProperty("block", "false");
+            final long restartId = survivor.service(BatchKernelService.class).restartJob(blocking, restart).getExecutionId();
+            assertEquals(waitFor(survivor, restartId), BatchStatus.COMPLETED);
+        } finally {
+            leave(a);
+            leave(b);
+        }
+    }
+
+    @Test
+    public void skewedClockIsNotDead() throws Exception {
+        final String url = "jdbc:derby:memory:batchee-cluster-skew;create=true";
+        final ServicesManager a = node(url, "a");
+        try {
+            // a node whose clock is one hour late but which keeps sending heartbeats
+            final Properties parameters = new Properties();
+            parameters.setProperty("block", "false");
+            final long skewed = JobExecutionHelper.startJob(a, loadJSL(a), parameters).getExecutionId();
+            final long late = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+            execute(url, "insert into BATCHEE.BATCH_CLUSTERNODE(name, heartbeat) values ('skewed', ?)", new Timestamp(late));
+            execute(url, "insert into BATCHEE.BATCH_JOBQUEUE(executionId, priority, node, stopRequested, enqueueTime) values (" + skewed + ", 0, 'skewed', 0, ?)",
+                new Timestamp(late));
+
+            final long alive = System.currentTimeMillis() + 7000; // longer than the node timeout
+            while (System.currentTimeMillis() < alive) {
+                execute(url, "update BATCHEE.BATCH_CLUSTERNODE set heartbeat = ? where name = 'skewed'",
+                    new Timestamp(late + System.currentTimeMillis() - alive));
+                Thread.sleep(500);
+            }
+            assertEquals(owner(url, skewed), "skewed");
+            assertEquals(status(a, skewed), BatchStatus.STARTING);
+
+            // no more heartbeats
+            assertEquals(waitFor(a, skewed), BatchStatus.FAILED);
+        } finally {
+            leave(a);
+        }
+    }
+
+    @Test
+    public void lateNodeStopsLostExecutions() throws Exception {
+        final String url = "jdbc:derby:memory:batchee-cluster-late;create=true";
+        final ServicesManager a = node(url, "a");
+        try {
+            final long blocking = start(a, true);
+            assertTrue(STARTED.tryAcquire(1, TimeUnit.MINUTES));
+
+            // what another node does when the heartbeat of "a" is late: "a" is unregistered and its executions failed
+            execute(url, "delete from BATCHEE.BATCH_CLUSTERNODE where name = 'a' and heartbeat > ?", new Timestamp(0));
+            execute(url, "delete from BATCHEE.BATCH_JOBQUEUE where executionId = " + blocking + " and enqueueTime > ?", new Timestamp(0));
+            final PersistenceManagerService persistence = a.service(PersistenceManagerService.class);
+            persistence.updateWithFinalExecutionStatusesAndTimestamps(blocking, BatchStatus.FAILED, "recovered", new Timestamp(System.currentTimeMillis()));
+
+            // stopped on the next heartbeat, once ended locally "a" puts back the FAILED status on the execution and the instance
+            final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+            while ((!"FAILED".equals(persistence.jobOperatorGetJobExecution(blocking).getExitStatus())
+                    || persistence.getJobStatusFromExecution(blocking).getBatchStatus() != BatchStatus.FAILED)
+                    && System.currentTimeMillis() < end) {
+                Thread.sleep(50);
+            }
+            assertFalse(RUNNING.containsKey(blocking));
+            assertEquals(status(a, blocking), BatchStatus.FAILED);
+            assertEquals(persistence.getJobStatusFromExecution(blocking).getBatchStatus(), BatchStatus.FAILED);
+        } finally {
+            leave(a);
+        }
+    }
+
+    private static ServicesManager node(final String url, final String name) {
+        final Properties config = new Properties();
+        config.setProperty("PersistenceManagerService", JDBCPersistenceManagerService.class.getName());
+        config.setProperty("persistence.database.url", url);
+        config.setProperty(ClusterMembership.ENABLED, "true");
+        config.setProperty(ClusterMembership.NODE, name);
+        config.setProperty(ClusterMembership.MAX_CONCURRENCY, "1");
+        config.setProperty(ClusterMembership.POLL_INTERVAL, "50");
+        config.setProperty(ClusterMembership.HEARTBEAT_INTERVAL, "100");
+        config.setProperty(ClusterMembership.NODE_TIMEOUT, "5000");
+
+        final ServicesManager manager = new ServicesManager();
+        manager.init(config);
+        manager.service(BatchKernelService.class); // joins the cluster
+        return manager;
+    }
+
+    private static void leave(final ServicesManager manager) {
+        DefaultBatchKernel.class.cast(manager.service(BatchKernelService.class)).leaveCluster();
+    }
+
+    private static String loadJSL(final ServicesManager manager) {
+        return manager.service(JobXMLLoaderService.class).loadJSL("cluster-queue");
+    }
+
+    private static long start(final ServicesManager manager, final boolean block) {
+        final Properties parameters = new Properties();
+        parameters.setProperty("block", Boolean.toString(block));
+        return manager.service(BatchKernelService.class).startJob(loadJSL(manager), parameters).getExecutionId();
+    }
+
+    private static BatchStatus status(final ServicesManager manager, final long id) {
+        return manager.service(PersistenceManagerService.class).jobOperatorGetJobExecution(id).getBatchStatus();
+    }
+
+    private static BatchStatus waitFor(final ServicesManager manager, final long id) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        BatchStatus status;
+        do {
+            status = status(manager, id);
+            if (status == BatchStatus.COMPLETED || status == BatchStatus.FAILED || status == BatchStatus.STOPPED || status == BatchStatus.ABANDONED) {
+                return status;
+            }
+            Thread.sleep(50);
+        } while (System.currentTimeMillis() < end);
+        return status;
+    }
+
+    private static String owner(final String url, final long id) throws SQLException {
+        final Connection connection = DriverManager.getConnection(url, "app", "app");
+        try {
+            final PreparedStatement statement = connection.prepareStatement("select node from BATCHEE.BATCH_JOBQUEUE where executionId = ?");
+            statement.setLong(1, id);
+            final ResultSet rs = statement.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void execute(final String url, final String sql, final Timestamp timestamp) throws SQLException {
+        final Connection connection = DriverManager.getConnection(url, "app", "app");
+        try {
+            final PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setTimestamp(1, timestamp);
+            statement.executeUpdate();
+        } finally {
+            connection.close();
+        }
+    }
+
+    public static class Blocking extends AbstractBatchlet {
+        @Inject
+        private JobContext jobContext;
+
+        @Inject
+        @BatchProperty
+        private String block;
+
+        @Override
+        public String process() throws Exception {
+            if (!Boolean.parseBoolean(block)) {
+                return "done";
+            }
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            RUNNING.put(jobContext.getExecutionId(), latch);
+            STARTED.release();
+            latch.await(); // a dead node never finishes its job
+            return "stopped";
+        }
+
+        @Override
+        public void stop() throws Exception {
+            final CountDownLatch latch = RUNNING.remove(jobContext.getExecutionId());
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.metrics;
+
+import org.apache.batchee.container.impl.StepContextImpl;
+import org.apache.batchee.container.impl.controller.chunk.ChunkStepLatencies;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class StepMetricsRegistryTest {
+    @Test
+    public void onlyEndedStepsAreEvicted() {
+        final StepMetricsRegistry registry = newRegistry();
+        final ChunkStepLatencies running = registry.chunkStepStarted(1, "running");
+        registry.chunkStepEnded(registry.chunkStepStarted(2, "old"));
+        registry.chunkStepEnded(registry.chunkStepStarted(3, "recent"));
+
+        assertSame(registry.getChunkLatencies(1, "running"), running);
+        assertNull(registry.getChunkLatencies(2, "old"));
+        assertNotNull(registry.getChunkLatencies(3, "recent"));
+    }
+
+    @Test
+    public void stepEndsWithItsLastPartition() {
+        final StepMetricsRegistry registry = newRegistry();
+        final ChunkStepLatencies partition1 = registry.chunkStepStarted(1, "partitioned");
+        final ChunkStepLatencies partition2 = registry.chunkStepStarted(1, "partitioned");
+        assertSame(partition1, partition2);
+
+        registry.chunkStepEnded(partition1);
+        registry.chunkStepEnded(registry.chunkStepStarted(2, "other"));
+        assertSame(registry.getChunkLatencies(1, "partitioned"), partition2);
+
+        registry.chunkStepEnded(partition2);
+        assertNull(registry.getChunkLatencies(2, "other"));
+        assertSame(registry.getChunkLatencies(1, "partitioned"), partition2);
+    }
+
+    @Test
+    public void registriesAreIndependent() {
+        final StepMetricsRegistry first = newRegistry();
+        final StepMetricsRegistry second = newRegistry();
+        final ChunkStepLatencies latencies = first.chunkStepStarted(1, "step");
+        assertNull(second.getChunkLatencies(1, "step"));
+
+        second.chunkStepEnded(second.chunkStepStarted(1, "step"));
+        second.chunkStepEnded(second.chunkStepStarted(2, "step"));
+        assertSame(first.getChunkLatencies(1, "step"), latencies);
+    }
+
+    @Test
+    public void runningStepsAreScopedToTheirRegistry() {
+        final StepMetricsRegistry first = newRegistry();
+        final StepMetricsRegistry second = newRegistry();
+        final StepContextImpl stepContext = new StepContextImpl("step");
+        first.stepStarted(1, stepContext);
+        assertEquals(first.getRunningExecutions(), Collections.singleton(1L));
+        assertTrue(first.getRunningStepMetrics(1).containsKey("step.durationMs"));
+        assertTrue(second.getRunningExecutions().isEmpty());
+
+        first.stepEnded(stepContext);
+        assertTrue(first.getRunningStepMetrics(1).isEmpty());
+    }
+
+    private static StepMetricsRegistry newRegistry() {
+        final Properties config = new Properties();
+        config.setProperty(ChunkStepLatencies.RETAINED, "1");
+
+        final StepMetricsRegistry registry = new StepMetricsRegistry();
+        registry.init(config);
+        return registry;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.container.services.persistence;
+
+import org.apache.batchee.container.impl.controller.chunk.CheckpointData;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointDataKey;
+import org.apache.batchee.container.impl.controller.chunk.CheckpointType;
+import org.apache.batchee.spi.PersistenceManagerService;
+import org.testng.annotations.Test;
+
+import javax.batch.operations.NoSuchJobExecutionException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class MonitoredPersistenceTest {
+    @Test
+    public void inactiveByDefault() {
+        final MemoryPersistenceManagerService service = new MemoryPersistenceManagerService();
+        assertSame(MonitoredPersistence.decorate(service, new Properties()), service);
+        assertNull(MonitoredPersistence.statistics(service));
+        assertSame(MonitoredPersistence.unwrap(service), service);
+    }
+
+    @Test
+    public void statistics() {
+        final Properties config = new Properties();
+        config.setProperty(MonitoredPersistence.ACTIVE, "true");
+
+        final MemoryPersistenceManagerService delegate = new MemoryPersistenceManagerService();
+        delegate.init(config);
+        final PersistenceManagerService service = MonitoredPersistence.decorate(delegate, config);
+        assertSame(MonitoredPersistence.unwrap(service), delegate);
+        assertSame(MonitoredPersistence.decorate(service, config), service); // not decorated twice
+
+        final long instanceId = service.createJobInstance("job", null, "<job />").getInstanceId();
+        final CheckpointDataKey key = new CheckpointDataKey(instanceId, "step", CheckpointType.READER);
+        final CheckpointData data = new CheckpointData(instanceId, "step", CheckpointType.READER);
+        data.setRestartToken(new byte[16]);
+        service.setCheckpointData(key, data);
+        service.setCheckpointData(key, data);
+        assertEquals(service.getCheckpointData(key).getRestartToken().length, 16);
+        try {
+            service.getJobInstanceIdByExecutionId(Long.MAX_VALUE);
+            fail();
+        } catch (final NoSuchJobExecutionException nsjee) {
+            // expected: the original exception is propagated
+        }
+
+        final PersistenceStatistics statistics = MonitoredPersistence.statistics(service);
+        final PersistenceStatistics.MethodStatistics write = statistics.getMethods().get("setCheckpointData");
+        assertEquals(write.getCallCount(), 2);
+        assertEquals(write.getFailedCount(), 0);
+        assertEquals(write.getPayloadBytes(), 32);
+        assertTrue(write.getLatency().getTotal(TimeUnit.NANOSECONDS) > 0);
+        assertEquals(statistics.getMethods().get("getCheckpointData").getPayloadBytes(), 16);
+        assertEquals(statistics.getMethods().get("getJobInstanceIdByExecutionId").getFailedCount(), 1);
+        assertEquals(statistics.toMap().get("setCheckpointData.count").longValue(), 2);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.data;
+
+import org.apache.batchee.container.services.data.BinaryDataRepresentationService;
+import org.apache.batchee.container.services.data.DefaultDataRepresentationService;
+import org.apache.batchee.container.services.data.TypeCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class BinaryDataRepresentationServiceTest {
+    private final BinaryDataRepresentationService service = newService();
+
+    @Test
+    public void nulls() {
+        Assert.assertNull(service.toInternalRepresentation(null));
+        Assert.assertNull(service.toJavaRepresentation(null));
+    }
+
+    @Test
+    public void scalars() {
+        assertRoundTrip("a checkpoint");
+        assertRoundTrip("");
+        assertRoundTrip(4711);
+        assertRoundTrip(-1);
+        assertRoundTrip(Long.MAX_VALUE);
+        assertRoundTrip(Long.MIN_VALUE);
+        assertRoundTrip(12.34d);
+        assertRoundTrip(12.34f);
+        assertRoundTrip(true);
+        assertRoundTrip((short) 12);
+        assertRoundTrip((byte) 3);
+        assertRoundTrip('c');
+        assertRoundTrip(new Date());
+        assertRoundTrip(new BigInteger("123456789012345678901234567890"));
+        assertRoundTrip(new BigDecimal("-1234567890.0987654321"));
+        assertRoundTrip(DefaultDataRepresentationServiceTest.MySampleEnum.VALUE2);
+
+        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        timestamp.setNanos(123456789);
+        assertRoundTrip(timestamp);
+
+        final byte[] bytes = { 1, 2, 3 };
+        Assert.assertArrayEquals(bytes, (byte[]) service.toJavaRepresentation(service.toInternalRepresentation(bytes)));
+    }
+
+    @Test
+    public void collections() {
+        final Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("offset", 1234L);
+        map.put("files", new ArrayList<String>(java.util.Arrays.asList("a.csv", "b.csv")));
+        map.put("done", new LinkedHashSet<Integer>(java.util.Arrays.asList(3, 1, 2)));
+        map.put("pending", new LinkedList<Object>());
+        map.put("nested", new HashMap<String, String>());
+        map.put("nothing", null);
+
+        final Object read = assertRoundTrip(map);
+        Assert.assertEquals(LinkedHashMap.class, read.getClass());
+        Assert.assertEquals(new ArrayList<String>(map.keySet()), new ArrayList<Object>(((Map<?, ?>) read).keySet()));
+        Assert.assertEquals(LinkedHashSet.class, ((Map<?, ?>) read).get("done").getClass());
+    }
+
+    @Test
+    public void customCodec() {
+        final Properties config = new Properties();
+        config.setProperty(BinaryDataRepresentationService.CODECS, PositionCodec.class.getName());
+        final BinaryDataRepresentationService withCodec = new BinaryDataRepresentationService();
+        withCodec.init(config);
+
+        final Position position = new Position("input.csv", 42);
+        final byte[] binary = withCodec.toInternalRepresentation(position);
+        final byte[] serialized = service.toInternalRepresentation(position); // no codec so java serialization
+        Assert.assertTrue(binary.length < serialized.length);
+        Assert.assertEquals(position, withCodec.toJavaRepresentation(binary));
+        Assert.assertEquals(position, withCodec.toJavaRepresentation(serialized));
+    }
+
+    @Test
+    public void readsPreviousFormat() {
+        final DefaultDataRepresentationService previous = new DefaultDataRepresentationService();
+        Assert.assertEquals("old", service.toJavaRepresentation(previous.toInternalRepresentation("old")));
+        Assert.assertEquals(12L, service.<Object>toJavaRepresentation(previous.toInternalRepresentation(12L)));
+        Assert.assertEquals(DefaultDataRepresentationServiceTest.MySampleEnum.VALUE1,
+            service.toJavaRepresentation(previous.toInternalRepresentation(DefaultDataRepresentationServiceTest.MySampleEnum.VALUE1)));
+
+        final Position position = new Position("old.csv", 1);
+        Assert.assertEquals(position, service.toJavaRepresentation(previous.toInternalRepresentation(position)));
+    }
+
+    @Test
+    public void smallerThanPreviousFormat() {
+        final Map<String, Long> offsets = new HashMap<String, Long>();
+        for (int i = 0; i < 100; i++) {
+            offsets.put("file-" + i, (long) i * 1000);
+        }
+        final List<Long> ids = new ArrayList<Long>();
+        for (long i = 0; i < 100; i++) {
+            ids.add(i);
+        }
+
+        final DefaultDataRepresentationService previous = new DefaultDataRepresentationService();
+        Assert.assertTrue(service.toInternalRepresentation(offsets).length < previous.toInternalRepresentation(offsets).length * 2 / 3);
+        Assert.assertTrue(service.toInternalRepresentation(ids).length < previous.toInternalRepresentation(ids).length / 3);
+        Assert.assertTrue(service.toInternalRepresentation(123L).length < previous.toInternalRepresentation(123L).length / 4);
+    }
+
+    private Object assertRoundTrip(final Object value) {
+        final Object read = service.toJavaRepresentation(service.toInternalRepresentation(value));
+        Assert.assertEquals(value, read);
+        Assert.assertEquals(value.getClass(), read.getClass());
+        return read;
+    }
+
+    private static BinaryDataRepresentationService newService() {
+        final BinaryDataRepresentationService service = new BinaryDataRepresentationService();
+        service.init(new Properties());
+        return service;
+    }
+
+    public static class Position implements Serializable {
+        private final String file;
+        private final long line;
+
+        public Position(final String file, final long line) {
+            this.file = file;
+            this.line = line;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return Position.class.isInstance(o) && file.equals(Position.class.cast(o).file) && line == Position.class.cast(o).line;
+        }
+
+        @Override
+        public int hashCode() {
+            return file.hashCode();
+        }
+    }
+
+    public static class PositionCodec implements TypeCodec<Position> {
+        @Override
+        public Class<Position> getType() {
+            return Position.class;
+        }
+
+        @Override
+        public String getId() {
+            return "position";
+        }
+
+        @Override
+        public void write(final Position value, final DataOutput out, final BinaryDataRepresentationService service) throws IOException {
+            BinaryDataRepresentationService.writeString(out, value.file);
+            BinaryDataRepresentationService.writeVarLong(out, value.line);
+        }
+
+        @Override
+        public Position read(final DataInput in, final BinaryDataRepresentationService service) throws IOException {
+            return new Position(BinaryDataRepresentationService.readString(in), BinaryDataRepresentationService.readVarLong(in));
+        }
+    }
+}
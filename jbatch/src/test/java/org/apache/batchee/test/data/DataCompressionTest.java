@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.data;
+
+import org.apache.batchee.container.services.data.BinaryDataRepresentationService;
+import org.apache.batchee.container.services.data.DataCompression;
+import org.apache.batchee.container.services.data.DefaultDataRepresentationService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class DataCompressionTest {
+    @Test
+    public void smallDataIsNotCompressed() {
+        final DataCompression compression = new DataCompression(config("1024"));
+        final byte[] data = "a small checkpoint".getBytes();
+        Assert.assertSame(data, compression.compress(data));
+        Assert.assertEquals(0L, compression.getStatistics().get("compressed").longValue());
+    }
+
+    @Test
+    public void roundTrip() {
+        final DataCompression compression = new DataCompression(config("16"));
+        final byte[] data = bigString().getBytes();
+        final byte[] compressed = compression.compress(data);
+        Assert.assertTrue(compressed.length < data.length / 4);
+        Assert.assertArrayEquals(data, compression.decompress(compressed));
+
+        final Map<String, Long> statistics = compression.getStatistics();
+        Assert.assertEquals(1L, statistics.get("compressed").longValue());
+        Assert.assertEquals(1L, statistics.get("decompressed").longValue());
+        Assert.assertEquals(data.length, statistics.get("uncompressedBytes").longValue());
+        Assert.assertEquals(compressed.length, statistics.get("compressedBytes").longValue());
+        Assert.assertTrue(statistics.get("ratioPercent") < 25);
+    }
+
+    @Test
+    public void defaultDataRepresentationService() {
+        assertTransparent(new DefaultDataRepresentationService(), new DefaultDataRepresentationService());
+    }
+
+    @Test
+    public void binaryDataRepresentationService() {
+        assertTransparent(new BinaryDataRepresentationService(), new BinaryDataRepresentationService());
+    }
+
+    private static void assertTransparent(final DefaultDataRepresentationService uncompressed, final DefaultDataRepresentationService service) {
+        uncompressed.init(new Properties());
+        service.init(config("16"));
+
+        final List<String> value = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            value.add("item-" + i);
+        }
+
+        final byte[] raw = uncompressed.toInternalRepresentation(value);
+        final byte[] compressed = service.toInternalRepresentation(value);
+        Assert.assertTrue(compressed.length < raw.length);
+        Assert.assertEquals(value, service.<List<String>>toJavaRepresentation(compressed));
+        // data written before compression was enabled stays readable
+        Assert.assertEquals(value, service.<List<String>>toJavaRepresentation(raw));
+        Assert.assertEquals("small", service.toJavaRepresentation(service.toInternalRepresentation("small")));
+    }
+
+    private static String bigString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            builder.append("checkpoint-").append(i % 10).append(';');
+        }
+        return builder.toString();
+    }
+
+    private static Properties config(final String threshold) {
+        final Properties properties = new Properties();
+        properties.setProperty(DataCompression.THRESHOLD, threshold);
+        return properties;
+    }
+}
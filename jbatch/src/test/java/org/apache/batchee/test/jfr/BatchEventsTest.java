@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.jfr;
+
+import org.apache.batchee.container.jfr.BatchEvents;
+import org.apache.batchee.util.Batches;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class BatchEventsTest {
+    @Test
+    public void events() throws Exception {
+        final Class<?> recordingType;
+        try {
+            recordingType = Class.forName("jdk.jfr.Recording");
+        } catch (final ClassNotFoundException e) {
+            throw new SkipException("no flight recorder in this JVM");
+        }
+
+        assertFalse(BatchEvents.isRecording());
+
+        // jdk.jfr API is used by reflection to keep the test compiling on old JDKs
+        final Object recording = recordingType.newInstance();
+        recordingType.getMethod("start").invoke(recording);
+        final File dump = new File("target/flight-recorder-test.jfr");
+        dump.getParentFile().mkdirs();
+        try {
+            assertTrue(BatchEvents.isRecording());
+
+            final JobOperator op = BatchRuntime.getJobOperator();
+            Batches.waitForEnd(op, op.start("flight-recorder", null));
+        } finally {
+            recordingType.getMethod("stop").invoke(recording);
+        }
+        assertFalse(BatchEvents.isRecording());
+
+        final Class<?> pathType = Class.forName("java.nio.file.Path");
+        final Object path = File.class.getMethod("toPath").invoke(dump);
+        recordingType.getMethod("dump", pathType).invoke(recording, path);
+        recordingType.getMethod("close").invoke(recording);
+
+        final Map<String, Integer> counts = new HashMap<String, Integer>();
+        final List<?> events = List.class.cast(Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", pathType).invoke(null, path));
+        for (final Object event : events) {
+            final Object type = event.getClass().getMethod("getEventType").invoke(event);
+            final String name = String.class.cast(type.getClass().getMethod("getName").invoke(type));
+            if (name.startsWith("org.apache.batchee.")) {
+                final Integer count = counts.get(name);
+                counts.put(name, count == null ? 1 : count + 1);
+            }
+        }
+        assertTrue(dump.delete());
+
+        assertEquals(counts.get("org.apache.batchee.JobStart").intValue(), 1);
+        assertEquals(counts.get("org.apache.batchee.JobEnd").intValue(), 1);
+        assertEquals(counts.get("org.apache.batchee.StepStart").intValue(), 1);
+        assertEquals(counts.get("org.apache.batchee.StepEnd").intValue(), 1);
+        assertEquals(counts.get("org.apache.batchee.ChunkCommit").intValue(), 3); // 2 + 2 + end of data
+        assertEquals(counts.get("org.apache.batchee.Checkpoint").intValue(), 3);
+        assertEquals(counts.get("org.apache.batchee.Skip").intValue(), 1);
+    }
+
+    public static class Reader extends AbstractItemReader {
+        private int count;
+
+        @Override
+        public Object readItem() throws Exception {
+            count++;
+            if (count == 2) {
+                throw new IllegalStateException("skipped");
+            }
+            return count <= 5 ? count : null;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.metric;
+
+import org.apache.batchee.container.impl.StepExecutionImpl;
+import org.apache.batchee.container.impl.controller.chunk.ChunkStepLatencies;
+import org.apache.batchee.container.impl.controller.chunk.LatencyHistogram;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.StepExecution;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class ChunkLatenciesTest {
+    @Test
+    public void phases() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("chunk-latencies", null);
+        Batches.waitForEnd(op, id);
+
+        final ChunkStepLatencies latencies = ServicesManager.find().service(StepMetricsRegistry.class).getChunkLatencies(id, "latencies");
+        assertNotNull(latencies);
+        assertEquals(latencies.get(ChunkStepLatencies.Phase.READ).getCount(), 11); // 10 items + end of data
+        assertEquals(latencies.get(ChunkStepLatencies.Phase.WRITE).getCount(), 5);
+        assertTrue(latencies.get(ChunkStepLatencies.Phase.WRITE).getPercentile(50, TimeUnit.MILLISECONDS) >= 5);
+        assertTrue(latencies.get(ChunkStepLatencies.Phase.CHECKPOINT).getCount() > 0);
+        assertTrue(latencies.get(ChunkStepLatencies.Phase.COMMIT).getCount() > 0);
+        assertEquals(latencies.get(ChunkStepLatencies.Phase.LISTENERS).getCount(), 0);
+
+        final List<StepExecution> steps = op.getStepExecutions(id);
+        assertEquals(steps.size(), 1);
+        final Map<String, Long> summary = StepExecutionImpl.class.cast(steps.iterator().next()).getChunkLatencies();
+        assertEquals(summary.get("write.count").longValue(), 5);
+        assertEquals(ServicesManager.find().service(StepMetricsRegistry.class).getChunkLatencies(id).get("latencies.write.count").longValue(), 5);
+    }
+
+    @Test
+    public void histogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertEquals(histogram.getCount(), 1000);
+        assertEquals(histogram.getMax(TimeUnit.MICROSECONDS), 1000);
+        assertEquals(histogram.getMean(TimeUnit.MICROSECONDS), 500);
+        assertPrecision(histogram.getPercentile(50, TimeUnit.MICROSECONDS), 500);
+        assertPrecision(histogram.getPercentile(99, TimeUnit.MICROSECONDS), 990);
+    }
+
+    private static void assertPrecision(final long value, final long expected) {
+        assertTrue(value >= expected && value <= expected * 1.125, value + " for " + expected);
+    }
+
+    public static class Reader extends AbstractItemReader {
+        private int count;
+
+        @Override
+        public Object readItem() throws Exception {
+            return count++ < 10 ? count : null;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            Thread.sleep(5);
+        }
+    }
+}
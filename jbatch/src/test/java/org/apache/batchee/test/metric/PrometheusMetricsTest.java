@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.metric;
+
+import org.apache.batchee.metrics.PrometheusMetrics;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class PrometheusMetricsTest {
+    private static final CountDownLatch READ = new CountDownLatch(1);
+    private static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+    @Test
+    public void scrape() throws InterruptedException {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("prometheus-metrics", null);
+        final String labels = "{execution=\"" + id + "\",step=\"scraped\"";
+        try {
+            assertTrue(READ.await(1, TimeUnit.MINUTES));
+
+            final String running = PrometheusMetrics.scrape();
+            assertTrue(running.contains("# TYPE batchee_running_jobs gauge\n"), running);
+            assertTrue(running.contains("batchee_running_jobs{job=\"prometheus-metrics\"} 1\n"), running);
+            assertTrue(running.contains("# TYPE batchee_step_read_total counter\n"), running);
+            assertTrue(running.contains("batchee_step_read_total" + labels + "} 3\n"), running); // 2 checkpointed + 1 in the current chunk
+            assertTrue(running.contains("batchee_step_duration_seconds" + labels + "} "), running);
+            assertTrue(running.contains("# TYPE batchee_thread_pool_active_tasks gauge\n"), running);
+        } finally {
+            RELEASE.countDown();
+        }
+        Batches.waitForEnd(op, id);
+
+        final String ended = PrometheusMetrics.scrape();
+        assertFalse(ended.contains("batchee_step_read_total" + labels), ended);
+        assertTrue(ended.contains("# TYPE batchee_chunk_phase_seconds summary\n"), ended);
+        assertTrue(ended.contains("batchee_chunk_phase_seconds_count" + labels + ",phase=\"read\"} 7\n"), ended); // 6 items + end of data
+        assertTrue(ended.contains("batchee_chunk_phase_seconds" + labels + ",phase=\"write\",quantile=\"0.99\"} "), ended);
+        assertTrue(ended.contains("# TYPE batchee_data_compressed_total counter\n"), ended);
+    }
+
+    public static class Reader extends AbstractItemReader {
+        private int count;
+
+        @Override
+        public Object readItem() throws Exception {
+            if (count == 3) {
+                READ.countDown();
+                RELEASE.await(1, TimeUnit.MINUTES);
+            }
+            return count++ < 6 ? count : null;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.metric;
+
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class RunningStepMetricsTest {
+    private static final CountDownLatch READ = new CountDownLatch(1);
+    private static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+    @Test
+    public void visibleBeforeCheckpoint() throws InterruptedException {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("running-step-metrics", null);
+        try {
+            assertTrue(READ.await(1, TimeUnit.MINUTES));
+
+            final Map<String, Long> metrics = ServicesManager.find().service(StepMetricsRegistry.class).getRunningStepMetrics(id);
+            assertEquals(metrics.get("running.readCount").longValue(), 5); // the chunk is not checkpointed yet
+            assertEquals(metrics.get("running.writeCount").longValue(), 0);
+            assertTrue(metrics.get("running.readRate") > 0);
+        } finally {
+            RELEASE.countDown();
+        }
+        Batches.waitForEnd(op, id);
+        assertTrue(ServicesManager.find().service(StepMetricsRegistry.class).getRunningStepMetrics(id).isEmpty());
+    }
+
+    public static class Reader extends AbstractItemReader {
+        private int count;
+
+        @Override
+        public Object readItem() throws Exception {
+            if (count == 5) {
+                READ.countDown();
+                RELEASE.await(1, TimeUnit.MINUTES);
+            }
+            return count++ < 10 ? count : null;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.metric;
+
+import org.apache.batchee.container.impl.controller.chunk.ChunkStepLatencies;
+import org.apache.batchee.container.impl.controller.chunk.SlowItems;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.metrics.StepMetricsRegistry;
+import org.apache.batchee.jmx.BatchEEMBeanImpl;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.api.chunk.ItemProcessor;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SlowItemsTest {
+    @Test
+    public void traceOutliers() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("slow-items", null);
+        Batches.waitForEnd(op, id);
+
+        final SlowItems slowItems = ServicesManager.find().service(StepMetricsRegistry.class).getChunkLatencies(id, "traced").getSlowItems();
+        assertEquals(slowItems.getTracedCount(), 1);
+
+        final List<SlowItems.SlowItem> items = slowItems.getItems();
+        assertEquals(items.size(), 1);
+
+        final SlowItems.SlowItem item = items.iterator().next();
+        assertEquals(item.getPhase(), ChunkStepLatencies.Phase.PROCESS);
+        assertEquals(item.getChunk(), 2);
+        assertEquals(item.getItem(), "item..."); // truncated
+        assertTrue(item.getDuration(TimeUnit.MILLISECONDS) >= 200);
+
+        assertEquals(BatchEEMBeanImpl.INSTANCE.getSlowItems(id).size(), 1);
+    }
+
+    public static class Reader extends AbstractItemReader {
+        private int count;
+
+        @Override
+        public Object readItem() throws Exception {
+            return count++ < 5 ? "item-" + count : null;
+        }
+    }
+
+    public static class Processor implements ItemProcessor {
+        @Override
+        public Object processItem(final Object item) throws Exception {
+            if ("item-3".equals(item)) {
+                Thread.sleep(300);
+            }
+            return item;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.metric;
+
+import org.apache.batchee.container.impl.StepExecutionImpl;
+import org.apache.batchee.container.impl.UserMetrics;
+import org.apache.batchee.container.services.BatchKernelService;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.persistence.JDBCPersistenceManagerService;
+import org.apache.batchee.jmx.BatchEEMBeanImpl;
+import org.apache.batchee.metrics.StepMetrics;
+import org.apache.batchee.spi.JobXMLLoaderService;
+import org.apache.batchee.spi.PersistenceManagerService;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.AbstractBatchlet;
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.StepExecution;
+import javax.batch.runtime.context.StepContext;
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+public class UserMetricsTest {
+    @Test
+    public void aggregatedAndPersisted() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("user-metrics", null);
+        Batches.waitForEnd(op, id);
+        assertEquals(op.getJobExecution(id).getBatchStatus(), BatchStatus.COMPLETED);
+
+        final List<StepExecution> steps = op.getStepExecutions(id);
+        assertEquals(steps.size(), 1);
+
+        final Map<String, Long> metrics = StepExecutionImpl.class.cast(steps.iterator().next()).getUserMetrics();
+        assertEquals(metrics.get("rows"), Long.valueOf(10)); // 5 items per partition
+        assertEquals(metrics.get("bytes"), Long.valueOf(60));
+        assertEquals(metrics.get("upsert.count"), Long.valueOf(6)); // 3 chunks per partition
+        assertEquals(metrics.get("upsert.maxMs"), Long.valueOf(20));
+        assertEquals(metrics.get("upsert.totalMs"), Long.valueOf(100));
+
+        assertEquals(BatchEEMBeanImpl.INSTANCE.getUserMetrics(id).size(), 5);
+    }
+
+    @Test
+    public void rawMapRoundTrip() {
+        final UserMetrics metrics = new UserMetrics();
+        metrics.increment("rows", 3);
+        metrics.record("write.time", TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.record("write.time", TimeUnit.MILLISECONDS.toNanos(7));
+
+        final UserMetrics copy = new UserMetrics();
+        copy.mergeRaw(metrics.toRawMap());
+        assertEquals(copy.toMap(), metrics.toMap());
+    }
+
+    @Test
+    public void jdbcRestartReadsUserData() throws InterruptedException {
+        final Properties config = new Properties();
+        config.setProperty("PersistenceManagerService", JDBCPersistenceManagerService.class.getName());
+        config.setProperty("persistence.database.url", "jdbc:derby:memory:batchee-user-metrics-restart;create=true");
+        final ServicesManager manager = new ServicesManager();
+        manager.init(config);
+        FailOnce.restartedWith = null;
+
+        final BatchKernelService kernel = manager.service(BatchKernelService.class);
+        final long id = kernel.startJob(manager.service(JobXMLLoaderService.class).loadJSL("user-metrics-restart"), new Properties()).getExecutionId();
+        assertEquals(waitFor(manager, id), BatchStatus.FAILED);
+
+        // the step status shares the step execution data column, its user data must not be the wrapped metrics
+        final long restartId = kernel.restartJob(id, new Properties()).getExecutionId();
+        assertEquals(waitFor(manager, restartId), BatchStatus.COMPLETED);
+        assertEquals(FailOnce.restartedWith, "first run");
+
+        final List<StepExecution> steps = manager.service(PersistenceManagerService.class).getStepExecutionsForJobExecution(restartId);
+        assertEquals(steps.size(), 1);
+        assertEquals(steps.iterator().next().getPersistentUserData(), "first run");
+        assertEquals(StepExecutionImpl.class.cast(steps.iterator().next()).getUserMetrics().get("runs"), Long.valueOf(1));
+    }
+
+    private static BatchStatus waitFor(final ServicesManager manager, final long id) throws InterruptedException {
+        final PersistenceManagerService persistence = manager.service(PersistenceManagerService.class);
+        final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        BatchStatus status;
+        do {
+            status = persistence.jobOperatorGetJobExecution(id).getBatchStatus();
+            if (status == BatchStatus.COMPLETED || status == BatchStatus.FAILED || status == BatchStatus.STOPPED) {
+                return status;
+            }
+            Thread.sleep(50);
+        } while (System.currentTimeMillis() < end);
+        return status;
+    }
+
+    public static class FailOnce extends AbstractBatchlet {
+        private static volatile Serializable restartedWith;
+
+        @Inject
+        private StepContext stepContext;
+
+        @Override
+        public String process() throws Exception {
+            StepMetrics.class.cast(stepContext).increment("runs", 1);
+
+            final Serializable data = stepContext.getPersistentUserData();
+            if (data == null) {
+                stepContext.setPersistentUserData("first run");
+                throw new IllegalStateException("fail once");
+            }
+            restartedWith = data;
+            return "done";
+        }
+    }
+
+    public static class Reader extends AbstractItemReader {
+        private int count;
+
+        @Override
+        public Object readItem() throws Exception {
+            return count++ < 5 ? "item-" + count : null;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        @Inject
+        private StepContext stepContext;
+
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            final StepMetrics metrics = StepMetrics.class.cast(stepContext);
+            metrics.increment("rows", items.size());
+            for (final Object item : items) {
+                metrics.increment("bytes", item.toString().length());
+            }
+            metrics.record("upsert", 10L * items.size(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.partition;
+
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.AbstractBatchlet;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class DynamicDispatchPartitionTest {
+    private static final int PARTITIONS = 12;
+    private static final int THREADS = 3;
+    private static final String FAILING = "7";
+
+    private static final Collection<String> EXECUTED = new CopyOnWriteArrayList<String>();
+    private static final Collection<String> THREAD_NAMES = new CopyOnWriteArrayList<String>();
+    private static volatile boolean fail = true;
+
+    @Test
+    public void restartOnlyIncompleteRanges() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+
+        final long id = op.start("partition-dynamic-dispatch", null);
+        assertEquals(Batches.waitFor(op, id), BatchStatus.FAILED);
+        assertEquals(EXECUTED.size(), PARTITIONS);
+
+        final Collection<String> threads = new CopyOnWriteArrayList<String>();
+        for (final String name : THREAD_NAMES) {
+            if (!threads.contains(name)) {
+                threads.add(name);
+            }
+        }
+        assertTrue(threads.size() <= THREADS, threads.toString());
+
+        EXECUTED.clear();
+        fail = false;
+        final long restartId = op.restart(id, null);
+        assertEquals(Batches.waitFor(op, restartId), BatchStatus.COMPLETED);
+        assertEquals(EXECUTED.size(), 1);
+        assertEquals(EXECUTED.iterator().next(), FAILING);
+    }
+
+    public static class Mapper implements PartitionMapper {
+        @Override
+        public PartitionPlan mapPartitions() throws Exception {
+            final Properties[] properties = new Properties[PARTITIONS];
+            for (int i = 0; i < PARTITIONS; i++) {
+                properties[i] = new Properties();
+                properties[i].setProperty("idx", Integer.toString(i));
+            }
+
+            final PartitionPlan plan = new PartitionPlanImpl();
+            plan.setPartitions(PARTITIONS);
+            plan.setThreads(THREADS);
+            plan.setPartitionProperties(properties);
+            return plan;
+        }
+    }
+
+    public static class Range extends AbstractBatchlet {
+        @Inject
+        @BatchProperty
+        private String idx;
+
+        @Override
+        public String process() throws Exception {
+            EXECUTED.add(idx);
+            THREAD_NAMES.add(Thread.currentThread().getName());
+            if (fail && FAILING.equals(idx)) {
+                throw new IllegalStateException("range " + idx + " failed");
+            }
+            return "ok";
+        }
+    }
+}
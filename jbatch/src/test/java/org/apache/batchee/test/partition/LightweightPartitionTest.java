@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.partition;
+
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.spi.PersistenceManagerService;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.Metric;
+import javax.batch.runtime.StepExecution;
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LightweightPartitionTest {
+    private static final int PARTITIONS = 4;
+    private static final int ITEMS = 10;
+    private static final String FAILING = "3";
+    private static final int FAILING_ITEM = 5;
+
+    private static final Collection<String> READ = new CopyOnWriteArrayList<String>();
+    private static volatile boolean fail = true;
+    private static volatile boolean override = false;
+
+    @Test
+    public void restartFromCheckpointWithoutSubJobs() {
+        READ.clear();
+        fail = true;
+        final JobOperator op = BatchRuntime.getJobOperator();
+
+        final long id = op.start("partition-lightweight", null);
+        assertEquals(Batches.waitFor(op, id), BatchStatus.FAILED);
+
+        final long instanceId = op.getJobInstance(id).getInstanceId();
+        final PersistenceManagerService persistence = ServicesManager.find().service(PersistenceManagerService.class);
+        for (int i = 0; i < PARTITIONS; i++) {
+            assertTrue(persistence.jobOperatorGetJobInstanceIds(":" + instanceId + ":chunks:" + i, 0, 1).isEmpty());
+        }
+
+        READ.clear();
+        fail = false;
+        final long restartId = op.restart(id, null);
+        assertEquals(Batches.waitFor(op, restartId), BatchStatus.COMPLETED);
+
+        // only the failed partition, from its last checkpoint (items 0-3 were committed)
+        assertEquals(READ.size(), ITEMS - 4);
+        for (final String item : READ) {
+            assertTrue(item.startsWith(FAILING + "-"), item);
+        }
+
+        final List<StepExecution> steps = op.getStepExecutions(restartId);
+        assertEquals(steps.size(), 1);
+        for (final Metric metric : steps.iterator().next().getMetrics()) {
+            if (Metric.MetricType.READ_COUNT.equals(metric.getType())) {
+                assertEquals(metric.getValue(), ITEMS - 4);
+            }
+        }
+    }
+
+    @Test
+    public void overrideIgnoresPreviousCheckpoints() {
+        READ.clear();
+        fail = true;
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("partition-lightweight", null);
+        assertEquals(Batches.waitFor(op, id), BatchStatus.FAILED);
+
+        READ.clear();
+        fail = false;
+        override = true;
+        try {
+            final long restartId = op.restart(id, null);
+            assertEquals(Batches.waitFor(op, restartId), BatchStatus.COMPLETED);
+        } finally {
+            override = false;
+        }
+
+        // new partitions: all of them from their first item
+        assertEquals(READ.size(), PARTITIONS * ITEMS);
+        for (int i = 0; i < PARTITIONS; i++) {
+            assertTrue(READ.contains(i + "-0"), Integer.toString(i));
+        }
+    }
+
+    public static class Mapper implements PartitionMapper {
+        @Override
+        public PartitionPlan mapPartitions() throws Exception {
+            final Properties[] properties = new Properties[PARTITIONS];
+            for (int i = 0; i < PARTITIONS; i++) {
+                properties[i] = new Properties();
+                properties[i].setProperty("idx", Integer.toString(i));
+            }
+
+            final PartitionPlan plan = new PartitionPlanImpl();
+            plan.setPartitions(PARTITIONS);
+            plan.setThreads(2);
+            plan.setPartitionProperties(properties);
+            plan.setPartitionsOverride(override);
+            return plan;
+        }
+    }
+
+    public static class Reader extends AbstractItemReader {
+        @Inject
+        @BatchProperty
+        private String idx;
+
+        private int position;
+
+        @Override
+        public void open(final Serializable checkpoint) throws Exception {
+            if (checkpoint != null) {
+                position = Integer.class.cast(checkpoint);
+            }
+        }
+
+        @Override
+        public Object readItem() throws Exception {
+            if (position == ITEMS) {
+                return null;
+            }
+            if (fail && FAILING.equals(idx) && position == FAILING_ITEM) {
+                throw new IllegalStateException("item " + position + " of partition " + idx + " failed");
+            }
+            final String item = idx + "-" + position++;
+            READ.add(item);
+            return item;
+        }
+
+        @Override
+        public Serializable checkpointInfo() throws Exception {
+            return position;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            // no-op
+        }
+    }
+}
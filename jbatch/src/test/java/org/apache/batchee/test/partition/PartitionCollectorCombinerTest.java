@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.partition;
+
+import org.apache.batchee.spi.PartitionCollectorCombiner;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.api.partition.AbstractPartitionAnalyzer;
+import javax.batch.api.partition.PartitionCollector;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class PartitionCollectorCombinerTest {
+    private static final int PARTITIONS = 4;
+    private static final int ITEMS = 10;
+
+    private static final AtomicInteger ANALYZED_CALLS = new AtomicInteger();
+    private static final AtomicInteger ANALYZED_ITEMS = new AtomicInteger();
+
+    @Test
+    public void onePayloadPerPartition() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("partition-collector-combiner", null);
+        assertEquals(Batches.waitFor(op, id), BatchStatus.COMPLETED);
+        assertEquals(ANALYZED_ITEMS.get(), PARTITIONS * ITEMS);
+        assertEquals(ANALYZED_CALLS.get(), PARTITIONS); // instead of one per chunk (5 per partition)
+    }
+
+    public static class Reader extends AbstractItemReader {
+        @Inject
+        @BatchProperty(name = "partition")
+        private String partition;
+
+        private int read = 0;
+
+        @Override
+        public Object readItem() throws Exception {
+            if (read == ITEMS) {
+                return null;
+            }
+            return partition + "-" + read++;
+        }
+    }
+
+    public static class Writer extends AbstractItemWriter {
+        private static final ThreadLocal<Integer> WRITTEN = new ThreadLocal<Integer>();
+
+        @Override
+        public void writeItems(final List<Object> items) throws Exception {
+            WRITTEN.set(items.size());
+        }
+    }
+
+    public static class Collector implements PartitionCollector {
+        @Override
+        public Serializable collectPartitionData() throws Exception {
+            final Integer written = Writer.WRITTEN.get();
+            Writer.WRITTEN.remove();
+            return written == null ? 0 : written;
+        }
+    }
+
+    public static class Sum implements PartitionCollectorCombiner {
+        @Override
+        public Serializable combine(final Serializable combined, final Serializable data) {
+            return (combined == null ? 0 : Integer.class.cast(combined)) + Integer.class.cast(data);
+        }
+    }
+
+    public static class Analyzer extends AbstractPartitionAnalyzer {
+        @Override
+        public void analyzeCollectorData(final Serializable data) throws Exception {
+            ANALYZED_CALLS.incrementAndGet();
+            ANALYZED_ITEMS.addAndGet(Integer.class.cast(data));
+        }
+    }
+}
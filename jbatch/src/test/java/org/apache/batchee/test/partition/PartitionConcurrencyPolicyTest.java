@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.partition;
+
+import org.apache.batchee.spi.PartitionConcurrencyPolicy;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.AbstractBatchlet;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class PartitionConcurrencyPolicyTest {
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+    private static final AtomicInteger PEAK = new AtomicInteger();
+    private static final AtomicInteger EXECUTED = new AtomicInteger();
+
+    @Test
+    public void policyBoundsRunningPartitions() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final long id = op.start("partition-concurrency-policy", null);
+        assertEquals(Batches.waitFor(op, id), BatchStatus.COMPLETED);
+        assertEquals(EXECUTED.get(), 8);
+        assertEquals(PEAK.get(), 2); // plan allows 4 threads
+    }
+
+    public static class TwoAtATime implements PartitionConcurrencyPolicy {
+        @Override
+        public int start(final Properties stepProperties, final int maxConcurrency) {
+            return 1;
+        }
+
+        @Override
+        public int adjust(final PartitionResult result, final int currentConcurrency, final int maxConcurrency) {
+            return 2;
+        }
+    }
+
+    public static class Work extends AbstractBatchlet {
+        @Override
+        public String process() throws Exception {
+            final int running = RUNNING.incrementAndGet();
+            int peak;
+            do {
+                peak = PEAK.get();
+            } while (running > peak && !PEAK.compareAndSet(peak, running));
+
+            Thread.sleep(50);
+            EXECUTED.incrementAndGet();
+            RUNNING.decrementAndGet();
+            return "ok";
+        }
+    }
+}
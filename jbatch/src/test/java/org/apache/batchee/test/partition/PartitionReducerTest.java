@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.partition;
+
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.AbstractBatchlet;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.partition.AbstractPartitionReducer;
+import javax.batch.api.partition.PartitionReducer.PartitionStatus;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.inject.Inject;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+
+public class PartitionReducerTest {
+    private static volatile PartitionStatus status;
+
+    @Test
+    public void commitWhenPartitionsSucceed() {
+        assertEquals(run(false), BatchStatus.COMPLETED);
+        assertEquals(status, PartitionStatus.COMMIT);
+    }
+
+    @Test
+    public void rollbackWhenAPartitionFails() {
+        assertEquals(run(true), BatchStatus.FAILED);
+        assertEquals(status, PartitionStatus.ROLLBACK);
+    }
+
+    private static BatchStatus run(final boolean fail) {
+        status = null;
+
+        final Properties parameters = new Properties();
+        parameters.setProperty("fail", Boolean.toString(fail));
+
+        final JobOperator op = BatchRuntime.getJobOperator();
+        return Batches.waitFor(op, op.start("partition-reducer", parameters));
+    }
+
+    public static class Work extends AbstractBatchlet {
+        @Inject
+        @BatchProperty
+        private String fail;
+
+        @Override
+        public String process() throws Exception {
+            if (Boolean.parseBoolean(fail)) {
+                throw new IllegalStateException("partition failed");
+            }
+            return "done";
+        }
+    }
+
+    public static class Reducer extends AbstractPartitionReducer {
+        @Override
+        public void afterPartitionedStepCompletion(final PartitionStatus partitionStatus) throws Exception {
+            status = partitionStatus;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.partition;
+
+import org.apache.batchee.container.impl.StepExecutionImpl;
+import org.apache.batchee.container.partition.SocketPartitionTransport;
+import org.apache.batchee.container.partition.SocketPartitionWorker;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.metrics.StepMetrics;
+import org.apache.batchee.spi.PartitionTransport;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.AbstractBatchlet;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.partition.AbstractPartitionAnalyzer;
+import javax.batch.api.partition.PartitionCollector;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.StepExecution;
+import javax.batch.runtime.context.StepContext;
+import javax.inject.Inject;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RemotePartitionTest {
+    private static final int PARTITIONS = 4;
+    private static final String SECRET = "remote-partition-test";
+
+    private static final Collection<String> EXECUTED = new CopyOnWriteArrayList<String>();
+
+    @Test
+    public void crashedWorkerFailsItsPartition() throws Exception {
+        final List<Worker> workers = new ArrayList<Worker>();
+        try {
+            final StringBuilder addresses = new StringBuilder();
+            for (int i = 0; i < 2; i++) {
+                final Worker worker = new Worker();
+                workers.add(worker);
+                addresses.append("localhost:").append(worker.port).append(',');
+            }
+
+            final JobOperator op = BatchRuntime.getJobOperator();
+            final Properties params = new Properties();
+            params.setProperty("workers", addresses.toString());
+            params.setProperty("secret", SECRET);
+            params.setProperty("crash", "2");
+
+            final long id = op.start("partition-remote", params);
+            assertEquals(Batches.waitFor(op, id), BatchStatus.FAILED);
+            assertEquals(new ArrayList<String>(EXECUTED), asList("0", "1", "3")); // 3 ran on the surviving worker
+
+            EXECUTED.clear();
+            params.setProperty("crash", "");
+            final long restartId = op.restart(id, params);
+            assertEquals(Batches.waitFor(op, restartId), BatchStatus.COMPLETED);
+            assertEquals(new ArrayList<String>(EXECUTED), asList("2"));
+
+            final List<StepExecution> steps = op.getStepExecutions(restartId);
+            assertEquals(steps.size(), 1);
+            assertEquals(StepExecutionImpl.class.cast(steps.iterator().next()).getUserMetrics().get("remote"), Long.valueOf(1));
+        } finally {
+            for (final Worker worker : workers) {
+                worker.process.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void stopReachesTheWorker() throws Exception {
+        final SocketPartitionWorker worker = new SocketPartitionWorker(null, 0, SECRET, 10000, ServicesManager.find()).start();
+        try {
+            final JobOperator op = BatchRuntime.getJobOperator();
+            final Properties params = new Properties();
+            params.setProperty("workers", "localhost:" + worker.getPort());
+            params.setProperty("secret", SECRET);
+
+            final long id = op.start("partition-remote-stop", params);
+            assertTrue(WaitForStop.STARTED.await(1, TimeUnit.MINUTES));
+            op.stop(id);
+            assertEquals(Batches.waitFor(op, id), BatchStatus.STOPPED);
+            assertEquals(WaitForStop.outcome, "stopped"); // not reached by the stop the batchlet gives up after a minute
+        } finally {
+            worker.close();
+        }
+    }
+
+    @Test
+    public void rejectsUnknownClients() throws Exception {
+        final SocketPartitionWorker worker = new SocketPartitionWorker(null, 0, SECRET, 10000, ServicesManager.find()).start();
+        try {
+            final Properties properties = new Properties();
+            properties.setProperty(SocketPartitionTransport.WORKERS, "localhost:" + worker.getPort());
+            properties.setProperty(SocketPartitionTransport.SECRET, "wrong");
+            try {
+                new SocketPartitionTransport(properties).execute(
+                    new PartitionTransport.PartitionRequest("<job />", 0, 0, null), new PartitionTransport.PartitionCallback() {
+                        @Override
+                        public void onCollectorData(final Serializable data) {
+                            fail();
+                        }
+                    });
+                fail("the worker accepted a client with a wrong secret");
+            } catch (final IOException e) {
+                // expected, the worker closed the connection without executing anything
+            }
+        } finally {
+            worker.close();
+        }
+    }
+
+    public static class Mapper implements PartitionMapper {
+        @Override
+        public PartitionPlan mapPartitions() throws Exception {
+            final Properties[] properties = new Properties[PARTITIONS];
+            for (int i = 0; i < PARTITIONS; i++) {
+                properties[i] = new Properties();
+                properties[i].setProperty("idx", Integer.toString(i));
+            }
+
+            final PartitionPlan plan = new PartitionPlanImpl();
+            plan.setPartitions(PARTITIONS);
+            plan.setThreads(1); // deterministic dispatching
+            plan.setPartitionProperties(properties);
+            return plan;
+        }
+    }
+
+    // executed in the worker JVMs
+    public static class Work extends AbstractBatchlet {
+        @Inject
+        @BatchProperty
+        private String idx;
+
+        @Inject
+        @BatchProperty
+        private String crash;
+
+        @Inject
+        private StepContext stepContext;
+
+        @Override
+        public String process() throws Exception {
+            if (idx.equals(crash)) {
+                System.exit(1);
+            }
+            StepMetrics.class.cast(stepContext).increment("remote", 1);
+            stepContext.setTransientUserData(idx);
+            return "ok";
+        }
+    }
+
+    // executed by the in-process worker
+    public static class WaitForStop extends AbstractBatchlet {
+        private static final CountDownLatch STARTED = new CountDownLatch(1);
+        private static volatile String outcome;
+
+        private final CountDownLatch stopped = new CountDownLatch(1);
+
+        @Override
+        public String process() throws Exception {
+            STARTED.countDown();
+            outcome = stopped.await(1, TimeUnit.MINUTES) ? "stopped" : "timeout";
+            return outcome;
+        }
+
+        @Override
+        public void stop() throws Exception {
+            stopped.countDown();
+        }
+    }
+
+    public static class Collector implements PartitionCollector {
+        @Inject
+        private StepContext stepContext;
+
+        @Override
+        public Serializable collectPartitionData() throws Exception {
+            return String.class.cast(stepContext.getTransientUserData());
+        }
+    }
+
+    public static class Analyzer extends AbstractPartitionAnalyzer {
+        @Override
+        public void analyzeCollectorData(final Serializable data) throws Exception {
+            if (data != null) {
+                EXECUTED.add(String.class.cast(data));
+            }
+        }
+    }
+
+    private static class Worker {
+        private final Process process;
+        private final int port;
+
+        private Worker() throws IOException, InterruptedException {
+            final List<String> command = new ArrayList<String>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            for (final String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+                if (!option.startsWith("-agentlib") && !option.startsWith("-javaagent") && !option.startsWith("-Xrunjdwp")) {
+                    command.add(option);
+                }
+            }
+            command.add("-D" + SocketPartitionTransport.SECRET + "=" + SECRET);
+            command.addAll(asList("-cp", System.getProperty("java.class.path"), SocketPartitionWorker.class.getName(), "0"));
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+            final AtomicInteger listening = new AtomicInteger();
+            final CountDownLatch started = new CountDownLatch(1);
+            final Thread reader = new Thread() { // reads the port then drains the output to not block the worker
+                @Override
+                public void run() {
+                    try {
+                        final BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+                        String line;
+                        while ((line = output.readLine()) != null) {
+                            final int port = line.indexOf(", port ");
+                            if (line.contains("Listening on ") && port > 0) {
+                                listening.set(Integer.parseInt(line.substring(port + ", port ".length()).trim()));
+                                started.countDown();
+                            }
+                        }
+                    } catch (final IOException e) {
+                        // no-op
+                    } finally {
+                        started.countDown();
+                    }
+                }
+            };
+            reader.setDaemon(true);
+            reader.start();
+
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+            port = listening.get();
+            assertTrue(port > 0);
+        }
+    }
+}
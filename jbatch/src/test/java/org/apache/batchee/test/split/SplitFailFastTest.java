@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.batchee.test.split;
+
+import org.apache.batchee.container.impl.controller.PartitionedStepBuilder;
+import org.apache.batchee.container.services.BatchKernelService;
+import org.apache.batchee.container.services.ServicesManager;
+import org.apache.batchee.container.services.executor.AbstractThreadPoolService;
+import org.apache.batchee.container.services.executor.BoundedThreadPoolService;
+import org.apache.batchee.spi.BatchThreadPoolService;
+import org.apache.batchee.spi.JobXMLLoaderService;
+import org.apache.batchee.spi.PersistenceManagerService;
+import org.apache.batchee.util.Batches;
+import org.testng.annotations.Test;
+
+import javax.batch.api.AbstractBatchlet;
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchRuntime;
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.StepExecution;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SplitFailFastTest {
+    private static volatile CountDownLatch started;
+    private static volatile CountDownLatch release;
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    @Test
+    public void failingFlowStopsSiblings() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final Map<String, BatchStatus> steps = run(op, "true");
+        assertEquals(steps.get("fail"), BatchStatus.FAILED);
+        assertEquals(steps.get("wait"), BatchStatus.STOPPED);
+        assertEquals(release.getCount(), 1); // stopped and not released by the test
+    }
+
+    @Test
+    public void siblingsRunToTheEndByDefault() {
+        final JobOperator op = BatchRuntime.getJobOperator();
+        final Map<String, BatchStatus> steps = run(op, "false");
+        assertEquals(steps.get("fail"), BatchStatus.FAILED);
+        assertEquals(steps.get("wait"), BatchStatus.COMPLETED);
+    }
+
+    @Test
+    public void queuedFlowsDontStart() throws InterruptedException {
+        final String prefix = AbstractThreadPoolService.DEDICATED_POOL_PREFIX + BatchThreadPoolService.WorkType.SPLIT.configName() + ".";
+        final Properties config = new Properties();
+        config.setProperty("BatchThreadPoolService", BoundedThreadPoolService.class.getName());
+        config.setProperty(prefix + BoundedThreadPoolService.BOUNDED_THREADPOOL_MIN_POOL_SIZE, "2");
+        config.setProperty(prefix + BoundedThreadPoolService.BOUNDED_THREADPOOL_MAX_POOL_SIZE, "2"); // queued flows wait for the running ones
+        final ServicesManager manager = new ServicesManager();
+        manager.init(config);
+        COUNTER.set(0);
+
+        final String jsl = manager.service(JobXMLLoaderService.class).loadJSL("split-fail-fast-queued");
+        final long id = manager.service(BatchKernelService.class).startJob(jsl, new Properties()).getExecutionId();
+
+        final PersistenceManagerService persistence = manager.service(PersistenceManagerService.class);
+        final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        BatchStatus status;
+        do {
+            status = persistence.jobOperatorGetJobExecution(id).getBatchStatus();
+            if (status == BatchStatus.COMPLETED || status == BatchStatus.FAILED || status == BatchStatus.STOPPED) {
+                break;
+            }
+            Thread.sleep(50);
+        } while (System.currentTimeMillis() < end);
+
+        assertEquals(status, BatchStatus.FAILED);
+        assertEquals(COUNTER.get(), 0);
+        for (final String flow : new String[] { "queued1", "queued2" }) {
+            final String flowJob = PartitionedStepBuilder.JOB_ID_SEPARATOR + id + PartitionedStepBuilder.JOB_ID_SEPARATOR + "split" + PartitionedStepBuilder.JOB_ID_SEPARATOR + flow;
+            final long instance = persistence.jobOperatorGetJobInstanceIds(flowJob, 0, 1).iterator().next();
+            assertEquals(persistence.jobOperatorGetJobExecutions(instance).iterator().next().getBatchStatus(), BatchStatus.STOPPED);
+        }
+    }
+
+    private static Map<String, BatchStatus> run(final JobOperator op, final String failFast) {
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        final Properties params = new Properties();
+        params.setProperty("fail-fast", failFast);
+        final long id = op.start("split-fail-fast", params);
+        if (!Boolean.parseBoolean(failFast)) { // otherwise the job would wait for the long flow until the timeout
+            try {
+                assertTrue(started.await(1, TimeUnit.MINUTES));
+                Thread.sleep(200);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        }
+        assertEquals(Batches.waitFor(op, id), BatchStatus.FAILED);
+
+        final Map<String, BatchStatus> statuses = new HashMap<String, BatchStatus>();
+        for (final StepExecution step : op.getStepExecutions(id)) {
+            statuses.put(step.getStepName(), step.getBatchStatus());
+        }
+        return statuses;
+    }
+
+    public static class Failing extends AbstractBatchlet {
+        @Override
+        public String process() throws Exception {
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+            throw new IllegalStateException("flow failed");
+        }
+    }
+
+    public static class FailingNow extends AbstractBatchlet {
+        @Override
+        public String process() throws Exception {
+            throw new IllegalStateException("flow failed");
+        }
+    }
+
+    public static class Blocking extends AbstractBatchlet {
+        private volatile boolean stopped;
+
+        @Override
+        public String process() throws Exception {
+            final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+            while (!stopped && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+            return "stopped";
+        }
+
+        @Override
+        public void stop() throws Exception {
+            stopped = true;
+        }
+    }
+
+    public static class Counting extends AbstractBatchlet {
+        @Override
+        public String process() throws Exception {
+            COUNTER.incrementAndGet();
+            return "counted";
+        }
+    }
+
+    public static class Waiting extends AbstractBatchlet {
+        private volatile boolean stopped;
+
+        @Override
+        public String process() throws Exception {
+            started.countDown();
+            final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+            while (!stopped && release.getCount() > 0 && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+            return stopped ? "stopped" : "released";
+        }
+
+        @Override
+        public void stop() throws Exception {
+            stopped = true;
+        }
+    }
+}
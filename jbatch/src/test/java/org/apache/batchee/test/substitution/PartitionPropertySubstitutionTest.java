@@ -16,7 +16,6 @@
  */
 package org.apache.batchee.test.substitution;
 
-import org.apache.batchee.container.impl.JobInstanceImpl;
 import org.apache.batchee.container.services.persistence.jpa.domain.PropertyHelper;
 import org.apache.batchee.util.Batches;
 import org.testng.annotations.Test;
@@ -72,7 +71,7 @@ public class PartitionPropertySubstitutionTest {
 		assertEquals(op.getJobExecution(id).getBatchStatus(), BatchStatus.COMPLETED);
         assertNotNull(op.getJobExecution(id).getJobParameters());
         assertEquals(jobParams, op.getJobExecution(id).getJobParameters());
-        for (final JobExecution exec: op.getJobExecutions(new JobInstanceImpl(id))) {
+        for (final JobExecution exec: op.getJobExecutions(op.getJobInstance(id))) {
             assertNotNull(exec.getJobParameters());
             assertEquals(jobParams, exec.getJobParameters());
         }
@@ -24,7 +24,8 @@ import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 
 import org.apache.batchee.container.cdi.BatchCDIInjectionExtension;
-import org.apache.batchee.spi.BatchThreadPoolService;
+import org.apache.batchee.container.services.executor.MonitoredThreadPoolService;
+import org.apache.batchee.container.services.executor.ThreadPoolStatistics;
 
 /**
  * This is an implementation of a {@link org.apache.batchee.spi.BatchThreadPoolService}
@@ -42,10 +43,11 @@ import org.apache.batchee.spi.BatchThreadPoolService;
  * proper JTA transaction handling.
  *
  */
-public class AsyncEjbBatchThreadPoolService implements BatchThreadPoolService {
+public class AsyncEjbBatchThreadPoolService implements MonitoredThreadPoolService {
     
     private BeanManager beanManager;
     private ThreadExecutorEjb threadExecutorEjb;
+    private final ThreadPoolStatistics statistics = new ThreadPoolStatistics();
     
     @Override
     public void init(Properties batchConfig) {
@@ -60,7 +62,21 @@ public class AsyncEjbBatchThreadPoolService implements BatchThreadPoolService {
     
     @Override
     public void executeTask(Runnable work, Object config) {
-        threadExecutorEjb.executeTask(work, config);
+        final Runnable task = statistics.wrap(work);
+        boolean accepted = false;
+        try {
+            threadExecutorEjb.executeTask(task, config);
+            accepted = true;
+        } finally {
+            if (!accepted) { // the container refused the asynchronous invocation
+                statistics.rejected();
+            }
+        }
+    }
+
+    @Override
+    public ThreadPoolStatistics getStatistics() {
+        return statistics;
     }
     
     @Override